@@ -0,0 +1,121 @@
+package com.rabobank.banking.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Account read settings, bound from {@code banking.account.*}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "banking.account")
+@Getter
+@Setter
+public class AccountProperties {
+
+	private Balances balances = new Balances();
+
+	private Totals totals = new Totals();
+
+	private History history = new History();
+
+	private Snapshots snapshots = new Snapshots();
+
+	private Statements statements = new Statements();
+
+	/**
+	 * Statement export of an account's transactions.
+	 */
+	@Getter
+	@Setter
+	public static class Statements {
+
+		/** Rows the statement cursor fetches from the database at a time. */
+		private int fetchSize = 1000;
+
+		/** Characters buffered before they are written to the response. */
+		private int writeBufferSize = 64 * 1024;
+
+		/** Compress the statement when the client accepts gzip. */
+		private boolean gzipEnabled = true;
+	}
+
+	/**
+	 * End-of-day balance snapshots of active accounts.
+	 */
+	@Getter
+	@Setter
+	public static class Snapshots {
+
+		/** Snapshot every completed day in the background. */
+		private boolean enabled = true;
+
+		/**
+		 * How long after midnight a day is left alone before it is snapshotted,
+		 * so transactions dated just before midnight have committed.
+		 */
+		private Duration settleDelay = Duration.ofMinutes(5);
+
+		/** How often the job looks for days to snapshot; the first look runs at startup. */
+		private Duration checkInterval = Duration.ofHours(1);
+
+		/** Accounts snapshotted per statement and transaction. */
+		private int chunkSize = 1000;
+
+		/**
+		 * Chunks snapshotted in parallel. Each holds a connection, plus one for
+		 * the job itself.
+		 */
+		private int threads = 4;
+	}
+
+	/**
+	 * Paged transaction history of an account.
+	 */
+	@Getter
+	@Setter
+	public static class History {
+
+		/** Transactions per page when the request doesn't ask for a size. */
+		private int defaultPageSize = 50;
+
+		/** Largest page served; larger requests get this many. */
+		private int maxPageSize = 500;
+	}
+
+	/**
+	 * Running totals of active accounts and their balance.
+	 */
+	@Getter
+	@Setter
+	public static class Totals {
+
+		/**
+		 * How often the running totals are checked against a full scan and
+		 * corrected; the first check at startup initialises them.
+		 */
+		private Duration reconcileInterval = Duration.ofMinutes(5);
+	}
+
+	/**
+	 * Paged and streamed balance listings.
+	 */
+	@Getter
+	@Setter
+	public static class Balances {
+
+		/** Accounts per page when the request doesn't ask for a size. */
+		private int defaultPageSize = 100;
+
+		/** Largest page served; larger requests get this many. */
+		private int maxPageSize = 1000;
+
+		/** Rows the streaming cursor fetches from the database at a time. */
+		private int streamFetchSize = 500;
+	}
+}
@@ -0,0 +1,87 @@
+package com.rabobank.banking.config;
+
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import com.rabobank.banking.domain.model.Card;
+import com.rabobank.banking.service.card.CardLookupCache;
+import com.rabobank.banking.service.card.CardNumberScreen;
+
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Hooks card inserts, updates and deletes made through Hibernate into the card
+ * lookup cache and the card number filter. Registered on the session factory
+ * here rather than with {@code @EntityListeners}, so the model does not depend
+ * on the services it feeds.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Configuration
+public class CardEventListenerConfig {
+
+	@Bean
+	public CardEventListener cardEventListener(EntityManagerFactory entityManagerFactory,
+			CardLookupCache cardLookupCache, CardNumberScreen cardNumberScreen) {
+		CardEventListener listener = new CardEventListener(cardLookupCache, cardNumberScreen);
+		EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+				.getServiceRegistry().getService(EventListenerRegistry.class);
+		registry.appendListeners(EventType.POST_INSERT, listener);
+		registry.appendListeners(EventType.POST_UPDATE, listener);
+		registry.appendListeners(EventType.POST_DELETE, listener);
+		return listener;
+	}
+
+	/**
+	 * New card numbers go into the filter so the card can be used right away;
+	 * changed or deleted cards are dropped from the cache.
+	 */
+	public static class CardEventListener
+			implements PostInsertEventListener, PostUpdateEventListener, PostDeleteEventListener {
+
+		private final CardLookupCache cardLookupCache;
+		private final CardNumberScreen cardNumberScreen;
+
+		CardEventListener(CardLookupCache cardLookupCache, CardNumberScreen cardNumberScreen) {
+			this.cardLookupCache = cardLookupCache;
+			this.cardNumberScreen = cardNumberScreen;
+		}
+
+		@Override
+		public void onPostInsert(PostInsertEvent event) {
+			if (event.getEntity() instanceof Card card) {
+				cardNumberScreen.register(card.getCardNumber());
+			}
+		}
+
+		@Override
+		public void onPostUpdate(PostUpdateEvent event) {
+			if (event.getEntity() instanceof Card card) {
+				cardLookupCache.invalidate(card.getId(), card.getCardNumber());
+			}
+		}
+
+		@Override
+		public void onPostDelete(PostDeleteEvent event) {
+			if (event.getEntity() instanceof Card card) {
+				cardLookupCache.invalidate(card.getId(), card.getCardNumber());
+			}
+		}
+
+		@Override
+		public boolean requiresPostCommitHandling(EntityPersister persister) {
+			return false;
+		}
+	}
+}
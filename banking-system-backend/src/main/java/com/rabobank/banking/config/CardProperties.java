@@ -0,0 +1,79 @@
+package com.rabobank.banking.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Card handling settings, bound from {@code banking.card.*}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "banking.card")
+@Getter
+@Setter
+public class CardProperties {
+
+	/**
+	 * Reject card numbers failing the Luhn checksum before any lookup. Off by
+	 * default because the sample data contains non-Luhn test numbers.
+	 */
+	private boolean luhnCheckEnabled = false;
+
+	private Cache cache = new Cache();
+
+	private Filter filter = new Filter();
+
+	/**
+	 * Bloom filter of all known card numbers, consulted before any database
+	 * access.
+	 */
+	@Getter
+	@Setter
+	public static class Filter {
+
+		private boolean enabled = true;
+
+		/**
+		 * Cards the filter is sized for. Memory is about 1.2 bytes per card at 1%
+		 * false positives, e.g. 60 MB for 50 million cards.
+		 */
+		private long expectedCards = 1_000_000;
+
+		/** Share of unknown card numbers that still pass the filter. */
+		private double falsePositiveRate = 0.01;
+
+		/** Rows read per query while building the filter. */
+		private int loadPageSize = 10_000;
+
+		/**
+		 * Rebuild from the table at this interval to pick up cards created by
+		 * other instances; zero to build only at startup.
+		 */
+		private Duration refreshInterval = Duration.ofHours(1);
+	}
+
+	/**
+	 * In-process cache of the card details checked on every withdraw and
+	 * transfer.
+	 */
+	@Getter
+	@Setter
+	public static class Cache {
+
+		private boolean enabled = true;
+
+		/** Cards kept, least recently used evicted first. */
+		private int maxSize = 100_000;
+
+		/**
+		 * Entries are reloaded this long after they were cached, which bounds how
+		 * stale a card changed by another instance can be here.
+		 */
+		private Duration ttl = Duration.ofMinutes(5);
+	}
+}
@@ -0,0 +1,46 @@
+package com.rabobank.banking.config;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings for the ledger engine that applies withdrawals and transfers, bound
+ * from {@code banking.ledger.*}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "banking.ledger")
+@Getter
+@Setter
+public class LedgerProperties {
+
+	/**
+	 * {@code database} posts through JPA/Postgres row locks; {@code in-memory}
+	 * posts on a single writer thread backed by a local journal.
+	 */
+	private String engine = "database";
+
+	/** Append-only journal file used by the in-memory engine. */
+	private Path journalPath = Path.of("data", "ledger.journal");
+
+	/** Journal is truncated once it exceeds this size and is fully persisted. */
+	private long journalMaxBytes = 64L * 1024 * 1024;
+
+	/** Postings waiting for the writer thread before new ones are rejected. */
+	private int queueCapacity = 65536;
+
+	/** Postings applied per fsync. */
+	private int maxBatchSize = 512;
+
+	/** Postings written to Postgres per database transaction. */
+	private int persistBatchSize = 500;
+
+	/** How long a caller waits for its posting to become durable. */
+	private Duration postingTimeout = Duration.ofSeconds(5);
+}
@@ -0,0 +1,85 @@
+package com.rabobank.banking.config;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+
+import com.rabobank.banking.datasource.ClientBindingFilter;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.datasource.ReplicaLagMonitor;
+import com.rabobank.banking.datasource.ReplicaRoutingDataSource;
+import com.zaxxer.hikari.HikariDataSource;
+
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Primary and read-replica connection pools behind one routing DataSource,
+ * when {@code banking.datasource.replica.enabled} is set. The primary pool is
+ * configured by {@code spring.datasource.*} as before; Flyway and every
+ * write use it.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Configuration
+@ConditionalOnProperty(prefix = "banking.datasource.replica", name = "enabled", havingValue = "true")
+public class ReplicaDataSourceConfig {
+
+	@Bean
+	@ConfigurationProperties("spring.datasource.hikari")
+	public HikariDataSource primaryDataSource(DataSourceProperties properties) {
+		HikariDataSource dataSource = properties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+		dataSource.setPoolName("primary");
+		return dataSource;
+	}
+
+	@Bean
+	public HikariDataSource replicaDataSource(DataSourceProperties primary, ReplicaProperties replica) {
+		if (replica.getUrl() == null || replica.getUrl().isBlank()) {
+			throw new IllegalStateException("banking.datasource.replica.url is required when the replica is enabled");
+		}
+		HikariDataSource dataSource = new HikariDataSource();
+		dataSource.setPoolName("replica");
+		dataSource.setJdbcUrl(replica.getUrl());
+		dataSource.setUsername(replica.getUsername() != null ? replica.getUsername() : primary.determineUsername());
+		dataSource.setPassword(replica.getPassword() != null ? replica.getPassword() : primary.determinePassword());
+		dataSource.setDriverClassName(primary.determineDriverClassName());
+		dataSource.setMaximumPoolSize(replica.getMaximumPoolSize());
+		dataSource.setMinimumIdle(Math.min(replica.getMinimumIdle(), replica.getMaximumPoolSize()));
+		dataSource.setConnectionTimeout(replica.getConnectionTimeout().toMillis());
+		// Anything that writes by mistake fails instead of diverging from the primary
+		dataSource.setReadOnly(true);
+		return dataSource;
+	}
+
+	@Bean
+	public ReplicaLagMonitor replicaLagMonitor(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+			ReplicaProperties replica, MeterRegistry meterRegistry) {
+		return new ReplicaLagMonitor(primaryDataSource, replicaDataSource, replica, meterRegistry);
+	}
+
+	@Bean
+	public ClientWriteTracker clientWriteTracker(ReplicaProperties replica) {
+		return new ClientWriteTracker(replica.getStickyWindow());
+	}
+
+	@Bean
+	public ClientBindingFilter clientBindingFilter(ClientWriteTracker clientWriteTracker, ReplicaProperties replica) {
+		return new ClientBindingFilter(clientWriteTracker, replica.getClientHeader());
+	}
+
+	@Bean
+	@Primary
+	public DataSource dataSource(HikariDataSource primaryDataSource, HikariDataSource replicaDataSource,
+			ReplicaLagMonitor replicaLagMonitor, ClientWriteTracker clientWriteTracker, MeterRegistry meterRegistry) {
+		// Lazy, so a transaction picks its target once its read-only flag is known
+		return new LazyConnectionDataSourceProxy(new ReplicaRoutingDataSource(primaryDataSource, replicaDataSource,
+				replicaLagMonitor, clientWriteTracker, meterRegistry));
+	}
+}
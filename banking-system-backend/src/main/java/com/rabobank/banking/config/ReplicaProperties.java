@@ -0,0 +1,54 @@
+package com.rabobank.banking.config;
+
+import java.time.Duration;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Settings for the read replica that serves read-only transactions, bound from
+ * {@code banking.datasource.replica.*}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "banking.datasource.replica")
+@Getter
+@Setter
+public class ReplicaProperties {
+
+	/** Route read-only transactions to the replica; off means everything uses the primary. */
+	private boolean enabled = false;
+
+	private String url;
+
+	/** Defaults to {@code spring.datasource.username}. */
+	private String username;
+
+	/** Defaults to {@code spring.datasource.password}. */
+	private String password;
+
+	/** Connections of the replica pool, on top of the primary's. */
+	private int maximumPoolSize = 10;
+
+	private int minimumIdle = 2;
+
+	private Duration connectionTimeout = Duration.ofSeconds(5);
+
+	/** Replication delay above which reads go to the primary. */
+	private Duration maxLag = Duration.ofSeconds(5);
+
+	/** How often the replication delay is measured. */
+	private Duration lagCheckInterval = Duration.ofSeconds(1);
+
+	/**
+	 * How long a client's read-only transactions stay on the primary after it
+	 * committed a write, so it reads its own writes.
+	 */
+	private Duration stickyWindow = Duration.ofSeconds(5);
+
+	/** Request header identifying a client; the remote address when absent. */
+	private String clientHeader = "X-Client-Id";
+}
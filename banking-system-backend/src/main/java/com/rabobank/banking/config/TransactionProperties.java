@@ -0,0 +1,369 @@
+package com.rabobank.banking.config;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+import org.springframework.boot.context.properties.ConfigurationProperties;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.payment.FeeRule;
+
+import lombok.Getter;
+import lombok.Setter;
+
+/**
+ * Tuning options for transaction processing, bound from
+ * {@code banking.transaction.*}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@ConfigurationProperties(prefix = "banking.transaction")
+@Getter
+@Setter
+public class TransactionProperties {
+
+	/**
+	 * How withdrawals debit the account: {@code ENTITY} locks and loads the
+	 * account, {@code ATOMIC} uses a single guarded UPDATE.
+	 */
+	private WithdrawMode withdrawMode = WithdrawMode.ENTITY;
+
+	/**
+	 * How withdraw/transfer guard the accounts they update: {@code PESSIMISTIC}
+	 * row locks or {@code OPTIMISTIC} version checks with retry.
+	 */
+	private ConcurrencyMode concurrencyMode = ConcurrencyMode.PESSIMISTIC;
+
+	/**
+	 * Credit card fee as a fraction of the amount, used when
+	 * {@code fees.rules} has no CREDIT rules.
+	 */
+	private BigDecimal creditCardFeePercentage = new BigDecimal("0.01");
+
+	private Fees fees = new Fees();
+
+	private Retry retry = new Retry();
+
+	private Lanes lanes = new Lanes();
+
+	private Idempotency idempotency = new Idempotency();
+
+	private Id id = new Id();
+
+	private Async async = new Async();
+
+	private Batch batch = new Batch();
+
+	private Buckets buckets = new Buckets();
+
+	private GroupCommit groupCommit = new GroupCommit();
+
+	private Partitions partitions = new Partitions();
+
+	private Archive archive = new Archive();
+
+	private Rollups rollups = new Rollups();
+
+	public enum WithdrawMode {
+		ENTITY,
+		ATOMIC
+	}
+
+	public enum ConcurrencyMode {
+		PESSIMISTIC,
+		OPTIMISTIC
+	}
+
+	/**
+	 * Fee rules per card type, compiled by
+	 * {@link com.rabobank.banking.domain.payment.FeeRuleEngine}.
+	 */
+	@Getter
+	@Setter
+	public static class Fees {
+
+		/**
+		 * Fee bands per card type. A card type without rules pays no fee, except
+		 * CREDIT, which then pays {@code credit-card-fee-percentage}.
+		 */
+		private Map<CardType, List<FeeRule>> rules = new EnumMap<>(CardType.class);
+	}
+
+	/**
+	 * Monthly partitions of the transactions table.
+	 */
+	@Getter
+	@Setter
+	public static class Partitions {
+
+		public enum RetentionAction {
+			/** Detach expired partitions, keeping them as standalone tables. */
+			DETACH,
+			/** Drop expired partitions with their rows. */
+			DROP,
+			/**
+			 * Write expired partitions to archive segment files, then drop them;
+			 * their rows stay readable through the transaction history on every
+			 * instance that can read the archive directory, which should therefore
+			 * be shared. Other instances refuse history reads of archived months.
+			 */
+			ARCHIVE
+		}
+
+		/** Create upcoming partitions and retire expired ones in the background. */
+		private boolean enabled = true;
+
+		/** Months after the current one that always have a partition. */
+		private int monthsAhead = 3;
+
+		/**
+		 * Months of transactions kept, including the current one; older
+		 * partitions are retired. 0 keeps every partition.
+		 */
+		private int retentionMonths = 0;
+
+		private RetentionAction retentionAction = RetentionAction.DETACH;
+
+		/** How often partitions are checked; the first check runs at startup. */
+		private Duration checkInterval = Duration.ofHours(1);
+
+		/**
+		 * Longest a partition change waits for its table locks before giving up
+		 * until the next check, so it never stalls other statements for long.
+		 */
+		private Duration lockTimeout = Duration.ofSeconds(5);
+	}
+
+	/**
+	 * Hourly fee and volume totals per card type and transaction type.
+	 */
+	@Getter
+	@Setter
+	public static class Rollups {
+
+		/**
+		 * How often the totals of committed transactions are added to the rollup
+		 * table. Queries on this instance include what is not flushed yet.
+		 */
+		private Duration flushInterval = Duration.ofSeconds(10);
+
+		/** Parallel range scans of a backfill. */
+		private int backfillThreads = 4;
+
+		/** Range of transaction dates rebuilt per scan and transaction. */
+		private Duration backfillChunk = Duration.ofDays(1);
+	}
+
+	/**
+	 * Segment files holding transactions moved out of the database.
+	 */
+	@Getter
+	@Setter
+	public static class Archive {
+
+		/** Directory of the segment files, one per archived month. */
+		private String directory = "data/archive";
+
+		/** Rows per compressed block; a history read inflates whole blocks. */
+		private int blockRows = 4096;
+
+		/** Decoded blocks kept in memory per segment. */
+		private int cachedBlocks = 16;
+	}
+
+	/**
+	 * Group commit of concurrent withdrawals and transfers.
+	 */
+	@Getter
+	@Setter
+	public static class GroupCommit {
+
+		/** Commit concurrently arriving requests together in one transaction. */
+		private boolean enabled = false;
+
+		/**
+		 * How long a committer waits for more requests before committing a group
+		 * that isn't full yet. Adds up to this much latency per request.
+		 */
+		private Duration window = Duration.ofMillis(2);
+
+		/** Most requests committed in one transaction. */
+		private int maxGroupSize = 32;
+
+		/**
+		 * Groups committed at the same time, i.e. the database connections group
+		 * commit occupies.
+		 */
+		private int committers = 2;
+	}
+
+	/**
+	 * Balance buckets for heavily credited accounts.
+	 */
+	@Getter
+	@Setter
+	public static class Buckets {
+
+		/**
+		 * Look up the receiver's bucket count on every transfer and credit a bucket
+		 * row instead of locking the receiver when it has any.
+		 */
+		private boolean enabled = false;
+
+		/** Upper bound for the bucket count of a single account. */
+		private int maxPerAccount = 64;
+	}
+
+	/**
+	 * Bulk transfer endpoint.
+	 */
+	@Getter
+	@Setter
+	public static class Batch {
+
+		/**
+		 * Transfers applied per database transaction. Larger chunks amortise more
+		 * commits but hold their account locks longer.
+		 */
+		private int chunkSize = 200;
+	}
+
+	/**
+	 * Background processing of requests submitted with {@code async=true}.
+	 */
+	@Getter
+	@Setter
+	public static class Async {
+
+		/** Accepted requests waiting for a worker; beyond this callers get 429. */
+		private int queueCapacity = 10_000;
+
+		/** Worker threads, i.e. the number of concurrent database transactions. */
+		private int workers = 4;
+
+		/** Requests a worker takes from the queue at a time. */
+		private int batchSize = 50;
+
+		/** How long finished results stay in memory for status polls. */
+		private Duration resultRetention = Duration.ofMinutes(10);
+
+		/**
+		 * Pending requests not finished after this long, e.g. because their
+		 * instance went down, are taken over by another worker.
+		 */
+		private Duration recoverAfter = Duration.ofMinutes(5);
+
+		/** How long the stored outcome of a request answers status polls. */
+		private Duration statusRetention = Duration.ofDays(7);
+
+		/** How often stored outcomes past their retention are deleted. */
+		private Duration purgeInterval = Duration.ofHours(1);
+
+		/** Stored requests deleted per purge statement. */
+		private int purgeBatchSize = 1000;
+
+		/** Upper bound for a status long-poll. */
+		private Duration maxWait = Duration.ofSeconds(30);
+	}
+
+	/**
+	 * Transaction id format.
+	 */
+	@Getter
+	@Setter
+	public static class Id {
+
+		/**
+		 * {@code uuid} (the original random format, used when unset) or
+		 * {@code time-ordered} (sortable, index friendly).
+		 */
+		private String strategy = "uuid";
+
+		/**
+		 * 0-1023, must be unique per running instance when using
+		 * {@code time-ordered}.
+		 */
+		private int nodeId = 0;
+	}
+
+	/**
+	 * Replay of withdraw/transfer requests carrying an {@code Idempotency-Key}
+	 * header.
+	 */
+	@Getter
+	@Setter
+	public static class Idempotency {
+
+		/** Completed responses kept in memory, least recently used evicted first. */
+		private int cacheSize = 10_000;
+
+		/** How long a completed response stays in the in-memory cache. */
+		private Duration cacheTtl = Duration.ofHours(1);
+
+		/** How long a duplicate waits for the in-flight original to finish. */
+		private Duration inFlightTimeout = Duration.ofSeconds(10);
+
+		/**
+		 * Age after which a pending claim is considered abandoned and may be taken
+		 * over by a retry of the same request.
+		 */
+		private Duration staleClaimAfter = Duration.ofMinutes(1);
+
+		/** How long a key is kept; a retry after that runs as a new request. */
+		private Duration retention = Duration.ofHours(24);
+
+		/** How often keys past their retention are deleted. */
+		private Duration purgeInterval = Duration.ofHours(1);
+
+		/** Keys deleted per purge statement. */
+		private int purgeBatchSize = 1000;
+	}
+
+	/**
+	 * In-process serial lanes that order work per account before it reaches the
+	 * database.
+	 */
+	@Getter
+	@Setter
+	public static class Lanes {
+
+		private boolean enabled = false;
+
+		/** Number of lanes, rounded up to a power of two. */
+		private int count = 64;
+
+		/** How long a request may queue for its lane(s) before giving up. */
+		private Duration acquireTimeout = Duration.ofSeconds(5);
+	}
+
+	/**
+	 * Retry policy for transactions that lose a lock race (lock timeout, deadlock
+	 * or serialization failure).
+	 */
+	@Getter
+	@Setter
+	public static class Retry {
+
+		/** Total attempts including the first one. */
+		private int maxAttempts = 3;
+
+		/**
+		 * Total attempts in optimistic mode, where conflicts are detected at commit
+		 * and retried rather than waited out.
+		 */
+		private int optimisticMaxAttempts = 5;
+
+		/**
+		 * Backoff before the second attempt, doubled on every further attempt. The
+		 * actual sleep is jittered between half and the full value.
+		 */
+		private Duration initialBackoff = Duration.ofMillis(20);
+
+		/** Upper bound for a single backoff. */
+		private Duration maxBackoff = Duration.ofMillis(200);
+	}
+}
@@ -1,23 +1,49 @@
 package com.rabobank.banking.controller;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.AccountBalanceAtResponseDto;
+import com.rabobank.banking.dto.response.AccountBalancePageResponseDto;
+import com.rabobank.banking.dto.response.AccountBalanceSummaryResponseDto;
 import com.rabobank.banking.dto.response.AllAccountsBalanceResponseDto;
+import com.rabobank.banking.dto.response.TransactionHistoryPageResponseDto;
+import com.rabobank.banking.service.AccountBalanceHistoryService;
 import com.rabobank.banking.service.AccountService;
+import com.rabobank.banking.service.AccountStatementService;
+import com.rabobank.banking.service.BucketedBalanceService;
+import com.rabobank.banking.service.TransactionHistoryService;
+import com.rabobank.banking.service.statement.StatementFormat;
+import com.rabobank.banking.service.statement.StatementWriter;
 import io.swagger.v3.oas.annotations.Operation;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
+import org.springframework.web.bind.annotation.PutMapping;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestHeader;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
 /**
  * REST controller for managing bank accounts.
  *
  * Provides endpoints to view all accounts and check their
- * current balances. This controller is read-only and delegates
+ * current balances, page by page, streamed or as totals, to look up a past balance, to page through their transaction history or export it as a statement, and to spread the credits of heavily credited accounts
+ * over balance buckets.
  *
  * @author Sweta Rabobank Assignment
  * @version 1.0.0
@@ -29,10 +55,17 @@ import org.springframework.web.bind.annotation.RestController;
 @Tag(name = "Accounts", description = "Account management endpoints")
 public class AccountController {
 
+	private static final String NDJSON = "application/x-ndjson";
+
 	private final AccountService accountService;
+	private final BucketedBalanceService bucketedBalanceService;
+	private final TransactionHistoryService transactionHistoryService;
+	private final AccountBalanceHistoryService accountBalanceHistoryService;
+	private final AccountStatementService accountStatementService;
+	private final ObjectMapper objectMapper;
 
 	@GetMapping("/balances")
-	@Operation(summary = "Get all account balances", description = "Retrieves balance information for all active accounts including user details and card information")
+	@Operation(summary = "Get all account balances", description = "Retrieves balance information for all active accounts including user details and card information. Loads every account at once; prefer /balances/page, /balances/stream and /balances/summary.", deprecated = true)
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved account balances"),
 			@ApiResponse(responseCode = "500", description = "Internal server error") })
 	public ResponseEntity<AllAccountsBalanceResponseDto> getAllAccountBalances() {
@@ -40,4 +73,128 @@ public class AccountController {
 		AllAccountsBalanceResponseDto response = accountService.getAllAccountBalances();
 		return ResponseEntity.ok(response);
 	}
-}
\ No newline at end of file
+
+	@GetMapping("/balances/page")
+	@Operation(summary = "Get a page of account balances", description = "Retrieves active account balances in accountId order. Pass the returned nextCursor to get the following page; it is absent on the last page.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved the page"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor") })
+	public ResponseEntity<AccountBalancePageResponseDto> getAccountBalancesPage(
+			@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+		log.info("GET /api/v1/accounts/balances/page - limit={}", limit);
+		return ResponseEntity.ok(accountService.getAccountBalancesPage(cursor, limit));
+	}
+
+	@GetMapping(value = "/balances/stream", produces = NDJSON)
+	@Operation(summary = "Stream all account balances", description = "Streams every active account balance as newline-delimited JSON, one account per line, in accountId order")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Balances streamed") })
+	public ResponseEntity<StreamingResponseBody> streamAccountBalances() {
+		log.info("GET /api/v1/accounts/balances/stream - Streaming account balances");
+		StreamingResponseBody body = out -> {
+			try (SequenceWriter writer = objectMapper.writer().withRootValueSeparator("\n").writeValues(out)) {
+				accountService.forEachAccountBalance(account -> {
+					try {
+						writer.write(account);
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+				writer.flush();
+				out.write('\n');
+			}
+		};
+		return ResponseEntity.ok().contentType(MediaType.parseMediaType(NDJSON)).body(body);
+	}
+
+	@GetMapping("/balances/summary")
+	@Operation(summary = "Get account balance totals", description = "Retrieves the number of active accounts and their total balance from running totals, without reading the accounts")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved the totals") })
+	public ResponseEntity<AccountBalanceSummaryResponseDto> getAccountBalanceSummary() {
+		log.info("GET /api/v1/accounts/balances/summary - Fetching account balance totals");
+		return ResponseEntity.ok(accountService.getAccountBalanceSummary());
+	}
+
+	@GetMapping("/users/{userId}/balances")
+	@Operation(summary = "Get account balances of a user", description = "Retrieves balance information for every account of the user, including inactive accounts and accounts without a card")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved the user's balances") })
+	public ResponseEntity<AllAccountsBalanceResponseDto> getAccountBalancesByUser(@PathVariable Long userId) {
+		log.info("GET /api/v1/accounts/users/{}/balances - Fetching account balances of user", userId);
+		return ResponseEntity.ok(accountService.getAccountBalancesByUser(userId));
+	}
+
+	@GetMapping("/{accountId}/balance-at")
+	@Operation(summary = "Get the balance of an account at a point in time", description = "Derives the balance from the nearest end-of-day snapshot before the given time and the transactions since")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved the balance"),
+			@ApiResponse(responseCode = "400", description = "Invalid time, or the transactions needed are archived"),
+			@ApiResponse(responseCode = "404", description = "Account not found") })
+	public ResponseEntity<AccountBalanceAtResponseDto> getBalanceAt(@PathVariable String accountId,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime at) {
+		log.info("GET /api/v1/accounts/{}/balance-at - at={}", accountId, at);
+		return ResponseEntity.ok(accountBalanceHistoryService.getBalanceAt(accountId, at));
+	}
+
+	@GetMapping("/{accountId}/transactions")
+	@Operation(summary = "Get the transaction history of an account", description = "Retrieves withdrawals, outgoing transfers and received transfers of the account, newest first. Pass the returned nextCursor to get the following page; it is absent on the last page.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved the page"),
+			@ApiResponse(responseCode = "400", description = "Invalid cursor, date range or type"),
+			@ApiResponse(responseCode = "404", description = "Account not found") })
+	public ResponseEntity<TransactionHistoryPageResponseDto> getTransactionHistory(@PathVariable String accountId,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@RequestParam(required = false) Transaction.TransactionType type,
+			@RequestParam(required = false) String cursor, @RequestParam(required = false) Integer limit) {
+		log.info("GET /api/v1/accounts/{}/transactions - from={}, to={}, type={}, limit={}", accountId, from, to,
+				type, limit);
+		return ResponseEntity
+				.ok(transactionHistoryService.getHistory(accountId, from, to, type, cursor, limit));
+	}
+
+	@GetMapping(value = "/{accountId}/statement", produces = { "text/csv", NDJSON })
+	@Operation(summary = "Export an account statement", description = "Streams the transactions of the period oldest first, as CSV or newline-delimited JSON, between the opening and closing balance and with the running balance after each transaction. Compressed with gzip when the client accepts it.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Statement streamed"),
+			@ApiResponse(responseCode = "400", description = "Invalid period or format, or the period starts in archived months"),
+			@ApiResponse(responseCode = "404", description = "Account not found") })
+	public ResponseEntity<StreamingResponseBody> exportStatement(@PathVariable String accountId,
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@RequestParam(defaultValue = "CSV") StatementFormat format,
+			@RequestHeader(value = HttpHeaders.ACCEPT_ENCODING, required = false) String acceptEncoding) {
+		log.info("GET /api/v1/accounts/{}/statement - from={}, to={}, format={}", accountId, from, to, format);
+		accountStatementService.validate(accountId, from, to);
+		boolean gzip = accountStatementService.useGzip(acceptEncoding);
+		StreamingResponseBody body = out -> {
+			try (StatementWriter writer = accountStatementService.openWriter(format, out, gzip)) {
+				accountStatementService.export(accountId, from, to, writer);
+			}
+		};
+		ResponseEntity.BodyBuilder response = ResponseEntity.ok()
+				.contentType(MediaType.parseMediaType(format.mediaType()))
+				.header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"statement-" + accountId + "."
+						+ format.extension() + "\"")
+				.header(HttpHeaders.VARY, HttpHeaders.ACCEPT_ENCODING);
+		if (gzip) {
+			response.header(HttpHeaders.CONTENT_ENCODING, "gzip");
+		}
+		return response.body(body);
+	}
+
+	@PutMapping("/{accountId}/active")
+	@Operation(summary = "Activate or deactivate an account", description = "Inactive accounts are left out of balance listings and totals")
+	@ApiResponses(value = { @ApiResponse(responseCode = "204", description = "Account updated"),
+			@ApiResponse(responseCode = "404", description = "Account not found") })
+	public ResponseEntity<Void> setActive(@PathVariable String accountId, @RequestParam boolean active) {
+		log.info("PUT /api/v1/accounts/{}/active - active={}", accountId, active);
+		accountService.setActive(accountId, active);
+		return ResponseEntity.noContent().build();
+	}
+
+	@PutMapping("/{accountId}/buckets")
+	@Operation(summary = "Set balance bucket count", description = "Spreads incoming credits of a heavily credited account over the given number of balance rows; 0 turns bucketing off and folds the buckets back into the account balance")
+	@ApiResponses(value = { @ApiResponse(responseCode = "204", description = "Bucket count updated"),
+			@ApiResponse(responseCode = "400", description = "Bucket count out of range"),
+			@ApiResponse(responseCode = "404", description = "Account not found") })
+	public ResponseEntity<Void> setBalanceBuckets(@PathVariable String accountId, @RequestParam int count) {
+		log.info("PUT /api/v1/accounts/{}/buckets - count={}", accountId, count);
+		bucketedBalanceService.configureBuckets(accountId, count);
+		return ResponseEntity.noContent().build();
+	}
+}
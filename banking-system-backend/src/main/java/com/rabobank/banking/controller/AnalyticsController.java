@@ -0,0 +1,69 @@
+package com.rabobank.banking.controller;
+
+import java.time.LocalDateTime;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.RollupBackfillResponseDto;
+import com.rabobank.banking.dto.response.TransactionRollupResponseDto;
+import com.rabobank.banking.service.analytics.RollupGranularity;
+import com.rabobank.banking.service.analytics.TransactionRollupService;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for transaction analytics.
+ *
+ * Serves fee, volume and count totals per hour or day, card type and
+ * transaction type from the rollup buckets, and rebuilds those buckets from
+ * the transaction history.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/v1/analytics")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Analytics", description = "Transaction analytics endpoints")
+public class AnalyticsController {
+
+	private final TransactionRollupService transactionRollupService;
+
+	@GetMapping("/rollups")
+	@Operation(summary = "Get transaction totals", description = "Returns the count, amount, fee and total amount of successful transactions per hour or day, card type and transaction type, plus the totals of the period. The period is widened to whole buckets.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved the totals"),
+			@ApiResponse(responseCode = "400", description = "Invalid period, granularity, card type or type") })
+	public ResponseEntity<TransactionRollupResponseDto> getRollups(
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to,
+			@RequestParam(defaultValue = "DAY") RollupGranularity granularity,
+			@RequestParam(required = false) CardType cardType,
+			@RequestParam(required = false) Transaction.TransactionType type) {
+		log.info("GET /api/v1/analytics/rollups - from={}, to={}, granularity={}, cardType={}, type={}", from, to,
+				granularity, cardType, type);
+		return ResponseEntity.ok(transactionRollupService.query(from, to, granularity, cardType, type));
+	}
+
+	@PostMapping("/rollups/backfill")
+	@Operation(summary = "Rebuild transaction totals", description = "Recomputes the hourly totals of the period from the transactions, scanning ranges in parallel. Stops before the hours that may still be counted in memory.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Totals rebuilt"),
+			@ApiResponse(responseCode = "400", description = "Invalid period, or the period starts in archived months") })
+	public ResponseEntity<RollupBackfillResponseDto> backfillRollups(
+			@RequestParam @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime from,
+			@RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE_TIME) LocalDateTime to) {
+		log.info("POST /api/v1/analytics/rollups/backfill - from={}, to={}", from, to);
+		return ResponseEntity.ok(transactionRollupService.backfill(from, to));
+	}
+}
@@ -0,0 +1,56 @@
+package com.rabobank.banking.controller;
+
+import java.util.List;
+import java.util.Map;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.payment.FeeRule;
+import com.rabobank.banking.domain.payment.FeeRuleEngine;
+import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.responses.ApiResponse;
+import io.swagger.v3.oas.annotations.responses.ApiResponses;
+import io.swagger.v3.oas.annotations.tags.Tag;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PutMapping;
+import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * REST controller for the card fee rules.
+ *
+ * Shows the fee bands in effect per card type and replaces them without a
+ * restart; transactions in flight keep the rules they started with.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@RestController
+@RequestMapping("/api/v1/fees")
+@RequiredArgsConstructor
+@Slf4j
+@Tag(name = "Fees", description = "Card fee rule endpoints")
+public class FeeController {
+
+	private final FeeRuleEngine feeRuleEngine;
+
+	@GetMapping("/rules")
+	@Operation(summary = "Get fee rules", description = "Returns the fee bands in effect per card type")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Successfully retrieved fee rules") })
+	public ResponseEntity<Map<CardType, List<FeeRule>>> getFeeRules() {
+		return ResponseEntity.ok(feeRuleEngine.rules());
+	}
+
+	@PutMapping("/rules")
+	@Operation(summary = "Replace fee rules", description = "Replaces the fee bands of the card types in the body; other card types keep their rules. An empty list removes all fees of a card type.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Fee rules replaced"),
+			@ApiResponse(responseCode = "400", description = "Invalid fee rules; the current rules stay in effect") })
+	public ResponseEntity<Map<CardType, List<FeeRule>>> replaceFeeRules(
+			@RequestBody Map<CardType, List<FeeRule>> rules) {
+		log.info("PUT /api/v1/fees/rules - card types {}", rules.keySet());
+		return ResponseEntity.ok(feeRuleEngine.reload(rules));
+	}
+}
@@ -3,6 +3,7 @@ package com.rabobank.banking.controller;
 import com.rabobank.banking.domain.exception.*;
 import com.rabobank.banking.dto.response.ErrorResponseDto;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.FieldError;
@@ -10,6 +11,7 @@ import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 import org.springframework.web.bind.annotation.RestControllerAdvice;
 import org.springframework.web.context.request.WebRequest;
+import org.springframework.web.method.annotation.MethodArgumentTypeMismatchException;
 
 import java.time.LocalDateTime;
 import java.util.HashMap;
@@ -113,6 +115,149 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
 	}
 
+	/**
+	 * Handles InvalidFeeRuleException raised when fee rules are replaced.
+	 * 
+	 * @param ex
+	 * @param request
+	 * @return
+	 */
+	@ExceptionHandler(InvalidFeeRuleException.class)
+	public ResponseEntity<ErrorResponseDto> handleInvalidFeeRule(InvalidFeeRuleException ex, WebRequest request) {
+
+		log.warn("Invalid fee rule: {}", ex.getMessage());
+
+		ErrorResponseDto error = ErrorResponseDto.builder().timestamp(LocalDateTime.now())
+				.status(HttpStatus.BAD_REQUEST.value()).error(HttpStatus.BAD_REQUEST.getReasonPhrase())
+				.message(ex.getMessage()).path(request.getDescription(false).replace("uri=", ""))
+				.errorCode(ex.getErrorCode()).build();
+
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+	}
+
+	/**
+	 * Handles ConcurrencyConflictException when retries on lock contention are
+	 * exhausted.
+	 * 
+	 * @param ex
+	 * @param request
+	 * @return
+	 */
+	@ExceptionHandler(ConcurrencyConflictException.class)
+	public ResponseEntity<ErrorResponseDto> handleConcurrencyConflict(ConcurrencyConflictException ex,
+			WebRequest request) {
+
+		log.warn("Concurrency conflict: {}", ex.getMessage());
+
+		Map<String, Object> details = new HashMap<>();
+		details.put("attempts", ex.getAttempts());
+
+		ErrorResponseDto error = ErrorResponseDto.builder().timestamp(LocalDateTime.now())
+				.status(HttpStatus.CONFLICT.value()).error(HttpStatus.CONFLICT.getReasonPhrase())
+				.message(ex.getMessage()).path(request.getDescription(false).replace("uri=", ""))
+				.errorCode(ex.getErrorCode()).details(details).build();
+
+		return ResponseEntity.status(HttpStatus.CONFLICT).body(error);
+	}
+
+	/**
+	 * Handles IdempotencyKeyConflictException: 422 when the key belongs to a
+	 * different request, 409 while the original is still in progress.
+	 * 
+	 * @param ex
+	 * @param request
+	 * @return
+	 */
+	@ExceptionHandler(IdempotencyKeyConflictException.class)
+	public ResponseEntity<ErrorResponseDto> handleIdempotencyKeyConflict(IdempotencyKeyConflictException ex,
+			WebRequest request) {
+
+		log.warn("Idempotency key conflict: {}", ex.getMessage());
+
+		HttpStatus status = IdempotencyKeyConflictException.KEY_REUSED.equals(ex.getErrorCode())
+				? HttpStatus.UNPROCESSABLE_ENTITY
+				: HttpStatus.CONFLICT;
+
+		Map<String, Object> details = new HashMap<>();
+		details.put("idempotencyKey", ex.getIdempotencyKey());
+
+		ErrorResponseDto error = ErrorResponseDto.builder().timestamp(LocalDateTime.now()).status(status.value())
+				.error(status.getReasonPhrase()).message(ex.getMessage())
+				.path(request.getDescription(false).replace("uri=", "")).errorCode(ex.getErrorCode())
+				.details(details).build();
+
+		return ResponseEntity.status(status).body(error);
+	}
+
+	/**
+	 * Handles TransactionQueueFullException with 429 so that clients back off.
+	 * 
+	 * @param ex
+	 * @param request
+	 * @return
+	 */
+	@ExceptionHandler(TransactionQueueFullException.class)
+	public ResponseEntity<ErrorResponseDto> handleQueueFull(TransactionQueueFullException ex, WebRequest request) {
+
+		log.warn("Transaction queue full: {}", ex.getMessage());
+
+		Map<String, Object> details = new HashMap<>();
+		details.put("capacity", ex.getCapacity());
+
+		ErrorResponseDto error = ErrorResponseDto.builder().timestamp(LocalDateTime.now())
+				.status(HttpStatus.TOO_MANY_REQUESTS.value()).error(HttpStatus.TOO_MANY_REQUESTS.getReasonPhrase())
+				.message(ex.getMessage()).path(request.getDescription(false).replace("uri=", ""))
+				.errorCode(ex.getErrorCode()).details(details).build();
+
+		return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS).header(HttpHeaders.RETRY_AFTER, "1").body(error);
+	}
+
+	/**
+	 * Handles ArchiveUnavailableException with 503, since another instance may
+	 * be able to answer.
+	 * 
+	 * @param ex
+	 * @param request
+	 * @return
+	 */
+	@ExceptionHandler(ArchiveUnavailableException.class)
+	public ResponseEntity<ErrorResponseDto> handleArchiveUnavailable(ArchiveUnavailableException ex,
+			WebRequest request) {
+
+		log.error("Archive unavailable: {}", ex.getMessage());
+
+		Map<String, Object> details = new HashMap<>();
+		details.put("month", ex.getMonth().toString());
+
+		ErrorResponseDto error = ErrorResponseDto.builder().timestamp(LocalDateTime.now())
+				.status(HttpStatus.SERVICE_UNAVAILABLE.value()).error(HttpStatus.SERVICE_UNAVAILABLE.getReasonPhrase())
+				.message(ex.getMessage()).path(request.getDescription(false).replace("uri=", ""))
+				.errorCode(ex.getErrorCode()).details(details).build();
+
+		return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(error);
+	}
+
+	/**
+	 * Handles TransactionNotFoundException
+	 * 
+	 * @param ex
+	 * @param request
+	 * @return
+	 */
+	@ExceptionHandler(TransactionNotFoundException.class)
+	public ResponseEntity<ErrorResponseDto> handleTransactionNotFound(TransactionNotFoundException ex,
+			WebRequest request) {
+
+		log.warn("Transaction not found: {}", ex.getMessage());
+
+		ErrorResponseDto error = ErrorResponseDto.builder().timestamp(LocalDateTime.now())
+				.status(HttpStatus.NOT_FOUND.value()).error(HttpStatus.NOT_FOUND.getReasonPhrase())
+				.message(ex.getMessage()).path(request.getDescription(false).replace("uri=", ""))
+				.errorCode(ex.getErrorCode()).build();
+
+		return ResponseEntity.status(HttpStatus.NOT_FOUND).body(error);
+	}
+
 	/**
 	 * Handles validation errors for @valid annotated request bodies 
 	 * @param ex
@@ -140,6 +285,27 @@ public class GlobalExceptionHandler {
 		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
 	}
 
+	/**
+	 * Handles query parameters and path variables that can't be converted, e.g.
+	 * an unknown transaction type or a malformed date
+	 * @param ex
+	 * @param request
+	 * @return
+	 */
+	@ExceptionHandler(MethodArgumentTypeMismatchException.class)
+	public ResponseEntity<ErrorResponseDto> handleTypeMismatch(MethodArgumentTypeMismatchException ex,
+			WebRequest request) {
+
+		log.warn("Invalid value for parameter {}: {}", ex.getName(), ex.getValue());
+
+		ErrorResponseDto error = ErrorResponseDto.builder().timestamp(LocalDateTime.now())
+				.status(HttpStatus.BAD_REQUEST.value()).error(HttpStatus.BAD_REQUEST.getReasonPhrase())
+				.message("Invalid value for parameter '" + ex.getName() + "'")
+				.path(request.getDescription(false).replace("uri=", "")).errorCode("VALIDATION_ERROR").build();
+
+		return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(error);
+	}
+
 	/**
 	 * Handles Generic exceptions
 	 * @param ex
@@ -1,17 +1,34 @@
 package com.rabobank.banking.controller;
 
+import java.net.URI;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PathVariable;
 import org.springframework.web.bind.annotation.PostMapping;
 import org.springframework.web.bind.annotation.RequestBody;
+import org.springframework.web.bind.annotation.RequestHeader;
 import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
 import org.springframework.web.bind.annotation.RestController;
+import org.springframework.web.context.request.async.DeferredResult;
 
+import com.rabobank.banking.dto.request.BatchTransferRequestDto;
 import com.rabobank.banking.dto.request.TransferRequestDto;
 import com.rabobank.banking.dto.request.WithdrawRequestDto;
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.dto.response.BatchTransferResponseDto;
 import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.dto.response.TransactionStatusResponseDto;
+import com.rabobank.banking.service.AsyncTransactionProcessor;
+import com.rabobank.banking.service.BatchTransferService;
+import com.rabobank.banking.service.IdempotencyService;
 import com.rabobank.banking.service.TransactionService;
 
 import io.swagger.v3.oas.annotations.Operation;
+import io.swagger.v3.oas.annotations.Parameter;
 import io.swagger.v3.oas.annotations.responses.ApiResponse;
 import io.swagger.v3.oas.annotations.responses.ApiResponses;
 import io.swagger.v3.oas.annotations.tags.Tag;
@@ -32,31 +49,111 @@ import lombok.extern.slf4j.Slf4j;
 @Tag(name = "Transactions", description = "Transaction management endpoints")
 public class TransactionController {
 
+	private static final String IDEMPOTENCY_KEY_HEADER = "Idempotency-Key";
+
 	private final TransactionService transactionService;
+	private final IdempotencyService idempotencyService;
+	private final AsyncTransactionProcessor asyncTransactionProcessor;
+	private final BatchTransferService batchTransferService;
+	private final TransactionProperties transactionProperties;
 
 	@PostMapping("/withdraw")
-	@Operation(summary = "Withdraw money from account", description = "Withdraws money from account using debit or credit card. Credit cards incur 1% fee.")
+	@Operation(summary = "Withdraw money from account", description = "Withdraws money from account using debit or credit card. Credit cards incur a fee (1% by default, see /api/v1/fees/rules).")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Withdrawal successful"),
 			@ApiResponse(responseCode = "400", description = "Invalid request or insufficient funds"),
 			@ApiResponse(responseCode = "404", description = "Account or card not found"),
+			@ApiResponse(responseCode = "409", description = "Idempotency key is still being processed"),
+			@ApiResponse(responseCode = "422", description = "Idempotency key was used for a different request"),
 			@ApiResponse(responseCode = "500", description = "Internal server error") })
-	public ResponseEntity<TransactionResponseDto> withdraw(@Valid @RequestBody WithdrawRequestDto request) {
+	public ResponseEntity<TransactionResponseDto> withdraw(
+			@Parameter(description = "Client key that makes retries of this request safe") @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			@Valid @RequestBody WithdrawRequestDto request) {
 		log.info("POST /api/transactions/withdraw - accountId: {}, amount: {}", request.getAccountId(),
 				request.getAmount());
-		TransactionResponseDto response = transactionService.withdraw(request);
+		TransactionResponseDto response = idempotencyService.execute(idempotencyKey, "withdraw", request,
+				transactionId -> transactionService.withdraw(request, transactionId));
 		return ResponseEntity.ok(response);
 	}
 
 	@PostMapping("/transfer")
-	@Operation(summary = "Transfer money between accounts", description = "Transfers money from one account to another. Credit cards incur 1% fee on the sender.")
+	@Operation(summary = "Transfer money between accounts", description = "Transfers money from one account to another. Credit cards incur a fee on the sender (1% by default, see /api/v1/fees/rules).")
 	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Transfer successful"),
 			@ApiResponse(responseCode = "400", description = "Invalid request or insufficient funds"),
 			@ApiResponse(responseCode = "404", description = "Account or card not found"),
+			@ApiResponse(responseCode = "409", description = "Idempotency key is still being processed"),
+			@ApiResponse(responseCode = "422", description = "Idempotency key was used for a different request"),
 			@ApiResponse(responseCode = "500", description = "Internal server error") })
-	public ResponseEntity<TransactionResponseDto> transfer(@Valid @RequestBody TransferRequestDto request) {
+	public ResponseEntity<TransactionResponseDto> transfer(
+			@Parameter(description = "Client key that makes retries of this request safe") @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			@Valid @RequestBody TransferRequestDto request) {
 		log.info("POST /api/transactions/transfer - from: {}, to: {}, amount: {}", request.getFromAccountId(),
 				request.getToAccountId(), request.getAmount());
-		TransactionResponseDto response = transactionService.transfer(request);
+		TransactionResponseDto response = idempotencyService.execute(idempotencyKey, "transfer", request,
+				transactionId -> transactionService.transfer(request, transactionId));
+		return ResponseEntity.ok(response);
+	}
+
+	@PostMapping("/transfer/batch")
+	@Operation(summary = "Apply a batch of transfers", description = "Applies the transfers in order, in chunks that each lock their accounts once. Every transfer gets its own result; a failing transfer does not affect the others.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Batch processed, see per-item results"),
+			@ApiResponse(responseCode = "400", description = "Invalid request"),
+			@ApiResponse(responseCode = "500", description = "Internal server error") })
+	public ResponseEntity<BatchTransferResponseDto> transferBatch(@Valid @RequestBody BatchTransferRequestDto request) {
+		log.info("POST /api/transactions/transfer/batch - {} transfers", request.getTransfers().size());
+		BatchTransferResponseDto response = batchTransferService.transferAll(request.getTransfers());
 		return ResponseEntity.ok(response);
 	}
-}
\ No newline at end of file
+
+	@PostMapping(path = "/withdraw", params = "async=true")
+	@Operation(summary = "Submit a withdrawal for background processing", description = "Returns 202 with a PENDING transaction id; poll the status endpoint for the outcome. Resubmitting with the same Idempotency-Key returns the first submission.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "202", description = "Withdrawal accepted"),
+			@ApiResponse(responseCode = "400", description = "Invalid request"),
+			@ApiResponse(responseCode = "422", description = "Idempotency key was used for a different request"),
+			@ApiResponse(responseCode = "429", description = "Too many pending transactions, retry later") })
+	public ResponseEntity<TransactionStatusResponseDto> withdrawAsync(
+			@Parameter(description = "Client key that makes retries of this submission safe") @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			@Valid @RequestBody WithdrawRequestDto request) {
+		log.info("POST /api/transactions/withdraw?async=true - accountId: {}, amount: {}", request.getAccountId(),
+				request.getAmount());
+		return accepted(asyncTransactionProcessor.submitWithdraw(idempotencyKey, request));
+	}
+
+	@PostMapping(path = "/transfer", params = "async=true")
+	@Operation(summary = "Submit a transfer for background processing", description = "Returns 202 with a PENDING transaction id; poll the status endpoint for the outcome. Resubmitting with the same Idempotency-Key returns the first submission.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "202", description = "Transfer accepted"),
+			@ApiResponse(responseCode = "400", description = "Invalid request"),
+			@ApiResponse(responseCode = "422", description = "Idempotency key was used for a different request"),
+			@ApiResponse(responseCode = "429", description = "Too many pending transactions, retry later") })
+	public ResponseEntity<TransactionStatusResponseDto> transferAsync(
+			@Parameter(description = "Client key that makes retries of this submission safe") @RequestHeader(name = IDEMPOTENCY_KEY_HEADER, required = false) String idempotencyKey,
+			@Valid @RequestBody TransferRequestDto request) {
+		log.info("POST /api/transactions/transfer?async=true - from: {}, to: {}, amount: {}",
+				request.getFromAccountId(), request.getToAccountId(), request.getAmount());
+		return accepted(asyncTransactionProcessor.submitTransfer(idempotencyKey, request));
+	}
+
+	@GetMapping("/{transactionId}/status")
+	@Operation(summary = "Get transaction status", description = "Returns PENDING, SUCCESS or FAILED. With waitSeconds the call long-polls until the transaction finishes or the wait elapses.")
+	@ApiResponses(value = { @ApiResponse(responseCode = "200", description = "Current status"),
+			@ApiResponse(responseCode = "404", description = "Transaction not found") })
+	public DeferredResult<ResponseEntity<TransactionStatusResponseDto>> getStatus(@PathVariable String transactionId,
+			@Parameter(description = "Seconds to wait for a pending transaction to finish") @RequestParam(defaultValue = "0") long waitSeconds) {
+		CompletableFuture<TransactionStatusResponseDto> status = asyncTransactionProcessor.getStatus(transactionId);
+		Duration maxWait = transactionProperties.getAsync().getMaxWait();
+		long timeoutMillis = Math.min(Duration.ofSeconds(Math.max(0, waitSeconds)).toMillis(), maxWait.toMillis());
+
+		DeferredResult<ResponseEntity<TransactionStatusResponseDto>> result = new DeferredResult<>(
+				Math.max(1, timeoutMillis), () -> ResponseEntity.ok(AsyncTransactionProcessor.pending(transactionId)));
+		if (status.isDone() || timeoutMillis == 0) {
+			result.setResult(ResponseEntity.ok(status.getNow(AsyncTransactionProcessor.pending(transactionId))));
+		} else {
+			status.thenAccept(done -> result.setResult(ResponseEntity.ok(done)));
+		}
+		return result;
+	}
+
+	private static ResponseEntity<TransactionStatusResponseDto> accepted(TransactionStatusResponseDto status) {
+		URI statusUri = URI.create("/api/transactions/" + status.getTransactionId() + "/status");
+		return ResponseEntity.accepted().location(statusUri).body(status);
+	}
+}
@@ -0,0 +1,40 @@
+package com.rabobank.banking.datasource;
+
+import java.io.IOException;
+
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+
+/**
+ * Binds the client of each request to the {@link ClientWriteTracker}: the
+ * value of the client header, or the remote address without one.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class ClientBindingFilter extends OncePerRequestFilter {
+
+	private final ClientWriteTracker writeTracker;
+	private final String clientHeader;
+
+	public ClientBindingFilter(ClientWriteTracker writeTracker, String clientHeader) {
+		this.writeTracker = writeTracker;
+		this.clientHeader = clientHeader;
+	}
+
+	@Override
+	protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+			throws ServletException, IOException {
+		String client = request.getHeader(clientHeader);
+		writeTracker.bind(client != null && !client.isBlank() ? client : request.getRemoteAddr());
+		try {
+			chain.doFilter(request, response);
+		} finally {
+			writeTracker.clear();
+		}
+	}
+}
@@ -0,0 +1,107 @@
+package com.rabobank.banking.datasource;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Supplier;
+
+/**
+ * Remembers when each client last committed a write, so its reads can stay on
+ * the primary until the replica has caught up with it.
+ *
+ * The client of the current thread is bound per request by
+ * {@link ClientBindingFilter}. Work handed to another thread, such as a group
+ * commit, an async worker or the ledger persister, captures
+ * {@link #currentClient()} when it is submitted and records the write for that
+ * client once it has committed. Work without a client, such as background
+ * jobs, is never sticky. Writes are remembered per instance only.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class ClientWriteTracker {
+
+	/** Expired entries are dropped once this many clients are remembered. */
+	private static final int PRUNE_THRESHOLD = 10_000;
+
+	private final ThreadLocal<String> currentClient = new ThreadLocal<>();
+	private final Map<String, Long> lastWriteNanos = new ConcurrentHashMap<>();
+	private final long windowNanos;
+
+	public ClientWriteTracker(Duration stickyWindow) {
+		this.windowNanos = stickyWindow.toNanos();
+	}
+
+	public void bind(String client) {
+		currentClient.set(client);
+	}
+
+	public void clear() {
+		currentClient.remove();
+	}
+
+	/**
+	 * Client bound to the current thread, or {@code null}.
+	 */
+	public String currentClient() {
+		return currentClient.get();
+	}
+
+	/**
+	 * Runs the work with the given client bound to the current thread, so the
+	 * writes it commits count for that client.
+	 */
+	public <T> T callAs(String client, Supplier<T> work) {
+		String previous = currentClient.get();
+		currentClient.set(client);
+		try {
+			return work.get();
+		} finally {
+			if (previous != null) {
+				currentClient.set(previous);
+			} else {
+				currentClient.remove();
+			}
+		}
+	}
+
+	/**
+	 * Records a committed write of the current client, if any.
+	 */
+	public void recordWrite() {
+		recordWrite(currentClient.get());
+	}
+
+	/**
+	 * Records a committed write of the given client; ignored for {@code null}.
+	 */
+	public void recordWrite(String client) {
+		if (client == null || windowNanos <= 0) {
+			return;
+		}
+		long now = System.nanoTime();
+		lastWriteNanos.put(client, now);
+		if (lastWriteNanos.size() > PRUNE_THRESHOLD) {
+			lastWriteNanos.values().removeIf(written -> now - written >= windowNanos);
+		}
+	}
+
+	/**
+	 * Whether the current client committed a write within the sticky window.
+	 */
+	public boolean recentlyWrote() {
+		String client = currentClient.get();
+		if (client == null) {
+			return false;
+		}
+		Long written = lastWriteNanos.get(client);
+		if (written == null) {
+			return false;
+		}
+		if (System.nanoTime() - written < windowNanos) {
+			return true;
+		}
+		lastWriteNanos.remove(client, written);
+		return false;
+	}
+}
@@ -0,0 +1,134 @@
+package com.rabobank.banking.datasource;
+
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rabobank.banking.config.ReplicaProperties;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Measures how far the read replica trails the primary every
+ * {@code lag-check-interval}. The replica is usable while the last check
+ * succeeded and found a delay of at most {@code max-lag}; it starts out
+ * unusable until the first check.
+ *
+ * Each check reads the primary's flushed WAL position first; a replica that
+ * has replayed up to it counts as caught up, so an idle primary doesn't make
+ * it look stale. Otherwise the lag is the time since the replica last replayed
+ * a transaction, which keeps growing while its WAL receiver is disconnected.
+ * A lag that can't be measured makes the replica unusable. A server that isn't
+ * in recovery, such as a second local Postgres used for testing, never lags.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Slf4j
+public class ReplicaLagMonitor implements SmartLifecycle {
+
+	private static final String SELECT_PRIMARY_LSN = "SELECT pg_current_wal_flush_lsn()::text";
+
+	/** NULL while the replica trails the primary but has replayed no transaction yet. */
+	private static final String SELECT_LAG_MILLIS = """
+			SELECT CASE WHEN NOT pg_is_in_recovery() THEN 0
+			            WHEN pg_last_wal_replay_lsn() >= CAST(? AS pg_lsn) THEN 0
+			            ELSE EXTRACT(EPOCH FROM now() - pg_last_xact_replay_timestamp()) * 1000 END
+			""";
+
+	private final JdbcTemplate primaryJdbcTemplate;
+	private final JdbcTemplate replicaJdbcTemplate;
+	private final ReplicaProperties config;
+	private final MeterRegistry meterRegistry;
+
+	private volatile long lagMillis = -1;
+	private volatile boolean usable;
+	private ScheduledExecutorService checker;
+	private volatile boolean running;
+
+	public ReplicaLagMonitor(DataSource primaryDataSource, DataSource replicaDataSource, ReplicaProperties config,
+			MeterRegistry meterRegistry) {
+		this.primaryJdbcTemplate = new JdbcTemplate(primaryDataSource);
+		this.replicaJdbcTemplate = new JdbcTemplate(replicaDataSource);
+		this.config = config;
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("banking.datasource.replica.lag", this, monitor -> monitor.lagMillis / 1000.0)
+				.description("Replication delay of the read replica in seconds, -1 when unknown")
+				.register(meterRegistry);
+		Gauge.builder("banking.datasource.replica.usable", this, monitor -> monitor.usable ? 1 : 0)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Whether read-only transactions may use the replica.
+	 */
+	public boolean isReplicaUsable() {
+		return usable;
+	}
+
+	void check() {
+		boolean nowUsable;
+		try {
+			String primaryLsn = primaryJdbcTemplate.queryForObject(SELECT_PRIMARY_LSN, String.class);
+			Number lag = replicaJdbcTemplate.queryForObject(SELECT_LAG_MILLIS, Number.class, primaryLsn);
+			if (lag == null) {
+				lagMillis = -1;
+				nowUsable = false;
+				if (usable) {
+					log.warn("Read replica lag unknown; reading from the primary");
+				}
+			} else {
+				lagMillis = lag.longValue();
+				nowUsable = lagMillis <= config.getMaxLag().toMillis();
+				if (!nowUsable && usable) {
+					log.warn("Read replica is {} ms behind; reading from the primary", lagMillis);
+				}
+			}
+		} catch (RuntimeException ex) {
+			lagMillis = -1;
+			nowUsable = false;
+			meterRegistry.counter("banking.datasource.replica.check.failures").increment();
+			if (usable) {
+				log.warn("Read replica unavailable; reading from the primary: {}", ex.getMessage());
+			}
+		}
+		if (nowUsable && !usable) {
+			log.info("Read replica usable, {} ms behind", lagMillis);
+		}
+		usable = nowUsable;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		checker = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "replica-lag-monitor");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = Math.max(1, config.getLagCheckInterval().toMillis());
+		checker.scheduleWithFixedDelay(this::check, 0, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		usable = false;
+		if (checker != null) {
+			checker.shutdownNow();
+			checker = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,83 @@
+package com.rabobank.banking.datasource;
+
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Sends read-only transactions to the read replica and everything else to the
+ * primary. A read-only transaction stays on the primary while the replica
+ * lags or is down, and while its client has a recent write of its own that
+ * the replica may not have yet.
+ *
+ * The target is chosen when a connection is taken, which in a transaction
+ * must happen after the read-only flag is set; wrap this in a
+ * {@link org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource {
+
+	/**
+	 * Database a connection is taken from.
+	 */
+	public enum Target {
+		PRIMARY,
+		REPLICA
+	}
+
+	private final ReplicaLagMonitor lagMonitor;
+	private final ClientWriteTracker writeTracker;
+	private final Counter toReplica;
+	private final Counter stickyToPrimary;
+	private final Counter laggingToPrimary;
+
+	public ReplicaRoutingDataSource(DataSource primary, DataSource replica, ReplicaLagMonitor lagMonitor,
+			ClientWriteTracker writeTracker, MeterRegistry meterRegistry) {
+		this.lagMonitor = lagMonitor;
+		this.writeTracker = writeTracker;
+		this.toReplica = meterRegistry.counter("banking.datasource.reads", "target", "replica");
+		this.stickyToPrimary = meterRegistry.counter("banking.datasource.reads", "target", "primary", "reason",
+				"sticky");
+		this.laggingToPrimary = meterRegistry.counter("banking.datasource.reads", "target", "primary", "reason",
+				"lagging");
+		setTargetDataSources(Map.of(Target.PRIMARY, primary, Target.REPLICA, replica));
+		setDefaultTargetDataSource(primary);
+		setLenientFallback(false);
+		afterPropertiesSet();
+	}
+
+	@Override
+	protected Target determineCurrentLookupKey() {
+		if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+			if (TransactionSynchronizationManager.isActualTransactionActive()
+					&& TransactionSynchronizationManager.isSynchronizationActive()) {
+				TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+					@Override
+					public void afterCommit() {
+						writeTracker.recordWrite();
+					}
+				});
+			}
+			return Target.PRIMARY;
+		}
+		if (writeTracker.recentlyWrote()) {
+			stickyToPrimary.increment();
+			return Target.PRIMARY;
+		}
+		if (!lagMonitor.isReplicaUsable()) {
+			laggingToPrimary.increment();
+			return Target.PRIMARY;
+		}
+		toReplica.increment();
+		return Target.REPLICA;
+	}
+}
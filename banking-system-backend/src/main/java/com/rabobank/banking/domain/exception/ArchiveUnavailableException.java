@@ -0,0 +1,23 @@
+package com.rabobank.banking.domain.exception;
+
+import java.time.YearMonth;
+
+/**
+ * Thrown when a request covers an archived month whose segment this instance
+ * doesn't have, so its answer would be incomplete.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class ArchiveUnavailableException extends BankingException {
+	private final YearMonth month;
+
+	public ArchiveUnavailableException(YearMonth month) {
+		super("Archived transactions of " + month + " are not available on this instance", "ARCHIVE_UNAVAILABLE");
+		this.month = month;
+	}
+
+	public YearMonth getMonth() {
+		return month;
+	}
+}
@@ -0,0 +1,27 @@
+package com.rabobank.banking.domain.exception;
+
+/**
+ * Thrown when a transaction keeps losing lock races after all retries.
+ * 
+ * 
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class ConcurrencyConflictException extends BankingException {
+	private final int attempts;
+
+	public ConcurrencyConflictException(String operation, int attempts, Throwable cause) {
+		super(String.format("Could not complete %s due to concurrent updates after %d attempts, please retry",
+				operation, attempts), "CONCURRENCY_CONFLICT", cause);
+		this.attempts = attempts;
+	}
+
+	public ConcurrencyConflictException(String message) {
+		super(message, "CONCURRENCY_CONFLICT");
+		this.attempts = 0;
+	}
+
+	public int getAttempts() {
+		return attempts;
+	}
+}
@@ -0,0 +1,34 @@
+package com.rabobank.banking.domain.exception;
+
+/**
+ * Thrown when an idempotency key is reused for a different request, or while
+ * the original request holding the key is still being processed.
+ * 
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class IdempotencyKeyConflictException extends BankingException {
+	public static final String KEY_REUSED = "IDEMPOTENCY_KEY_REUSED";
+	public static final String IN_PROGRESS = "IDEMPOTENCY_REQUEST_IN_PROGRESS";
+
+	private final String idempotencyKey;
+
+	public IdempotencyKeyConflictException(String idempotencyKey, String message, String errorCode) {
+		super(message, errorCode);
+		this.idempotencyKey = idempotencyKey;
+	}
+
+	public static IdempotencyKeyConflictException reused(String idempotencyKey) {
+		return new IdempotencyKeyConflictException(idempotencyKey,
+				"Idempotency key was already used for a different request", KEY_REUSED);
+	}
+
+	public static IdempotencyKeyConflictException inProgress(String idempotencyKey) {
+		return new IdempotencyKeyConflictException(idempotencyKey,
+				"A request with this idempotency key is still being processed, please retry", IN_PROGRESS);
+	}
+
+	public String getIdempotencyKey() {
+		return idempotencyKey;
+	}
+}
@@ -0,0 +1,14 @@
+package com.rabobank.banking.domain.exception;
+
+/**
+ * Thrown when configured or uploaded fee rules cannot be compiled.
+ * 
+ * 
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class InvalidFeeRuleException extends BankingException {
+	public InvalidFeeRuleException(String message) {
+		super(message, "INVALID_FEE_RULE");
+	}
+}
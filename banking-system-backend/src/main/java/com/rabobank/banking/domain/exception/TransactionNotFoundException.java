@@ -0,0 +1,20 @@
+package com.rabobank.banking.domain.exception;
+/**
+ * Thrown when a transaction ID is neither pending nor in the database.
+ * 
+ * 
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class TransactionNotFoundException extends BankingException {
+	private final String transactionId;
+
+	public TransactionNotFoundException(String transactionId) {
+		super(String.format("Transaction not found with ID: %s", transactionId), "TRANSACTION_NOT_FOUND");
+		this.transactionId = transactionId;
+	}
+
+	public String getTransactionId() {
+		return transactionId;
+	}
+}
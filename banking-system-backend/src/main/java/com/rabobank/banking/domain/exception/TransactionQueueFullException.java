@@ -0,0 +1,22 @@
+package com.rabobank.banking.domain.exception;
+
+/**
+ * Thrown when the asynchronous transaction queue is full and the request has
+ * to be retried later.
+ * 
+ * 
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public class TransactionQueueFullException extends BankingException {
+	private final int capacity;
+
+	public TransactionQueueFullException(int capacity) {
+		super("Too many transactions are waiting to be processed, please retry later", "QUEUE_FULL");
+		this.capacity = capacity;
+	}
+
+	public int getCapacity() {
+		return capacity;
+	}
+}
@@ -1,12 +1,12 @@
 package com.rabobank.banking.domain.model;
 
 import jakarta.persistence.*;
-import jakarta.validation.constraints.DecimalMin;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.*;
 
-import java.math.BigDecimal;
+import org.hibernate.annotations.Formula;
+
 import java.time.LocalDateTime;
 
 /**
@@ -42,15 +42,40 @@ public class Account {
 	@OneToOne(mappedBy = "account", cascade = CascadeType.ALL, fetch = FetchType.LAZY)
 	private Card card;
 
+	/**
+	 * Whether the account has a card, read with the account row so that callers
+	 * needn't load {@link #card} to find out.
+	 */
+	@Formula("(EXISTS (SELECT 1 FROM cards c WHERE c.account_id = account_id))")
+	@Setter(AccessLevel.NONE)
+	private boolean cardPresent;
+
+	/**
+	 * Never negative; enforced by {@link #withdraw(Money)} and the table's check
+	 * constraint.
+	 */
 	@Column(nullable = false, precision = 19, scale = 2)
-	@DecimalMin(value = "0.0", inclusive = true, message = "Balance cannot be negative")
+	@Convert(converter = MoneyConverter.class)
 	@Builder.Default
-	private BigDecimal balance = BigDecimal.ZERO;
+	private Money balance = Money.ZERO;
 
 	@Column(nullable = false)
 	@Builder.Default
 	private boolean active = true;
 
+	/**
+	 * Number of balance buckets receiving credits for this account; 0 when
+	 * credits go to {@link #balance} directly.
+	 */
+	@Column(nullable = false)
+	@Builder.Default
+	private int bucketCount = 0;
+
+	@Version
+	@Column(nullable = false)
+	@Setter(AccessLevel.NONE)
+	private Long version;
+
 	@Column(nullable = false, updatable = false)
 	private LocalDateTime createdAt;
 
@@ -69,20 +94,20 @@ public class Account {
 		updatedAt = LocalDateTime.now();
 	}
 
-	public void withdraw(BigDecimal amount) {
+	public void withdraw(Money amount) {
 		validateAmount(amount);
 
-		if (balance.compareTo(amount) < 0) {
-			throw new IllegalArgumentException(String.format("Insufficient funds. Available: €%.2f, Requested: €%.2f",
-					balance.doubleValue(), amount.doubleValue()));
+		if (balance.isLessThan(amount)) {
+			throw new IllegalArgumentException(
+					String.format("Insufficient funds. Available: €%s, Requested: €%s", balance, amount));
 		}
 
-		balance = balance.subtract(amount);
+		balance = balance.minus(amount);
 	}
 
-	public void deposit(BigDecimal amount) {
+	public void deposit(Money amount) {
 		validateAmount(amount);
-		balance = balance.add(amount);
+		balance = balance.plus(amount);
 	}
 
 	/**
@@ -91,13 +116,12 @@ public class Account {
 	 * @param amount the amount to validate
 	 * @throws IllegalArgumentException if invalid
 	 */
-	private void validateAmount(BigDecimal amount) {
+	private void validateAmount(Money amount) {
 		if (amount == null) {
 			throw new IllegalArgumentException("Amount cannot be null");
 		}
-		if (amount.compareTo(BigDecimal.ZERO) <= 0) {
-			throw new IllegalArgumentException(
-					String.format("Amount must be greater than zero. Provided: €%.2f", amount));
+		if (!amount.isPositive()) {
+			throw new IllegalArgumentException(String.format("Amount must be greater than zero. Provided: €%s", amount));
 		}
 	}
 
@@ -107,8 +131,8 @@ public class Account {
 	 * @param amount amount to compare
 	 * @return true if sufficient, false otherwise
 	 */
-	public boolean hasSufficientFunds(BigDecimal amount) {
-		return balance.compareTo(amount) >= 0;
+	public boolean hasSufficientFunds(Money amount) {
+		return !balance.isLessThan(amount);
 	}
 
 	/**
@@ -117,6 +141,6 @@ public class Account {
 	 * @return formatted balance string
 	 */
 	public String getFormattedBalance() {
-		return String.format("€%,.2f", balance);
+		return String.format("€%,.2f", balance.toBigDecimal());
 	}
 }
\ No newline at end of file
@@ -82,6 +82,13 @@ public class Card {
 	}
 
 	public String getMaskedCardNumber() {
+		return mask(cardNumber);
+	}
+
+	/**
+	 * Card number showing only its last four digits.
+	 */
+	public static String mask(String cardNumber) {
 		if (cardNumber == null || cardNumber.length() < 4) {
 			return "****";
 		}
@@ -0,0 +1,100 @@
+package com.rabobank.banking.domain.model;
+
+import java.math.BigDecimal;
+
+/**
+ * Immutable euro amount held as a whole number of cents.
+ *
+ * Arithmetic is exact and throws {@link ArithmeticException} on overflow
+ * instead of wrapping. {@link BigDecimal} is only used at the edges: request
+ * and response bodies, and the DECIMAL(15,2) columns via
+ * {@link MoneyConverter}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public record Money(long cents) implements Comparable<Money> {
+
+	public static final Money ZERO = new Money(0);
+
+	public static Money ofCents(long cents) {
+		return cents == 0 ? ZERO : new Money(cents);
+	}
+
+	/**
+	 * Converts an amount with at most two significant decimals.
+	 *
+	 * @throws ArithmeticException if the amount has fractional cents or does
+	 *                             not fit in a long
+	 */
+	public static Money of(BigDecimal amount) {
+		return ofCents(amount.movePointRight(2).longValueExact());
+	}
+
+	public static Money of(String amount) {
+		return of(new BigDecimal(amount));
+	}
+
+	public Money plus(Money other) {
+		return ofCents(Math.addExact(cents, other.cents));
+	}
+
+	public Money minus(Money other) {
+		return ofCents(Math.subtractExact(cents, other.cents));
+	}
+
+	/**
+	 * This amount times {@code numerator / denominator}, rounded to the cent
+	 * half away from zero ({@link java.math.RoundingMode#HALF_UP}). A 1% fee is
+	 * {@code times(1, 100)}.
+	 */
+	public Money times(long numerator, long denominator) {
+		if (denominator == 0) {
+			throw new ArithmeticException("Division by zero");
+		}
+		long product = Math.multiplyExact(cents, numerator);
+		long quotient = product / denominator;
+		long remainder = Math.abs(product % denominator);
+		if (remainder >= Math.abs(denominator) - remainder) {
+			quotient += Long.signum(product) * Long.signum(denominator);
+		}
+		return ofCents(quotient);
+	}
+
+	public boolean isPositive() {
+		return cents > 0;
+	}
+
+	public boolean isNegative() {
+		return cents < 0;
+	}
+
+	public boolean isZero() {
+		return cents == 0;
+	}
+
+	public boolean isLessThan(Money other) {
+		return cents < other.cents;
+	}
+
+	public Money min(Money other) {
+		return cents <= other.cents ? this : other;
+	}
+
+	@Override
+	public int compareTo(Money other) {
+		return Long.compare(cents, other.cents);
+	}
+
+	/**
+	 * The amount as a {@link BigDecimal} with scale 2.
+	 */
+	public BigDecimal toBigDecimal() {
+		return BigDecimal.valueOf(cents, 2);
+	}
+
+	@Override
+	public String toString() {
+		return toBigDecimal().toPlainString();
+	}
+}
@@ -0,0 +1,26 @@
+package com.rabobank.banking.domain.model;
+
+import java.math.BigDecimal;
+
+import jakarta.persistence.AttributeConverter;
+import jakarta.persistence.Converter;
+
+/**
+ * Maps {@link Money} to the DECIMAL(15,2) amount columns.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Converter
+public class MoneyConverter implements AttributeConverter<Money, BigDecimal> {
+
+	@Override
+	public BigDecimal convertToDatabaseColumn(Money money) {
+		return money == null ? null : money.toBigDecimal();
+	}
+
+	@Override
+	public Money convertToEntityAttribute(BigDecimal amount) {
+		return amount == null ? null : Money.of(amount);
+	}
+}
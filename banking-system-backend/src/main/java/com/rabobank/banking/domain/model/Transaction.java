@@ -5,6 +5,8 @@ import lombok.*;
 import java.math.BigDecimal;
 import java.time.LocalDateTime;
 
+import org.springframework.data.domain.Persistable;
+
 /**
  * Transaction entity for complete audit trail.
  * 
@@ -12,9 +14,9 @@ import java.time.LocalDateTime;
  * @version 1.0.0
  */
 @Entity
-@Table(name = "transactions", indexes = { @Index(name = "idx_account_id", columnList = "account_id"),
-		@Index(name = "idx_transaction_date", columnList = "transactionDate"),
-		@Index(name = "idx_type", columnList = "type") }
+@Table(name = "transactions", indexes = {
+		@Index(name = "idx_transactions_account_date", columnList = "account_id, transaction_date DESC, transaction_id DESC"),
+		@Index(name = "idx_transactions_to_account_date", columnList = "to_account_id, transaction_date DESC, transaction_id DESC") }
 
 )
 @Getter
@@ -22,7 +24,7 @@ import java.time.LocalDateTime;
 @NoArgsConstructor
 @AllArgsConstructor
 @Builder
-public class Transaction {
+public class Transaction implements Persistable<String> {
 	@Id
 	@Setter(AccessLevel.NONE)
 	@Column(length = 50)
@@ -69,11 +71,38 @@ public class Transaction {
 	@Column(nullable = false, updatable = false)
 	private LocalDateTime transactionDate;
 
+	/**
+	 * Ids are assigned by the application, so Spring Data cannot tell new rows
+	 * from existing ones by a null id. Without this every save would be a merge
+	 * with a SELECT first, and inserts could not be JDBC batched.
+	 */
+	@Transient
+	@Builder.Default
+	@Getter(AccessLevel.NONE)
+	@Setter(AccessLevel.NONE)
+	private boolean newEntity = true;
+
 	@PrePersist
 	protected void onCreate() {
 		transactionDate = LocalDateTime.now();
 	}
 
+	@PostPersist
+	@PostLoad
+	protected void markNotNew() {
+		newEntity = false;
+	}
+
+	@Override
+	public String getId() {
+		return transactionId;
+	}
+
+	@Override
+	public boolean isNew() {
+		return newEntity;
+	}
+
 	public enum TransactionType {
 		WITHDRAWAL, 
 		TRANSFER 
@@ -1,6 +1,6 @@
 package com.rabobank.banking.domain.payment;
 
-import java.math.BigDecimal;
+import com.rabobank.banking.domain.model.Money;
 
 /**
  * Strategy interface for card payment processing. 
@@ -8,12 +8,16 @@ import java.math.BigDecimal;
  */
 
 public interface CardPaymentStrategy {
-	BigDecimal calculateTotalAmount(BigDecimal amount);
 
 	/**
-	 * Calculate fee for the transaction.
+	 * Fee for the transaction, in cents.
 	 */
-	BigDecimal calculateFee(BigDecimal amount);
+	Money fee(Money amount);
+
+	/**
+	 * Amount plus fee, in cents.
+	 */
+	Money totalAmount(Money amount);
 
 	/**
 	 * Get strategy name for logging.
@@ -0,0 +1,45 @@
+package com.rabobank.banking.domain.payment;
+
+import java.math.BigDecimal;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+/**
+ * One fee band of a card type, bound from
+ * {@code banking.transaction.fees.rules.<CARD_TYPE>[n]} or uploaded through
+ * the fee rules endpoint. A band applies to amounts from {@code fromAmount}
+ * up to the {@code fromAmount} of the next band of the same card type.
+ *
+ * Fee = amount x percentage (rounded HALF_UP to the cent) + flat, then raised
+ * to {@code minFee} and capped at {@code maxFee} when those are set.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Data
+@Builder
+@NoArgsConstructor
+@AllArgsConstructor
+public class FeeRule {
+
+	/** Smallest amount the band applies to, inclusive. */
+	@Builder.Default
+	private BigDecimal fromAmount = BigDecimal.ZERO;
+
+	/** Fee as a fraction of the amount, e.g. 0.01 for 1%. */
+	@Builder.Default
+	private BigDecimal percentage = BigDecimal.ZERO;
+
+	/** Fixed part of the fee. */
+	@Builder.Default
+	private BigDecimal flat = BigDecimal.ZERO;
+
+	/** Lowest fee charged in the band, or null for none. */
+	private BigDecimal minFee;
+
+	/** Highest fee charged in the band, or null for none. */
+	private BigDecimal maxFee;
+}
@@ -0,0 +1,106 @@
+package com.rabobank.banking.domain.payment;
+
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.springframework.stereotype.Component;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.InvalidFeeRuleException;
+import com.rabobank.banking.domain.model.CardType;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fee strategies per card type, compiled from {@link FeeRule}s.
+ *
+ * The rules of {@code banking.transaction.fees.rules} are compiled at startup
+ * into one {@link TieredFeeStrategy} per card type, held in an array indexed
+ * by {@link CardType#ordinal()}. Without configured CREDIT rules, credit cards
+ * pay {@code banking.transaction.credit-card-fee-percentage}.
+ *
+ * {@link #reload(Map)} compiles new rules off to the side and swaps them in
+ * with a single reference write. Requests already pricing with the old rules
+ * finish with them; nothing is locked on the lookup path.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class FeeRuleEngine {
+
+	private static final CardType[] CARD_TYPES = CardType.values();
+
+	private final AtomicReference<Schedule> schedule;
+
+	/**
+	 * Compiled strategies together with the rules they came from.
+	 */
+	private record Schedule(Map<CardType, List<FeeRule>> rules, CardPaymentStrategy[] strategies) {
+	}
+
+	public FeeRuleEngine(TransactionProperties properties) {
+		Map<CardType, List<FeeRule>> rules = new EnumMap<>(CardType.class);
+		rules.putAll(properties.getFees().getRules());
+		rules.putIfAbsent(CardType.CREDIT,
+				List.of(FeeRule.builder().percentage(properties.getCreditCardFeePercentage()).build()));
+		this.schedule = new AtomicReference<>(compile(rules));
+	}
+
+	/**
+	 * Strategy pricing transactions of the card type.
+	 */
+	public CardPaymentStrategy strategyFor(CardType cardType) {
+		return schedule.get().strategies()[cardType.ordinal()];
+	}
+
+	/**
+	 * Rules currently in effect, per card type.
+	 */
+	public Map<CardType, List<FeeRule>> rules() {
+		return schedule.get().rules();
+	}
+
+	/**
+	 * Replaces the rules of the given card types; card types missing from the
+	 * map keep their current rules, an empty list removes all fees.
+	 *
+	 * @throws InvalidFeeRuleException if the rules don't compile; the current
+	 *                                 rules then stay in effect
+	 */
+	public Map<CardType, List<FeeRule>> reload(Map<CardType, List<FeeRule>> changes) {
+		Schedule current;
+		Schedule next;
+		do {
+			current = schedule.get();
+			Map<CardType, List<FeeRule>> rules = new EnumMap<>(current.rules());
+			rules.putAll(changes);
+			next = compile(rules);
+		} while (!schedule.compareAndSet(current, next));
+
+		log.info("Fee rules reloaded for {}", changes.keySet());
+		return next.rules();
+	}
+
+	private static Schedule compile(Map<CardType, List<FeeRule>> rules) {
+		Map<CardType, List<FeeRule>> copy = new EnumMap<>(CardType.class);
+		CardPaymentStrategy[] strategies = new CardPaymentStrategy[CARD_TYPES.length];
+		for (CardType cardType : CARD_TYPES) {
+			List<FeeRule> cardRules = rules.get(cardType);
+			if (cardRules == null) {
+				cardRules = List.of();
+			}
+			List<FeeRule> snapshot = cardRules.stream()
+					.map(rule -> FeeRule.builder().fromAmount(rule.getFromAmount()).percentage(rule.getPercentage())
+							.flat(rule.getFlat()).minFee(rule.getMinFee()).maxFee(rule.getMaxFee()).build())
+					.toList();
+			copy.put(cardType, snapshot);
+			strategies[cardType.ordinal()] = new TieredFeeStrategy(cardType.name(), snapshot);
+		}
+		return new Schedule(Collections.unmodifiableMap(copy), strategies);
+	}
+}
@@ -0,0 +1,143 @@
+package com.rabobank.banking.domain.payment;
+
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+import com.rabobank.banking.domain.exception.InvalidFeeRuleException;
+import com.rabobank.banking.domain.model.Money;
+
+/**
+ * Fee strategy compiled from the {@link FeeRule} bands of one card type.
+ *
+ * The bands are turned into parallel arrays of cents and rational
+ * percentages once, so pricing an amount is a binary search over the band
+ * floors and a few long operations. A card type without bands pays no fee.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public final class TieredFeeStrategy implements CardPaymentStrategy {
+
+	private static final long NO_MAX = -1;
+
+	private final String name;
+	private final long[] fromCents;
+	private final long[] numerators;
+	private final long[] denominators;
+	private final long[] flatCents;
+	private final long[] minCents;
+	private final long[] maxCents;
+
+	/**
+	 * @throws InvalidFeeRuleException if a value is negative, has fractional
+	 *                                 cents, two bands start at the same amount
+	 *                                 or a minimum fee exceeds its maximum
+	 */
+	public TieredFeeStrategy(String name, List<FeeRule> rules) {
+		this.name = name;
+		List<FeeRule> bands = rules.stream()
+				.sorted(Comparator.comparing(rule -> valueOf(rule.getFromAmount(), BigDecimal.ZERO))).toList();
+		int count = bands.size();
+		fromCents = new long[count];
+		numerators = new long[count];
+		denominators = new long[count];
+		flatCents = new long[count];
+		minCents = new long[count];
+		maxCents = new long[count];
+
+		for (int i = 0; i < count; i++) {
+			FeeRule rule = bands.get(i);
+			fromCents[i] = cents(rule.getFromAmount(), BigDecimal.ZERO, "fromAmount");
+			if (i > 0 && fromCents[i] == fromCents[i - 1]) {
+				throw new InvalidFeeRuleException(name + ": two fee bands start at " + rule.getFromAmount());
+			}
+			BigDecimal percentage = valueOf(rule.getPercentage(), BigDecimal.ZERO).stripTrailingZeros();
+			if (percentage.signum() < 0) {
+				throw new InvalidFeeRuleException(name + ": percentage must not be negative");
+			}
+			if (percentage.scale() < 0) {
+				percentage = percentage.setScale(0);
+			}
+			// 0.015 becomes 15 / 1000
+			numerators[i] = longValue(percentage.unscaledValue(), "percentage");
+			denominators[i] = longValue(BigInteger.TEN.pow(percentage.scale()), "percentage");
+			flatCents[i] = cents(rule.getFlat(), BigDecimal.ZERO, "flat");
+			minCents[i] = cents(rule.getMinFee(), BigDecimal.ZERO, "minFee");
+			maxCents[i] = rule.getMaxFee() == null ? NO_MAX : cents(rule.getMaxFee(), null, "maxFee");
+			if (maxCents[i] != NO_MAX && minCents[i] > maxCents[i]) {
+				throw new InvalidFeeRuleException(name + ": minFee exceeds maxFee");
+			}
+		}
+	}
+
+	@Override
+	public Money fee(Money amount) {
+		validateAmount(amount);
+		int band = band(amount.cents());
+		if (band < 0) {
+			return Money.ZERO;
+		}
+		long fee = flatCents[band];
+		if (numerators[band] != 0) {
+			fee = Math.addExact(fee, amount.times(numerators[band], denominators[band]).cents());
+		}
+		fee = Math.max(fee, minCents[band]);
+		if (maxCents[band] != NO_MAX) {
+			fee = Math.min(fee, maxCents[band]);
+		}
+		return Money.ofCents(fee);
+	}
+
+	@Override
+	public Money totalAmount(Money amount) {
+		return amount.plus(fee(amount));
+	}
+
+	@Override
+	public String getStrategyName() {
+		return name;
+	}
+
+	/**
+	 * Index of the band the amount falls in, or -1 below the first band.
+	 */
+	private int band(long cents) {
+		int index = Arrays.binarySearch(fromCents, cents);
+		return index >= 0 ? index : -index - 2;
+	}
+
+	private void validateAmount(Money amount) {
+		if (amount == null) {
+			throw new IllegalArgumentException("Amount cannot be null");
+		}
+		if (!amount.isPositive()) {
+			throw new IllegalArgumentException("Amount must be greater than zero");
+		}
+	}
+
+	private long cents(BigDecimal value, BigDecimal defaultValue, String field) {
+		BigDecimal amount = valueOf(value, defaultValue);
+		if (amount.signum() < 0) {
+			throw new InvalidFeeRuleException(name + ": " + field + " must not be negative");
+		}
+		try {
+			return Money.of(amount).cents();
+		} catch (ArithmeticException ex) {
+			throw new InvalidFeeRuleException(name + ": " + field + " must be a whole number of cents");
+		}
+	}
+
+	private long longValue(BigInteger value, String field) {
+		if (value.bitLength() > 31) {
+			throw new InvalidFeeRuleException(name + ": " + field + " has too many digits");
+		}
+		return value.longValue();
+	}
+
+	private static BigDecimal valueOf(BigDecimal value, BigDecimal defaultValue) {
+		return value == null ? defaultValue : value;
+	}
+}
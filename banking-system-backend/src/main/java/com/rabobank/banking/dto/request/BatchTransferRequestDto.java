@@ -0,0 +1,31 @@
+package com.rabobank.banking.dto.request;
+
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
+import jakarta.validation.Valid;
+import jakarta.validation.constraints.NotEmpty;
+import jakarta.validation.constraints.Size;
+import lombok.Builder;
+import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
+
+/**
+ * Request DTO for applying many transfers in one call, e.g. payroll or
+ * merchant settlement.
+ * 
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Jacksonized
+@Schema(description = "Request to apply a batch of transfers")
+public final class BatchTransferRequestDto {
+
+	@NotEmpty(message = "At least one transfer is required")
+	@Size(max = 10000, message = "A batch may contain at most 10000 transfers")
+	@Schema(description = "Transfers, applied in order", requiredMode = RequiredMode.REQUIRED)
+	private List<@Valid TransferRequestDto> transfers;
+}
@@ -4,6 +4,7 @@ import java.math.BigDecimal;
 import io.swagger.v3.oas.annotations.media.Schema;
 import io.swagger.v3.oas.annotations.media.Schema.RequiredMode;
 import jakarta.validation.constraints.DecimalMin;
+import jakarta.validation.constraints.Digits;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
 import lombok.Builder;
@@ -30,6 +31,7 @@ public final class TransferRequestDto {
 
 	@NotNull(message = "Amount is required")
 	@DecimalMin(value = "0.01", message = "Amount must be greater than zero")
+	@Digits(integer = 13, fraction = 2, message = "Amount must have at most two decimals")
 	@Schema(description = "Amount to transfer", example = "200.00", requiredMode = RequiredMode.REQUIRED )
 	private BigDecimal amount;
 
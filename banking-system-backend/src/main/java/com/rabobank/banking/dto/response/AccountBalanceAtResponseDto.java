@@ -0,0 +1,36 @@
+package com.rabobank.banking.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Balance of an account at a point in time.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Balance of an account at a point in time")
+public final class AccountBalanceAtResponseDto {
+
+	@Schema(description = "Account ID", example = "ACC001")
+	private String accountId;
+
+	@Schema(description = "Point in time the balance applies to", example = "2025-10-01T00:00:00")
+	private LocalDateTime at;
+
+	@Schema(description = "Balance at that point, including balance buckets", example = "1000.00")
+	private BigDecimal balance;
+
+	@Schema(description = "Day of the end-of-day snapshot the balance was derived from; absent when it was derived from the current balance", example = "2025-09-30")
+	private LocalDate snapshotDate;
+
+	@Schema(description = "Response timestamp", example = "2025-10-26T10:30:00")
+	private LocalDateTime timestamp;
+
+}
@@ -0,0 +1,29 @@
+package com.rabobank.banking.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One page of account balances, in accountId order.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "One page of account balances")
+public final class AccountBalancePageResponseDto {
+
+	@Schema(description = "Account balances of this page")
+	private List<AccountBalanceResponseDto> accounts;
+
+	@Schema(description = "Cursor of the next page, absent on the last page", example = "QUNDMDAz")
+	private String nextCursor;
+
+	@Schema(description = "Response timestamp", example = "2025-10-26T10:30:00")
+	private LocalDateTime timestamp;
+
+}
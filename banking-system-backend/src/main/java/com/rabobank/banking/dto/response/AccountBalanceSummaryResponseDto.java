@@ -0,0 +1,32 @@
+package com.rabobank.banking.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Totals over all active accounts.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Totals over all active accounts")
+public final class AccountBalanceSummaryResponseDto {
+
+	@Schema(description = "Total number of accounts", example = "3")
+	private long totalAccounts;
+
+	@Schema(description = "Total balance across all accounts", example = "4000.00")
+	private BigDecimal totalBalance;
+
+	@Schema(description = "When the running totals were last checked against the accounts table", example = "2025-10-26T10:25:00")
+	private LocalDateTime reconciledAt;
+
+	@Schema(description = "Response timestamp", example = "2025-10-26T10:30:00")
+	private LocalDateTime timestamp;
+
+}
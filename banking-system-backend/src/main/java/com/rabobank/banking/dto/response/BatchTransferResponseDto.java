@@ -0,0 +1,56 @@
+package com.rabobank.banking.dto.response;
+
+import java.util.List;
+
+import com.rabobank.banking.domain.model.Transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Data transfer DTO with the outcome of every transfer in a batch.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Per-item results of a batch transfer")
+public final class BatchTransferResponseDto {
+
+	@Schema(description = "Number of transfers in the batch", example = "10000")
+	private int total;
+
+	@Schema(description = "Number of successful transfers", example = "9998")
+	private int succeeded;
+
+	@Schema(description = "Number of failed transfers", example = "2")
+	private int failed;
+
+	@Schema(description = "Result per transfer, in request order")
+	private List<ItemResult> results;
+
+	/**
+	 * Outcome of one transfer in the batch.
+	 */
+	@Value
+	@Builder
+	@Schema(description = "Result of a single transfer in a batch")
+	public static class ItemResult {
+
+		@Schema(description = "Position of the transfer in the request", example = "0")
+		private int index;
+
+		@Schema(description = "SUCCESS or FAILED", example = "SUCCESS")
+		private Transaction.TransactionStatus status;
+
+		@Schema(description = "Transaction details when successful")
+		private TransactionResponseDto transaction;
+
+		@Schema(description = "Error code when failed", example = "INSUFFICIENT_FUNDS")
+		private String errorCode;
+
+		@Schema(description = "Error message when failed", example = "Insufficient funds")
+		private String message;
+	}
+}
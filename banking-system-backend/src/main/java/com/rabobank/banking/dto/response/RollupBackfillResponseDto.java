@@ -0,0 +1,37 @@
+package com.rabobank.banking.dto.response;
+
+import java.time.LocalDateTime;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Outcome of rebuilding the transaction rollups of a period.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Outcome of a transaction rollup backfill")
+public final class RollupBackfillResponseDto {
+
+	@Schema(description = "Start of the rebuilt period, inclusive", example = "2025-01-01T00:00:00")
+	private LocalDateTime from;
+
+	@Schema(description = "End of the rebuilt period, exclusive", example = "2025-10-26T10:00:00")
+	private LocalDateTime to;
+
+	@Schema(description = "Number of range scans", example = "298")
+	private int chunks;
+
+	@Schema(description = "Number of hourly buckets written", example = "14304")
+	private long buckets;
+
+	@Schema(description = "Duration of the backfill in milliseconds", example = "5120")
+	private long durationMs;
+
+	@Schema(description = "Response timestamp", example = "2025-10-26T10:30:00")
+	private LocalDateTime timestamp;
+
+}
@@ -0,0 +1,68 @@
+package com.rabobank.banking.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One transaction as seen from one account: its own withdrawals and outgoing
+ * transfers, and transfers it received. For received transfers, card and
+ * balance details belong to the payer and are left out.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Transaction in an account's history")
+public final class TransactionHistoryItemDto {
+
+	/**
+	 * Whether the transaction took money from or brought money to the account.
+	 */
+	public enum Direction {
+		DEBIT, CREDIT
+	}
+
+	@Schema(description = "Transaction ID", example = "TXN-01JB3V4W5X6Y7")
+	private String transactionId;
+
+	@Schema(description = "Transaction type", example = "TRANSFER")
+	private Transaction.TransactionType type;
+
+	@Schema(description = "Debit or credit for this account", example = "DEBIT")
+	private Direction direction;
+
+	@Schema(description = "Other account of a transfer", example = "ACC002")
+	private String counterpartyAccountId;
+
+	@Schema(description = "Transaction amount", example = "100.00")
+	private BigDecimal amount;
+
+	@Schema(description = "Fee charged to this account", example = "1.00")
+	private BigDecimal fee;
+
+	@Schema(description = "Total amount debited or credited", example = "101.00")
+	private BigDecimal totalAmount;
+
+	@Schema(description = "Card type used, for debits", example = "CREDIT")
+	private CardType cardType;
+
+	@Schema(description = "Balance after the transaction, for debits", example = "1399.00")
+	private BigDecimal balanceAfter;
+
+	@Schema(description = "Transaction description", example = "Rent")
+	private String description;
+
+	@Schema(description = "Transaction status", example = "SUCCESS")
+	private Transaction.TransactionStatus status;
+
+	@Schema(description = "Transaction timestamp", example = "2025-10-26T10:30:00")
+	private LocalDateTime transactionDate;
+
+}
@@ -0,0 +1,32 @@
+package com.rabobank.banking.dto.response;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * One page of an account's transactions, newest first.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "One page of an account's transaction history")
+public final class TransactionHistoryPageResponseDto {
+
+	@Schema(description = "Account ID", example = "ACC001")
+	private String accountId;
+
+	@Schema(description = "Transactions of this page, newest first")
+	private List<TransactionHistoryItemDto> transactions;
+
+	@Schema(description = "Cursor of the next page, absent on the last page")
+	private String nextCursor;
+
+	@Schema(description = "Response timestamp", example = "2025-10-26T10:30:00")
+	private LocalDateTime timestamp;
+
+}
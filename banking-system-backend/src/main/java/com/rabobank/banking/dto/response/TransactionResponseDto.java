@@ -6,6 +6,7 @@ import com.rabobank.banking.domain.model.Transaction;
 import io.swagger.v3.oas.annotations.media.Schema;
 import lombok.Builder;
 import lombok.Value;
+import lombok.extern.jackson.Jacksonized;
 
 /**
  * Data transfer DTO for transaction response details after processing.
@@ -14,6 +15,7 @@ import lombok.Value;
  */
 @Value
 @Builder
+@Jacksonized
 @Schema(description = "Transaction result information")
 public final class TransactionResponseDto {
 
@@ -0,0 +1,45 @@
+package com.rabobank.banking.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Totals of successful transactions of one card type and transaction type in
+ * one hour or day.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Transaction totals of one bucket, card type and transaction type")
+public final class TransactionRollupBucketDto {
+
+	@Schema(description = "Start of the hour or day", example = "2025-10-26T10:00:00")
+	private LocalDateTime bucketStart;
+
+	@Schema(description = "Card type", example = "CREDIT")
+	private CardType cardType;
+
+	@Schema(description = "Transaction type", example = "WITHDRAWAL")
+	private Transaction.TransactionType type;
+
+	@Schema(description = "Number of successful transactions", example = "42")
+	private long transactionCount;
+
+	@Schema(description = "Sum of the amounts, excluding fees", example = "4200.00")
+	private BigDecimal amount;
+
+	@Schema(description = "Sum of the fees", example = "42.00")
+	private BigDecimal fee;
+
+	@Schema(description = "Sum of the amounts including fees", example = "4242.00")
+	private BigDecimal totalAmount;
+
+}
@@ -0,0 +1,50 @@
+package com.rabobank.banking.dto.response;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+
+import com.rabobank.banking.service.analytics.RollupGranularity;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Transaction totals of a period, per bucket and overall.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Transaction totals of a period per hour or day, card type and transaction type")
+public final class TransactionRollupResponseDto {
+
+	@Schema(description = "Start of the first bucket, inclusive", example = "2025-10-01T00:00:00")
+	private LocalDateTime from;
+
+	@Schema(description = "End of the last bucket, exclusive", example = "2025-11-01T00:00:00")
+	private LocalDateTime to;
+
+	@Schema(description = "Bucket width", example = "DAY")
+	private RollupGranularity granularity;
+
+	@Schema(description = "Non-empty buckets, oldest first")
+	private List<TransactionRollupBucketDto> buckets;
+
+	@Schema(description = "Number of successful transactions in the period", example = "1250")
+	private long transactionCount;
+
+	@Schema(description = "Sum of the amounts in the period, excluding fees", example = "125000.00")
+	private BigDecimal amount;
+
+	@Schema(description = "Sum of the fees in the period", example = "850.00")
+	private BigDecimal fee;
+
+	@Schema(description = "Sum of the amounts in the period including fees", example = "125850.00")
+	private BigDecimal totalAmount;
+
+	@Schema(description = "Response timestamp", example = "2025-10-26T10:30:00")
+	private LocalDateTime timestamp;
+
+}
@@ -0,0 +1,34 @@
+package com.rabobank.banking.dto.response;
+
+import com.rabobank.banking.domain.model.Transaction;
+
+import io.swagger.v3.oas.annotations.media.Schema;
+import lombok.Builder;
+import lombok.Value;
+
+/**
+ * Data transfer DTO for the processing state of an asynchronously submitted
+ * transaction.
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Value
+@Builder
+@Schema(description = "Processing state of a submitted transaction")
+public final class TransactionStatusResponseDto {
+
+	@Schema(description = "Transaction ID", example = "TXN-0ASF3C4N5G400")
+	private String transactionId;
+
+	@Schema(description = "PENDING until processed, then SUCCESS or FAILED", example = "PENDING")
+	private Transaction.TransactionStatus status;
+
+	@Schema(description = "Transaction details once successful")
+	private TransactionResponseDto transaction;
+
+	@Schema(description = "Error code when failed", example = "INSUFFICIENT_FUNDS")
+	private String errorCode;
+
+	@Schema(description = "Error message when failed", example = "Insufficient funds")
+	private String message;
+}
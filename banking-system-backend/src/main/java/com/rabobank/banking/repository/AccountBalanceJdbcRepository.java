@@ -0,0 +1,135 @@
+package com.rabobank.banking.repository;
+
+import java.math.BigDecimal;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.domain.model.Card;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.dto.response.AccountBalanceResponseDto;
+
+/**
+ * Balance listings of active accounts read straight into response rows,
+ * without loading account, user and card entities. The balance of a bucketed
+ * account includes its buckets.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class AccountBalanceJdbcRepository {
+
+	private static final String SELECT_BALANCES = """
+			SELECT a.account_id, a.account_number, a.active, a.balance + COALESCE(bk.total, 0) AS balance,
+			       u.first_name, u.last_name, u.email, c.card_type, c.card_number
+			  FROM accounts a
+			  JOIN users u ON u.id = a.user_id
+			  JOIN cards c ON c.account_id = a.account_id
+			  LEFT JOIN LATERAL (SELECT SUM(b.balance) AS total
+			                       FROM account_balance_buckets b
+			                      WHERE b.account_id = a.account_id) bk ON true
+			 WHERE a.active = true
+			""";
+
+	private static final String SELECT_PAGE = SELECT_BALANCES + """
+			   AND a.account_id > :afterAccountId
+			 ORDER BY a.account_id
+			 LIMIT :limit
+			""";
+
+	private static final String SELECT_ALL = SELECT_BALANCES + """
+			 ORDER BY a.account_id
+			""";
+
+	private static final String SELECT_TOTALS = """
+			SELECT COUNT(*) AS total_accounts, COALESCE(SUM(a.balance), 0) + COALESCE(SUM(bk.total), 0) AS total_balance
+			  FROM accounts a
+			  JOIN users u ON u.id = a.user_id
+			  JOIN cards c ON c.account_id = a.account_id
+			  LEFT JOIN (SELECT account_id, SUM(balance) AS total
+			               FROM account_balance_buckets
+			              GROUP BY account_id) bk ON bk.account_id = a.account_id
+			 WHERE a.active = true
+			""";
+
+	private static final String SELECT_COUNTED = """
+			SELECT a.account_id
+			  FROM accounts a
+			  JOIN users u ON u.id = a.user_id
+			  JOIN cards c ON c.account_id = a.account_id
+			 WHERE a.active = true
+			   AND a.account_id IN (:accountIds)
+			""";
+
+	/**
+	 * Number of active accounts and the sum of their balances.
+	 */
+	public record Totals(long totalAccounts, BigDecimal totalBalance) {
+	}
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+	public AccountBalanceJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate, AccountProperties properties) {
+		this.jdbcTemplate = jdbcTemplate;
+		JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+		streaming.setFetchSize(properties.getBalances().getStreamFetchSize());
+		this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+	}
+
+	/**
+	 * Up to {@code limit} accounts with an accountId after the given one, in
+	 * accountId order.
+	 *
+	 * @param afterAccountId last accountId of the previous page, "" for the first
+	 */
+	public List<AccountBalanceResponseDto> findPage(String afterAccountId, int limit) {
+		return jdbcTemplate.query(SELECT_PAGE,
+				new MapSqlParameterSource("afterAccountId", afterAccountId).addValue("limit", limit),
+				(rs, rowNum) -> mapRow(rs));
+	}
+
+	/**
+	 * Passes every account to the consumer in accountId order. Rows are fetched
+	 * in batches of {@code stream-fetch-size}; PostgreSQL only uses a cursor
+	 * when this runs inside a transaction.
+	 */
+	public void forEach(Consumer<AccountBalanceResponseDto> consumer) {
+		streamingJdbcTemplate.query(SELECT_ALL, new MapSqlParameterSource(),
+				(RowCallbackHandler) rs -> consumer.accept(mapRow(rs)));
+	}
+
+	public Totals totals() {
+		return jdbcTemplate.queryForObject(SELECT_TOTALS, new MapSqlParameterSource(),
+				(rs, rowNum) -> new Totals(rs.getLong("total_accounts"), rs.getBigDecimal("total_balance")));
+	}
+
+	/**
+	 * The given accounts that are part of {@link #totals()}.
+	 */
+	public Set<String> findCounted(Collection<String> accountIds) {
+		return new HashSet<>(jdbcTemplate.queryForList(SELECT_COUNTED,
+				new MapSqlParameterSource("accountIds", accountIds), String.class));
+	}
+
+	private static AccountBalanceResponseDto mapRow(ResultSet rs) throws SQLException {
+		return AccountBalanceResponseDto.builder().accountId(rs.getString("account_id"))
+				.accountNumber(rs.getString("account_number"))
+				.userName(rs.getString("first_name") + " " + rs.getString("last_name"))
+				.userEmail(rs.getString("email")).balance(rs.getBigDecimal("balance"))
+				.cardType(CardType.valueOf(rs.getString("card_type")))
+				.cardNumber(Card.mask(rs.getString("card_number"))).active(rs.getBoolean("active")).build();
+	}
+}
@@ -0,0 +1,20 @@
+package com.rabobank.banking.repository;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
+
+/**
+ * The columns of an account, its holder and its card that a balance view
+ * shows, selected directly instead of hydrating managed Account, User and Card
+ * entities. The card number is unmasked; mask it before it leaves the service.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public record AccountBalanceView(String accountId, String accountNumber, String firstName, String lastName,
+		String email, Money balance, int bucketCount, CardType cardType, String cardNumber, boolean active) {
+
+	public String fullName() {
+		return firstName + " " + lastName;
+	}
+}
@@ -0,0 +1,171 @@
+package com.rabobank.banking.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.domain.model.Money;
+
+/**
+ * Statements on {@code account_balance_buckets}, the sub-balance rows of
+ * heavily credited accounts.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class AccountBucketJdbcRepository {
+
+	/**
+	 * Whether the credited account counts towards the balance totals, returned
+	 * by the credit statements.
+	 */
+	private static final String RETURNING_COUNTED = """
+			RETURNING (SELECT a.active AND EXISTS (SELECT 1 FROM cards c WHERE c.account_id = a.account_id)
+			             FROM accounts a
+			            WHERE a.account_id = :accountId) AS counted
+			""";
+
+	/**
+	 * Credits the first bucket, in rotation from {@code :offset}, that no other
+	 * transaction holds. Matches no row if every bucket is currently locked.
+	 */
+	private static final String CREDIT_FREE_BUCKET = """
+			WITH target AS (
+			    SELECT bucket
+			      FROM account_balance_buckets
+			     WHERE account_id = :accountId
+			     ORDER BY (bucket + :offset) % :bucketCount
+			     LIMIT 1
+			       FOR UPDATE SKIP LOCKED
+			)
+			UPDATE account_balance_buckets b
+			   SET balance = b.balance + :amount, updated_at = :now
+			  FROM target
+			 WHERE b.account_id = :accountId AND b.bucket = target.bucket
+			""" + RETURNING_COUNTED;
+
+	private static final String CREDIT_BUCKET = """
+			UPDATE account_balance_buckets
+			   SET balance = balance + :amount, updated_at = :now
+			 WHERE account_id = :accountId AND bucket = :bucket
+			""" + RETURNING_COUNTED;
+
+	private static final String SELECT_BUCKET_COUNT = "SELECT bucket_count FROM accounts WHERE account_id = :accountId";
+
+	private static final String LOCK_BUCKETS = """
+			SELECT bucket, balance
+			  FROM account_balance_buckets
+			 WHERE account_id = :accountId
+			 ORDER BY bucket
+			   FOR UPDATE
+			""";
+
+	private static final String SET_BUCKET_BALANCE = """
+			UPDATE account_balance_buckets
+			   SET balance = :balance, updated_at = :now
+			 WHERE account_id = :accountId AND bucket = :bucket
+			""";
+
+	private static final String INSERT_BUCKET = """
+			INSERT INTO account_balance_buckets (account_id, bucket, balance, updated_at)
+			VALUES (:accountId, :bucket, 0, :now)
+			ON CONFLICT (account_id, bucket) DO NOTHING
+			""";
+
+	private static final String DELETE_BUCKETS_FROM = """
+			DELETE FROM account_balance_buckets WHERE account_id = :accountId AND bucket >= :fromBucket
+			""";
+
+	private static final String SUM_BY_ACCOUNT = """
+			SELECT account_id, SUM(balance) AS total FROM account_balance_buckets GROUP BY account_id
+			""";
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public AccountBucketJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public record Bucket(int bucket, Money balance) {
+	}
+
+	/**
+	 * Number of buckets of the account without locking it; 0 when the account is
+	 * not bucketed or doesn't exist.
+	 */
+	public int findBucketCount(String accountId) {
+		List<Integer> counts = jdbcTemplate.queryForList(SELECT_BUCKET_COUNT,
+				new MapSqlParameterSource("accountId", accountId), Integer.class);
+		return counts.isEmpty() ? 0 : counts.get(0);
+	}
+
+	/**
+	 * Credits an unlocked bucket, starting the search at {@code offset}.
+	 *
+	 * @return empty if every bucket was locked, otherwise whether the account
+	 *         counts towards the balance totals
+	 */
+	public Optional<Boolean> creditFreeBucket(String accountId, int bucketCount, int offset, Money amount,
+			LocalDateTime now) {
+		return jdbcTemplate.queryForList(CREDIT_FREE_BUCKET,
+				new MapSqlParameterSource("accountId", accountId).addValue("bucketCount", bucketCount)
+						.addValue("offset", offset).addValue("amount", amount.toBigDecimal())
+						.addValue("now", Timestamp.valueOf(now)), Boolean.class).stream().findFirst();
+	}
+
+	/**
+	 * Credits one specific bucket, waiting for its row lock if needed.
+	 *
+	 * @return empty if the bucket doesn't exist, otherwise whether the account
+	 *         counts towards the balance totals
+	 */
+	public Optional<Boolean> creditBucket(String accountId, int bucket, Money amount, LocalDateTime now) {
+		return jdbcTemplate.queryForList(CREDIT_BUCKET, new MapSqlParameterSource("accountId", accountId)
+				.addValue("bucket", bucket).addValue("amount", amount.toBigDecimal()).addValue("now", Timestamp.valueOf(now)),
+				Boolean.class).stream().findFirst();
+	}
+
+	/**
+	 * Locks all buckets of the account in bucket order.
+	 */
+	public List<Bucket> lockBuckets(String accountId) {
+		return jdbcTemplate.query(LOCK_BUCKETS, new MapSqlParameterSource("accountId", accountId),
+				(rs, rowNum) -> new Bucket(rs.getInt("bucket"), Money.of(rs.getBigDecimal("balance"))));
+	}
+
+	public void setBucketBalance(String accountId, int bucket, Money balance, LocalDateTime now) {
+		jdbcTemplate.update(SET_BUCKET_BALANCE, new MapSqlParameterSource("accountId", accountId)
+				.addValue("bucket", bucket).addValue("balance", balance.toBigDecimal()).addValue("now", Timestamp.valueOf(now)));
+	}
+
+	public void createBuckets(String accountId, int fromBucket, int toBucketExclusive, LocalDateTime now) {
+		for (int bucket = fromBucket; bucket < toBucketExclusive; bucket++) {
+			jdbcTemplate.update(INSERT_BUCKET, new MapSqlParameterSource("accountId", accountId)
+					.addValue("bucket", bucket).addValue("now", Timestamp.valueOf(now)));
+		}
+	}
+
+	public void deleteBucketsFrom(String accountId, int fromBucket) {
+		jdbcTemplate.update(DELETE_BUCKETS_FROM,
+				new MapSqlParameterSource("accountId", accountId).addValue("fromBucket", fromBucket));
+	}
+
+	/**
+	 * Sum of the bucket balances of every bucketed account.
+	 */
+	public Map<String, Money> sumByAccount() {
+		Map<String, Money> totals = new HashMap<>();
+		jdbcTemplate.query(SUM_BY_ACCOUNT,
+				(RowCallbackHandler) rs -> totals.put(rs.getString("account_id"), Money.of(rs.getBigDecimal("total"))));
+		return totals;
+	}
+}
@@ -0,0 +1,231 @@
+package com.rabobank.banking.repository;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.config.AccountProperties;
+
+/**
+ * End-of-day account balances and the movements needed to move from one to a
+ * point in time.
+ *
+ * A snapshot is derived from the account's previous snapshot plus the
+ * transactions since, so a day only reads its own transactions. An account
+ * without an earlier snapshot is derived backwards from its current balance
+ * minus everything after the day.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class AccountDailyBalanceJdbcRepository {
+
+	/** Arbitrary key that serialises the snapshot job across instances. */
+	private static final long SNAPSHOT_LOCK = 0x6461_696c_7962_616cL;
+
+	private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(:lock)";
+
+	private static final String SELECT_LAST_COMPLETED_DAY = "SELECT MAX(snapshot_date) FROM account_balance_snapshot_days";
+
+	private static final String SELECT_ACTIVE_ACCOUNT_IDS = """
+			SELECT account_id
+			  FROM accounts
+			 WHERE active = true
+			 ORDER BY account_id
+			""";
+
+	/**
+	 * Net change of an account's balance in {@code [:from, :to)}: what it paid
+	 * for withdrawals and transfers, fees included, and what it received.
+	 */
+	private static final String NET_MOVEMENT = """
+			SELECT SUM(m.delta) AS net
+			  FROM (SELECT -t.total_amount AS delta
+			          FROM transactions t
+			         WHERE t.account_id = %1$s
+			           AND t.status = 'SUCCESS'
+			           AND t.transaction_date >= %2$s
+			           AND t.transaction_date < %3$s
+			        UNION ALL
+			        SELECT t.amount
+			          FROM transactions t
+			         WHERE t.to_account_id = %1$s
+			           AND t.account_id <> %1$s
+			           AND t.status = 'SUCCESS'
+			           AND t.transaction_date >= %2$s
+			           AND t.transaction_date < %3$s) m
+			""";
+
+	private static final String INSERT_CHUNK = """
+			INSERT INTO account_daily_balances (account_id, snapshot_date, balance)
+			SELECT a.account_id, :day,
+			       CASE WHEN prev.snapshot_date IS NOT NULL THEN prev.balance + COALESCE(mv.net, 0)
+			            ELSE a.balance + COALESCE(bk.total, 0) - COALESCE(mv.net, 0) END
+			  FROM accounts a
+			  LEFT JOIN LATERAL (SELECT s.snapshot_date, s.balance
+			                       FROM account_daily_balances s
+			                      WHERE s.account_id = a.account_id
+			                        AND s.snapshot_date < :day
+			                      ORDER BY s.snapshot_date DESC
+			                      LIMIT 1) prev ON true
+			  LEFT JOIN LATERAL (SELECT SUM(b.balance) AS total
+			                       FROM account_balance_buckets b
+			                      WHERE b.account_id = a.account_id) bk ON true
+			 CROSS JOIN LATERAL (SELECT CASE WHEN prev.snapshot_date IS NULL THEN CAST(:dayEnd AS TIMESTAMP)
+			                                 ELSE CAST(prev.snapshot_date + 1 AS TIMESTAMP) END AS from_date,
+			                            CASE WHEN prev.snapshot_date IS NULL THEN CAST('infinity' AS TIMESTAMP)
+			                                 ELSE CAST(:dayEnd AS TIMESTAMP) END AS to_date) w
+			  LEFT JOIN LATERAL (%s) mv ON true
+			 WHERE a.active = true
+			   AND a.account_id BETWEEN :firstAccountId AND :lastAccountId
+			   AND NOT EXISTS (SELECT 1
+			                     FROM account_daily_balances d
+			                    WHERE d.account_id = a.account_id
+			                      AND d.snapshot_date = :day)
+			ON CONFLICT (account_id, snapshot_date) DO NOTHING
+			""".formatted(NET_MOVEMENT.formatted("a.account_id", "w.from_date", "w.to_date"));
+
+	private static final String INSERT_COMPLETED_DAY = """
+			INSERT INTO account_balance_snapshot_days (snapshot_date, accounts, completed_at)
+			VALUES (:day, :accounts, :completedAt)
+			ON CONFLICT (snapshot_date) DO NOTHING
+			""";
+
+	private static final String SELECT_LATEST_BEFORE = """
+			SELECT snapshot_date, balance
+			  FROM account_daily_balances
+			 WHERE account_id = :accountId
+			   AND snapshot_date < :before
+			 ORDER BY snapshot_date DESC
+			 LIMIT 1
+			""";
+
+	private static final String SELECT_NET_MOVEMENT = NET_MOVEMENT.formatted(":accountId", ":from", ":to");
+
+	private static final String SELECT_NET_MOVEMENT_SINCE = NET_MOVEMENT.formatted(":accountId", ":from",
+			"CAST('infinity' AS TIMESTAMP)");
+
+	private static final String SELECT_CURRENT_BALANCE = """
+			SELECT a.balance + COALESCE((SELECT SUM(b.balance)
+			                               FROM account_balance_buckets b
+			                              WHERE b.account_id = a.account_id), 0)
+			  FROM accounts a
+			 WHERE a.account_id = :accountId
+			""";
+
+	/**
+	 * Balance of an account at the end of {@code snapshotDate}.
+	 */
+	public record Snapshot(LocalDate snapshotDate, BigDecimal balance) {
+
+		/** The instant the balance applies to: the start of the next day. */
+		public LocalDateTime endOfDay() {
+			return snapshotDate.plusDays(1).atStartOfDay();
+		}
+	}
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+	public AccountDailyBalanceJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate, AccountProperties properties) {
+		this.jdbcTemplate = jdbcTemplate;
+		JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+		streaming.setFetchSize(properties.getBalances().getStreamFetchSize());
+		this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+	}
+
+	/**
+	 * Takes the snapshot lock until the end of the current transaction.
+	 *
+	 * @return false if another instance holds it
+	 */
+	public boolean tryLock() {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK,
+				new MapSqlParameterSource("lock", SNAPSHOT_LOCK), Boolean.class));
+	}
+
+	/**
+	 * Newest day whose snapshot is complete, or empty before the first one.
+	 */
+	public Optional<LocalDate> findLastCompletedDay() {
+		Date day = jdbcTemplate.queryForObject(SELECT_LAST_COMPLETED_DAY, new MapSqlParameterSource(), Date.class);
+		return Optional.ofNullable(day).map(Date::toLocalDate);
+	}
+
+	/**
+	 * Passes the id of every active account to the consumer in accountId order,
+	 * fetched in batches of {@code stream-fetch-size}. PostgreSQL only uses a
+	 * cursor when this runs inside a transaction.
+	 */
+	public void forEachActiveAccountId(Consumer<String> consumer) {
+		streamingJdbcTemplate.query(SELECT_ACTIVE_ACCOUNT_IDS, new MapSqlParameterSource(),
+				(RowCallbackHandler) rs -> consumer.accept(rs.getString("account_id")));
+	}
+
+	/**
+	 * Snapshots the day's end-of-day balance of the active accounts in
+	 * {@code [firstAccountId, lastAccountId]} that don't have one yet.
+	 *
+	 * @return number of snapshots written
+	 */
+	public int snapshotAccounts(LocalDate day, String firstAccountId, String lastAccountId) {
+		return jdbcTemplate.update(INSERT_CHUNK,
+				new MapSqlParameterSource("day", Date.valueOf(day))
+						.addValue("dayEnd", Timestamp.valueOf(day.plusDays(1).atStartOfDay()))
+						.addValue("firstAccountId", firstAccountId).addValue("lastAccountId", lastAccountId));
+	}
+
+	public void markCompleted(LocalDate day, int accounts) {
+		jdbcTemplate.update(INSERT_COMPLETED_DAY, new MapSqlParameterSource("day", Date.valueOf(day))
+				.addValue("accounts", accounts).addValue("completedAt", Timestamp.valueOf(LocalDateTime.now())));
+	}
+
+	/**
+	 * The account's newest snapshot of a day before {@code before}, which is
+	 * the newest one that applies at the start of {@code before}.
+	 */
+	public Optional<Snapshot> findLatestBefore(String accountId, LocalDate before) {
+		List<Snapshot> snapshots = jdbcTemplate.query(SELECT_LATEST_BEFORE,
+				new MapSqlParameterSource("accountId", accountId).addValue("before", Date.valueOf(before)),
+				(rs, rowNum) -> new Snapshot(rs.getDate("snapshot_date").toLocalDate(), rs.getBigDecimal("balance")));
+		return snapshots.stream().findFirst();
+	}
+
+	/**
+	 * Net change of the account's balance by transactions dated in
+	 * {@code [from, to)}.
+	 *
+	 * @param to exclusive bound, null for none
+	 */
+	public BigDecimal netMovement(String accountId, LocalDateTime from, LocalDateTime to) {
+		MapSqlParameterSource params = new MapSqlParameterSource("accountId", accountId).addValue("from",
+				Timestamp.valueOf(from));
+		if (to != null) {
+			params.addValue("to", Timestamp.valueOf(to));
+		}
+		BigDecimal net = jdbcTemplate.queryForObject(to != null ? SELECT_NET_MOVEMENT : SELECT_NET_MOVEMENT_SINCE,
+				params, BigDecimal.class);
+		return net != null ? net : BigDecimal.ZERO;
+	}
+
+	/**
+	 * The account's balance including its buckets, or empty if it doesn't
+	 * exist.
+	 */
+	public Optional<BigDecimal> findCurrentBalance(String accountId) {
+		return jdbcTemplate.queryForList(SELECT_CURRENT_BALANCE, new MapSqlParameterSource("accountId", accountId),
+				BigDecimal.class).stream().findFirst();
+	}
+}
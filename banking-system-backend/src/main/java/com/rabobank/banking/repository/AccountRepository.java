@@ -10,6 +10,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 
@@ -28,8 +29,50 @@ public interface AccountRepository extends JpaRepository<Account, String> {
 	@Query("SELECT a FROM Account a WHERE a.accountId = :accountId")
 	Optional<Account> findByIdWithLock(@Param("accountId") String accountId);
 
-	@Query("SELECT a FROM Account a JOIN FETCH a.user JOIN FETCH a.card WHERE a.active = true")
-	List<Account> findAllActiveAccountsWithDetails();
+	/**
+	 * Locks all given accounts in a single statement. Rows are locked in
+	 * accountId order, so concurrent callers locking overlapping sets can never
+	 * deadlock on each other.
+	 */
+	@Lock(LockModeType.PESSIMISTIC_WRITE)
+	@QueryHints({
+        @QueryHint(name = "jakarta.persistence.lock.timeout", value = "3000")
+    })
+	@Query("SELECT a FROM Account a WHERE a.accountId IN :accountIds ORDER BY a.accountId")
+	List<Account> findAllByIdWithLock(@Param("accountIds") Collection<String> accountIds);
+
+
+	/**
+	 * Balance view of every active account with a card, without loading the
+	 * entities into the persistence context.
+	 */
+	@Query("""
+			SELECT new com.rabobank.banking.repository.AccountBalanceView(
+			       a.accountId, a.accountNumber, u.firstName, u.lastName, u.email, a.balance, a.bucketCount,
+			       c.cardType, c.cardNumber, a.active)
+			  FROM Account a
+			  JOIN a.user u
+			  JOIN a.card c
+			 WHERE a.active = true
+			 ORDER BY a.accountId
+			""")
+	List<AccountBalanceView> findActiveBalanceViews();
+
+	/**
+	 * Balance view of every account of the user, active or not, with or without
+	 * a card.
+	 */
+	@Query("""
+			SELECT new com.rabobank.banking.repository.AccountBalanceView(
+			       a.accountId, a.accountNumber, u.firstName, u.lastName, u.email, a.balance, a.bucketCount,
+			       c.cardType, c.cardNumber, a.active)
+			  FROM Account a
+			  JOIN a.user u
+			  LEFT JOIN a.card c
+			 WHERE u.id = :userId
+			 ORDER BY a.accountId
+			""")
+	List<AccountBalanceView> findBalanceViewsByUserId(@Param("userId") Long userId);
 
 	List<Account> findByUserId(Long userId);
 
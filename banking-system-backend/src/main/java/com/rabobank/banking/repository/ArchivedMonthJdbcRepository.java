@@ -0,0 +1,65 @@
+package com.rabobank.banking.repository;
+
+import java.sql.Date;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Catalog of the months whose transactions live in archive segments instead
+ * of the database, kept in {@code archived_transaction_months}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class ArchivedMonthJdbcRepository {
+
+	private static final String SELECT_ALL = "SELECT month, row_count FROM archived_transaction_months";
+
+	private static final String SELECT_LATEST = "SELECT MAX(month) FROM archived_transaction_months";
+
+	private static final String UPSERT = """
+			INSERT INTO archived_transaction_months (month, row_count, archived_at)
+			VALUES (?, ?, ?)
+			ON CONFLICT (month) DO UPDATE
+			   SET row_count = EXCLUDED.row_count,
+			       archived_at = EXCLUDED.archived_at
+			""";
+
+	private final JdbcTemplate jdbcTemplate;
+
+	public ArchivedMonthJdbcRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Archived months with the number of rows archived, oldest first.
+	 */
+	public Map<YearMonth, Long> findAll() {
+		Map<YearMonth, Long> months = new TreeMap<>();
+		jdbcTemplate.query(SELECT_ALL, (RowCallbackHandler) rs -> months
+				.put(YearMonth.from(rs.getDate("month").toLocalDate()), rs.getLong("row_count")));
+		return months;
+	}
+
+	public Optional<YearMonth> findLatest() {
+		Date latest = jdbcTemplate.queryForObject(SELECT_LATEST, Date.class);
+		return Optional.ofNullable(latest).map(date -> YearMonth.from(date.toLocalDate()));
+	}
+
+	/**
+	 * Records the month as archived. Run in the transaction that drops its
+	 * partition.
+	 */
+	public void record(YearMonth month, long rowCount) {
+		jdbcTemplate.update(UPSERT, Date.valueOf(month.atDay(1)), rowCount, Timestamp.valueOf(LocalDateTime.now()));
+	}
+}
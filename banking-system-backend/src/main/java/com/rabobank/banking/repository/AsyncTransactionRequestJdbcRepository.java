@@ -0,0 +1,177 @@
+package com.rabobank.banking.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.domain.model.Transaction;
+
+/**
+ * Durable record of the withdrawals and transfers accepted for background
+ * processing, in {@code async_transaction_requests}. A worker claims a request
+ * before running it, so a request recovered by another instance is never run
+ * twice at the same time.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class AsyncTransactionRequestJdbcRepository {
+
+	private static final String INSERT = """
+			INSERT INTO async_transaction_requests (transaction_id, operation, request_body, client_id, status, accepted_at)
+			VALUES (:transactionId, :operation, :requestBody, :clientId, 'PENDING', :now)
+			""";
+
+	private static final String DELETE = "DELETE FROM async_transaction_requests WHERE transaction_id = :transactionId";
+
+	private static final String CLAIM = """
+			UPDATE async_transaction_requests
+			   SET claimed_at = :now
+			 WHERE transaction_id IN (:transactionIds)
+			   AND status = 'PENDING'
+			   AND claimed_at IS NULL
+			RETURNING transaction_id
+			""";
+
+	private static final String RECLAIM_STALE = """
+			UPDATE async_transaction_requests
+			   SET claimed_at = :now
+			 WHERE transaction_id IN (SELECT transaction_id
+			                            FROM async_transaction_requests
+			                           WHERE status = 'PENDING'
+			                             AND COALESCE(claimed_at, accepted_at) < :staleBefore
+			                           ORDER BY accepted_at
+			                           LIMIT :limit
+			                             FOR UPDATE SKIP LOCKED)
+			RETURNING transaction_id, operation, request_body, client_id, status, error_code, message
+			""";
+
+	private static final String COMPLETE = """
+			UPDATE async_transaction_requests
+			   SET status = :status, error_code = :errorCode, message = :message, completed_at = :now
+			 WHERE transaction_id = :transactionId
+			""";
+
+	private static final String SELECT = """
+			SELECT transaction_id, operation, request_body, client_id, status, error_code, message
+			  FROM async_transaction_requests
+			 WHERE transaction_id = :transactionId
+			""";
+
+	private static final String PURGE = """
+			DELETE FROM async_transaction_requests
+			 WHERE transaction_id IN (SELECT transaction_id
+			                            FROM async_transaction_requests
+			                           WHERE status <> 'PENDING'
+			                             AND completed_at < :before
+			                           LIMIT :limit)
+			""";
+
+	/**
+	 * A stored request; {@code errorCode} and {@code message} are only set once
+	 * it failed.
+	 */
+	public record AsyncRequest(String transactionId, Transaction.TransactionType operation, String requestBody,
+			String clientId, Transaction.TransactionStatus status, String errorCode, String message) {
+	}
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public AsyncTransactionRequestJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	public void insert(String transactionId, Transaction.TransactionType operation, String requestBody,
+			String clientId, LocalDateTime now) {
+		jdbcTemplate.update(INSERT,
+				new MapSqlParameterSource("transactionId", transactionId).addValue("operation", operation.name())
+						.addValue("requestBody", requestBody).addValue("clientId", clientId)
+						.addValue("now", Timestamp.valueOf(now)));
+	}
+
+	/**
+	 * Removes a request that was never queued.
+	 */
+	public void delete(String transactionId) {
+		jdbcTemplate.update(DELETE, new MapSqlParameterSource("transactionId", transactionId));
+	}
+
+	/**
+	 * Claims the pending, unclaimed requests among {@code transactionIds}.
+	 *
+	 * @return the ids claimed; the others were taken over by another instance
+	 */
+	public Set<String> claim(Collection<String> transactionIds, LocalDateTime now) {
+		return new HashSet<>(jdbcTemplate.queryForList(CLAIM,
+				new MapSqlParameterSource("transactionIds", transactionIds).addValue("now", Timestamp.valueOf(now)),
+				String.class));
+	}
+
+	/**
+	 * Claims up to {@code limit} pending requests that were accepted or last
+	 * claimed before {@code staleBefore}, e.g. by an instance that went down.
+	 */
+	public List<AsyncRequest> reclaimStale(LocalDateTime staleBefore, LocalDateTime now, int limit) {
+		return jdbcTemplate.query(RECLAIM_STALE,
+				new MapSqlParameterSource("staleBefore", Timestamp.valueOf(staleBefore))
+						.addValue("now", Timestamp.valueOf(now)).addValue("limit", limit),
+				(rs, rowNum) -> mapRow(rs));
+	}
+
+	/**
+	 * Records the final status; joins the caller's transaction if there is one.
+	 */
+	public void complete(String transactionId, Transaction.TransactionStatus status, String errorCode,
+			String message, LocalDateTime now) {
+		jdbcTemplate.update(COMPLETE, completion(transactionId, status, errorCode, message, now));
+	}
+
+	/**
+	 * Records several requests as succeeded in one batch.
+	 */
+	public void completeAll(Collection<String> transactionIds, LocalDateTime now) {
+		jdbcTemplate.batchUpdate(COMPLETE, transactionIds.stream()
+				.map(id -> completion(id, Transaction.TransactionStatus.SUCCESS, null, null, now))
+				.toArray(MapSqlParameterSource[]::new));
+	}
+
+	public Optional<AsyncRequest> find(String transactionId) {
+		return jdbcTemplate.query(SELECT, new MapSqlParameterSource("transactionId", transactionId),
+				(rs, rowNum) -> mapRow(rs)).stream().findFirst();
+	}
+
+	/**
+	 * Deletes up to {@code limit} requests that finished before {@code before}.
+	 *
+	 * @return number of requests deleted
+	 */
+	public int purgeCompletedBefore(LocalDateTime before, int limit) {
+		return jdbcTemplate.update(PURGE,
+				new MapSqlParameterSource("before", Timestamp.valueOf(before)).addValue("limit", limit));
+	}
+
+	private static MapSqlParameterSource completion(String transactionId, Transaction.TransactionStatus status,
+			String errorCode, String message, LocalDateTime now) {
+		return new MapSqlParameterSource("transactionId", transactionId).addValue("status", status.name())
+				.addValue("errorCode", errorCode).addValue("message", message)
+				.addValue("now", Timestamp.valueOf(now));
+	}
+
+	private static AsyncRequest mapRow(ResultSet rs) throws SQLException {
+		return new AsyncRequest(rs.getString("transaction_id"),
+				Transaction.TransactionType.valueOf(rs.getString("operation")), rs.getString("request_body"),
+				rs.getString("client_id"), Transaction.TransactionStatus.valueOf(rs.getString("status")),
+				rs.getString("error_code"), rs.getString("message"));
+	}
+}
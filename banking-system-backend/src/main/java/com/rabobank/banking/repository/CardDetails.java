@@ -0,0 +1,30 @@
+package com.rabobank.banking.repository;
+
+import java.time.LocalDate;
+
+import com.rabobank.banking.domain.model.Card;
+import com.rabobank.banking.domain.model.CardType;
+
+/**
+ * The part of a card that withdraw and transfer check, detached from the
+ * persistence context so that it can be cached.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public record CardDetails(Long id, String cardNumber, String accountId, CardType cardType, LocalDate expiryDate,
+		boolean active) {
+
+	public static CardDetails of(Card card) {
+		return new CardDetails(card.getId(), card.getCardNumber(), card.getAccount().getAccountId(),
+				card.getCardType(), card.getExpiryDate(), card.isActive());
+	}
+
+	/**
+	 * Same rule as {@link Card#isValidForTransaction()}; expiry is evaluated
+	 * against today on every call.
+	 */
+	public boolean isValidForTransaction() {
+		return active && !LocalDate.now().isAfter(expiryDate);
+	}
+}
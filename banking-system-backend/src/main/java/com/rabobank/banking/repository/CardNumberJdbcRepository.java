@@ -0,0 +1,56 @@
+package com.rabobank.banking.repository;
+
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Bulk read of card numbers, used to build the in-memory card number filter.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class CardNumberJdbcRepository {
+
+	private static final String SELECT_PAGE = """
+			SELECT id, card_number
+			  FROM cards
+			 WHERE id > :afterId
+			 ORDER BY id
+			 LIMIT :pageSize
+			""";
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public CardNumberJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Passes every card number to the consumer, reading the table in id order,
+	 * one page per statement.
+	 *
+	 * @return the number of cards read
+	 */
+	public long forEachCardNumber(int pageSize, Consumer<String> consumer) {
+		long[] lastId = { 0 };
+		long[] total = { 0 };
+		int[] pageRows = new int[1];
+		do {
+			pageRows[0] = 0;
+			jdbcTemplate.query(SELECT_PAGE,
+					new MapSqlParameterSource("afterId", lastId[0]).addValue("pageSize", pageSize),
+					(RowCallbackHandler) rs -> {
+						lastId[0] = rs.getLong("id");
+						consumer.accept(rs.getString("card_number"));
+						pageRows[0]++;
+					});
+			total[0] += pageRows[0];
+		} while (pageRows[0] == pageSize);
+		return total[0];
+	}
+}
@@ -1,8 +1,12 @@
 package com.rabobank.banking.repository;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
 import com.rabobank.banking.domain.model.Card;
@@ -18,6 +22,20 @@ public interface CardRepository extends JpaRepository<Card, Long> {
 
 	Optional<Card> findByCardNumber(String cardNumber);
 
+	/**
+	 * Reads the card details in one statement, taking the account id from the
+	 * foreign key instead of loading the account.
+	 */
+	@Query("""
+			SELECT new com.rabobank.banking.repository.CardDetails(
+			       c.id, c.cardNumber, c.account.accountId, c.cardType, c.expiryDate, c.active)
+			  FROM Card c
+			 WHERE c.cardNumber = :cardNumber
+			""")
+	Optional<CardDetails> findDetailsByCardNumber(@Param("cardNumber") String cardNumber);
+
+	List<Card> findByCardNumberIn(Collection<String> cardNumbers);
+
 	Optional<Card> findByAccountAccountId(String accountId);
 
 	boolean existsByCardNumber(String cardNumber);
@@ -0,0 +1,129 @@
+package com.rabobank.banking.repository;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+/**
+ * Durable record of idempotency keys. A key is claimed before the request is
+ * executed, so two instances receiving the same key cannot both move money.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class IdempotencyKeyJdbcRepository {
+
+	private static final String CLAIM = """
+			INSERT INTO idempotency_keys (idempotency_key, operation, request_hash, status, transaction_id, created_at)
+			VALUES (:key, :operation, :requestHash, 'PENDING', :transactionId, :now)
+			ON CONFLICT (idempotency_key) DO NOTHING
+			""";
+
+	private static final String RECLAIM_STALE = """
+			UPDATE idempotency_keys
+			   SET created_at = :now, transaction_id = COALESCE(transaction_id, :transactionId)
+			 WHERE idempotency_key = :key AND request_hash = :requestHash AND status = 'PENDING'
+			   AND created_at < :staleBefore
+			""";
+
+	private static final String COMPLETE = """
+			UPDATE idempotency_keys
+			   SET status = 'COMPLETED', response_body = :responseBody, completed_at = :now
+			 WHERE idempotency_key = :key
+			""";
+
+	private static final String RELEASE = """
+			DELETE FROM idempotency_keys WHERE idempotency_key = :key AND status = 'PENDING'
+			""";
+
+	private static final String SELECT = """
+			SELECT idempotency_key, operation, request_hash, status, transaction_id, response_body, created_at
+			  FROM idempotency_keys
+			 WHERE idempotency_key = :key
+			""";
+
+	private static final String PURGE = """
+			DELETE FROM idempotency_keys
+			 WHERE idempotency_key IN (SELECT idempotency_key
+			                             FROM idempotency_keys
+			                            WHERE created_at < :before
+			                            LIMIT :limit)
+			""";
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public IdempotencyKeyJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Stored state of a key. {@code responseBody} is only set once completed;
+	 * {@code transactionId} is null for claims made before it was recorded.
+	 */
+	public record IdempotencyRecord(String key, String operation, String requestHash, boolean completed,
+			String transactionId, String responseBody, LocalDateTime createdAt) {
+	}
+
+	/**
+	 * Inserts a pending row for the key, recording the id the transaction will
+	 * be stored under.
+	 *
+	 * @return {@code false} if the key already exists
+	 */
+	public boolean claim(String key, String operation, String requestHash, String transactionId,
+			LocalDateTime now) {
+		return jdbcTemplate.update(CLAIM, new MapSqlParameterSource("key", key).addValue("operation", operation)
+				.addValue("requestHash", requestHash).addValue("transactionId", transactionId)
+				.addValue("now", Timestamp.valueOf(now))) == 1;
+	}
+
+	/**
+	 * Takes over a pending claim for the same request that was abandoned, e.g. by
+	 * an instance that crashed mid-request. A claim without a transaction id
+	 * gets {@code transactionId}.
+	 */
+	public boolean reclaimStale(String key, String requestHash, String transactionId, LocalDateTime now,
+			LocalDateTime staleBefore) {
+		return jdbcTemplate.update(RECLAIM_STALE,
+				new MapSqlParameterSource("key", key).addValue("requestHash", requestHash)
+						.addValue("transactionId", transactionId).addValue("now", Timestamp.valueOf(now))
+						.addValue("staleBefore", Timestamp.valueOf(staleBefore))) == 1;
+	}
+
+	public void complete(String key, String responseBody, LocalDateTime now) {
+		jdbcTemplate.update(COMPLETE, new MapSqlParameterSource("key", key).addValue("responseBody", responseBody)
+				.addValue("now", Timestamp.valueOf(now)));
+	}
+
+	/**
+	 * Drops a pending claim after the request failed, so the client may retry
+	 * with the same key.
+	 */
+	public void release(String key) {
+		jdbcTemplate.update(RELEASE, new MapSqlParameterSource("key", key));
+	}
+
+	public Optional<IdempotencyRecord> find(String key) {
+		List<IdempotencyRecord> records = jdbcTemplate.query(SELECT, new MapSqlParameterSource("key", key),
+				(rs, rowNum) -> new IdempotencyRecord(rs.getString("idempotency_key"), rs.getString("operation"),
+						rs.getString("request_hash"), "COMPLETED".equals(rs.getString("status")),
+						rs.getString("transaction_id"), rs.getString("response_body"), rs.getTimestamp("created_at").toLocalDateTime()));
+		return records.stream().findFirst();
+	}
+
+	/**
+	 * Deletes up to {@code limit} keys claimed before {@code before}.
+	 *
+	 * @return number of keys deleted
+	 */
+	public int purgeCreatedBefore(LocalDateTime before, int limit) {
+		return jdbcTemplate.update(PURGE,
+				new MapSqlParameterSource("before", Timestamp.valueOf(before)).addValue("limit", limit));
+	}
+}
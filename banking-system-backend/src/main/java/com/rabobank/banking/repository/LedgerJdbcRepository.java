@@ -0,0 +1,176 @@
+package com.rabobank.banking.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.domain.model.Transaction;
+
+/**
+ * Plain JDBC statements for hot ledger paths where loading and dirty-checking
+ * entities would hold row locks for several round trips.
+ * 
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class LedgerJdbcRepository {
+
+	/**
+	 * Debits the account only if it can cover the total and records the
+	 * transaction row in the same statement. The row lock taken by the UPDATE is
+	 * held for a single round trip. Also returns whether the account counts
+	 * towards the balance totals, i.e. is active and has a card.
+	 */
+	private static final String DEBIT_AND_RECORD_WITHDRAWAL = """
+			WITH debited AS (
+			    UPDATE accounts
+			       SET balance = balance - :totalAmount, version = version + 1, updated_at = :transactionDate
+			     WHERE account_id = :accountId AND balance >= :totalAmount
+			 RETURNING account_id, balance, active
+			), recorded AS (
+			    INSERT INTO transactions (transaction_id, account_id, to_account_id, type, amount, fee, total_amount,
+			                              card_type, balance_before, balance_after, description, status,
+			                              transaction_date)
+			    SELECT :transactionId, account_id, NULL, :type, :amount, :fee, :totalAmount,
+			           :cardType, balance + :totalAmount, balance, :description, :status, :transactionDate
+			      FROM debited
+			 RETURNING balance_before, balance_after
+			)
+			SELECT r.balance_before, r.balance_after,
+			       d.active AND EXISTS (SELECT 1 FROM cards c WHERE c.account_id = d.account_id) AS counted
+			  FROM recorded r CROSS JOIN debited d
+			""";
+
+	private static final String SELECT_BALANCE = "SELECT balance FROM accounts WHERE account_id = :accountId";
+
+	private static final String SELECT_ACTIVE_BALANCES = "SELECT account_id, balance FROM accounts WHERE active = true";
+
+	private static final String SELECT_EXISTING_TRANSACTION_IDS = """
+			SELECT transaction_id FROM transactions WHERE transaction_id IN (:transactionIds)
+			""";
+
+	private static final String APPLY_BALANCE_DELTA = """
+			UPDATE accounts
+			   SET balance = balance + :delta, version = version + 1, updated_at = :updatedAt
+			 WHERE account_id = :accountId
+			""";
+
+	private static final String INSERT_TRANSACTION = """
+			INSERT INTO transactions (transaction_id, account_id, to_account_id, type, amount, fee, total_amount,
+			                          card_type, balance_before, balance_after, description, status, transaction_date)
+			VALUES (:transactionId, :accountId, :toAccountId, :type, :amount, :fee, :totalAmount,
+			        :cardType, :balanceBefore, :balanceAfter, :description, :status, :transactionDate)
+			""";
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public LedgerJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Debits {@code totalAmount} from the transaction's account and inserts the
+	 * transaction. On success the balances on {@code transaction} are filled in.
+	 * 
+	 * @param transaction a fully populated withdrawal without balances
+	 * @return empty if the account doesn't exist or can't cover the total
+	 *         amount, otherwise whether the account counts towards the balance
+	 *         totals
+	 */
+	public Optional<Boolean> debitAndRecordWithdrawal(Transaction transaction) {
+		MapSqlParameterSource params = transactionParameters(transaction);
+
+		List<Boolean> counted = jdbcTemplate.query(DEBIT_AND_RECORD_WITHDRAWAL, params, (rs, rowNum) -> {
+			transaction.setBalanceBefore(rs.getBigDecimal("balance_before"));
+			transaction.setBalanceAfter(rs.getBigDecimal("balance_after"));
+			return rs.getBoolean("counted");
+		});
+		return counted.stream().findFirst();
+	}
+
+	/**
+	 * Balances of all active accounts, used to warm the in-memory ledger.
+	 */
+	public Map<String, BigDecimal> findActiveBalances() {
+		Map<String, BigDecimal> balances = new HashMap<>();
+		jdbcTemplate.query(SELECT_ACTIVE_BALANCES,
+				(RowCallbackHandler) rs -> balances.put(rs.getString("account_id"), rs.getBigDecimal("balance")));
+		return balances;
+	}
+
+	/**
+	 * Returns which of the given transaction ids already have a row.
+	 */
+	public Set<String> findExistingTransactionIds(Collection<String> transactionIds) {
+		if (transactionIds.isEmpty()) {
+			return Set.of();
+		}
+		return new HashSet<>(jdbcTemplate.queryForList(SELECT_EXISTING_TRANSACTION_IDS,
+				new MapSqlParameterSource("transactionIds", transactionIds), String.class));
+	}
+
+	/**
+	 * Applies completed postings in order: one balance delta per debited or
+	 * credited account, then the transaction rows, each as a single JDBC batch.
+	 * Deltas keep their order so that the non-negative balance check holds at
+	 * every step. Must run inside a transaction.
+	 */
+	public void applyPostings(List<Transaction> transactions) {
+		List<MapSqlParameterSource> deltas = new ArrayList<>(transactions.size() * 2);
+		List<MapSqlParameterSource> rows = new ArrayList<>(transactions.size());
+		for (Transaction transaction : transactions) {
+			Timestamp updatedAt = Timestamp.valueOf(transaction.getTransactionDate());
+			deltas.add(new MapSqlParameterSource().addValue("accountId", transaction.getAccountId())
+					.addValue("delta", transaction.getTotalAmount().negate()).addValue("updatedAt", updatedAt));
+			if (transaction.getToAccountId() != null) {
+				deltas.add(new MapSqlParameterSource().addValue("accountId", transaction.getToAccountId())
+						.addValue("delta", transaction.getAmount()).addValue("updatedAt", updatedAt));
+			}
+			rows.add(transactionParameters(transaction));
+		}
+		jdbcTemplate.batchUpdate(APPLY_BALANCE_DELTA, deltas.toArray(MapSqlParameterSource[]::new));
+		jdbcTemplate.batchUpdate(INSERT_TRANSACTION, rows.toArray(MapSqlParameterSource[]::new));
+	}
+
+	/**
+	 * Reads the current balance without locking, used to explain a rejected
+	 * conditional debit or to load an account into the in-memory ledger.
+	 */
+	public Optional<BigDecimal> findBalance(String accountId) {
+		return jdbcTemplate
+				.query(SELECT_BALANCE, new MapSqlParameterSource("accountId", accountId),
+						(rs, rowNum) -> rs.getBigDecimal("balance"))
+				.stream().findFirst();
+	}
+
+	private static MapSqlParameterSource transactionParameters(Transaction transaction) {
+		return new MapSqlParameterSource()
+				.addValue("transactionId", transaction.getTransactionId())
+				.addValue("accountId", transaction.getAccountId())
+				.addValue("toAccountId", transaction.getToAccountId(), Types.VARCHAR)
+				.addValue("type", transaction.getType().name())
+				.addValue("amount", transaction.getAmount())
+				.addValue("fee", transaction.getFee())
+				.addValue("totalAmount", transaction.getTotalAmount())
+				.addValue("cardType", transaction.getCardType().name())
+				.addValue("balanceBefore", transaction.getBalanceBefore(), Types.NUMERIC)
+				.addValue("balanceAfter", transaction.getBalanceAfter(), Types.NUMERIC)
+				.addValue("description", transaction.getDescription(), Types.VARCHAR)
+				.addValue("status", transaction.getStatus().name())
+				.addValue("transactionDate", Timestamp.valueOf(transaction.getTransactionDate()));
+	}
+}
@@ -0,0 +1,163 @@
+package com.rabobank.banking.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.function.Consumer;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto.Direction;
+
+/**
+ * Transaction history of an account, newest first, paged by keyset on
+ * {@code (transaction_date, transaction_id)}.
+ *
+ * Outgoing rows and incoming transfers are read by two branches of a UNION
+ * ALL, each walking its own index ({@code idx_transactions_account_date} and
+ * {@code idx_transactions_to_account_date}) from the keyset position and
+ * stopping after one page; only the merge of at most two pages is sorted.
+ * Filters are added to the statement only when given, so the planner never
+ * sees an always-true condition, and date bounds prune the monthly partitions
+ * of the table.
+ *
+ * Statements read the same rows oldest first through a cursor; both branches
+ * come off their indexes in order and are merged without a sort.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class TransactionHistoryJdbcRepository {
+
+	private static final String SELECT_OUTGOING = """
+			SELECT t.transaction_id, t.type, 'DEBIT' AS direction, t.to_account_id AS counterparty_account_id,
+			       t.amount, t.fee, t.total_amount, t.card_type, t.balance_after, t.description, t.status,
+			       t.transaction_date
+			  FROM transactions t
+			 WHERE t.account_id = :accountId
+			""";
+
+	private static final String SELECT_INCOMING = """
+			SELECT t.transaction_id, t.type, 'CREDIT' AS direction, t.account_id AS counterparty_account_id,
+			       t.amount, 0.00 AS fee, t.amount AS total_amount, CAST(NULL AS VARCHAR) AS card_type,
+			       CAST(NULL AS DECIMAL(15, 2)) AS balance_after, t.description, t.status, t.transaction_date
+			  FROM transactions t
+			 WHERE t.to_account_id = :accountId
+			   AND t.account_id <> :accountId
+			""";
+
+	private static final String ORDER_PAGE = """
+			 ORDER BY transaction_date DESC, transaction_id DESC
+			 LIMIT :limit
+			""";
+
+	private static final String ORDER_CHRONOLOGICAL = """
+			 ORDER BY transaction_date, transaction_id
+			""";
+
+	/**
+	 * Optional filters; a null bound or type is not applied.
+	 *
+	 * @param from earliest transaction date, inclusive
+	 * @param to   latest transaction date, exclusive
+	 */
+	public record Filter(LocalDateTime from, LocalDateTime to, Transaction.TransactionType type) {
+	}
+
+	/**
+	 * Last row of the previous page; the next page starts strictly after it.
+	 */
+	public record Position(LocalDateTime transactionDate, String transactionId) {
+	}
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+	private final NamedParameterJdbcTemplate streamingJdbcTemplate;
+
+	public TransactionHistoryJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate, AccountProperties properties) {
+		this.jdbcTemplate = jdbcTemplate;
+		JdbcTemplate streaming = new JdbcTemplate(jdbcTemplate.getJdbcTemplate().getDataSource());
+		streaming.setFetchSize(properties.getStatements().getFetchSize());
+		this.streamingJdbcTemplate = new NamedParameterJdbcTemplate(streaming);
+	}
+
+	/**
+	 * Up to {@code limit} transactions of the account, newest first.
+	 *
+	 * @param after position of the previous page, null for the first page
+	 */
+	public List<TransactionHistoryItemDto> findPage(String accountId, Filter filter, Position after, int limit) {
+		MapSqlParameterSource params = new MapSqlParameterSource("accountId", accountId).addValue("limit", limit);
+		String conditions = conditions(filter, after, params);
+
+		String outgoing = SELECT_OUTGOING + conditions + ORDER_PAGE;
+		// Only transfers have a receiving account
+		String sql = filter.type() == null || filter.type() == Transaction.TransactionType.TRANSFER
+				? "SELECT * FROM ((" + outgoing + ") UNION ALL (" + SELECT_INCOMING + conditions + ORDER_PAGE
+						+ ")) history" + ORDER_PAGE
+				: outgoing;
+		return jdbcTemplate.query(sql, params, (rs, rowNum) -> mapRow(rs));
+	}
+
+	/**
+	 * Passes every transaction of the account matching the filter to the
+	 * consumer, oldest first. Rows are fetched in batches of
+	 * {@code statements.fetch-size}; PostgreSQL only uses a cursor when this
+	 * runs inside a transaction.
+	 */
+	public void forEachChronological(String accountId, Filter filter, Consumer<TransactionHistoryItemDto> consumer) {
+		MapSqlParameterSource params = new MapSqlParameterSource("accountId", accountId);
+		String conditions = conditions(filter, null, params);
+		String sql = filter.type() == null || filter.type() == Transaction.TransactionType.TRANSFER
+				? SELECT_OUTGOING + conditions + " UNION ALL\n" + SELECT_INCOMING + conditions + ORDER_CHRONOLOGICAL
+				: SELECT_OUTGOING + conditions + ORDER_CHRONOLOGICAL;
+		streamingJdbcTemplate.query(sql, params, (RowCallbackHandler) rs -> consumer.accept(mapRow(rs)));
+	}
+
+	private static String conditions(Filter filter, Position after, MapSqlParameterSource params) {
+		StringBuilder conditions = new StringBuilder();
+		if (filter.from() != null) {
+			conditions.append("   AND t.transaction_date >= :from\n");
+			params.addValue("from", Timestamp.valueOf(filter.from()));
+		}
+		if (filter.to() != null) {
+			conditions.append("   AND t.transaction_date < :to\n");
+			params.addValue("to", Timestamp.valueOf(filter.to()));
+		}
+		if (filter.type() != null) {
+			conditions.append("   AND t.type = :type\n");
+			params.addValue("type", filter.type().name());
+		}
+		if (after != null) {
+			// The plain bound lets later pages skip partitions; the row comparison alone wouldn't
+			conditions.append("   AND t.transaction_date <= :afterDate\n");
+			conditions.append("   AND (t.transaction_date, t.transaction_id) < (:afterDate, :afterId)\n");
+			params.addValue("afterDate", Timestamp.valueOf(after.transactionDate()))
+					.addValue("afterId", after.transactionId());
+		}
+		return conditions.toString();
+	}
+
+	private static TransactionHistoryItemDto mapRow(ResultSet rs) throws SQLException {
+		String cardType = rs.getString("card_type");
+		return TransactionHistoryItemDto.builder().transactionId(rs.getString("transaction_id"))
+				.type(Transaction.TransactionType.valueOf(rs.getString("type")))
+				.direction(Direction.valueOf(rs.getString("direction")))
+				.counterpartyAccountId(rs.getString("counterparty_account_id")).amount(rs.getBigDecimal("amount"))
+				.fee(rs.getBigDecimal("fee")).totalAmount(rs.getBigDecimal("total_amount"))
+				.cardType(cardType != null ? CardType.valueOf(cardType) : null)
+				.balanceAfter(rs.getBigDecimal("balance_after")).description(rs.getString("description"))
+				.status(Transaction.TransactionStatus.valueOf(rs.getString("status")))
+				.transactionDate(rs.getTimestamp("transaction_date").toLocalDateTime()).build();
+	}
+}
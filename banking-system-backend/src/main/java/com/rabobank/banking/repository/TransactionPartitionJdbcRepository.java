@@ -0,0 +1,183 @@
+package com.rabobank.banking.repository;
+
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.Duration;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.function.Consumer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+
+/**
+ * DDL for the monthly partitions of the {@code transactions} table. A month's
+ * partition is named {@code transactions_pYYYYMM} and covers
+ * {@code [first of month, first of next month)}; the default partition and
+ * partitions named otherwise are left alone.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class TransactionPartitionJdbcRepository {
+
+	private static final String PARENT = "transactions";
+	private static final String DEFAULT_PARTITION = "transactions_default";
+	private static final Pattern MONTHLY_PARTITION = Pattern.compile("transactions_p(\\d{6})");
+	private static final DateTimeFormatter SUFFIX = DateTimeFormatter.ofPattern("yyyyMM");
+
+	/** Arbitrary key that serialises partition maintenance across instances. */
+	private static final long MAINTENANCE_LOCK = 0x7472_616e_7370_6172L;
+
+	private static final String TRY_LOCK = "SELECT pg_try_advisory_xact_lock(?)";
+
+	private static final String SELECT_PARTITIONS = """
+			SELECT child.relname
+			  FROM pg_inherits i
+			  JOIN pg_class parent ON parent.oid = i.inhparent
+			  JOIN pg_class child ON child.oid = i.inhrelid
+			 WHERE parent.relname = ?
+			   AND parent.relnamespace = to_regnamespace(current_schema())
+			""";
+
+	private static final String SELECT_ROWS = """
+			SELECT transaction_id, account_id, to_account_id, type, amount, fee, total_amount, card_type,
+			       balance_before, balance_after, description, status, transaction_date
+			  FROM %s
+			 ORDER BY transaction_date DESC, transaction_id COLLATE "C" DESC
+			""";
+
+	/** Rows fetched per round trip when reading a whole partition. */
+	private static final int STREAM_FETCH_SIZE = 1000;
+
+	private final JdbcTemplate jdbcTemplate;
+	private final JdbcTemplate streamingJdbcTemplate;
+
+	public TransactionPartitionJdbcRepository(JdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+		this.streamingJdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource());
+		this.streamingJdbcTemplate.setFetchSize(STREAM_FETCH_SIZE);
+	}
+
+	/**
+	 * Takes the maintenance lock until the end of the current transaction.
+	 *
+	 * @return false if another instance holds it
+	 */
+	public boolean tryLock() {
+		return Boolean.TRUE.equals(jdbcTemplate.queryForObject(TRY_LOCK, Boolean.class, MAINTENANCE_LOCK));
+	}
+
+	/**
+	 * Months that currently have an attached partition.
+	 */
+	public Set<YearMonth> findMonthlyPartitions() {
+		Set<YearMonth> months = new TreeSet<>();
+		for (String name : jdbcTemplate.queryForList(SELECT_PARTITIONS, String.class, PARENT)) {
+			Matcher matcher = MONTHLY_PARTITION.matcher(name);
+			if (matcher.matches()) {
+				months.add(YearMonth.parse(matcher.group(1), SUFFIX));
+			}
+		}
+		return months;
+	}
+
+	/**
+	 * Makes the current transaction give up on any lock it waits for longer
+	 * than the timeout, instead of queuing every other statement on the table
+	 * behind it.
+	 */
+	public void setLockTimeout(Duration timeout) {
+		jdbcTemplate.execute("SET LOCAL lock_timeout = '" + Math.max(1, timeout.toMillis()) + "ms'");
+	}
+
+	/**
+	 * Creates the month's partition as a standalone table, not yet attached.
+	 * Its CHECK constraint matches the partition bounds, so attaching it needs
+	 * no validation scan.
+	 */
+	public void createStandalonePartition(YearMonth month) {
+		String name = partitionName(month);
+		jdbcTemplate.execute("CREATE TABLE IF NOT EXISTS " + name + " (LIKE " + PARENT
+				+ " INCLUDING DEFAULTS INCLUDING CONSTRAINTS, CONSTRAINT " + name + "_range CHECK (transaction_date >= '"
+				+ month.atDay(1) + "' AND transaction_date < '" + month.plusMonths(1).atDay(1) + "'))");
+	}
+
+	/**
+	 * Moves the month's rows out of the default partition into the month's
+	 * standalone table, then attaches it. Both in the caller's transaction, so
+	 * no row of the month can land in the default partition in between.
+	 *
+	 * @return number of rows moved out of the default partition
+	 */
+	public int attachMonthlyPartition(YearMonth month) {
+		String name = partitionName(month);
+		String from = "'" + month.atDay(1) + "'";
+		String to = "'" + month.plusMonths(1).atDay(1) + "'";
+		int moved = jdbcTemplate.update("WITH moved AS (DELETE FROM " + DEFAULT_PARTITION
+				+ " WHERE transaction_date >= " + from + " AND transaction_date < " + to + " RETURNING *) INSERT INTO "
+				+ name + " SELECT * FROM moved");
+		jdbcTemplate.execute("ALTER TABLE " + PARENT + " ATTACH PARTITION " + name + " FOR VALUES FROM (" + from
+				+ ") TO (" + to + ")");
+		return moved;
+	}
+
+	/**
+	 * Blocks writes to the month's partition until the end of the transaction
+	 * and counts its rows.
+	 */
+	public long lockAndCountRows(YearMonth month) {
+		String name = partitionName(month);
+		jdbcTemplate.execute("LOCK TABLE " + name + " IN SHARE MODE");
+		Long rows = jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + name, Long.class);
+		return rows != null ? rows : 0;
+	}
+
+	/**
+	 * Detaches the month's partition; its rows stay in a standalone table of
+	 * the same name.
+	 */
+	public void detachMonthlyPartition(YearMonth month) {
+		jdbcTemplate.execute("ALTER TABLE " + PARENT + " DETACH PARTITION " + partitionName(month));
+	}
+
+	public void dropMonthlyPartition(YearMonth month) {
+		jdbcTemplate.execute("DROP TABLE IF EXISTS " + partitionName(month));
+	}
+
+	/**
+	 * Streams every row of the month's partition, newest first by
+	 * {@code (transaction_date, transaction_id)} with ids compared bytewise.
+	 * Must run in a transaction, or the driver reads the whole partition at
+	 * once.
+	 */
+	public void forEachRow(YearMonth month, Consumer<Transaction> action) {
+		streamingJdbcTemplate.query(SELECT_ROWS.formatted(partitionName(month)),
+				(RowCallbackHandler) rs -> action.accept(mapRow(rs)));
+	}
+
+	public static String partitionName(YearMonth month) {
+		return PARENT + "_p" + month.format(SUFFIX);
+	}
+
+	private static Transaction mapRow(ResultSet rs) throws SQLException {
+		return Transaction.builder().transactionId(rs.getString("transaction_id"))
+				.accountId(rs.getString("account_id")).toAccountId(rs.getString("to_account_id"))
+				.type(Transaction.TransactionType.valueOf(rs.getString("type"))).amount(rs.getBigDecimal("amount"))
+				.fee(rs.getBigDecimal("fee")).totalAmount(rs.getBigDecimal("total_amount"))
+				.cardType(CardType.valueOf(rs.getString("card_type")))
+				.balanceBefore(rs.getBigDecimal("balance_before")).balanceAfter(rs.getBigDecimal("balance_after"))
+				.description(rs.getString("description"))
+				.status(Transaction.TransactionStatus.valueOf(rs.getString("status")))
+				.transactionDate(rs.getTimestamp("transaction_date").toLocalDateTime()).build();
+	}
+}
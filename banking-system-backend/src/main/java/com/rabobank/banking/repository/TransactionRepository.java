@@ -1,7 +1,7 @@
 package com.rabobank.banking.repository;
 
 import java.time.LocalDateTime;
-import java.util.List;
+import java.util.Optional;
 
 import org.springframework.data.jpa.repository.JpaRepository;
 import org.springframework.stereotype.Repository;
@@ -16,10 +16,12 @@ import com.rabobank.banking.domain.model.Transaction;
  */
 @Repository
 public interface TransactionRepository extends JpaRepository<Transaction, String> {
-	List<Transaction> findByAccountIdOrderByTransactionDateDesc(String accountId);
-
-	List<Transaction> findByAccountIdAndTransactionDateBetween(String accountId, LocalDateTime start,
-			LocalDateTime end);
-
 	boolean existsByTransactionId(String transactionId);
+
+	/**
+	 * Looks up a transaction by id within a date range, so that only the
+	 * partitions covering the range are searched.
+	 */
+	Optional<Transaction> findByTransactionIdAndTransactionDateBetween(String transactionId, LocalDateTime from,
+			LocalDateTime to);
 }
@@ -0,0 +1,177 @@
+package com.rabobank.banking.repository;
+
+import java.math.BigDecimal;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.stereotype.Repository;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+
+/**
+ * Hourly transaction totals per card type and transaction type, kept in
+ * {@code transaction_rollups}. Flushes take the rollup lock exclusively and
+ * rebuilds take it shared, so rebuilds run in parallel but never overlap a
+ * flush on any instance.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Repository
+public class TransactionRollupJdbcRepository {
+
+	private static final long ROLLUP_LOCK = 0x726f_6c6c_7570_7321L;
+
+	private static final String LOCK_FOR_FLUSH = "SELECT true FROM pg_advisory_xact_lock(:lock)";
+
+	private static final String LOCK_FOR_REBUILD = "SELECT true FROM pg_advisory_xact_lock_shared(:lock)";
+
+	/** Wall clock rather than transaction start, so it is read after the lock was granted. */
+	private static final String CLOCK = "SELECT CAST(clock_timestamp() AS timestamp)";
+
+	private static final String UPSERT = """
+			INSERT INTO transaction_rollups AS r
+			       (bucket_start, card_type, type, transaction_count, amount, fee, total_amount)
+			VALUES (:bucketStart, :cardType, :type, :count, :amount, :fee, :totalAmount)
+			ON CONFLICT (bucket_start, card_type, type) DO UPDATE
+			   SET transaction_count = r.transaction_count + EXCLUDED.transaction_count,
+			       amount = r.amount + EXCLUDED.amount,
+			       fee = r.fee + EXCLUDED.fee,
+			       total_amount = r.total_amount + EXCLUDED.total_amount
+			""";
+
+	private static final String SELECT_RANGE = """
+			SELECT bucket_start, card_type, type, transaction_count, amount, fee, total_amount
+			  FROM transaction_rollups
+			 WHERE bucket_start >= :from
+			   AND bucket_start < :to
+			""";
+
+	private static final String DELETE_RANGE = """
+			DELETE FROM transaction_rollups
+			 WHERE bucket_start >= :from
+			   AND bucket_start < :to
+			""";
+
+	/** Range bounds are whole hours, so every scanned row lands in a rebuilt bucket. */
+	private static final String INSERT_FROM_TRANSACTIONS = """
+			INSERT INTO transaction_rollups (bucket_start, card_type, type, transaction_count, amount, fee, total_amount)
+			SELECT date_trunc('hour', t.transaction_date), t.card_type, t.type, COUNT(*), SUM(t.amount), SUM(t.fee),
+			       SUM(t.total_amount)
+			  FROM transactions t
+			 WHERE t.transaction_date >= :from
+			   AND t.transaction_date < :to
+			   AND t.status = 'SUCCESS'
+			 GROUP BY 1, 2, 3
+			""";
+
+	private static final String RECORD_REBUILD = """
+			INSERT INTO transaction_rollup_rebuilds (bucket_start, rebuilt_at)
+			SELECT hour, CAST(clock_timestamp() AS timestamp)
+			  FROM generate_series(CAST(:from AS timestamp), CAST(:to AS timestamp) - INTERVAL '1 hour',
+			                       INTERVAL '1 hour') AS hour
+			ON CONFLICT (bucket_start) DO UPDATE SET rebuilt_at = EXCLUDED.rebuilt_at
+			""";
+
+	private static final String SELECT_REBUILT_SINCE = """
+			SELECT bucket_start
+			  FROM transaction_rollup_rebuilds
+			 WHERE rebuilt_at > :since
+			   AND bucket_start IN (:hours)
+			""";
+
+	/**
+	 * Totals of one hour, card type and transaction type.
+	 */
+	public record Bucket(LocalDateTime bucketStart, CardType cardType, Transaction.TransactionType type, long count,
+			BigDecimal amount, BigDecimal fee, BigDecimal totalAmount) {
+	}
+
+	private final NamedParameterJdbcTemplate jdbcTemplate;
+
+	public TransactionRollupJdbcRepository(NamedParameterJdbcTemplate jdbcTemplate) {
+		this.jdbcTemplate = jdbcTemplate;
+	}
+
+	/**
+	 * Takes the rollup lock exclusively until the end of the current
+	 * transaction, waiting for running rebuilds.
+	 *
+	 * @return database time once the lock was granted
+	 */
+	public LocalDateTime lockForFlush() {
+		jdbcTemplate.queryForObject(LOCK_FOR_FLUSH, new MapSqlParameterSource("lock", ROLLUP_LOCK), Boolean.class);
+		return jdbcTemplate.queryForObject(CLOCK, new MapSqlParameterSource(), Timestamp.class).toLocalDateTime();
+	}
+
+	/**
+	 * Those of the given hours that were rebuilt after {@code since}.
+	 */
+	public Set<LocalDateTime> findRebuiltSince(LocalDateTime since, Collection<LocalDateTime> hours) {
+		return new HashSet<>(jdbcTemplate.query(SELECT_REBUILT_SINCE,
+				new MapSqlParameterSource("since", Timestamp.valueOf(since)).addValue("hours",
+						hours.stream().map(Timestamp::valueOf).toList()),
+				(rs, rowNum) -> rs.getTimestamp("bucket_start").toLocalDateTime()));
+	}
+
+	/**
+	 * Adds the given totals to their buckets, creating missing ones.
+	 */
+	public void add(Collection<Bucket> buckets) {
+		jdbcTemplate.batchUpdate(UPSERT, buckets.stream()
+				.map(bucket -> new MapSqlParameterSource("bucketStart", Timestamp.valueOf(bucket.bucketStart()))
+						.addValue("cardType", bucket.cardType().name()).addValue("type", bucket.type().name())
+						.addValue("count", bucket.count()).addValue("amount", bucket.amount())
+						.addValue("fee", bucket.fee()).addValue("totalAmount", bucket.totalAmount()))
+				.toArray(MapSqlParameterSource[]::new));
+	}
+
+	/**
+	 * Buckets starting in {@code [from, to)}, optionally of one card type and
+	 * transaction type.
+	 */
+	public List<Bucket> findRange(LocalDateTime from, LocalDateTime to, CardType cardType,
+			Transaction.TransactionType type) {
+		MapSqlParameterSource params = new MapSqlParameterSource("from", Timestamp.valueOf(from)).addValue("to",
+				Timestamp.valueOf(to));
+		StringBuilder sql = new StringBuilder(SELECT_RANGE);
+		if (cardType != null) {
+			sql.append("   AND card_type = :cardType\n");
+			params.addValue("cardType", cardType.name());
+		}
+		if (type != null) {
+			sql.append("   AND type = :type\n");
+			params.addValue("type", type.name());
+		}
+		return jdbcTemplate.query(sql.toString(), params,
+				(rs, rowNum) -> new Bucket(rs.getTimestamp("bucket_start").toLocalDateTime(),
+						CardType.valueOf(rs.getString("card_type")),
+						Transaction.TransactionType.valueOf(rs.getString("type")), rs.getLong("transaction_count"),
+						rs.getBigDecimal("amount"), rs.getBigDecimal("fee"), rs.getBigDecimal("total_amount")));
+	}
+
+	/**
+	 * Replaces the buckets of {@code [from, to)} with totals recomputed from the
+	 * transactions table and records the hours as rebuilt. Both bounds must be
+	 * whole hours. Run in a transaction; it holds the rollup lock shared.
+	 *
+	 * @return number of buckets written
+	 */
+	public int rebuild(LocalDateTime from, LocalDateTime to) {
+		jdbcTemplate.queryForObject(LOCK_FOR_REBUILD, new MapSqlParameterSource("lock", ROLLUP_LOCK),
+				Boolean.class);
+		MapSqlParameterSource params = new MapSqlParameterSource("from", Timestamp.valueOf(from)).addValue("to",
+				Timestamp.valueOf(to));
+		jdbcTemplate.update(DELETE_RANGE, params);
+		int buckets = jdbcTemplate.update(INSERT_FROM_TRANSACTIONS, params);
+		jdbcTemplate.update(RECORD_REBUILD, params);
+		return buckets;
+	}
+}
@@ -0,0 +1,91 @@
+package com.rabobank.banking.service;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.dto.response.AccountBalanceAtResponseDto;
+import com.rabobank.banking.repository.AccountDailyBalanceJdbcRepository;
+import com.rabobank.banking.repository.AccountDailyBalanceJdbcRepository.Snapshot;
+import com.rabobank.banking.repository.AccountRepository;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Balance of an account at a past point in time, from the nearest end-of-day
+ * snapshot before it plus the transactions between the two. Before the
+ * account's first snapshot the balance is worked back from the current one.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class AccountBalanceHistoryService {
+
+	private final AccountDailyBalanceJdbcRepository dailyBalanceRepository;
+	private final AccountRepository accountRepository;
+	private final TransactionArchive transactionArchive;
+
+	public AccountBalanceHistoryService(AccountDailyBalanceJdbcRepository dailyBalanceRepository,
+			AccountRepository accountRepository, TransactionArchive transactionArchive) {
+		this.dailyBalanceRepository = dailyBalanceRepository;
+		this.accountRepository = accountRepository;
+		this.transactionArchive = transactionArchive;
+	}
+
+	/**
+	 * Balance of the account at {@code at}, including its buckets.
+	 *
+	 * @throws AccountNotFoundException    if the account doesn't exist
+	 * @throws InvalidTransactionException if the transactions needed are
+	 *                                     archived
+	 */
+	@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+	public AccountBalanceAtResponseDto getBalanceAt(String accountId, LocalDateTime at) {
+		if (!accountRepository.existsById(accountId)) {
+			throw new AccountNotFoundException(accountId);
+		}
+		Optional<Snapshot> snapshot = dailyBalanceRepository.findLatestBefore(accountId, at.toLocalDate());
+		BigDecimal balance;
+		if (snapshot.isPresent()) {
+			LocalDateTime from = snapshot.get().endOfDay();
+			requireUnarchived(from, at);
+			balance = snapshot.get().balance().add(dailyBalanceRepository.netMovement(accountId, from, at));
+		} else {
+			// Repeatable read: the balance and the movements since come from one database snapshot
+			requireUnarchived(at, null);
+			BigDecimal current = dailyBalanceRepository.findCurrentBalance(accountId)
+					.orElseThrow(() -> new AccountNotFoundException(accountId));
+			balance = current.subtract(dailyBalanceRepository.netMovement(accountId, at, null));
+		}
+		LocalDate snapshotDate = snapshot.map(Snapshot::snapshotDate).orElse(null);
+		log.debug("Balance of account {} at {} is {} (snapshot {})", accountId, at, balance, snapshotDate);
+
+		return AccountBalanceAtResponseDto.builder().accountId(accountId).at(at).balance(balance)
+				.snapshotDate(snapshotDate).timestamp(LocalDateTime.now()).build();
+	}
+
+	/**
+	 * Rejects a movement window that reaches into archived months, whose
+	 * transactions are no longer in the database.
+	 *
+	 * @param to exclusive end, null for none
+	 */
+	private void requireUnarchived(LocalDateTime from, LocalDateTime to) {
+		Optional<LocalDateTime> archivedBefore = transactionArchive.archivedBefore();
+		if (archivedBefore.isPresent() && from.isBefore(archivedBefore.get()) && (to == null || from.isBefore(to))) {
+			throw new InvalidTransactionException(
+					"No daily balance snapshot covers " + from + "; transactions before " + archivedBefore.get()
+							+ " are archived");
+		}
+	}
+}
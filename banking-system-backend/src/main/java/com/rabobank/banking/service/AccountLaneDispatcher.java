@@ -0,0 +1,130 @@
+package com.rabobank.banking.service;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+
+import org.springframework.stereotype.Component;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.ConcurrencyConflictException;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Serializes work per account in memory before it reaches the database.
+ * Account ids hash onto a fixed set of fair lanes; work on the same account
+ * queues on its lane while other accounts proceed in parallel. A transfer
+ * holds the lanes of both accounts, always taken in ascending lane order, so
+ * two transfers can never wait on each other's lanes.
+ *
+ * Waiting happens before any connection is borrowed from the pool, so pool
+ * connections are only held by requests that can make progress.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class AccountLaneDispatcher {
+
+	private final boolean enabled;
+	private final ReentrantLock[] lanes;
+	private final int mask;
+	private final long acquireTimeoutNanos;
+	private final Timer laneWait;
+
+	public AccountLaneDispatcher(TransactionProperties properties, MeterRegistry meterRegistry) {
+		TransactionProperties.Lanes config = properties.getLanes();
+		this.enabled = config.isEnabled();
+		int count = config.getCount() <= 1 ? 1 : Integer.highestOneBit(config.getCount() - 1) << 1;
+		this.lanes = new ReentrantLock[count];
+		for (int i = 0; i < count; i++) {
+			lanes[i] = new ReentrantLock(true);
+		}
+		this.mask = count - 1;
+		this.acquireTimeoutNanos = config.getAcquireTimeout().toNanos();
+		this.laneWait = meterRegistry.timer("banking.transaction.lane.wait");
+		Gauge.builder("banking.transaction.lane.queued", this, AccountLaneDispatcher::queuedRequests)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Runs the work once it owns the lane of {@code accountId}.
+	 */
+	public <T> T execute(String accountId, Supplier<T> work) {
+		if (!enabled) {
+			return work.get();
+		}
+		return runOnLanes(laneIndex(accountId), laneIndex(accountId), work);
+	}
+
+	/**
+	 * Runs the work once it owns the lanes of both accounts.
+	 */
+	public <T> T execute(String firstAccountId, String secondAccountId, Supplier<T> work) {
+		if (!enabled) {
+			return work.get();
+		}
+		int first = laneIndex(firstAccountId);
+		int second = laneIndex(secondAccountId);
+		return runOnLanes(Math.min(first, second), Math.max(first, second), work);
+	}
+
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	int laneIndex(String accountId) {
+		int h = accountId.hashCode();
+		return (h ^ (h >>> 16)) & mask;
+	}
+
+	int laneCount() {
+		return lanes.length;
+	}
+
+	private <T> T runOnLanes(int low, int high, Supplier<T> work) {
+		long start = System.nanoTime();
+		acquire(low, start);
+		try {
+			if (high != low) {
+				acquire(high, start);
+			}
+			try {
+				laneWait.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+				return work.get();
+			} finally {
+				if (high != low) {
+					lanes[high].unlock();
+				}
+			}
+		} finally {
+			lanes[low].unlock();
+		}
+	}
+
+	private void acquire(int lane, long startNanos) {
+		long remaining = acquireTimeoutNanos - (System.nanoTime() - startNanos);
+		try {
+			if (!lanes[lane].tryLock(Math.max(0, remaining), TimeUnit.NANOSECONDS)) {
+				log.warn("Timed out waiting for account lane {}", lane);
+				throw new ConcurrencyConflictException("Account is busy with other transactions, please retry");
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new ConcurrencyConflictException("Interrupted while waiting for account lane");
+		}
+	}
+
+	private double queuedRequests() {
+		int queued = 0;
+		for (ReentrantLock lane : lanes) {
+			queued += lane.getQueueLength();
+		}
+		return queued;
+	}
+}
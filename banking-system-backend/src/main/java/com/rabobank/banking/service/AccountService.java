@@ -1,21 +1,43 @@
 package com.rabobank.banking.service;
 
 import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
 import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.Collection;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.PessimisticLockingFailureException;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.rabobank.banking.config.AccountProperties;
 import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
 import com.rabobank.banking.domain.model.Account;
 import com.rabobank.banking.domain.model.Card;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.dto.response.AccountBalancePageResponseDto;
 import com.rabobank.banking.dto.response.AccountBalanceResponseDto;
+import com.rabobank.banking.dto.response.AccountBalanceSummaryResponseDto;
 import com.rabobank.banking.dto.response.AllAccountsBalanceResponseDto;
+import com.rabobank.banking.repository.AccountBalanceJdbcRepository;
+import com.rabobank.banking.repository.AccountBalanceView;
+import com.rabobank.banking.repository.AccountBucketJdbcRepository;
 import com.rabobank.banking.repository.AccountRepository;
 
+import io.micrometer.core.instrument.MeterRegistry;
+
 /**
  * Provides operations related to viewing account information.
  *
@@ -26,13 +48,28 @@ import com.rabobank.banking.repository.AccountRepository;
 public class AccountService {
 	private static final Logger log = LoggerFactory.getLogger(AccountService.class);
 	private final AccountRepository accountRepository;
+	private final AccountBucketJdbcRepository accountBucketRepository;
+	private final AccountBalanceJdbcRepository accountBalanceRepository;
+	private final AccountProperties.Balances balancesConfig;
+	private final BalanceTotals balanceTotals;
+	private final MeterRegistry meterRegistry;
 
-	public AccountService(AccountRepository accountRepository) {
+	public AccountService(AccountRepository accountRepository, AccountBucketJdbcRepository accountBucketRepository,
+			AccountBalanceJdbcRepository accountBalanceRepository, AccountProperties accountProperties,
+			BalanceTotals balanceTotals, MeterRegistry meterRegistry) {
 		this.accountRepository = accountRepository;
+		this.accountBucketRepository = accountBucketRepository;
+		this.accountBalanceRepository = accountBalanceRepository;
+		this.balancesConfig = accountProperties.getBalances();
+		this.balanceTotals = balanceTotals;
+		this.meterRegistry = meterRegistry;
 	}
 
 	/**
-	 * Fetches balances for all active accounts.
+	 * Fetches balances for all active accounts. The balance of a bucketed account
+	 * includes its buckets. Loads every account at once; use
+	 * {@link #getAccountBalancesPage(String, Integer)} or
+	 * {@link #forEachAccountBalance(Consumer)} for large account sets.
 	 * 
 	 * @return DTO containing list of account balances, total count, and total
 	 *         balance
@@ -41,17 +78,120 @@ public class AccountService {
 	public AllAccountsBalanceResponseDto getAllAccountBalances() {
 		log.info("Fetching all account balances");
 
-		List<Account> accounts = accountRepository.findAllActiveAccountsWithDetails();
+		AllAccountsBalanceResponseDto response = toBalancesResponse(accountRepository.findActiveBalanceViews());
+
+		log.info("Found {} active accounts with total balance: €{}", response.getTotalAccounts(),
+				response.getTotalBalance());
+		return response;
+	}
+
+	/**
+	 * Fetches balances for all accounts of one user, including inactive accounts
+	 * and accounts without a card.
+	 * 
+	 * @param userId
+	 * @return DTO containing the user's account balances, their count and total
+	 *         balance; empty if the user has no accounts
+	 */
+	@Transactional(readOnly = true)
+	public AllAccountsBalanceResponseDto getAccountBalancesByUser(Long userId) {
+		log.info("Fetching account balances of user {}", userId);
+		return toBalancesResponse(accountRepository.findBalanceViewsByUserId(userId));
+	}
+
+	private AllAccountsBalanceResponseDto toBalancesResponse(List<AccountBalanceView> views) {
+		Map<String, Money> bucketBalances = views.stream().anyMatch(view -> view.bucketCount() > 0)
+				? accountBucketRepository.sumByAccount()
+				: Map.of();
 
-		List<AccountBalanceResponseDto> accountBalances = accounts.stream().map(this::mapToAccountBalanceResponse)
-				.toList();
+		List<AccountBalanceResponseDto> accountBalances = new ArrayList<>(views.size());
+		long totalCents = 0;
+		for (AccountBalanceView view : views) {
+			Money balance = view.balance().plus(bucketBalances.getOrDefault(view.accountId(), Money.ZERO));
+			totalCents = Math.addExact(totalCents, balance.cents());
+			accountBalances.add(mapToAccountBalanceResponse(view, balance));
+		}
+
+		return AllAccountsBalanceResponseDto.builder().accounts(accountBalances).totalAccounts(views.size())
+				.totalBalance(Money.ofCents(totalCents).toBigDecimal()).timestamp(LocalDateTime.now()).build();
+	}
 
-		BigDecimal totalBalance = accounts.stream().map(Account::getBalance).reduce(BigDecimal.ZERO, BigDecimal::add);
+	/**
+	 * Fetches one page of active account balances in accountId order.
+	 * 
+	 * @param cursor nextCursor of the previous page, or null for the first page
+	 * @param limit  page size, capped at {@code max-page-size}; null for the
+	 *               default
+	 * @return the page and the cursor of the next one
+	 * @throws InvalidTransactionException if the cursor is malformed
+	 */
+	@Transactional(readOnly = true)
+	public AccountBalancePageResponseDto getAccountBalancesPage(String cursor, Integer limit) {
+		int pageSize = Math.max(1,
+				Math.min(limit != null ? limit : balancesConfig.getDefaultPageSize(), balancesConfig.getMaxPageSize()));
+		String afterAccountId = cursor == null || cursor.isEmpty() ? "" : decodeCursor(cursor);
 
-		log.info("Found {} active accounts with total balance: €{}", accounts.size(), totalBalance);
+		// One extra row tells whether another page follows
+		List<AccountBalanceResponseDto> accounts = accountBalanceRepository.findPage(afterAccountId, pageSize + 1);
+		String nextCursor = null;
+		if (accounts.size() > pageSize) {
+			accounts = accounts.subList(0, pageSize);
+			nextCursor = encodeCursor(accounts.get(pageSize - 1).getAccountId());
+		}
+
+		return AccountBalancePageResponseDto.builder().accounts(accounts).nextCursor(nextCursor)
+				.timestamp(LocalDateTime.now()).build();
+	}
+
+	/**
+	 * Passes the balance of every active account to the consumer, in accountId
+	 * order, reading through a database cursor so memory use doesn't grow with
+	 * the number of accounts.
+	 */
+	@Transactional(readOnly = true)
+	public void forEachAccountBalance(Consumer<AccountBalanceResponseDto> consumer) {
+		accountBalanceRepository.forEach(consumer);
+	}
+
+	/**
+	 * Number of active accounts and their total balance, from the running
+	 * totals. Only before those are first reconciled are they summed by the
+	 * database.
+	 */
+	public AccountBalanceSummaryResponseDto getAccountBalanceSummary() {
+		AccountBalanceJdbcRepository.Totals totals = balanceTotals.current()
+				.orElseGet(accountBalanceRepository::totals);
+		return AccountBalanceSummaryResponseDto.builder().totalAccounts(totals.totalAccounts())
+				.totalBalance(totals.totalBalance().setScale(2)).reconciledAt(balanceTotals.reconciledAt())
+				.timestamp(LocalDateTime.now()).build();
+	}
+
+	/**
+	 * Activates or deactivates an account. Inactive accounts are left out of
+	 * balance listings and totals.
+	 * 
+	 * @param accountId
+	 * @param active
+	 * @throws AccountNotFoundException if the account doesn't exist
+	 */
+	@Transactional
+	public void setActive(String accountId, boolean active) {
+		Account account = getAccountByIdWithLock(accountId);
+		if (account.isActive() == active) {
+			return;
+		}
+		account.setActive(active);
 
-		return AllAccountsBalanceResponseDto.builder().accounts(accountBalances).totalAccounts(accounts.size())
-				.totalBalance(totalBalance).timestamp(LocalDateTime.now()).build();
+		// Listings and totals only cover accounts with a card
+		if (account.getCard() != null) {
+			Money balance = account.getBucketCount() == 0 ? account.getBalance()
+					: accountBucketRepository.lockBuckets(accountId).stream()
+							.map(AccountBucketJdbcRepository.Bucket::balance)
+							.reduce(account.getBalance(), Money::plus);
+			int sign = active ? 1 : -1;
+			balanceTotals.record(sign * balance.cents(), sign);
+		}
+		log.info("Account {} is now {}", accountId, active ? "active" : "inactive");
 	}
 
 	/**
@@ -76,21 +216,113 @@ public class AccountService {
 	@Transactional
 	public Account getAccountByIdWithLock(String accountId) {
 		log.debug("Fetching account with lock: {}", accountId);
-		return accountRepository.findByIdWithLock(accountId).orElseThrow(() -> new AccountNotFoundException(accountId));
+		return timeLockWait(() -> accountRepository.findByIdWithLock(accountId))
+				.orElseThrow(() -> new AccountNotFoundException(accountId));
+	}
+
+	/**
+	 * Fetches several accounts with a lock for update in one statement. Locks are
+	 * taken in accountId order so that opposing transfers cannot deadlock.
+	 * 
+	 * @param accountIds
+	 * @return the locked accounts keyed by accountId
+	 * @throws AccountNotFoundException if any of the accounts doesn't exist
+	 */
+	@Transactional
+	public Map<String, Account> getAccountsByIdWithLock(Collection<String> accountIds) {
+		log.debug("Fetching accounts with lock: {}", accountIds);
+		List<Account> locked = timeLockWait(() -> accountRepository.findAllByIdWithLock(accountIds));
+		return toMapOrThrow(accountIds, locked);
 	}
 
 	/**
-	 * Maps Account entity to AccountBalanceResponseDTO.
+	 * Like {@link #getAccountsByIdWithLock(Collection)} but leaves missing
+	 * accounts out of the result instead of failing, so that a batch can reject
+	 * only the items that refer to them.
 	 * 
-	 * @param account
+	 * @param accountIds
+	 * @return the locked accounts that exist, keyed by accountId
+	 */
+	@Transactional
+	public Map<String, Account> getExistingAccountsByIdWithLock(Collection<String> accountIds) {
+		log.debug("Fetching {} accounts with lock", accountIds.size());
+		Map<String, Account> accounts = new HashMap<>();
+		timeLockWait(() -> accountRepository.findAllByIdWithLock(accountIds))
+				.forEach(account -> accounts.put(account.getAccountId(), account));
+		return accounts;
+	}
+
+	/**
+	 * Fetches several accounts for update without locking them. Used in
+	 * optimistic mode, where the version column detects concurrent changes at
+	 * commit.
+	 * 
+	 * @param accountIds
+	 * @return the accounts keyed by accountId
+	 * @throws AccountNotFoundException if any of the accounts doesn't exist
+	 */
+	@Transactional
+	public Map<String, Account> getAccountsById(Collection<String> accountIds) {
+		log.debug("Fetching accounts: {}", accountIds);
+		return toMapOrThrow(accountIds, accountRepository.findAllById(accountIds));
+	}
+
+	/**
+	 * Records how long we waited for row locks, tagged with whether the lock was
+	 * acquired or the wait ended in a contention failure.
+	 */
+	private <T> T timeLockWait(Supplier<T> lockQuery) {
+		long start = System.nanoTime();
+		String outcome = "acquired";
+		try {
+			return lockQuery.get();
+		} catch (PessimisticLockingFailureException ex) {
+			outcome = ex instanceof CannotAcquireLockException ? "timeout" : "deadlock";
+			throw ex;
+		} catch (ConcurrencyFailureException ex) {
+			outcome = "conflict";
+			throw ex;
+		} finally {
+			meterRegistry.timer("banking.account.lock.wait", "outcome", outcome).record(System.nanoTime() - start,
+					TimeUnit.NANOSECONDS);
+		}
+	}
+
+	private Map<String, Account> toMapOrThrow(Collection<String> accountIds, List<Account> found) {
+		Map<String, Account> accounts = new HashMap<>();
+		found.forEach(account -> accounts.put(account.getAccountId(), account));
+		for (String accountId : accountIds) {
+			if (!accounts.containsKey(accountId)) {
+				throw new AccountNotFoundException(accountId);
+			}
+		}
+		return accounts;
+	}
+
+	private static String encodeCursor(String accountId) {
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(accountId.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static String decodeCursor(String cursor) {
+		try {
+			return new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+		} catch (IllegalArgumentException ex) {
+			throw new InvalidTransactionException("Invalid cursor");
+		}
+	}
+
+	/**
+	 * Maps an account balance view to AccountBalanceResponseDTO.
+	 * 
+	 * @param view    account, user and card fields of the account
+	 * @param balance balance including the account's buckets
 	 * @return
 	 */
-	private AccountBalanceResponseDto mapToAccountBalanceResponse(Account account) {
-		Card card = account.getCard();
-		return AccountBalanceResponseDto.builder().accountId(account.getAccountId())
-				.accountNumber(account.getAccountNumber()).userName(account.getUser().getFullName())
-				.userEmail(account.getUser().getEmail()).balance(account.getBalance())
-				.cardType(card != null ? card.getCardType() : null)
-				.cardNumber(card != null ? card.getMaskedCardNumber() : "No card").active(account.isActive()).build();
-	}
-}
\ No newline at end of file
+	private AccountBalanceResponseDto mapToAccountBalanceResponse(AccountBalanceView view, Money balance) {
+		return AccountBalanceResponseDto.builder().accountId(view.accountId()).accountNumber(view.accountNumber())
+				.userName(view.fullName()).userEmail(view.email()).balance(balance.toBigDecimal())
+				.cardType(view.cardType())
+				.cardNumber(view.cardNumber() != null ? Card.mask(view.cardNumber()) : "No card")
+				.active(view.active()).build();
+	}
+}
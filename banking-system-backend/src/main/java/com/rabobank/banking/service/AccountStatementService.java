@@ -0,0 +1,143 @@
+package com.rabobank.banking.service;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.time.LocalDateTime;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPOutputStream;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Isolation;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto.Direction;
+import com.rabobank.banking.repository.AccountRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Filter;
+import com.rabobank.banking.service.archive.TransactionArchive;
+import com.rabobank.banking.service.statement.StatementFormat;
+import com.rabobank.banking.service.statement.StatementWriter;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Account statements: the transactions of a period, oldest first, between the
+ * opening and closing balance, with the running balance after each one.
+ *
+ * Rows go from a database cursor straight to the response, so neither memory
+ * use nor the time to the first byte depends on the length of the statement.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class AccountStatementService {
+
+	private static final int GZIP_BUFFER_SIZE = 8 * 1024;
+
+	private final TransactionHistoryJdbcRepository historyRepository;
+	private final AccountRepository accountRepository;
+	private final AccountBalanceHistoryService balanceHistoryService;
+	private final TransactionArchive transactionArchive;
+	private final AccountProperties.Statements config;
+
+	public AccountStatementService(TransactionHistoryJdbcRepository historyRepository,
+			AccountRepository accountRepository, AccountBalanceHistoryService balanceHistoryService,
+			TransactionArchive transactionArchive, AccountProperties accountProperties) {
+		this.historyRepository = historyRepository;
+		this.accountRepository = accountRepository;
+		this.balanceHistoryService = balanceHistoryService;
+		this.transactionArchive = transactionArchive;
+		this.config = accountProperties.getStatements();
+	}
+
+	/**
+	 * Checks a statement request before its response is started.
+	 *
+	 * @throws AccountNotFoundException    if the account doesn't exist
+	 * @throws InvalidTransactionException if the period is empty or starts in
+	 *                                     archived months
+	 */
+	@Transactional(readOnly = true)
+	public void validate(String accountId, LocalDateTime from, LocalDateTime to) {
+		if (to != null && !from.isBefore(to)) {
+			throw new InvalidTransactionException("'from' must be before 'to'");
+		}
+		Optional<LocalDateTime> archivedBefore = transactionArchive.archivedBefore();
+		if (archivedBefore.isPresent() && from.isBefore(archivedBefore.get())) {
+			throw new InvalidTransactionException("Statements can start at " + archivedBefore.get()
+					+ " at the earliest; older transactions are archived");
+		}
+		if (!accountRepository.existsById(accountId)) {
+			throw new AccountNotFoundException(accountId);
+		}
+	}
+
+	/**
+	 * Whether the statement is sent gzip-compressed.
+	 *
+	 * @param acceptEncoding the request's Accept-Encoding header, may be null
+	 */
+	public boolean useGzip(String acceptEncoding) {
+		return config.isGzipEnabled() && acceptEncoding != null && acceptEncoding.toLowerCase().contains("gzip");
+	}
+
+	/**
+	 * Opens a writer on the response body; closing it finishes the response.
+	 */
+	public StatementWriter openWriter(StatementFormat format, OutputStream out, boolean gzip) throws IOException {
+		// Sync flush, so that flushing the writer reaches the client compressed or not
+		OutputStream body = gzip ? new GZIPOutputStream(out, GZIP_BUFFER_SIZE, true) : out;
+		return StatementWriter.of(format, body, config.getWriteBufferSize());
+	}
+
+	/**
+	 * Writes the statement of {@code [from, to)}. The opening balance and the
+	 * transactions are read in one repeatable-read transaction, so the closing
+	 * balance is consistent with both.
+	 *
+	 * @param to end of the period, exclusive; null for up to now
+	 * @return number of transactions written
+	 */
+	@Transactional(readOnly = true, isolation = Isolation.REPEATABLE_READ)
+	public long export(String accountId, LocalDateTime from, LocalDateTime to, StatementWriter writer)
+			throws IOException {
+		long started = System.nanoTime();
+		AtomicLong balanceCents = new AtomicLong(
+				Money.of(balanceHistoryService.getBalanceAt(accountId, from).getBalance()).cents());
+		writer.writeOpening(accountId, from, to, Money.ofCents(balanceCents.get()).toBigDecimal());
+		writer.flush();
+
+		AtomicLong transactions = new AtomicLong();
+		try {
+			historyRepository.forEachChronological(accountId, new Filter(from, to, null), transaction -> {
+				if (transaction.getStatus() == Transaction.TransactionStatus.SUCCESS) {
+					balanceCents.addAndGet(transaction.getDirection() == Direction.DEBIT
+							? -Money.of(transaction.getTotalAmount()).cents()
+							: Money.of(transaction.getAmount()).cents());
+				}
+				try {
+					writer.writeTransaction(transaction, Money.ofCents(balanceCents.get()).toBigDecimal());
+				} catch (IOException ex) {
+					throw new UncheckedIOException(ex);
+				}
+				transactions.incrementAndGet();
+			});
+		} catch (UncheckedIOException ex) {
+			throw ex.getCause();
+		}
+		writer.writeClosing(Money.ofCents(balanceCents.get()).toBigDecimal(), transactions.get());
+		writer.flush();
+		log.info("Exported statement of account {} with {} transactions in {} ms", accountId, transactions.get(),
+				(System.nanoTime() - started) / 1_000_000);
+		return transactions.get();
+	}
+}
@@ -0,0 +1,509 @@
+package com.rabobank.banking.service;
+
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.domain.exception.BankingException;
+import com.rabobank.banking.domain.exception.TransactionNotFoundException;
+import com.rabobank.banking.domain.exception.TransactionQueueFullException;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.request.TransferRequestDto;
+import com.rabobank.banking.dto.request.WithdrawRequestDto;
+import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.dto.response.TransactionStatusResponseDto;
+import com.rabobank.banking.repository.AsyncTransactionRequestJdbcRepository;
+import com.rabobank.banking.repository.AsyncTransactionRequestJdbcRepository.AsyncRequest;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Accepts withdrawals and transfers for background processing. A request is
+ * stored in {@code async_transaction_requests} and gets its transaction id and
+ * PENDING status immediately; a fixed pool of workers drains the bounded queue
+ * in batches and runs the requests through {@link TransactionService}, so the
+ * number of concurrent database transactions is capped by the worker count
+ * rather than by Tomcat threads. A request sent with an idempotency key is
+ * stored once per key; resubmitting it returns the status of the first one.
+ *
+ * When the service can join a caller's transaction, a batch commits in a
+ * single transaction together with the outcome of its requests; if any of them
+ * fails the batch is rolled back and its requests run one by one. The stored
+ * outcome answers status polls for {@code banking.transaction.async.status-retention},
+ * finished results are also kept in memory for
+ * {@code banking.transaction.async.result-retention}. Requests still pending
+ * after {@code banking.transaction.async.recover-after}, e.g. because their
+ * instance went down, are claimed and run by another worker unless their
+ * transaction turns out to be committed already. A worker runs each request
+ * as the client that submitted it, so its write counts for that client's
+ * read-your-writes routing.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class AsyncTransactionProcessor implements SmartLifecycle {
+
+	private static final int MAX_MESSAGE_LENGTH = 500;
+
+	private final TransactionService transactionService;
+	private final IdempotencyService idempotencyService;
+	private final AsyncTransactionRequestJdbcRepository requestRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectMapper objectMapper;
+	private final ObjectProvider<ClientWriteTracker> writeTracker;
+	private final TransactionProperties.Async config;
+	private final MeterRegistry meterRegistry;
+	private final BlockingQueue<Submission> queue;
+	private final Map<String, Tracked> tracked = new ConcurrentHashMap<>();
+	private final List<Thread> workers = new ArrayList<>();
+	private final AtomicLong lastRecoveryNanos = new AtomicLong(System.nanoTime());
+	private final AtomicLong lastPurgeNanos = new AtomicLong(System.nanoTime());
+
+	private volatile boolean running;
+	private volatile long lastPruneNanos = System.nanoTime();
+
+	private record Submission(String transactionId, String client, Supplier<TransactionResponseDto> work) {
+	}
+
+	private static final class Tracked {
+		private final CompletableFuture<TransactionStatusResponseDto> result = new CompletableFuture<>();
+		private volatile long completedAtNanos;
+	}
+
+	public AsyncTransactionProcessor(TransactionService transactionService, IdempotencyService idempotencyService,
+			AsyncTransactionRequestJdbcRepository requestRepository, PlatformTransactionManager transactionManager,
+			ObjectMapper objectMapper, TransactionProperties properties, MeterRegistry meterRegistry,
+			ObjectProvider<ClientWriteTracker> writeTracker) {
+		this.transactionService = transactionService;
+		this.idempotencyService = idempotencyService;
+		this.requestRepository = requestRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.objectMapper = objectMapper;
+		this.writeTracker = writeTracker;
+		this.config = properties.getAsync();
+		this.meterRegistry = meterRegistry;
+		this.queue = new ArrayBlockingQueue<>(config.getQueueCapacity());
+		Gauge.builder("banking.transaction.async.queue.depth", queue, BlockingQueue::size).register(meterRegistry);
+	}
+
+	/**
+	 * Stores and queues a withdrawal.
+	 *
+	 * @param idempotencyKey client supplied key, or {@code null}; a repeated
+	 *                       key gets the status of the first submission
+	 * @return the PENDING status carrying the assigned transaction id
+	 * @throws TransactionQueueFullException if the queue is full
+	 */
+	public TransactionStatusResponseDto submitWithdraw(String idempotencyKey, WithdrawRequestDto request) {
+		return submit(idempotencyKey, "withdraw-async", Transaction.TransactionType.WITHDRAWAL, request,
+				transactionId -> withdrawal(transactionId, request));
+	}
+
+	/**
+	 * Stores and queues a transfer.
+	 *
+	 * @param idempotencyKey client supplied key, or {@code null}; a repeated
+	 *                       key gets the status of the first submission
+	 * @return the PENDING status carrying the assigned transaction id
+	 * @throws TransactionQueueFullException if the queue is full
+	 */
+	public TransactionStatusResponseDto submitTransfer(String idempotencyKey, TransferRequestDto request) {
+		return submit(idempotencyKey, "transfer-async", Transaction.TransactionType.TRANSFER, request,
+				transactionId -> transfer(transactionId, request));
+	}
+
+	/**
+	 * Current status of a transaction. The future is already complete unless the
+	 * transaction is still queued or running on this instance.
+	 *
+	 * @throws TransactionNotFoundException if the id is neither tracked, stored
+	 *                                      nor in the database
+	 */
+	public CompletableFuture<TransactionStatusResponseDto> getStatus(String transactionId) {
+		Tracked entry = tracked.get(transactionId);
+		if (entry != null) {
+			return entry.result;
+		}
+		Optional<AsyncRequest> stored = requestRepository.find(transactionId);
+		if (stored.isPresent()) {
+			return CompletableFuture.completedFuture(storedStatus(stored.get()));
+		}
+		return transactionService.findTransaction(transactionId)
+				.map(transaction -> CompletableFuture.completedFuture(succeeded(transaction)))
+				.orElseThrow(() -> new TransactionNotFoundException(transactionId));
+	}
+
+	public static TransactionStatusResponseDto pending(String transactionId) {
+		return TransactionStatusResponseDto.builder().transactionId(transactionId)
+				.status(Transaction.TransactionStatus.PENDING).build();
+	}
+
+	private TransactionStatusResponseDto submit(String idempotencyKey, String idempotencyOperation,
+			Transaction.TransactionType operation, Object request,
+			Function<String, Supplier<TransactionResponseDto>> work) {
+		if (!running || queue.remainingCapacity() == 0) {
+			throw rejected();
+		}
+		String transactionId = transactionService.generateTransactionId();
+		ClientWriteTracker tracker = writeTracker.getIfAvailable();
+		String client = tracker != null ? tracker.currentClient() : null;
+		String requestBody = serialize(request);
+		// The key and the stored request commit together, so a replay always finds the request
+		Optional<String> earlier = transactionTemplate.execute(status -> {
+			if (idempotencyKey != null) {
+				Optional<String> submitted = idempotencyService.claimSubmission(idempotencyKey,
+						idempotencyOperation, request, transactionId);
+				if (submitted.isPresent()) {
+					return submitted;
+				}
+			}
+			requestRepository.insert(transactionId, operation, requestBody, client, LocalDateTime.now());
+			return Optional.<String>empty();
+		});
+		if (earlier.isPresent()) {
+			return getStatus(earlier.get()).getNow(pending(earlier.get()));
+		}
+
+		Tracked entry = new Tracked();
+		tracked.put(transactionId, entry);
+		if (!queue.offer(new Submission(transactionId, client, work.apply(transactionId)))) {
+			tracked.remove(transactionId);
+			transactionTemplate.executeWithoutResult(status -> {
+				requestRepository.delete(transactionId);
+				if (idempotencyKey != null) {
+					idempotencyService.release(idempotencyKey);
+				}
+			});
+			throw rejected();
+		}
+		log.info("Accepted transaction {} for background processing", transactionId);
+		return pending(transactionId);
+	}
+
+	private TransactionQueueFullException rejected() {
+		meterRegistry.counter("banking.transaction.async.rejected").increment();
+		return new TransactionQueueFullException(config.getQueueCapacity());
+	}
+
+	private void workLoop() {
+		List<Submission> batch = new ArrayList<>(config.getBatchSize());
+		while (running || !queue.isEmpty()) {
+			try {
+				Submission first = queue.poll(200, TimeUnit.MILLISECONDS);
+				if (first != null) {
+					batch.add(first);
+					queue.drainTo(batch, config.getBatchSize() - 1);
+					processBatch(batch);
+				}
+				pruneExpiredResults();
+				if (running) {
+					recoverStaleRequests();
+					purgeExpiredRequests();
+				}
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void processBatch(List<Submission> batch) {
+		Set<String> claimed;
+		try {
+			claimed = requestRepository.claim(batch.stream().map(Submission::transactionId).toList(),
+					LocalDateTime.now());
+		} catch (RuntimeException ex) {
+			// Left pending in the table, so they are recovered once they are stale
+			log.error("Could not claim {} queued transactions", batch.size(), ex);
+			batch.forEach(submission -> tracked.remove(submission.transactionId()));
+			return;
+		}
+		List<Submission> owned = new ArrayList<>(claimed.size());
+		for (Submission submission : batch) {
+			if (claimed.contains(submission.transactionId())) {
+				owned.add(submission);
+			} else {
+				// Already taken over by a recovering worker; polls are answered from the table
+				tracked.remove(submission.transactionId());
+			}
+		}
+		if (owned.size() > 1 && transactionService.canJoinTransaction() && commitTogether(owned)) {
+			return;
+		}
+		owned.forEach(this::process);
+	}
+
+	/**
+	 * Runs the batch in one transaction that also records its outcome.
+	 *
+	 * @return {@code false} if the batch was rolled back
+	 */
+	private boolean commitTogether(List<Submission> batch) {
+		List<TransactionResponseDto> results;
+		try {
+			results = transactionTemplate.execute(status -> {
+				List<TransactionResponseDto> done = new ArrayList<>(batch.size());
+				for (Submission submission : batch) {
+					done.add(run(submission));
+				}
+				requestRepository.completeAll(batch.stream().map(Submission::transactionId).toList(),
+						LocalDateTime.now());
+				return done;
+			});
+		} catch (RuntimeException ex) {
+			log.debug("Batch of {} transactions rolled back, running them one by one: {}", batch.size(),
+					ex.getMessage());
+			meterRegistry.counter("banking.transaction.async.batch.fallbacks").increment();
+			return false;
+		}
+		ClientWriteTracker tracker = writeTracker.getIfAvailable();
+		for (int i = 0; i < batch.size(); i++) {
+			if (tracker != null) {
+				tracker.recordWrite(batch.get(i).client());
+			}
+			finish(batch.get(i).transactionId(), succeeded(results.get(i)));
+		}
+		return true;
+	}
+
+	private void process(Submission submission) {
+		String transactionId = submission.transactionId();
+		TransactionStatusResponseDto status;
+		try {
+			status = succeeded(run(submission));
+		} catch (BankingException ex) {
+			log.warn("Transaction {} failed: {}", transactionId, ex.getMessage());
+			status = failed(transactionId, ex.getErrorCode(), ex.getMessage());
+		} catch (RuntimeException ex) {
+			// The outcome is unknown if the commit itself failed, so look before reporting a failure
+			Optional<TransactionResponseDto> committed = findCommitted(transactionId);
+			if (committed.isPresent()) {
+				log.warn("Transaction {} committed despite an error: {}", transactionId, ex.getMessage());
+				status = succeeded(committed.get());
+			} else {
+				log.error("Transaction {} failed unexpectedly", transactionId, ex);
+				status = failed(transactionId, "INTERNAL_ERROR", "An unexpected error occurred");
+			}
+		}
+		try {
+			requestRepository.complete(transactionId, status.getStatus(), status.getErrorCode(),
+					truncate(status.getMessage()), LocalDateTime.now());
+		} catch (RuntimeException ex) {
+			// Still pending in the table; recovery finds the committed transaction or runs the request again
+			log.error("Could not record the outcome of transaction {}", transactionId, ex);
+			tracked.remove(transactionId);
+			return;
+		}
+		finish(transactionId, status);
+	}
+
+	private void finish(String transactionId, TransactionStatusResponseDto status) {
+		meterRegistry.counter("banking.transaction.async.completed", "status", status.getStatus().name())
+				.increment();
+		Tracked entry = tracked.get(transactionId);
+		if (entry != null) {
+			entry.completedAtNanos = System.nanoTime();
+			entry.result.complete(status);
+		}
+	}
+
+	private TransactionResponseDto run(Submission submission) {
+		ClientWriteTracker tracker = writeTracker.getIfAvailable();
+		if (tracker == null || submission.client() == null) {
+			return submission.work().get();
+		}
+		return tracker.callAs(submission.client(), submission.work());
+	}
+
+	/**
+	 * Takes over requests left pending by a worker that stopped, on this or
+	 * another instance. One worker at a time, every half recovery period.
+	 */
+	private void recoverStaleRequests() {
+		long now = System.nanoTime();
+		long last = lastRecoveryNanos.get();
+		if (now - last < config.getRecoverAfter().toNanos() / 2 || !lastRecoveryNanos.compareAndSet(last, now)) {
+			return;
+		}
+		List<AsyncRequest> stale;
+		try {
+			LocalDateTime timestamp = LocalDateTime.now();
+			stale = requestRepository.reclaimStale(timestamp.minus(config.getRecoverAfter()), timestamp,
+					config.getBatchSize());
+		} catch (RuntimeException ex) {
+			log.error("Could not reclaim stale transactions", ex);
+			meterRegistry.counter("banking.transaction.async.recovery.failures").increment();
+			return;
+		}
+		for (AsyncRequest request : stale) {
+			meterRegistry.counter("banking.transaction.async.recovered").increment();
+			log.warn("Recovering transaction {} accepted for background processing", request.transactionId());
+			tracked.putIfAbsent(request.transactionId(), new Tracked());
+			Optional<TransactionResponseDto> committed = findCommitted(request.transactionId());
+			if (committed.isPresent()) {
+				process(new Submission(request.transactionId(), null, committed::get));
+			} else {
+				process(restore(request));
+			}
+		}
+	}
+
+	private void purgeExpiredRequests() {
+		long now = System.nanoTime();
+		long last = lastPurgeNanos.get();
+		if (now - last < config.getPurgeInterval().toNanos() || !lastPurgeNanos.compareAndSet(last, now)) {
+			return;
+		}
+		try {
+			LocalDateTime before = LocalDateTime.now().minus(config.getStatusRetention());
+			int batchSize = Math.max(1, config.getPurgeBatchSize());
+			long purged = 0;
+			int deleted;
+			do {
+				deleted = requestRepository.purgeCompletedBefore(before, batchSize);
+				purged += deleted;
+			} while (deleted == batchSize && running);
+			log.debug("Purged {} finished background transactions", purged);
+		} catch (RuntimeException ex) {
+			log.error("Could not purge finished background transactions", ex);
+		}
+	}
+
+	private Submission restore(AsyncRequest request) {
+		String transactionId = request.transactionId();
+		Supplier<TransactionResponseDto> work;
+		try {
+			work = request.operation() == Transaction.TransactionType.TRANSFER
+					? transfer(transactionId, objectMapper.readValue(request.requestBody(), TransferRequestDto.class))
+					: withdrawal(transactionId,
+							objectMapper.readValue(request.requestBody(), WithdrawRequestDto.class));
+		} catch (JsonProcessingException ex) {
+			work = () -> {
+				throw new IllegalStateException("Could not read stored request of " + transactionId, ex);
+			};
+		}
+		return new Submission(transactionId, request.clientId(), work);
+	}
+
+	private Supplier<TransactionResponseDto> withdrawal(String transactionId, WithdrawRequestDto request) {
+		return () -> transactionService.withdraw(request, transactionId);
+	}
+
+	private Supplier<TransactionResponseDto> transfer(String transactionId, TransferRequestDto request) {
+		return () -> transactionService.transfer(request, transactionId);
+	}
+
+	private Optional<TransactionResponseDto> findCommitted(String transactionId) {
+		try {
+			return transactionService.findTransaction(transactionId);
+		} catch (RuntimeException ex) {
+			log.error("Could not look up transaction {}", transactionId, ex);
+			return Optional.empty();
+		}
+	}
+
+	private TransactionStatusResponseDto storedStatus(AsyncRequest request) {
+		return switch (request.status()) {
+		case PENDING -> pending(request.transactionId());
+		case FAILED -> failed(request.transactionId(), request.errorCode(), request.message());
+		case SUCCESS -> transactionService.findTransaction(request.transactionId())
+				.map(AsyncTransactionProcessor::succeeded)
+				.orElseGet(() -> TransactionStatusResponseDto.builder().transactionId(request.transactionId())
+						.status(Transaction.TransactionStatus.SUCCESS).build());
+		};
+	}
+
+	private String serialize(Object request) {
+		try {
+			return objectMapper.writeValueAsString(request);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Could not serialize transaction request", ex);
+		}
+	}
+
+	private static String truncate(String message) {
+		return message == null || message.length() <= MAX_MESSAGE_LENGTH ? message
+				: message.substring(0, MAX_MESSAGE_LENGTH);
+	}
+
+	private void pruneExpiredResults() {
+		long now = System.nanoTime();
+		if (now - lastPruneNanos < TimeUnit.SECONDS.toNanos(1)) {
+			return;
+		}
+		lastPruneNanos = now;
+		long retention = config.getResultRetention().toNanos();
+		tracked.values().removeIf(entry -> entry.result.isDone() && now - entry.completedAtNanos > retention);
+	}
+
+	private static TransactionStatusResponseDto succeeded(TransactionResponseDto transaction) {
+		return TransactionStatusResponseDto.builder().transactionId(transaction.getTransactionId())
+				.status(transaction.getStatus()).transaction(transaction).build();
+	}
+
+	private static TransactionStatusResponseDto failed(String transactionId, String errorCode, String message) {
+		return TransactionStatusResponseDto.builder().transactionId(transactionId)
+				.status(Transaction.TransactionStatus.FAILED).errorCode(errorCode).message(message).build();
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		for (int i = 0; i < Math.max(1, config.getWorkers()); i++) {
+			Thread worker = new Thread(this::workLoop, "transaction-worker-" + i);
+			worker.start();
+			workers.add(worker);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		for (Thread worker : workers) {
+			try {
+				worker.join(TimeUnit.SECONDS.toMillis(30));
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+			}
+		}
+		workers.clear();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		// Stop after the web server and before the ledger engine the workers use
+		return 1;
+	}
+}
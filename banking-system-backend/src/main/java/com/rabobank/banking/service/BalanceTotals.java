@@ -0,0 +1,215 @@
+package com.rabobank.banking.service;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.domain.model.Account;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.repository.AccountBalanceJdbcRepository;
+import com.rabobank.banking.repository.AccountBalanceJdbcRepository.Totals;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Running number of active accounts and their total balance, so the totals
+ * can be served without reading the accounts table.
+ *
+ * Only active accounts with a card are counted. Withdrawals, transfers and
+ * activation changes report their net effect on those accounts through
+ * {@link #record(long, long)}; inside a transaction the change is applied
+ * after commit. A background check compares the totals with a full
+ * scan every {@code reconcile-interval}, publishes the difference as
+ * {@code banking.balance.totals.drift} and resets the totals to the scan plus
+ * whatever was applied while the scan ran. The first check, at startup,
+ * initialises the totals; until it succeeds {@link #current()} is empty.
+ *
+ * Totals are per instance. With several instances, or with the in-memory
+ * ledger persisting asynchronously, changes made elsewhere show up as drift
+ * and are picked up by the next check.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class BalanceTotals implements SmartLifecycle {
+
+	private final AccountBalanceJdbcRepository accountBalanceRepository;
+	private final AccountProperties.Totals config;
+	private final MeterRegistry meterRegistry;
+
+	private final LongAdder balanceCents = new LongAdder();
+	private final LongAdder accounts = new LongAdder();
+	private final LongAdder balanceCentsDuringScan = new LongAdder();
+	private final LongAdder accountsDuringScan = new LongAdder();
+	private final AtomicLong driftCents = new AtomicLong();
+	private final AtomicLong driftAccounts = new AtomicLong();
+
+	private volatile boolean scanning;
+	private volatile LocalDateTime reconciledAt;
+	private ScheduledExecutorService reconciler;
+	private volatile boolean running;
+
+	public BalanceTotals(AccountBalanceJdbcRepository accountBalanceRepository, AccountProperties properties,
+			MeterRegistry meterRegistry) {
+		this.accountBalanceRepository = accountBalanceRepository;
+		this.config = properties.getTotals();
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("banking.balance.totals.balance", balanceCents, adder -> adder.sum() / 100.0)
+				.register(meterRegistry);
+		Gauge.builder("banking.balance.totals.accounts", accounts, LongAdder::sum).register(meterRegistry);
+		Gauge.builder("banking.balance.totals.drift", driftCents, drift -> drift.get() / 100.0)
+				.description("Running total balance minus the last full scan").register(meterRegistry);
+		Gauge.builder("banking.balance.totals.drift.accounts", driftAccounts, AtomicLong::get)
+				.register(meterRegistry);
+	}
+
+	/**
+	 * Adds a change to the totals, after commit when called inside a
+	 * transaction and right away otherwise.
+	 *
+	 * @param deltaCents    net change of the total balance, in cents
+	 * @param deltaAccounts change of the number of active accounts
+	 */
+	public void record(long deltaCents, long deltaAccounts) {
+		if (deltaCents == 0 && deltaAccounts == 0) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply(deltaCents, deltaAccounts);
+				}
+			});
+		} else {
+			apply(deltaCents, deltaAccounts);
+		}
+	}
+
+	/**
+	 * Whether the balance of a loaded account is part of the totals. Doesn't
+	 * load the account's card.
+	 */
+	public static boolean counts(Account account) {
+		return account.isActive() && account.isCardPresent();
+	}
+
+	/**
+	 * The accounts among {@code accountIds} whose balances are part of the
+	 * totals, for accounts that were not loaded.
+	 */
+	public Set<String> counted(Collection<String> accountIds) {
+		return accountBalanceRepository.findCounted(accountIds);
+	}
+
+	/**
+	 * The running totals, or empty before the first reconciliation.
+	 */
+	public Optional<Totals> current() {
+		if (reconciledAt == null) {
+			return Optional.empty();
+		}
+		return Optional.of(new Totals(accounts.sum(), Money.ofCents(balanceCents.sum()).toBigDecimal()));
+	}
+
+	public LocalDateTime reconciledAt() {
+		return reconciledAt;
+	}
+
+	private void apply(long deltaCents, long deltaAccounts) {
+		balanceCents.add(deltaCents);
+		accounts.add(deltaAccounts);
+		if (scanning) {
+			balanceCentsDuringScan.add(deltaCents);
+			accountsDuringScan.add(deltaAccounts);
+		}
+	}
+
+	/**
+	 * Compares the totals with a full scan and resets them to it. Changes
+	 * applied while the scan runs are added on top of the scanned values.
+	 */
+	void reconcile() {
+		balanceCentsDuringScan.reset();
+		accountsDuringScan.reset();
+		scanning = true;
+		try {
+			Totals scanned = accountBalanceRepository.totals();
+			long expectedCents = Math.addExact(Money.of(scanned.totalBalance()).cents(),
+					balanceCentsDuringScan.sum());
+			long expectedAccounts = scanned.totalAccounts() + accountsDuringScan.sum();
+
+			long balanceDrift = balanceCents.sum() - expectedCents;
+			long accountDrift = accounts.sum() - expectedAccounts;
+			balanceCents.add(-balanceDrift);
+			accounts.add(-accountDrift);
+
+			if (reconciledAt == null) {
+				log.info("Balance totals initialised: {} accounts, total balance {}", expectedAccounts,
+						Money.ofCents(expectedCents));
+			} else {
+				driftCents.set(balanceDrift);
+				driftAccounts.set(accountDrift);
+				boolean drifted = balanceDrift != 0 || accountDrift != 0;
+				meterRegistry.counter("banking.balance.totals.reconciliations", "outcome", drifted ? "drift" : "match")
+						.increment();
+				if (drifted) {
+					log.warn("Balance totals drifted by {} and {} accounts; reset to the scan",
+							Money.ofCents(balanceDrift), accountDrift);
+				}
+			}
+			reconciledAt = LocalDateTime.now();
+		} catch (RuntimeException ex) {
+			meterRegistry.counter("banking.balance.totals.reconciliations", "outcome", "failed").increment();
+			log.warn("Could not reconcile balance totals: {}", ex.getMessage());
+		} finally {
+			scanning = false;
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		reconciler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "balance-totals-reconciler");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = config.getReconcileInterval().toMillis();
+		if (intervalMillis > 0) {
+			reconciler.scheduleWithFixedDelay(this::reconcile, 0, intervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			reconciler.execute(this::reconcile);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (reconciler != null) {
+			reconciler.shutdownNow();
+			reconciler = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,269 @@
+package com.rabobank.banking.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.TreeSet;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.BankingException;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+import com.rabobank.banking.domain.exception.InvalidCardException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.domain.model.Account;
+import com.rabobank.banking.domain.model.Card;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.domain.payment.CardPaymentStrategy;
+import com.rabobank.banking.domain.payment.FeeRuleEngine;
+import com.rabobank.banking.dto.request.TransferRequestDto;
+import com.rabobank.banking.dto.response.BatchTransferResponseDto;
+import com.rabobank.banking.dto.response.BatchTransferResponseDto.ItemResult;
+import com.rabobank.banking.repository.CardRepository;
+import com.rabobank.banking.repository.TransactionRepository;
+import com.rabobank.banking.service.analytics.TransactionRollups;
+import com.rabobank.banking.service.ledger.LedgerEngine;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Applies many transfers with one database transaction per chunk instead of
+ * one per transfer. Every account touched by a chunk is locked once, in a
+ * single statement ordered by accountId, followed by the balance buckets of
+ * its bucketed senders in the same order, and all cards of the chunk are
+ * loaded in one query. Transfers are then checked and applied in request
+ * order; a failing transfer is reported and skipped without affecting the
+ * rest. Transaction rows are flushed as JDBC batches of
+ * {@code hibernate.jdbc.batch_size}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class BatchTransferService {
+
+	private final AccountService accountService;
+	private final CardRepository cardRepository;
+	private final TransactionRepository transactionRepository;
+	private final FeeRuleEngine feeRuleEngine;
+	private final ContentionRetryExecutor retryExecutor;
+	private final TransactionService transactionService;
+	private final BucketedBalanceService bucketedBalanceService;
+	private final BalanceTotals balanceTotals;
+	private final TransactionRollups transactionRollups;
+	private final TransactionProperties.Batch config;
+
+	private LedgerEngine ledgerEngine;
+
+	public BatchTransferService(AccountService accountService, CardRepository cardRepository,
+			TransactionRepository transactionRepository, FeeRuleEngine feeRuleEngine,
+			ContentionRetryExecutor retryExecutor, TransactionService transactionService,
+			BucketedBalanceService bucketedBalanceService, BalanceTotals balanceTotals,
+			TransactionRollups transactionRollups, TransactionProperties properties) {
+		this.accountService = accountService;
+		this.cardRepository = cardRepository;
+		this.transactionRepository = transactionRepository;
+		this.feeRuleEngine = feeRuleEngine;
+		this.retryExecutor = retryExecutor;
+		this.transactionService = transactionService;
+		this.bucketedBalanceService = bucketedBalanceService;
+		this.balanceTotals = balanceTotals;
+		this.transactionRollups = transactionRollups;
+		this.config = properties.getBatch();
+	}
+
+	/**
+	 * With a ledger engine configured, balances must only change through it, so
+	 * batches fall back to posting each transfer.
+	 */
+	@Autowired(required = false)
+	public void setLedgerEngine(LedgerEngine ledgerEngine) {
+		this.ledgerEngine = ledgerEngine;
+	}
+
+	/**
+	 * Applies the transfers in order, chunk by chunk.
+	 *
+	 * @return one result per transfer, in request order
+	 */
+	public BatchTransferResponseDto transferAll(List<TransferRequestDto> transfers) {
+		log.info("Processing batch of {} transfers", transfers.size());
+
+		List<ItemResult> results = new ArrayList<>(transfers.size());
+		int chunkSize = Math.max(1, config.getChunkSize());
+		for (int start = 0; start < transfers.size(); start += chunkSize) {
+			List<TransferRequestDto> chunk = transfers.subList(start, Math.min(transfers.size(), start + chunkSize));
+			results.addAll(ledgerEngine != null ? postEach(start, chunk) : applyChunk(start, chunk));
+		}
+
+		int succeeded = (int) results.stream().filter(r -> r.getStatus() == Transaction.TransactionStatus.SUCCESS)
+				.count();
+		log.info("Batch finished: {} succeeded, {} failed", succeeded, results.size() - succeeded);
+
+		return BatchTransferResponseDto.builder().total(results.size()).succeeded(succeeded)
+				.failed(results.size() - succeeded).results(results).build();
+	}
+
+	private List<ItemResult> applyChunk(int offset, List<TransferRequestDto> chunk) {
+		try {
+			return retryExecutor.execute("batch-transfer", () -> doApplyChunk(offset, chunk));
+		} catch (BankingException ex) {
+			log.warn("Batch chunk at {} failed: {}", offset, ex.getMessage());
+			return failAll(offset, chunk.size(), ex.getErrorCode(), ex.getMessage());
+		} catch (RuntimeException ex) {
+			log.error("Batch chunk at {} failed", offset, ex);
+			return failAll(offset, chunk.size(), "INTERNAL_ERROR", "An unexpected error occurred");
+		}
+	}
+
+	private List<ItemResult> doApplyChunk(int offset, List<TransferRequestDto> chunk) {
+		Set<String> accountIds = new TreeSet<>();
+		Set<String> senderIds = new TreeSet<>();
+		Set<String> cardNumbers = new TreeSet<>();
+		for (TransferRequestDto request : chunk) {
+			senderIds.add(request.getFromAccountId());
+			accountIds.add(request.getFromAccountId());
+			accountIds.add(request.getToAccountId());
+			cardNumbers.add(request.getCardNumber());
+		}
+		Map<String, Account> accounts = accountService.getExistingAccountsByIdWithLock(accountIds);
+		Map<String, Money> bucketBalances = lockSenderBuckets(senderIds, accounts);
+		Map<String, Card> cards = new HashMap<>();
+		cardRepository.findByCardNumberIn(cardNumbers).forEach(card -> cards.put(card.getCardNumber(), card));
+
+		Transaction[] applied = new Transaction[chunk.size()];
+		List<ItemResult> results = new ArrayList<>(chunk.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			try {
+				applied[i] = apply(chunk.get(i), accounts, bucketBalances, cards);
+				results.add(null);
+			} catch (BankingException ex) {
+				results.add(failed(offset + i, ex.getErrorCode(), ex.getMessage()));
+			}
+		}
+		List<Transaction> succeeded = Arrays.stream(applied).filter(Objects::nonNull).toList();
+		transactionRepository.saveAll(succeeded);
+		succeeded.forEach(transactionRollups::record);
+
+		for (int i = 0; i < applied.length; i++) {
+			if (applied[i] != null) {
+				results.set(i, ItemResult.builder().index(offset + i).status(Transaction.TransactionStatus.SUCCESS)
+						.transaction(TransactionService.mapToTransactionResponse(applied[i])).build());
+			}
+		}
+		return results;
+	}
+
+	/**
+	 * Locks the buckets of every bucketed sender, in ascending accountId order
+	 * like the accounts themselves.
+	 *
+	 * @return the summed bucket balance per bucketed sender
+	 */
+	private Map<String, Money> lockSenderBuckets(Set<String> senderIds, Map<String, Account> accounts) {
+		Map<String, Money> bucketBalances = new HashMap<>();
+		for (String accountId : senderIds) {
+			Account account = accounts.get(accountId);
+			if (account != null && account.getBucketCount() > 0) {
+				bucketBalances.put(accountId,
+						bucketedBalanceService.lockAvailableBalance(account).minus(account.getBalance()));
+			}
+		}
+		return bucketBalances;
+	}
+
+	/**
+	 * Checks one transfer against the locked state and applies it. Nothing is
+	 * changed unless every check passes.
+	 */
+	private Transaction apply(TransferRequestDto request, Map<String, Account> accounts,
+			Map<String, Money> bucketBalances, Map<String, Card> cards) {
+		if (request.getFromAccountId().equals(request.getToAccountId())) {
+			throw new InvalidTransactionException("Cannot transfer to the same account");
+		}
+		Account fromAccount = accounts.get(request.getFromAccountId());
+		if (fromAccount == null) {
+			throw new AccountNotFoundException(request.getFromAccountId());
+		}
+		Account toAccount = accounts.get(request.getToAccountId());
+		if (toAccount == null) {
+			throw new AccountNotFoundException(request.getToAccountId());
+		}
+		Card card = cards.get(request.getCardNumber());
+		if (card == null) {
+			throw new InvalidCardException("Card not found");
+		}
+		if (!card.getAccount().getAccountId().equals(fromAccount.getAccountId())) {
+			throw new InvalidCardException("Card does not belong to this account");
+		}
+		if (!card.isValidForTransaction()) {
+			throw new InvalidCardException("Card is not valid for transactions");
+		}
+
+		CardPaymentStrategy strategy = feeRuleEngine.strategyFor(card.getCardType());
+		Money amount = Money.of(request.getAmount());
+		Money fee = strategy.fee(amount);
+		Money totalAmount = strategy.totalAmount(amount);
+
+		Money buckets = bucketBalances.getOrDefault(fromAccount.getAccountId(), Money.ZERO);
+		Money balanceBefore = fromAccount.getBalance().plus(buckets);
+		if (balanceBefore.isLessThan(totalAmount)) {
+			throw new InsufficientFundsException(fromAccount.getAccountId(), balanceBefore.toBigDecimal(),
+					totalAmount.toBigDecimal());
+		}
+
+		if (!fromAccount.hasSufficientFunds(totalAmount)) {
+			// The account row is drained first, the rest comes from the buckets
+			bucketBalances.put(fromAccount.getAccountId(),
+					buckets.minus(totalAmount.minus(fromAccount.getBalance())));
+		}
+		bucketedBalanceService.debit(fromAccount, totalAmount);
+		toAccount.deposit(amount);
+		balanceTotals.record((BalanceTotals.counts(toAccount) ? amount.cents() : 0)
+				- (BalanceTotals.counts(fromAccount) ? totalAmount.cents() : 0), 0);
+
+		return Transaction.builder().transactionId(transactionService.generateTransactionId())
+				.accountId(fromAccount.getAccountId()).toAccountId(toAccount.getAccountId())
+				.type(Transaction.TransactionType.TRANSFER).amount(amount.toBigDecimal()).fee(fee.toBigDecimal())
+				.totalAmount(totalAmount.toBigDecimal()).cardType(card.getCardType())
+				.balanceBefore(balanceBefore.toBigDecimal())
+				.balanceAfter(balanceBefore.minus(totalAmount).toBigDecimal())
+				.description(request.getDescription())
+				.status(Transaction.TransactionStatus.SUCCESS).build();
+	}
+
+	private List<ItemResult> postEach(int offset, List<TransferRequestDto> chunk) {
+		List<ItemResult> results = new ArrayList<>(chunk.size());
+		for (int i = 0; i < chunk.size(); i++) {
+			try {
+				results.add(ItemResult.builder().index(offset + i).status(Transaction.TransactionStatus.SUCCESS)
+						.transaction(transactionService.transfer(chunk.get(i))).build());
+			} catch (BankingException ex) {
+				results.add(failed(offset + i, ex.getErrorCode(), ex.getMessage()));
+			}
+		}
+		return results;
+	}
+
+	private static List<ItemResult> failAll(int offset, int count, String errorCode, String message) {
+		List<ItemResult> results = new ArrayList<>(count);
+		for (int i = 0; i < count; i++) {
+			results.add(failed(offset + i, errorCode, message));
+		}
+		return results;
+	}
+
+	private static ItemResult failed(int index, String errorCode, String message) {
+		return ItemResult.builder().index(index).status(Transaction.TransactionStatus.FAILED).errorCode(errorCode)
+				.message(message).build();
+	}
+}
@@ -0,0 +1,171 @@
+package com.rabobank.banking.service;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.config.TransactionProperties.ConcurrencyMode;
+import com.rabobank.banking.domain.exception.ConcurrencyConflictException;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.persistence.LockTimeoutException;
+import jakarta.persistence.OptimisticLockException;
+import jakarta.persistence.PessimisticLockException;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Runs a unit of work in its own database transaction and retries it with
+ * bounded, jittered exponential backoff when it loses a race (lock timeout,
+ * deadlock, serialization failure or optimistic version conflict). The retry
+ * has to sit outside the transaction because a failed attempt leaves it
+ * rollback-only; work that joins a transaction the caller already started is
+ * therefore run once and its contention failure is left to the caller.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class ContentionRetryExecutor {
+
+	private final TransactionTemplate transactionTemplate;
+	private final TransactionTemplate readOnlyTemplate;
+	private final TransactionProperties properties;
+	private final TransactionProperties.Retry retry;
+	private final MeterRegistry meterRegistry;
+
+	public ContentionRetryExecutor(PlatformTransactionManager transactionManager, TransactionProperties properties,
+			MeterRegistry meterRegistry) {
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.readOnlyTemplate = new TransactionTemplate(transactionManager);
+		this.readOnlyTemplate.setReadOnly(true);
+		this.properties = properties;
+		this.retry = properties.getRetry();
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Executes the work in a new transaction, retrying on contention failures.
+	 *
+	 * @param operation name used for logging and metrics
+	 * @param work      the transactional work
+	 * @return the result of the first successful attempt
+	 * @throws ConcurrencyConflictException if every attempt lost a lock race
+	 */
+	public <T> T execute(String operation, Supplier<T> work) {
+		return execute(transactionTemplate, operation, work);
+	}
+
+	/**
+	 * Executes the work in a new read-only transaction, which a replica may
+	 * serve, retrying on transient failures such as replication conflicts.
+	 *
+	 * @param operation name used for logging and metrics
+	 * @param work      the work; must not write
+	 * @return the result of the first successful attempt
+	 */
+	public <T> T executeReadOnly(String operation, Supplier<T> work) {
+		return execute(readOnlyTemplate, operation, work);
+	}
+
+	private <T> T execute(TransactionTemplate template, String operation, Supplier<T> work) {
+		int maxAttempts = TransactionSynchronizationManager.isActualTransactionActive() ? 1
+				: Math.max(1, maxAttempts());
+		for (int attempt = 1;; attempt++) {
+			long start = System.nanoTime();
+			try {
+				T result = template.execute(status -> work.get());
+				recordAttempt(operation, "committed", start);
+				return result;
+			} catch (RuntimeException ex) {
+				if (!isContentionFailure(ex)) {
+					recordAttempt(operation, "rejected", start);
+					throw ex;
+				}
+				recordAttempt(operation, "contention", start);
+				String cause = ex.getClass().getSimpleName();
+				if (attempt >= maxAttempts) {
+					meterRegistry.counter("banking.transaction.contention.exhausted", "operation", operation, "cause",
+							cause).increment();
+					log.warn("{} gave up after {} attempts: {}", operation, attempt, ex.getMessage());
+					throw new ConcurrencyConflictException(operation, attempt, ex);
+				}
+				meterRegistry.counter("banking.transaction.retries", "operation", operation, "cause", cause)
+						.increment();
+				long backoffMillis = jitteredBackoffMillis(attempt);
+				log.debug("{} attempt {} lost a lock race ({}), retrying in {} ms", operation, attempt, cause,
+						backoffMillis);
+				sleep(operation, attempt, backoffMillis, ex);
+			}
+		}
+	}
+
+	/**
+	 * Times one transactional attempt. Row locks are held until commit, so for
+	 * the locking paths this approximates lock hold time.
+	 */
+	private void recordAttempt(String operation, String outcome, long startNanos) {
+		meterRegistry.timer("banking.transaction.attempt", "operation", operation, "outcome", outcome)
+				.record(System.nanoTime() - startNanos, TimeUnit.NANOSECONDS);
+	}
+
+	private int maxAttempts() {
+		return properties.getConcurrencyMode() == ConcurrencyMode.OPTIMISTIC ? retry.getOptimisticMaxAttempts()
+				: retry.getMaxAttempts();
+	}
+
+	/**
+	 * Sleep before the attempt following {@code attempt}, drawn uniformly from
+	 * the upper half of the capped backoff so that callers that collided once do
+	 * not collide again in lockstep.
+	 */
+	long jitteredBackoffMillis(int attempt) {
+		long backoff = backoffMillis(attempt);
+		if (backoff <= 1) {
+			return backoff;
+		}
+		return ThreadLocalRandom.current().nextLong(backoff / 2, backoff + 1);
+	}
+
+	/**
+	 * Backoff cap before the attempt following {@code attempt}: the initial
+	 * backoff doubled per attempt, capped at the configured maximum.
+	 */
+	long backoffMillis(int attempt) {
+		long initial = retry.getInitialBackoff().toMillis();
+		long max = retry.getMaxBackoff().toMillis();
+		long backoff = initial << Math.min(attempt - 1, 20);
+		return Math.min(backoff, max);
+	}
+
+	static boolean isContentionFailure(Throwable ex) {
+		for (Throwable t = ex; t != null; t = t.getCause()) {
+			if (t instanceof ConcurrencyFailureException || t instanceof TransientDataAccessException
+					|| t instanceof LockTimeoutException || t instanceof PessimisticLockException
+					|| t instanceof OptimisticLockException) {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private void sleep(String operation, int attempt, long millis, RuntimeException cause) {
+		if (millis <= 0) {
+			return;
+		}
+		try {
+			Thread.sleep(millis);
+		} catch (InterruptedException ie) {
+			Thread.currentThread().interrupt();
+			throw new ConcurrencyConflictException(operation, attempt, cause);
+		}
+	}
+}
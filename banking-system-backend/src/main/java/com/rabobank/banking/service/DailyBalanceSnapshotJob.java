@@ -0,0 +1,203 @@
+package com.rabobank.banking.service;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.repository.AccountDailyBalanceJdbcRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes the end-of-day balance of every active account once per day. Every
+ * {@code check-interval} it snapshots the days completed since the newest
+ * recorded one, oldest first, each day once it is {@code settle-delay} past
+ * midnight. On the very first run only the latest completed day is
+ * snapshotted.
+ *
+ * A day's active accounts are streamed in accountId order and cut into chunks
+ * of {@code chunk-size}, which {@code threads} workers snapshot in parallel,
+ * each in its own transaction. The day is recorded as complete only after
+ * every chunk committed; an interrupted day is resumed on the next check and
+ * skips the accounts it already has. The job runs under an advisory lock, so
+ * with several instances only one of them snapshots at a time.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class DailyBalanceSnapshotJob implements SmartLifecycle {
+
+	private final AccountDailyBalanceJdbcRepository dailyBalanceRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final AccountProperties.Snapshots config;
+	private final MeterRegistry meterRegistry;
+
+	private ScheduledExecutorService scheduler;
+	private ExecutorService workers;
+	private volatile boolean running;
+
+	public DailyBalanceSnapshotJob(AccountDailyBalanceJdbcRepository dailyBalanceRepository,
+			PlatformTransactionManager transactionManager, AccountProperties properties,
+			MeterRegistry meterRegistry) {
+		this.dailyBalanceRepository = dailyBalanceRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.config = properties.getSnapshots();
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Days to snapshot, oldest first.
+	 *
+	 * @param lastCompleted newest day already snapshotted, empty if none
+	 * @param now           the current time
+	 * @param settleDelay   time after midnight before the past day is taken
+	 */
+	static List<LocalDate> pendingDays(Optional<LocalDate> lastCompleted, LocalDateTime now, Duration settleDelay) {
+		LocalDate latest = now.minus(settleDelay).toLocalDate().minusDays(1);
+		List<LocalDate> days = new ArrayList<>();
+		LocalDate day = lastCompleted.map(last -> last.plusDays(1)).orElse(latest);
+		while (!day.isAfter(latest)) {
+			days.add(day);
+			day = day.plusDays(1);
+		}
+		return days;
+	}
+
+	/**
+	 * Snapshots every pending day, stopping at the first one that fails or is
+	 * being snapshotted elsewhere.
+	 */
+	void snapshot() {
+		try {
+			for (LocalDate day : pendingDays(dailyBalanceRepository.findLastCompletedDay(), LocalDateTime.now(),
+					config.getSettleDelay())) {
+				if (!running || !Boolean.TRUE.equals(transactionTemplate.execute(status -> snapshotDay(day)))) {
+					return;
+				}
+			}
+		} catch (RuntimeException ex) {
+			meterRegistry.counter("banking.balance.snapshots.failures").increment();
+			log.warn("Could not snapshot account balances: {}", ex.getMessage());
+		}
+	}
+
+	/**
+	 * Snapshots one day; runs in the transaction that holds the lock.
+	 *
+	 * @return false if another instance holds the lock
+	 */
+	private boolean snapshotDay(LocalDate day) {
+		if (!dailyBalanceRepository.tryLock()) {
+			log.debug("Account balances are being snapshotted elsewhere");
+			return false;
+		}
+		if (dailyBalanceRepository.findLastCompletedDay().filter(last -> !last.isBefore(day)).isPresent()) {
+			return true;
+		}
+		long started = System.nanoTime();
+		int chunkSize = Math.max(1, config.getChunkSize());
+		List<Future<Integer>> chunks = new ArrayList<>();
+		AtomicInteger accounts = new AtomicInteger();
+		List<String> chunk = new ArrayList<>(chunkSize);
+		dailyBalanceRepository.forEachActiveAccountId(accountId -> {
+			accounts.incrementAndGet();
+			chunk.add(accountId);
+			if (chunk.size() == chunkSize) {
+				chunks.add(submit(day, chunk));
+				chunk.clear();
+			}
+		});
+		if (!chunk.isEmpty()) {
+			chunks.add(submit(day, chunk));
+		}
+		int written = 0;
+		try {
+			for (Future<Integer> future : chunks) {
+				written += future.get();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			chunks.forEach(future -> future.cancel(true));
+			throw new IllegalStateException("Interrupted while snapshotting " + day, ex);
+		} catch (ExecutionException ex) {
+			chunks.forEach(future -> future.cancel(true));
+			throw new IllegalStateException("Could not snapshot " + day + ": " + ex.getCause().getMessage(),
+					ex.getCause());
+		}
+		dailyBalanceRepository.markCompleted(day, accounts.get());
+		meterRegistry.counter("banking.balance.snapshots.days").increment();
+		meterRegistry.counter("banking.balance.snapshots.accounts").increment(written);
+		log.info("Snapshotted balances of {} accounts for {} in {} chunks ({} ms)", accounts.get(), day,
+				chunks.size(), TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started));
+		return true;
+	}
+
+	private Future<Integer> submit(LocalDate day, List<String> chunk) {
+		String first = chunk.get(0);
+		String last = chunk.get(chunk.size() - 1);
+		return workers.submit(() -> transactionTemplate
+				.execute(status -> dailyBalanceRepository.snapshotAccounts(day, first, last)));
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		if (!config.isEnabled()) {
+			return;
+		}
+		AtomicInteger workerNumber = new AtomicInteger();
+		workers = Executors.newFixedThreadPool(Math.max(1, config.getThreads()), runnable -> {
+			Thread thread = new Thread(runnable, "balance-snapshot-" + workerNumber.incrementAndGet());
+			thread.setDaemon(true);
+			return thread;
+		});
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "balance-snapshot-job");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = config.getCheckInterval().toMillis();
+		if (intervalMillis > 0) {
+			scheduler.scheduleWithFixedDelay(this::snapshot, 0, intervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			scheduler.execute(this::snapshot);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+		if (workers != null) {
+			workers.shutdownNow();
+			workers = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,244 @@
+package com.rabobank.banking.service;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.domain.exception.BankingException;
+
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Commits concurrently arriving units of work together, so that a burst of
+ * withdrawals and transfers pays for one commit (and one WAL flush) instead of
+ * one each.
+ *
+ * Callers queue their work and wait. Whichever caller finds a free committer
+ * slot waits {@code window} for more work to arrive, runs up to
+ * {@code max-group-size} queued units one after another in a single
+ * transaction and hands every caller its own result after the commit.
+ *
+ * Every unit names the accounts it locks, and a group takes its locks in
+ * ascending accountId order like a single transfer does: units run sorted by
+ * their lowest account, and a unit whose accounts fall below those already
+ * locked by the group is left in the queue for the next group. Two groups
+ * therefore never wait for each other in opposite directions. If the
+ * group fails for any reason, e.g. one unit throws or the group deadlocks with
+ * another, the transaction is rolled back and every unit is run again on its
+ * own through {@link ContentionRetryExecutor}, so a bad unit only fails itself.
+ * Since the committer may be another caller's thread, each caller records its
+ * own committed write for read-your-writes routing once its result is in.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class GroupCommitExecutor {
+
+	private final ContentionRetryExecutor retryExecutor;
+	private final ObjectProvider<ClientWriteTracker> writeTracker;
+	private final TransactionTemplate transactionTemplate;
+	private final TransactionProperties.GroupCommit config;
+	private final MeterRegistry meterRegistry;
+	private final DistributionSummary groupSize;
+	private final Deque<Pending<?>> queue = new ConcurrentLinkedDeque<>();
+	private final Semaphore committers;
+
+	private static final class Pending<T> {
+		private final String operation;
+		private final String firstAccountId;
+		private final String lastAccountId;
+		private final Supplier<T> work;
+		private final CompletableFuture<T> result = new CompletableFuture<>();
+		private T value;
+
+		private Pending(String operation, Collection<String> accountIds, Supplier<T> work) {
+			this.operation = operation;
+			this.firstAccountId = Collections.min(accountIds);
+			this.lastAccountId = Collections.max(accountIds);
+			this.work = work;
+		}
+
+		private void runInGroup() {
+			value = work.get();
+		}
+
+		private void completeGrouped() {
+			result.complete(value);
+		}
+
+		private void runAlone(ContentionRetryExecutor retryExecutor) {
+			try {
+				result.complete(retryExecutor.execute(operation, work));
+			} catch (RuntimeException ex) {
+				result.completeExceptionally(ex);
+			}
+		}
+	}
+
+	public GroupCommitExecutor(ContentionRetryExecutor retryExecutor, PlatformTransactionManager transactionManager,
+			TransactionProperties properties, MeterRegistry meterRegistry,
+			ObjectProvider<ClientWriteTracker> writeTracker) {
+		this.retryExecutor = retryExecutor;
+		this.writeTracker = writeTracker;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.config = properties.getGroupCommit();
+		this.meterRegistry = meterRegistry;
+		this.groupSize = DistributionSummary.builder("banking.transaction.group.size").register(meterRegistry);
+		this.committers = new Semaphore(Math.max(1, config.getCommitters()));
+	}
+
+	/**
+	 * Runs the work in a transaction shared with other concurrent callers, or in
+	 * its own transaction through the retry executor when group commit is
+	 * disabled or a transaction is already active.
+	 *
+	 * @param operation  name used for logging and metrics
+	 * @param accountIds accounts the work locks, at least one
+	 * @param work       the transactional work; must not depend on the calling
+	 *                   thread, since the current committer may run it
+	 * @return the result of the work
+	 */
+	public <T> T execute(String operation, Collection<String> accountIds, Supplier<T> work) {
+		if (!config.isEnabled() || TransactionSynchronizationManager.isActualTransactionActive()) {
+			return retryExecutor.execute(operation, work);
+		}
+
+		Pending<T> pending = new Pending<>(operation, accountIds, work);
+		queue.add(pending);
+		// Queued work runs regardless, so the caller keeps waiting for its outcome
+		boolean interrupted = false;
+		while (!pending.result.isDone()) {
+			if (committers.tryAcquire()) {
+				try {
+					commitNextGroup();
+				} finally {
+					committers.release();
+				}
+			} else {
+				interrupted |= awaitUninterruptibly(pending.result);
+			}
+		}
+		if (interrupted) {
+			Thread.currentThread().interrupt();
+		}
+		T result = join(pending.result);
+		writeTracker.ifAvailable(ClientWriteTracker::recordWrite);
+		return result;
+	}
+
+	private void commitNextGroup() {
+		if (queue.size() < config.getMaxGroupSize()) {
+			sleepQuietly(config.getWindow().toNanos());
+		}
+		List<Pending<?>> group = nextGroup();
+		if (group.isEmpty()) {
+			return;
+		}
+		groupSize.record(group.size());
+
+		try {
+			transactionTemplate.executeWithoutResult(status -> group.forEach(Pending::runInGroup));
+		} catch (RuntimeException ex) {
+			if (group.size() == 1 && !ContentionRetryExecutor.isContentionFailure(ex)) {
+				group.get(0).result.completeExceptionally(ex);
+				return;
+			}
+			meterRegistry.counter("banking.transaction.group.fallbacks").increment();
+			log.debug("Group of {} failed ({}), committing each on its own", group.size(),
+					ex.getClass().getSimpleName());
+			group.forEach(pending -> pending.runAlone(retryExecutor));
+			return;
+		}
+		group.forEach(Pending::completeGrouped);
+	}
+
+	/**
+	 * Takes up to {@code max-group-size} queued units and orders them so the
+	 * group locks accounts in ascending order. Units that would lock below an
+	 * account the group already holds go back to the head of the queue.
+	 */
+	private List<Pending<?>> nextGroup() {
+		List<Pending<?>> polled = new ArrayList<>();
+		for (Pending<?> next; polled.size() < config.getMaxGroupSize() && (next = queue.poll()) != null;) {
+			polled.add(next);
+		}
+		polled.sort(Comparator.comparing(pending -> pending.firstAccountId));
+
+		List<Pending<?>> group = new ArrayList<>(polled.size());
+		List<Pending<?>> deferred = new ArrayList<>();
+		String lastLocked = null;
+		for (Pending<?> pending : polled) {
+			if (lastLocked == null || pending.firstAccountId.compareTo(lastLocked) >= 0) {
+				group.add(pending);
+				lastLocked = pending.lastAccountId;
+			} else {
+				deferred.add(pending);
+			}
+		}
+		for (int i = deferred.size() - 1; i >= 0; i--) {
+			queue.addFirst(deferred.get(i));
+		}
+		return group;
+	}
+
+	/**
+	 * Waits up to one window for the result.
+	 *
+	 * @return whether the wait was interrupted
+	 */
+	private boolean awaitUninterruptibly(CompletableFuture<?> result) {
+		try {
+			result.get(Math.max(1, config.getWindow().toNanos()), TimeUnit.NANOSECONDS);
+		} catch (InterruptedException ex) {
+			return true;
+		} catch (ExecutionException | TimeoutException ex) {
+			// The caller checks the result again
+		}
+		return false;
+	}
+
+	private static void sleepQuietly(long nanos) {
+		if (nanos <= 0) {
+			return;
+		}
+		try {
+			TimeUnit.NANOSECONDS.sleep(nanos);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+
+	private static <T> T join(CompletableFuture<T> result) {
+		try {
+			return result.getNow(null);
+		} catch (CompletionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new BankingException("Group commit failed", ex.getCause());
+		}
+	}
+}
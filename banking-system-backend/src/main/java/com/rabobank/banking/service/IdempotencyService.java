@@ -0,0 +1,387 @@
+package com.rabobank.banking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.LocalDateTime;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Function;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.BankingException;
+import com.rabobank.banking.domain.exception.IdempotencyKeyConflictException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.repository.IdempotencyKeyJdbcRepository;
+import com.rabobank.banking.repository.IdempotencyKeyJdbcRepository.IdempotencyRecord;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Makes withdraw and transfer safe to retry with an {@code Idempotency-Key}.
+ *
+ * A repeated key returns the original response without reaching
+ * {@link TransactionService}. Recent responses are served from a bounded LRU
+ * with TTL; older ones from the {@code idempotency_keys} table. Concurrent
+ * duplicates on the same instance wait for the first execution instead of
+ * racing it, and duplicates on other instances are stopped by the pending
+ * claim written before any money moves.
+ *
+ * The claim records the transaction id the request will use. A retry that
+ * takes over an abandoned claim first looks that transaction up and returns
+ * it if it was stored, so a request whose response could not be recorded, or
+ * whose instance crashed after commit, is never run twice. Requests rejected
+ * before anything was committed release their claim so the client may retry
+ * with the same key; when the outcome is unknown the claim is kept. Keys are
+ * deleted {@code retention} after they were claimed.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class IdempotencyService implements SmartLifecycle {
+
+	private static final int MAX_KEY_LENGTH = 100;
+
+	/**
+	 * Error codes that don't tell whether the money moved, e.g. a failed commit
+	 * or a ledger that stopped answering.
+	 */
+	private static final Set<String> UNKNOWN_OUTCOME_CODES = Set.of("BANKING_ERROR", "LEDGER_TIMEOUT",
+			"LEDGER_UNAVAILABLE");
+
+	private final IdempotencyKeyJdbcRepository repository;
+	private final TransactionService transactionService;
+	private final ObjectMapper objectMapper;
+	private final TransactionProperties.Idempotency config;
+	private final MeterRegistry meterRegistry;
+	private final Map<String, CachedResponse> cache;
+	private final Map<String, InFlight> inFlight = new ConcurrentHashMap<>();
+
+	private ScheduledExecutorService purger;
+	private volatile boolean running;
+
+	private record CachedResponse(String requestHash, TransactionResponseDto response, long expiresAtNanos) {
+	}
+
+	private record InFlight(String requestHash, CompletableFuture<TransactionResponseDto> result) {
+	}
+
+	public IdempotencyService(IdempotencyKeyJdbcRepository repository, TransactionService transactionService,
+			ObjectMapper objectMapper, TransactionProperties properties, MeterRegistry meterRegistry) {
+		this.repository = repository;
+		this.transactionService = transactionService;
+		this.objectMapper = objectMapper;
+		this.config = properties.getIdempotency();
+		this.meterRegistry = meterRegistry;
+		int cacheSize = config.getCacheSize();
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, CachedResponse> eldest) {
+				return size() > cacheSize;
+			}
+		};
+	}
+
+	/**
+	 * Runs the work once per key.
+	 *
+	 * @param key       client supplied key, or {@code null} to run unconditionally
+	 * @param operation name of the operation, part of the request fingerprint
+	 * @param request   request body, part of the request fingerprint
+	 * @param work      the withdraw or transfer to run under the given
+	 *                  transaction id
+	 * @return the response of the first successful execution for this key
+	 * @throws IdempotencyKeyConflictException if the key belongs to a different
+	 *                                         request or is still being processed
+	 */
+	public TransactionResponseDto execute(String key, String operation, Object request,
+			Function<String, TransactionResponseDto> work) {
+		if (key == null) {
+			return work.apply(transactionService.generateTransactionId());
+		}
+		checkKey(key);
+
+		String requestHash = fingerprint(operation, request);
+		CachedResponse cached = cached(key);
+		if (cached != null) {
+			return replay(key, requestHash, cached.requestHash(), cached.response(), "cache");
+		}
+
+		InFlight mine = new InFlight(requestHash, new CompletableFuture<>());
+		InFlight existing = inFlight.putIfAbsent(key, mine);
+		if (existing != null) {
+			return awaitInFlight(key, requestHash, existing);
+		}
+		try {
+			TransactionResponseDto response = executeClaimed(key, operation, requestHash, work);
+			mine.result().complete(response);
+			return response;
+		} catch (RuntimeException ex) {
+			mine.result().completeExceptionally(ex);
+			throw ex;
+		} finally {
+			inFlight.remove(key, mine);
+		}
+	}
+
+	/**
+	 * Claims the key for a request accepted for background processing, under
+	 * the transaction id it is stored with. Joins the caller's transaction, so
+	 * the claim commits together with the stored request.
+	 *
+	 * @return empty if the key was claimed, otherwise the transaction id of the
+	 *         request first submitted with it
+	 * @throws IdempotencyKeyConflictException if the key belongs to a different
+	 *                                         request
+	 */
+	public Optional<String> claimSubmission(String key, String operation, Object request, String transactionId) {
+		checkKey(key);
+		String requestHash = fingerprint(operation, request);
+		if (repository.claim(key, operation, requestHash, transactionId, LocalDateTime.now())) {
+			return Optional.empty();
+		}
+		IdempotencyRecord record = repository.find(key)
+				.orElseThrow(() -> IdempotencyKeyConflictException.inProgress(key));
+		if (!record.requestHash().equals(requestHash)) {
+			throw IdempotencyKeyConflictException.reused(key);
+		}
+		log.info("Replaying submission {} for idempotency key {}", record.transactionId(), key);
+		meterRegistry.counter("banking.idempotency.replays", "source", "submission").increment();
+		return Optional.of(record.transactionId());
+	}
+
+	private static void checkKey(String key) {
+		if (key.isBlank() || key.length() > MAX_KEY_LENGTH) {
+			throw new InvalidTransactionException(
+					"Idempotency-Key must be between 1 and " + MAX_KEY_LENGTH + " characters");
+		}
+	}
+
+	private TransactionResponseDto executeClaimed(String key, String operation, String requestHash,
+			Function<String, TransactionResponseDto> work) {
+		LocalDateTime now = LocalDateTime.now();
+		String transactionId = transactionService.generateTransactionId();
+		if (!repository.claim(key, operation, requestHash, transactionId, now)) {
+			IdempotencyRecord record = repository.find(key)
+					.orElseThrow(() -> IdempotencyKeyConflictException.inProgress(key));
+			if (!record.requestHash().equals(requestHash)) {
+				throw IdempotencyKeyConflictException.reused(key);
+			}
+			if (record.completed()) {
+				TransactionResponseDto response = deserialize(record.responseBody());
+				cache(key, requestHash, response);
+				return replay(key, requestHash, record.requestHash(), response, "database");
+			}
+			if (!repository.reclaimStale(key, requestHash, transactionId, now,
+					now.minus(config.getStaleClaimAfter()))) {
+				throw IdempotencyKeyConflictException.inProgress(key);
+			}
+			if (record.transactionId() != null) {
+				transactionId = record.transactionId();
+				Optional<TransactionResponseDto> stored = transactionService.findTransaction(transactionId);
+				if (stored.isPresent()) {
+					log.warn("Idempotency claim {} was abandoned after transaction {} committed; recording it",
+							key, transactionId);
+					return complete(key, requestHash, stored.get(), "recovered");
+				}
+			}
+			log.warn("Took over abandoned idempotency claim {}; transaction {} was never stored", key,
+					transactionId);
+		}
+
+		TransactionResponseDto response;
+		try {
+			response = work.apply(transactionId);
+		} catch (RuntimeException ex) {
+			if (isRejected(ex)) {
+				release(key);
+			} else {
+				// It may have committed; a retry after stale-claim-after finds it by its transaction id
+				log.warn("Outcome of idempotency key {} (transaction {}) is unknown; keeping its claim", key,
+						transactionId);
+			}
+			throw ex;
+		}
+		return complete(key, requestHash, response, null);
+	}
+
+	private TransactionResponseDto complete(String key, String requestHash, TransactionResponseDto response,
+			String source) {
+		cache(key, requestHash, response);
+		try {
+			repository.complete(key, serialize(response), LocalDateTime.now());
+		} catch (RuntimeException ex) {
+			// The money has moved; the pending claim still blocks duplicates and leads a retry to the transaction
+			log.error("Could not record response for idempotency key {}", key, ex);
+		}
+		if (source != null) {
+			meterRegistry.counter("banking.idempotency.replays", "source", source).increment();
+		}
+		return response;
+	}
+
+	/**
+	 * Whether the work failed before anything was committed, so running it
+	 * again is safe.
+	 */
+	private static boolean isRejected(RuntimeException ex) {
+		return ex instanceof BankingException banking && !UNKNOWN_OUTCOME_CODES.contains(banking.getErrorCode());
+	}
+
+	private TransactionResponseDto awaitInFlight(String key, String requestHash, InFlight existing) {
+		if (!existing.requestHash().equals(requestHash)) {
+			throw IdempotencyKeyConflictException.reused(key);
+		}
+		try {
+			TransactionResponseDto response = existing.result().get(config.getInFlightTimeout().toMillis(),
+					TimeUnit.MILLISECONDS);
+			meterRegistry.counter("banking.idempotency.replays", "source", "coalesced").increment();
+			return response;
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new BankingException("Original request failed", ex.getCause());
+		} catch (TimeoutException ex) {
+			throw IdempotencyKeyConflictException.inProgress(key);
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw IdempotencyKeyConflictException.inProgress(key);
+		}
+	}
+
+	private TransactionResponseDto replay(String key, String requestHash, String originalHash,
+			TransactionResponseDto response, String source) {
+		if (!originalHash.equals(requestHash)) {
+			throw IdempotencyKeyConflictException.reused(key);
+		}
+		log.info("Replaying response for idempotency key {} from {}", key, source);
+		meterRegistry.counter("banking.idempotency.replays", "source", source).increment();
+		return response;
+	}
+
+	private CachedResponse cached(String key) {
+		synchronized (cache) {
+			CachedResponse cached = cache.get(key);
+			if (cached != null && cached.expiresAtNanos() - System.nanoTime() < 0) {
+				cache.remove(key);
+				return null;
+			}
+			return cached;
+		}
+	}
+
+	private void cache(String key, String requestHash, TransactionResponseDto response) {
+		long expiresAt = System.nanoTime() + config.getCacheTtl().toNanos();
+		synchronized (cache) {
+			cache.put(key, new CachedResponse(requestHash, response, expiresAt));
+		}
+	}
+
+	/**
+	 * Drops a pending claim, e.g. of a submission that was not queued after
+	 * all, so the key can be used again.
+	 */
+	void release(String key) {
+		try {
+			repository.release(key);
+		} catch (RuntimeException ex) {
+			log.warn("Could not release idempotency claim {}", key, ex);
+		}
+	}
+
+	/**
+	 * Deletes the keys claimed more than {@code retention} ago, in batches.
+	 */
+	void purge() {
+		try {
+			LocalDateTime before = LocalDateTime.now().minus(config.getRetention());
+			int batchSize = Math.max(1, config.getPurgeBatchSize());
+			long purged = 0;
+			int deleted;
+			do {
+				deleted = repository.purgeCreatedBefore(before, batchSize);
+				purged += deleted;
+			} while (deleted == batchSize && running);
+			if (purged > 0) {
+				meterRegistry.counter("banking.idempotency.purged").increment(purged);
+				log.info("Purged {} idempotency keys claimed before {}", purged, before);
+			}
+		} catch (RuntimeException ex) {
+			meterRegistry.counter("banking.idempotency.purge.failures").increment();
+			log.warn("Could not purge idempotency keys: {}", ex.getMessage());
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		purger = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "idempotency-key-purger");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = Math.max(1, config.getPurgeInterval().toMillis());
+		purger.scheduleWithFixedDelay(this::purge, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (purger != null) {
+			purger.shutdownNow();
+			purger = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	private String fingerprint(String operation, Object request) {
+		try {
+			MessageDigest digest = MessageDigest.getInstance("SHA-256");
+			digest.update(operation.getBytes(StandardCharsets.UTF_8));
+			digest.update(objectMapper.writeValueAsBytes(request));
+			return HexFormat.of().formatHex(digest.digest());
+		} catch (NoSuchAlgorithmException | JsonProcessingException ex) {
+			throw new IllegalStateException("Could not fingerprint request", ex);
+		}
+	}
+
+	private String serialize(TransactionResponseDto response) {
+		try {
+			return objectMapper.writeValueAsString(response);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Could not serialize transaction response", ex);
+		}
+	}
+
+	private TransactionResponseDto deserialize(String body) {
+		try {
+			return objectMapper.readValue(body, TransactionResponseDto.class);
+		} catch (JsonProcessingException ex) {
+			throw new IllegalStateException("Could not read stored transaction response", ex);
+		}
+	}
+}
@@ -0,0 +1,146 @@
+package com.rabobank.banking.service;
+
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeParseException;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.Optional;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+import com.rabobank.banking.dto.response.TransactionHistoryPageResponseDto;
+import com.rabobank.banking.repository.AccountRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Filter;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Position;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Paged transaction history of an account, covering its withdrawals, outgoing
+ * transfers and received transfers. Months moved to the
+ * {@link TransactionArchive} are read from there and follow the rows still in
+ * the database.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class TransactionHistoryService {
+
+	private static final char CURSOR_SEPARATOR = '|';
+
+	private final TransactionHistoryJdbcRepository historyRepository;
+	private final AccountRepository accountRepository;
+	private final TransactionArchive transactionArchive;
+	private final AccountProperties.History config;
+
+	public TransactionHistoryService(TransactionHistoryJdbcRepository historyRepository,
+			AccountRepository accountRepository, TransactionArchive transactionArchive,
+			AccountProperties accountProperties) {
+		this.historyRepository = historyRepository;
+		this.accountRepository = accountRepository;
+		this.transactionArchive = transactionArchive;
+		this.config = accountProperties.getHistory();
+	}
+
+	/**
+	 * Fetches one page of the account's transactions, newest first.
+	 *
+	 * @param accountId
+	 * @param from      earliest transaction date, inclusive; null for no bound
+	 * @param to        latest transaction date, exclusive; null for no bound
+	 * @param type      only this type; null for all
+	 * @param cursor    nextCursor of the previous page, or null for the first
+	 *                  page
+	 * @param limit     page size, capped at {@code max-page-size}; null for the
+	 *                  default
+	 * @return the page and the cursor of the next one
+	 * @throws AccountNotFoundException    if the account doesn't exist
+	 * @throws InvalidTransactionException if the range is empty or the cursor
+	 *                                     is malformed
+	 */
+	@Transactional(readOnly = true)
+	public TransactionHistoryPageResponseDto getHistory(String accountId, LocalDateTime from, LocalDateTime to,
+			Transaction.TransactionType type, String cursor, Integer limit) {
+		if (from != null && to != null && !from.isBefore(to)) {
+			throw new InvalidTransactionException("'from' must be before 'to'");
+		}
+		if (!accountRepository.existsById(accountId)) {
+			throw new AccountNotFoundException(accountId);
+		}
+		int pageSize = Math.max(1,
+				Math.min(limit != null ? limit : config.getDefaultPageSize(), config.getMaxPageSize()));
+		Position after = cursor == null || cursor.isEmpty() ? null : decodeCursor(cursor);
+
+		// One extra row tells whether another page follows
+		List<TransactionHistoryItemDto> transactions = findPage(accountId, new Filter(from, to, type), after,
+				pageSize + 1);
+		String nextCursor = null;
+		if (transactions.size() > pageSize) {
+			transactions = transactions.subList(0, pageSize);
+			TransactionHistoryItemDto last = transactions.get(pageSize - 1);
+			nextCursor = encodeCursor(new Position(last.getTransactionDate(), last.getTransactionId()));
+		}
+		log.debug("Returning {} transactions of account {}", transactions.size(), accountId);
+
+		return TransactionHistoryPageResponseDto.builder().accountId(accountId).transactions(transactions)
+				.nextCursor(nextCursor).timestamp(LocalDateTime.now()).build();
+	}
+
+	/**
+	 * Reads the database and then, if the page isn't full, the archive. Each
+	 * side only sees its own side of the archive boundary, so a row moved to
+	 * the archive is never returned twice.
+	 */
+	private List<TransactionHistoryItemDto> findPage(String accountId, Filter filter, Position after, int limit) {
+		Optional<LocalDateTime> archivedBefore = transactionArchive.archivedBefore();
+		if (archivedBefore.isEmpty()) {
+			return historyRepository.findPage(accountId, filter, after, limit);
+		}
+		LocalDateTime boundary = archivedBefore.get();
+		List<TransactionHistoryItemDto> page = new ArrayList<>();
+		boolean coldOnly = filter.to() != null && !filter.to().isAfter(boundary)
+				|| after != null && after.transactionDate().isBefore(boundary);
+		if (!coldOnly) {
+			LocalDateTime hotFrom = filter.from() == null || filter.from().isBefore(boundary) ? boundary
+					: filter.from();
+			page.addAll(historyRepository.findPage(accountId, new Filter(hotFrom, filter.to(), filter.type()), after,
+					limit));
+		}
+		if (page.size() < limit && (filter.from() == null || filter.from().isBefore(boundary))) {
+			LocalDateTime coldTo = filter.to() == null || filter.to().isAfter(boundary) ? boundary : filter.to();
+			page.addAll(transactionArchive.findPage(accountId, new Filter(filter.from(), coldTo, filter.type()),
+					after, limit - page.size()));
+		}
+		return page;
+	}
+
+	private static String encodeCursor(Position position) {
+		String value = position.transactionDate().toString() + CURSOR_SEPARATOR + position.transactionId();
+		return Base64.getUrlEncoder().withoutPadding().encodeToString(value.getBytes(StandardCharsets.UTF_8));
+	}
+
+	private static Position decodeCursor(String cursor) {
+		try {
+			String value = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+			int separator = value.indexOf(CURSOR_SEPARATOR);
+			if (separator < 0) {
+				throw new InvalidTransactionException("Invalid cursor");
+			}
+			return new Position(LocalDateTime.parse(value.substring(0, separator)), value.substring(separator + 1));
+		} catch (IllegalArgumentException | DateTimeParseException ex) {
+			throw new InvalidTransactionException("Invalid cursor");
+		}
+	}
+}
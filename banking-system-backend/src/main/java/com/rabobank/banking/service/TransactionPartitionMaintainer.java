@@ -0,0 +1,254 @@
+package com.rabobank.banking.service;
+
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.config.TransactionProperties.Partitions.RetentionAction;
+import com.rabobank.banking.repository.TransactionPartitionJdbcRepository;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Keeps the monthly partitions of the transactions table in step with the
+ * calendar. Every {@code check-interval} it creates the partitions of the
+ * current month and the {@code months-ahead} following ones, so new rows never
+ * land in the default partition, and retires partitions older than
+ * {@code retention-months} by detaching or dropping them, or by writing their
+ * rows to the {@link TransactionArchive} before dropping them.
+ *
+ * Every step runs in its own short transaction under an advisory lock, so with
+ * several instances only one of them changes partitions at a time, and waits
+ * at most {@code lock-timeout} for table locks. A month is created as a
+ * standalone table first and then attached, together with any of its rows
+ * that had landed in the default partition, which would otherwise make the
+ * attach fail. Archiving reads the partition without any DDL lock; the drop
+ * that follows is a separate step and only goes ahead if the partition still
+ * holds exactly the archived rows, adding the month to the archive catalog in
+ * the same transaction. A failed step is logged and retried at the
+ * next check; the other steps go ahead.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class TransactionPartitionMaintainer implements SmartLifecycle {
+
+	/**
+	 * Partitions to create and to retire, oldest first.
+	 */
+	record Plan(List<YearMonth> create, List<YearMonth> retire) {
+
+		boolean isEmpty() {
+			return create.isEmpty() && retire.isEmpty();
+		}
+	}
+
+	private final TransactionPartitionJdbcRepository partitionRepository;
+	private final TransactionArchive transactionArchive;
+	private final TransactionTemplate transactionTemplate;
+	private final TransactionProperties.Partitions config;
+	private final MeterRegistry meterRegistry;
+
+	private ScheduledExecutorService scheduler;
+	private volatile boolean running;
+
+	public TransactionPartitionMaintainer(TransactionPartitionJdbcRepository partitionRepository,
+			TransactionArchive transactionArchive, PlatformTransactionManager transactionManager,
+			TransactionProperties properties, MeterRegistry meterRegistry) {
+		this.partitionRepository = partitionRepository;
+		this.transactionArchive = transactionArchive;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.config = properties.getPartitions();
+		this.meterRegistry = meterRegistry;
+	}
+
+	/**
+	 * Works out which partitions to create and retire.
+	 *
+	 * @param existing        months with an attached partition
+	 * @param current         the current month
+	 * @param monthsAhead     months after the current one that need a partition
+	 * @param retentionMonths months kept including the current one, 0 for all
+	 */
+	static Plan plan(Set<YearMonth> existing, YearMonth current, int monthsAhead, int retentionMonths) {
+		List<YearMonth> create = new ArrayList<>();
+		for (int i = 0; i <= monthsAhead; i++) {
+			YearMonth month = current.plusMonths(i);
+			if (!existing.contains(month)) {
+				create.add(month);
+			}
+		}
+		List<YearMonth> retire = new ArrayList<>();
+		if (retentionMonths > 0) {
+			YearMonth oldestKept = current.minusMonths(retentionMonths - 1L);
+			existing.stream().filter(month -> month.isBefore(oldestKept)).sorted().forEach(retire::add);
+		}
+		return new Plan(create, retire);
+	}
+
+	/**
+	 * Brings the partitions in line with the configuration.
+	 */
+	void maintain() {
+		Plan plan;
+		try {
+			plan = transactionTemplate.execute(status -> partitionRepository.tryLock()
+					? plan(partitionRepository.findMonthlyPartitions(), YearMonth.now(), config.getMonthsAhead(),
+							config.getRetentionMonths())
+					: null);
+		} catch (RuntimeException ex) {
+			meterRegistry.counter("banking.transaction.partitions.failures").increment();
+			log.warn("Could not plan transaction partitions: {}", ex.getMessage());
+			return;
+		}
+		if (plan == null) {
+			log.debug("Transaction partitions are being maintained elsewhere");
+			return;
+		}
+		for (YearMonth month : plan.create()) {
+			if (step("create", month, () -> create(month))) {
+				meterRegistry.counter("banking.transaction.partitions.created").increment();
+			}
+		}
+		for (YearMonth month : plan.retire()) {
+			if (step("retire", month, () -> retire(month))) {
+				meterRegistry.counter("banking.transaction.partitions.retired",
+						"action", config.getRetentionAction().name().toLowerCase()).increment();
+			}
+		}
+	}
+
+	/**
+	 * Runs one step, logging instead of throwing.
+	 *
+	 * @return whether it completed
+	 */
+	private boolean step(String action, YearMonth month, Supplier<Boolean> work) {
+		try {
+			return work.get();
+		} catch (RuntimeException ex) {
+			meterRegistry.counter("banking.transaction.partitions.failures").increment();
+			log.warn("Could not {} partition {}: {}", action, TransactionPartitionJdbcRepository.partitionName(month),
+					ex.getMessage());
+			return false;
+		}
+	}
+
+	private boolean create(YearMonth month) {
+		String name = TransactionPartitionJdbcRepository.partitionName(month);
+		if (!inLockedTransaction(() -> partitionRepository.createStandalonePartition(month))) {
+			return false;
+		}
+		int[] moved = new int[1];
+		if (!inLockedTransaction(() -> moved[0] = partitionRepository.attachMonthlyPartition(month))) {
+			return false;
+		}
+		if (moved[0] > 0) {
+			meterRegistry.counter("banking.transaction.partitions.default.rows").increment(moved[0]);
+			log.error("Moved {} rows of {} out of the default partition into {}; create partitions further ahead",
+					moved[0], month, name);
+		}
+		log.info("Created partition {}", name);
+		return true;
+	}
+
+	private boolean retire(YearMonth month) {
+		String name = TransactionPartitionJdbcRepository.partitionName(month);
+		if (config.getRetentionAction() == RetentionAction.ARCHIVE) {
+			int[] archived = new int[1];
+			// Reads only; the partition stays attached and writable meanwhile
+			if (!inLockedTransaction(() -> archived[0] = transactionArchive.archive(month,
+					row -> partitionRepository.forEachRow(month, row)))) {
+				return false;
+			}
+			if (!inLockedTransaction(() -> {
+				long rows = partitionRepository.lockAndCountRows(month);
+				if (rows != archived[0]) {
+					throw new IllegalStateException(
+							"holds " + rows + " rows but " + archived[0] + " were archived; archiving again next check");
+				}
+				transactionArchive.markArchived(month, rows);
+				partitionRepository.dropMonthlyPartition(month);
+			})) {
+				return false;
+			}
+			log.info("Archived {} rows of expired partition {}", archived[0], name);
+		} else if (config.getRetentionAction() == RetentionAction.DROP) {
+			if (!inLockedTransaction(() -> partitionRepository.dropMonthlyPartition(month))) {
+				return false;
+			}
+			log.info("Dropped expired partition {}", name);
+		} else {
+			if (!inLockedTransaction(() -> partitionRepository.detachMonthlyPartition(month))) {
+				return false;
+			}
+			log.info("Detached expired partition {}", name);
+		}
+		return true;
+	}
+
+	/**
+	 * Runs the work in a new transaction holding the maintenance lock, with
+	 * {@code lock-timeout} applied to the table locks it takes.
+	 *
+	 * @return false if another instance holds the maintenance lock
+	 */
+	private boolean inLockedTransaction(Runnable work) {
+		return Boolean.TRUE.equals(transactionTemplate.execute(status -> {
+			if (!partitionRepository.tryLock()) {
+				return false;
+			}
+			partitionRepository.setLockTimeout(config.getLockTimeout());
+			work.run();
+			return true;
+		}));
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		if (!config.isEnabled()) {
+			return;
+		}
+		scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "transaction-partition-maintainer");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = config.getCheckInterval().toMillis();
+		if (intervalMillis > 0) {
+			scheduler.scheduleWithFixedDelay(this::maintain, 0, intervalMillis, TimeUnit.MILLISECONDS);
+		} else {
+			scheduler.execute(this::maintain);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (scheduler != null) {
+			scheduler.shutdownNow();
+			scheduler = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -1,26 +1,44 @@
 package com.rabobank.banking.service;
 
 import java.math.BigDecimal;
-import java.util.UUID;
-
+import java.time.Duration;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.function.Supplier;
+
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.config.TransactionProperties.ConcurrencyMode;
+import com.rabobank.banking.config.TransactionProperties.WithdrawMode;
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
 import com.rabobank.banking.domain.exception.InsufficientFundsException;
 import com.rabobank.banking.domain.exception.InvalidCardException;
 import com.rabobank.banking.domain.exception.InvalidTransactionException;
 import com.rabobank.banking.domain.model.Account;
-import com.rabobank.banking.domain.model.Card;
 import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
 import com.rabobank.banking.domain.model.Transaction;
 import com.rabobank.banking.domain.payment.CardPaymentStrategy;
-import com.rabobank.banking.domain.payment.CreditCardPaymentStrategy;
-import com.rabobank.banking.domain.payment.DebitCardPaymentStrategy;
+import com.rabobank.banking.domain.payment.FeeRuleEngine;
 import com.rabobank.banking.dto.request.TransferRequestDto;
 import com.rabobank.banking.dto.request.WithdrawRequestDto;
 import com.rabobank.banking.dto.response.TransactionResponseDto;
-import com.rabobank.banking.repository.CardRepository;
+import com.rabobank.banking.repository.LedgerJdbcRepository;
 import com.rabobank.banking.repository.TransactionRepository;
+import com.rabobank.banking.service.analytics.TransactionRollups;
+import com.rabobank.banking.repository.CardDetails;
+import com.rabobank.banking.service.card.CardLookupCache;
+import com.rabobank.banking.service.card.CardNumberScreen;
+import com.rabobank.banking.service.id.TransactionIdGenerator;
+import com.rabobank.banking.service.ledger.LedgerEngine;
 
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
@@ -37,40 +55,140 @@ import lombok.extern.slf4j.Slf4j;
 @Slf4j
 public class TransactionService {
 
+	/**
+	 * How far a transaction's date may be from the time in its id: the id is
+	 * generated before the row is written, possibly on another node's clock.
+	 */
+	private static final Duration ID_TIMESTAMP_TOLERANCE = Duration.ofDays(1);
+
 	private final AccountService accountService;
-	private final CardRepository cardRepository;
+	private final CardLookupCache cardLookupCache;
+	private final CardNumberScreen cardNumberScreen;
 	private final TransactionRepository transactionRepository;
-	private final DebitCardPaymentStrategy debitCardStrategy;
-	private final CreditCardPaymentStrategy creditCardStrategy;
+	private final FeeRuleEngine feeRuleEngine;
+	private final ContentionRetryExecutor retryExecutor;
+	private final GroupCommitExecutor groupCommitExecutor;
+	private final LedgerJdbcRepository ledgerJdbcRepository;
+	private final TransactionProperties transactionProperties;
+	private final AccountLaneDispatcher laneDispatcher;
+	private final TransactionIdGenerator transactionIdGenerator;
+	private final BucketedBalanceService bucketedBalanceService;
+	private final BalanceTotals balanceTotals;
+	private final TransactionRollups transactionRollups;
+
+	private LedgerEngine ledgerEngine;
+
+	/**
+	 * Present only when {@code banking.ledger.engine} selects an in-process
+	 * ledger; balances are then posted through it instead of row updates.
+	 */
+	@Autowired(required = false)
+	public void setLedgerEngine(LedgerEngine ledgerEngine) {
+		this.ledgerEngine = ledgerEngine;
+	}
 
 	/**
-	 * Withdraws money from an account using a debit or credit card. Adds a 1% fee
-	 * for credit cards and checks balance before processing.
+	 * Withdraws money from an account using a debit or credit card. Adds the fee
+	 * of the card type (1% for credit cards by default) and checks balance before processing.
 	 */
-	@Transactional
 	public TransactionResponseDto withdraw(WithdrawRequestDto request) {
+		return withdraw(request, generateTransactionId());
+	}
+
+	/**
+	 * Withdraws under an id assigned up front, e.g. when the request was accepted
+	 * asynchronously and the id has already been handed to the client.
+	 */
+	public TransactionResponseDto withdraw(WithdrawRequestDto request, String transactionId) {
 		log.info("Processing withdrawal: accountId={}, amount={}", request.getAccountId(), request.getAmount());
 
-		Account account = accountService.getAccountByIdWithLock(request.getAccountId());
-		Card card = validateCard(request.getCardNumber(), account);
+		cardNumberScreen.check(request.getCardNumber());
 
-		CardPaymentStrategy strategy = getStrategyForCardType(card.getCardType());
-		BigDecimal fee = strategy.calculateFee(request.getAmount());
-		BigDecimal totalAmount = strategy.calculateTotalAmount(request.getAmount());
+		if (ledgerEngine != null) {
+			return postToLedger(retryExecutor.executeReadOnly("ledger-withdraw",
+					() -> prepareLedgerPosting(transactionId, request.getAccountId(), null,
+							Transaction.TransactionType.WITHDRAWAL, request.getCardNumber(), request.getAmount(),
+							request.getDescription())));
+		}
+
+		return laneDispatcher.execute(request.getAccountId(), () -> {
+			if (transactionProperties.getWithdrawMode() == WithdrawMode.ATOMIC) {
+				return groupCommitExecutor.execute("atomic-withdraw", List.of(request.getAccountId()),
+						() -> doAtomicWithdraw(request, transactionId));
+			}
+			return groupCommitExecutor.execute("withdraw", List.of(request.getAccountId()),
+					() -> doWithdraw(request, transactionId));
+		});
+	}
 
-		if (!account.hasSufficientFunds(totalAmount)) {
-			throw new InsufficientFundsException(account.getAccountId(), account.getBalance(), totalAmount);
+	private TransactionResponseDto doWithdraw(WithdrawRequestDto request, String transactionId) {
+		Account account = isOptimistic()
+				? accountService.getAccountsById(List.of(request.getAccountId())).get(request.getAccountId())
+				: accountService.getAccountByIdWithLock(request.getAccountId());
+		CardDetails card = validateCard(request.getCardNumber(), account.getAccountId());
+
+		CardPaymentStrategy strategy = feeRuleEngine.strategyFor(card.cardType());
+		Money amount = Money.of(request.getAmount());
+		Money fee = strategy.fee(amount);
+		Money totalAmount = strategy.totalAmount(amount);
+
+		Money balanceBefore = bucketedBalanceService.lockAvailableBalance(account);
+		if (balanceBefore.isLessThan(totalAmount)) {
+			throw new InsufficientFundsException(account.getAccountId(), balanceBefore.toBigDecimal(),
+					totalAmount.toBigDecimal());
 		}
 
-		BigDecimal balanceBefore = account.getBalance();
-		account.withdraw(totalAmount);
-		BigDecimal balanceAfter = account.getBalance();
+		bucketedBalanceService.debit(account, totalAmount);
+		Money balanceAfter = balanceBefore.minus(totalAmount);
+		if (BalanceTotals.counts(account)) {
+			balanceTotals.record(-totalAmount.cents(), 0);
+		}
 
-		Transaction transaction = createTransaction(account.getAccountId(), null,
-				Transaction.TransactionType.WITHDRAWAL, request.getAmount(), fee, totalAmount, card.getCardType(),
+		Transaction transaction = createTransaction(transactionId, account.getAccountId(), null,
+				Transaction.TransactionType.WITHDRAWAL, amount, fee, totalAmount, card.cardType(),
 				balanceBefore, balanceAfter, request.getDescription());
 
 		transactionRepository.save(transaction);
+		transactionRollups.record(transaction);
+
+		log.info("Withdrawal successful: transactionId={}, totalAmount={}", transaction.getTransactionId(),
+				totalAmount);
+
+		return mapToTransactionResponse(transaction);
+	}
+
+	/**
+	 * Withdraws with a single guarded UPDATE that debits only if the balance
+	 * covers the total and inserts the transaction row in the same statement. The
+	 * account row is never loaded or locked up front. Bucketed accounts whose
+	 * accounts row alone doesn't cover the total fall back to the entity path.
+	 */
+	private TransactionResponseDto doAtomicWithdraw(WithdrawRequestDto request, String transactionId) {
+		CardDetails card = validateCard(request.getCardNumber(), request.getAccountId());
+
+		CardPaymentStrategy strategy = feeRuleEngine.strategyFor(card.cardType());
+		Money amount = Money.of(request.getAmount());
+		Money fee = strategy.fee(amount);
+		Money totalAmount = strategy.totalAmount(amount);
+
+		Transaction transaction = createTransaction(transactionId, request.getAccountId(), null,
+				Transaction.TransactionType.WITHDRAWAL, amount, fee, totalAmount, card.cardType(),
+				null, null, request.getDescription());
+		transaction.setTransactionDate(LocalDateTime.now());
+
+		Optional<Boolean> counted = ledgerJdbcRepository.debitAndRecordWithdrawal(transaction);
+		if (counted.isEmpty()) {
+			if (bucketedBalanceService.bucketCount(request.getAccountId()) > 0) {
+				return doWithdraw(request, transactionId);
+			}
+			BigDecimal balance = ledgerJdbcRepository.findBalance(request.getAccountId())
+					.orElseThrow(() -> new AccountNotFoundException(request.getAccountId()));
+			throw new InsufficientFundsException(request.getAccountId(), balance, totalAmount.toBigDecimal());
+		}
+		if (counted.get()) {
+			balanceTotals.record(-totalAmount.cents(), 0);
+		}
+		transactionRollups.record(transaction);
 
 		log.info("Withdrawal successful: transactionId={}, totalAmount={}", transaction.getTransactionId(),
 				totalAmount);
@@ -80,58 +198,135 @@ public class TransactionService {
 
 	/**
 	 * Transfers money between two accounts. Ensures both accounts are valid and
-	 * prevents same-account transfers.
+	 * prevents same-account transfers. Both accounts are locked in one statement
+	 * in accountId order (or version-checked in optimistic mode), and lost races
+	 * are retried.
 	 */
-	@Transactional
 	public TransactionResponseDto transfer(TransferRequestDto request) {
+		return transfer(request, generateTransactionId());
+	}
+
+	/**
+	 * Transfers under an id assigned up front.
+	 */
+	public TransactionResponseDto transfer(TransferRequestDto request, String transactionId) {
 		log.info("Processing transfer: from={}, to={}, amount={}", request.getFromAccountId(), request.getToAccountId(),
 				request.getAmount());
 
 		if (request.getFromAccountId().equals(request.getToAccountId())) {
 			throw new InvalidTransactionException("Cannot transfer to the same account");
 		}
+		cardNumberScreen.check(request.getCardNumber());
 
-		Account fromAccount = accountService.getAccountByIdWithLock(request.getFromAccountId());
-		Account toAccount = accountService.getAccountByIdWithLock(request.getToAccountId());
-		Card card = validateCard(request.getCardNumber(), fromAccount);
+		if (ledgerEngine != null) {
+			return postToLedger(retryExecutor.executeReadOnly("ledger-transfer",
+					() -> prepareLedgerPosting(transactionId, request.getFromAccountId(), request.getToAccountId(),
+							Transaction.TransactionType.TRANSFER, request.getCardNumber(), request.getAmount(),
+							request.getDescription())));
+		}
 
-		CardPaymentStrategy strategy = getStrategyForCardType(card.getCardType());
-		BigDecimal fee = strategy.calculateFee(request.getAmount());
-		BigDecimal totalAmount = strategy.calculateTotalAmount(request.getAmount());
+		// A bucketed receiver is never locked, so it doesn't need its lane either
+		int receiverBuckets = bucketedBalanceService.creditBucketCount(request.getToAccountId());
+		Supplier<TransactionResponseDto> work = () -> groupCommitExecutor.execute("transfer",
+				List.of(request.getFromAccountId(), request.getToAccountId()),
+				() -> doTransfer(request, transactionId, receiverBuckets));
+		return receiverBuckets > 0 ? laneDispatcher.execute(request.getFromAccountId(), work)
+				: laneDispatcher.execute(request.getFromAccountId(), request.getToAccountId(), work);
+	}
 
-		if (!fromAccount.hasSufficientFunds(totalAmount)) {
-			throw new InsufficientFundsException(fromAccount.getAccountId(), fromAccount.getBalance(), totalAmount);
+	private TransactionResponseDto doTransfer(TransferRequestDto request, String transactionId,
+			int receiverBuckets) {
+		List<String> accountIds = receiverBuckets > 0 ? List.of(request.getFromAccountId())
+				: List.of(request.getFromAccountId(), request.getToAccountId());
+		Map<String, Account> accounts = isOptimistic() ? accountService.getAccountsById(accountIds)
+				: accountService.getAccountsByIdWithLock(accountIds);
+		Account fromAccount = accounts.get(request.getFromAccountId());
+		CardDetails card = validateCard(request.getCardNumber(), fromAccount.getAccountId());
+
+		CardPaymentStrategy strategy = feeRuleEngine.strategyFor(card.cardType());
+		Money amount = Money.of(request.getAmount());
+		Money fee = strategy.fee(amount);
+		Money totalAmount = strategy.totalAmount(amount);
+
+		Money balanceBefore = bucketedBalanceService.lockAvailableBalance(fromAccount);
+		if (balanceBefore.isLessThan(totalAmount)) {
+			throw new InsufficientFundsException(fromAccount.getAccountId(), balanceBefore.toBigDecimal(),
+					totalAmount.toBigDecimal());
 		}
 
-		BigDecimal balanceBefore = fromAccount.getBalance();
-		fromAccount.withdraw(totalAmount);
-		toAccount.deposit(request.getAmount());
-		BigDecimal balanceAfter = fromAccount.getBalance();
+		bucketedBalanceService.debit(fromAccount, totalAmount);
+		boolean toCounted;
+		if (receiverBuckets > 0) {
+			// The receiver row stays unlocked; the credit lands on a free bucket
+			toCounted = bucketedBalanceService.credit(request.getToAccountId(), receiverBuckets, amount);
+		} else {
+			Account toAccount = accounts.get(request.getToAccountId());
+			toAccount.deposit(amount);
+			toCounted = BalanceTotals.counts(toAccount);
+		}
+		Money balanceAfter = balanceBefore.minus(totalAmount);
+		balanceTotals.record((toCounted ? amount.cents() : 0)
+				- (BalanceTotals.counts(fromAccount) ? totalAmount.cents() : 0), 0);
 
-		Transaction transaction = createTransaction(fromAccount.getAccountId(), toAccount.getAccountId(),
-				Transaction.TransactionType.TRANSFER, request.getAmount(), fee, totalAmount, card.getCardType(),
-				balanceBefore, balanceAfter, request.getDescription());
+		Transaction transaction = createTransaction(transactionId, fromAccount.getAccountId(),
+				request.getToAccountId(), Transaction.TransactionType.TRANSFER, amount, fee, totalAmount,
+				card.cardType(), balanceBefore, balanceAfter, request.getDescription());
 
 		transactionRepository.save(transaction);
+		transactionRollups.record(transaction);
 
 		log.info("Transfer successful: transactionId={}, totalAmount={}", transaction.getTransactionId(), totalAmount);
 
 		return mapToTransactionResponse(transaction);
 	}
 
+	/**
+	 * Validates the card and prices the posting in a short read-only
+	 * transaction, which the replica may serve; balances are checked and
+	 * applied by the ledger engine.
+	 */
+	private Transaction prepareLedgerPosting(String transactionId, String accountId, String toAccountId,
+			Transaction.TransactionType type, String cardNumber, BigDecimal amount, String description) {
+		CardDetails card = validateCard(cardNumber, accountId);
+
+		CardPaymentStrategy strategy = feeRuleEngine.strategyFor(card.cardType());
+		Money money = Money.of(amount);
+
+		return createTransaction(transactionId, accountId, toAccountId, type, money, strategy.fee(money),
+				strategy.totalAmount(money),
+				card.cardType(), null, null, description);
+	}
+
+	private TransactionResponseDto postToLedger(Transaction transaction) {
+		Transaction posted = ledgerEngine.post(transaction);
+		Set<String> counted = balanceTotals.counted(posted.getToAccountId() == null ? List.of(posted.getAccountId())
+				: List.of(posted.getAccountId(), posted.getToAccountId()));
+		long deltaCents = counted.contains(posted.getAccountId()) ? -Money.of(posted.getTotalAmount()).cents() : 0;
+		if (posted.getToAccountId() != null && counted.contains(posted.getToAccountId())) {
+			deltaCents += Money.of(posted.getAmount()).cents();
+		}
+		balanceTotals.record(deltaCents, 0);
+		transactionRollups.record(posted);
+
+		log.info("{} posted to ledger: transactionId={}, totalAmount={}", posted.getType(), posted.getTransactionId(),
+				posted.getTotalAmount());
+
+		return mapToTransactionResponse(posted);
+	}
+
 	/**
 	 * Validates that the provided card belongs to the given account and is still
-	 * valid for use.
+	 * valid for use. Served from the card cache once the card has been seen.
 	 * 
 	 * @param cardNumber
-	 * @param account
+	 * @param accountId
 	 * @return
 	 */
-	private Card validateCard(String cardNumber, Account account) {
-		Card card = cardRepository.findByCardNumber(cardNumber)
+	private CardDetails validateCard(String cardNumber, String accountId) {
+		CardDetails card = cardLookupCache.get(cardNumber)
 				.orElseThrow(() -> new InvalidCardException("Card not found"));
 
-		if (!card.getAccount().getAccountId().equals(account.getAccountId())) {
+		if (!card.accountId().equals(accountId)) {
 			throw new InvalidCardException("Card does not belong to this account");
 		}
 
@@ -142,13 +337,20 @@ public class TransactionService {
 		return card;
 	}
 
-	private CardPaymentStrategy getStrategyForCardType(CardType cardType) {
-		return cardType == CardType.DEBIT ? debitCardStrategy : creditCardStrategy;
+	/**
+	 * In optimistic mode accounts are read without row locks; the version column
+	 * rejects conflicting commits and the retry executor replays them.
+	 */
+	private boolean isOptimistic() {
+		return transactionProperties.getConcurrencyMode() == ConcurrencyMode.OPTIMISTIC;
 	}
 
 	/**
 	 * Creates a transaction record with all details like amount, fee, and balances.
+	 * Amounts are stored as decimals; balances may be null when they are only
+	 * known to the database.
 	 * 
+	 * @param transactionId
 	 * @param accountId
 	 * @param toAccountId
 	 * @param type
@@ -161,20 +363,49 @@ public class TransactionService {
 	 * @param description
 	 * @return
 	 */
-	private Transaction createTransaction(String accountId, String toAccountId, Transaction.TransactionType type,
-			BigDecimal amount, BigDecimal fee, BigDecimal totalAmount, CardType cardType, BigDecimal balanceBefore,
-			BigDecimal balanceAfter, String description) {
-		return Transaction.builder().transactionId(generateTransactionId()).accountId(accountId)
-				.toAccountId(toAccountId).type(type).amount(amount).fee(fee).totalAmount(totalAmount).cardType(cardType)
-				.balanceBefore(balanceBefore).balanceAfter(balanceAfter).description(description)
+	private Transaction createTransaction(String transactionId, String accountId, String toAccountId,
+			Transaction.TransactionType type, Money amount, Money fee, Money totalAmount, CardType cardType,
+			Money balanceBefore, Money balanceAfter, String description) {
+		return Transaction.builder().transactionId(transactionId).accountId(accountId)
+				.toAccountId(toAccountId).type(type).amount(amount.toBigDecimal()).fee(fee.toBigDecimal())
+				.totalAmount(totalAmount.toBigDecimal()).cardType(cardType)
+				.balanceBefore(balanceBefore == null ? null : balanceBefore.toBigDecimal())
+				.balanceAfter(balanceAfter == null ? null : balanceAfter.toBigDecimal()).description(description)
 				.status(Transaction.TransactionStatus.SUCCESS).build();
 	}
 
 	/**
-	 * Generates a unique transaction ID with date and sequence number.
+	 * Whether withdrawals and transfers join a transaction the caller already
+	 * started, so several of them can commit together. Not the case when they
+	 * are posted to the ledger engine or serialized on account lanes.
+	 */
+	public boolean canJoinTransaction() {
+		return ledgerEngine == null && !laneDispatcher.isEnabled();
+	}
+
+	/**
+	 * Looks up a completed transaction by id. When the id records when it was
+	 * generated, only the transaction partitions around that time are searched.
+	 */
+	@Transactional(readOnly = true)
+	public Optional<TransactionResponseDto> findTransaction(String transactionId) {
+		Optional<Instant> generatedAt = transactionIdGenerator.timestampOf(transactionId);
+		Optional<Transaction> transaction;
+		if (generatedAt.isPresent()) {
+			LocalDateTime around = LocalDateTime.ofInstant(generatedAt.get(), ZoneId.systemDefault());
+			transaction = transactionRepository.findByTransactionIdAndTransactionDateBetween(transactionId,
+					around.minus(ID_TIMESTAMP_TOLERANCE), around.plus(ID_TIMESTAMP_TOLERANCE));
+		} else {
+			transaction = transactionRepository.findById(transactionId);
+		}
+		return transaction.map(TransactionService::mapToTransactionResponse);
+	}
+
+	/**
+	 * Generates a unique transaction ID in the configured format.
 	 */
-	private String generateTransactionId() {
-		return "TXN-" + UUID.randomUUID().toString();
+	public String generateTransactionId() {
+		return transactionIdGenerator.nextId();
 	}
 
 	/**
@@ -183,7 +414,7 @@ public class TransactionService {
 	 * @param transaction
 	 * @return
 	 */
-	private TransactionResponseDto mapToTransactionResponse(Transaction transaction) {
+	static TransactionResponseDto mapToTransactionResponse(Transaction transaction) {
 		return TransactionResponseDto.builder().transactionId(transaction.getTransactionId())
 				.accountId(transaction.getAccountId()).toAccountId(transaction.getToAccountId())
 				.type(transaction.getType()).amount(transaction.getAmount()).fee(transaction.getFee())
@@ -0,0 +1,32 @@
+package com.rabobank.banking.service.analytics;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * Width of the buckets a rollup query returns.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public enum RollupGranularity {
+	HOUR(ChronoUnit.HOURS),
+	DAY(ChronoUnit.DAYS);
+
+	private final ChronoUnit unit;
+
+	RollupGranularity(ChronoUnit unit) {
+		this.unit = unit;
+	}
+
+	/** Start of the bucket containing {@code time}. */
+	public LocalDateTime bucketStart(LocalDateTime time) {
+		return time.truncatedTo(unit);
+	}
+
+	/** {@code time} rounded up to the next bucket boundary. */
+	public LocalDateTime bucketEnd(LocalDateTime time) {
+		LocalDateTime start = bucketStart(time);
+		return start.equals(time) ? time : start.plus(1, unit);
+	}
+}
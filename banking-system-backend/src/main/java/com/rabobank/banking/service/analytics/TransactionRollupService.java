@@ -0,0 +1,197 @@
+package com.rabobank.banking.service.analytics;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.RollupBackfillResponseDto;
+import com.rabobank.banking.dto.response.TransactionRollupBucketDto;
+import com.rabobank.banking.dto.response.TransactionRollupResponseDto;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository.Bucket;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Fee, volume and count totals of any period, merged from the hourly rollup
+ * buckets instead of scanning the transactions table, and the backfill that
+ * rebuilds those buckets from the transactions.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Service
+@Slf4j
+public class TransactionRollupService {
+
+	/** Slack for transactions committed but not yet counted in memory. */
+	private static final Duration IN_FLIGHT_MARGIN = Duration.ofMinutes(1);
+
+	private static final Comparator<Bucket> BUCKET_ORDER = Comparator.comparing(Bucket::bucketStart)
+			.thenComparing(Bucket::cardType).thenComparing(Bucket::type);
+
+	private final TransactionRollupJdbcRepository rollupRepository;
+	private final TransactionRollups transactionRollups;
+	private final TransactionArchive transactionArchive;
+	private final TransactionTemplate transactionTemplate;
+	private final TransactionProperties.Rollups config;
+
+	public TransactionRollupService(TransactionRollupJdbcRepository rollupRepository,
+			TransactionRollups transactionRollups, TransactionArchive transactionArchive,
+			PlatformTransactionManager transactionManager, TransactionProperties properties) {
+		this.rollupRepository = rollupRepository;
+		this.transactionRollups = transactionRollups;
+		this.transactionArchive = transactionArchive;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.config = properties.getRollups();
+	}
+
+	/**
+	 * Totals of the successful transactions in {@code [from, to)}, per bucket
+	 * and overall. The period is widened to whole buckets. Totals recorded on
+	 * this instance but not flushed yet are included.
+	 *
+	 * @param to       exclusive end, null for up to now
+	 * @param cardType only this card type, null for all
+	 * @param type     only this transaction type, null for all
+	 */
+	public TransactionRollupResponseDto query(LocalDateTime from, LocalDateTime to, RollupGranularity granularity,
+			CardType cardType, Transaction.TransactionType type) {
+		LocalDateTime start = granularity.bucketStart(from);
+		LocalDateTime end = granularity.bucketEnd(to != null ? to : LocalDateTime.now());
+		if (!start.isBefore(end)) {
+			throw new InvalidTransactionException("'from' must be before 'to'");
+		}
+
+		Map<Bucket, Bucket> merged = new TreeMap<>(BUCKET_ORDER);
+		List<Bucket> buckets = new ArrayList<>(rollupRepository.findRange(start, end, cardType, type));
+		transactionRollups.pending().stream()
+				.filter(bucket -> !bucket.bucketStart().isBefore(start) && bucket.bucketStart().isBefore(end))
+				.filter(bucket -> cardType == null || bucket.cardType() == cardType)
+				.filter(bucket -> type == null || bucket.type() == type).forEach(buckets::add);
+		for (Bucket bucket : buckets) {
+			Bucket key = new Bucket(granularity.bucketStart(bucket.bucketStart()), bucket.cardType(), bucket.type(),
+					0, null, null, null);
+			merged.merge(key, withStart(bucket, key.bucketStart()), TransactionRollupService::add);
+		}
+
+		long count = 0;
+		BigDecimal amount = BigDecimal.ZERO;
+		BigDecimal fee = BigDecimal.ZERO;
+		BigDecimal totalAmount = BigDecimal.ZERO;
+		List<TransactionRollupBucketDto> items = new ArrayList<>(merged.size());
+		for (Bucket bucket : merged.values()) {
+			count += bucket.count();
+			amount = amount.add(bucket.amount());
+			fee = fee.add(bucket.fee());
+			totalAmount = totalAmount.add(bucket.totalAmount());
+			items.add(TransactionRollupBucketDto.builder().bucketStart(bucket.bucketStart())
+					.cardType(bucket.cardType()).type(bucket.type()).transactionCount(bucket.count())
+					.amount(bucket.amount()).fee(bucket.fee()).totalAmount(bucket.totalAmount()).build());
+		}
+		return TransactionRollupResponseDto.builder().from(start).to(end).granularity(granularity).buckets(items)
+				.transactionCount(count).amount(amount).fee(fee).totalAmount(totalAmount)
+				.timestamp(LocalDateTime.now()).build();
+	}
+
+	/**
+	 * Rebuilds the rollups of {@code [from, to)} from the transactions table,
+	 * in chunks of {@code backfill-chunk} scanned by {@code backfill-threads}
+	 * workers in parallel, each chunk in its own transaction that keeps
+	 * rollup flushes of every instance waiting until it commits. The period is
+	 * widened to whole hours and cut off before the hours whose totals may
+	 * still be in memory on some instance; those are rebuilt by a later
+	 * backfill if needed.
+	 *
+	 * @param to exclusive end, null for up to the most recent settled hour
+	 * @throws InvalidTransactionException if the period is empty or reaches
+	 *                                     into archived months
+	 */
+	public synchronized RollupBackfillResponseDto backfill(LocalDateTime from, LocalDateTime to) {
+		LocalDateTime settled = LocalDateTime.now().minus(config.getFlushInterval()).minus(IN_FLIGHT_MARGIN)
+				.truncatedTo(ChronoUnit.HOURS);
+		LocalDateTime start = from.truncatedTo(ChronoUnit.HOURS);
+		LocalDateTime end = to == null || to.isAfter(settled) ? settled : RollupGranularity.HOUR.bucketEnd(to);
+		if (!start.isBefore(end)) {
+			throw new InvalidTransactionException("Backfill must start before " + end);
+		}
+		Optional<LocalDateTime> archivedBefore = transactionArchive.archivedBefore();
+		if (archivedBefore.isPresent() && start.isBefore(archivedBefore.get())) {
+			// Rebuilding would replace their totals with those of an empty range
+			throw new InvalidTransactionException("Backfill can start at " + archivedBefore.get()
+					+ " at the earliest; older transactions are archived");
+		}
+
+		long started = System.nanoTime();
+		transactionRollups.flush();
+		// Whole hours, so that chunks never split a bucket
+		long chunkHours = Math.max(1, config.getBackfillChunk().toHours());
+		AtomicInteger workerNumber = new AtomicInteger();
+		ExecutorService workers = Executors.newFixedThreadPool(Math.max(1, config.getBackfillThreads()),
+				runnable -> {
+					Thread thread = new Thread(runnable, "rollup-backfill-" + workerNumber.incrementAndGet());
+					thread.setDaemon(true);
+					return thread;
+				});
+		List<Future<Integer>> chunks = new ArrayList<>();
+		long buckets = 0;
+		try {
+			for (LocalDateTime chunkStart = start; chunkStart.isBefore(end); chunkStart = chunkStart
+					.plusHours(chunkHours)) {
+				LocalDateTime rangeStart = chunkStart;
+				LocalDateTime chunkEnd = chunkStart.plusHours(chunkHours);
+				LocalDateTime rangeEnd = chunkEnd.isAfter(end) ? end : chunkEnd;
+				chunks.add(workers.submit(() -> transactionTemplate
+						.execute(status -> rollupRepository.rebuild(rangeStart, rangeEnd))));
+			}
+			for (Future<Integer> future : chunks) {
+				buckets += future.get();
+			}
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new IllegalStateException("Interrupted while rebuilding transaction rollups", ex);
+		} catch (ExecutionException ex) {
+			throw new IllegalStateException(
+					"Could not rebuild transaction rollups: " + ex.getCause().getMessage(), ex.getCause());
+		} finally {
+			workers.shutdownNow();
+		}
+		long durationMs = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - started);
+		log.info("Rebuilt {} transaction rollup buckets of [{}, {}) in {} chunks ({} ms)", buckets, start, end,
+				chunks.size(), durationMs);
+		return RollupBackfillResponseDto.builder().from(start).to(end).chunks(chunks.size()).buckets(buckets)
+				.durationMs(durationMs).timestamp(LocalDateTime.now()).build();
+	}
+
+	private static Bucket withStart(Bucket bucket, LocalDateTime start) {
+		return new Bucket(start, bucket.cardType(), bucket.type(), bucket.count(), bucket.amount(), bucket.fee(),
+				bucket.totalAmount());
+	}
+
+	private static Bucket add(Bucket a, Bucket b) {
+		return new Bucket(a.bucketStart(), a.cardType(), a.type(), a.count() + b.count(), a.amount().add(b.amount()),
+				a.fee().add(b.fee()), a.totalAmount().add(b.totalAmount()));
+	}
+}
@@ -0,0 +1,210 @@
+package com.rabobank.banking.service.analytics;
+
+import java.time.LocalDateTime;
+import java.time.temporal.ChronoUnit;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository.Bucket;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Hourly totals of committed transactions per card type and transaction type,
+ * gathered in memory and added to the rollup table every
+ * {@code flush-interval}.
+ *
+ * Withdrawals and transfers report themselves through {@link #record}; inside
+ * a transaction they are counted after commit, so rolled-back ones never show
+ * up. A failed flush keeps its totals for the next one, and stopping the
+ * application flushes once more. What a crash loses in between is restored by
+ * a backfill of the hours concerned. A flush never overlaps a backfill, and
+ * drops the totals it holds for hours a backfill rebuilt since the previous
+ * successful flush, as the rebuild already counted those transactions.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class TransactionRollups implements SmartLifecycle {
+
+	/**
+	 * Bucket a transaction is counted in.
+	 */
+	record Key(LocalDateTime bucketStart, CardType cardType, Transaction.TransactionType type) {
+	}
+
+	/**
+	 * Totals not yet flushed, in cents.
+	 */
+	record Delta(long count, long amountCents, long feeCents, long totalAmountCents) {
+
+		Delta plus(Delta other) {
+			return new Delta(count + other.count, amountCents + other.amountCents, feeCents + other.feeCents,
+					totalAmountCents + other.totalAmountCents);
+		}
+
+		Bucket toBucket(Key key) {
+			return new Bucket(key.bucketStart(), key.cardType(), key.type(), count,
+					Money.ofCents(amountCents).toBigDecimal(), Money.ofCents(feeCents).toBigDecimal(),
+					Money.ofCents(totalAmountCents).toBigDecimal());
+		}
+	}
+
+	private final TransactionRollupJdbcRepository rollupRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final TransactionProperties.Rollups config;
+	private final MeterRegistry meterRegistry;
+
+	private final Map<Key, Delta> pending = new ConcurrentHashMap<>();
+
+	/**
+	 * Database time of the last successful flush; rebuilds after it may have
+	 * counted what is pending. Starts at the local clock.
+	 */
+	private LocalDateTime flushedAt = LocalDateTime.now();
+
+	private ScheduledExecutorService flusher;
+	private volatile boolean running;
+
+	public TransactionRollups(TransactionRollupJdbcRepository rollupRepository,
+			PlatformTransactionManager transactionManager, TransactionProperties properties,
+			MeterRegistry meterRegistry) {
+		this.rollupRepository = rollupRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.config = properties.getRollups();
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("banking.transaction.rollups.pending", pending, Map::size)
+				.description("Rollup buckets waiting to be flushed").register(meterRegistry);
+	}
+
+	/**
+	 * Counts a successful transaction, after commit when called inside a
+	 * transaction and right away otherwise.
+	 */
+	public void record(Transaction transaction) {
+		if (transaction.getStatus() != Transaction.TransactionStatus.SUCCESS) {
+			return;
+		}
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCommit() {
+					apply(transaction);
+				}
+			});
+		} else {
+			apply(transaction);
+		}
+	}
+
+	private void apply(Transaction transaction) {
+		// The date is assigned on insert, which may only happen at flush before commit
+		LocalDateTime date = transaction.getTransactionDate() != null ? transaction.getTransactionDate()
+				: LocalDateTime.now();
+		Key key = new Key(date.truncatedTo(ChronoUnit.HOURS), transaction.getCardType(), transaction.getType());
+		pending.merge(key,
+				new Delta(1, Money.of(transaction.getAmount()).cents(), Money.of(transaction.getFee()).cents(),
+						Money.of(transaction.getTotalAmount()).cents()),
+				Delta::plus);
+	}
+
+	/**
+	 * Totals recorded on this instance but not flushed yet.
+	 */
+	public List<Bucket> pending() {
+		List<Bucket> buckets = new ArrayList<>(pending.size());
+		pending.forEach((key, delta) -> buckets.add(delta.toBucket(key)));
+		return buckets;
+	}
+
+	/**
+	 * Adds the pending totals to the rollup table, except those of hours
+	 * rebuilt since the last successful flush. On failure they are put back
+	 * and retried by the next flush.
+	 */
+	public synchronized void flush() {
+		if (pending.isEmpty()) {
+			return;
+		}
+		Map<Key, Delta> drained = new ConcurrentHashMap<>();
+		for (Key key : pending.keySet()) {
+			Delta delta = pending.remove(key);
+			if (delta != null) {
+				drained.put(key, delta);
+			}
+		}
+		try {
+			flushedAt = transactionTemplate.execute(status -> {
+				LocalDateTime lockedAt = rollupRepository.lockForFlush();
+				Set<LocalDateTime> rebuilt = rollupRepository.findRebuiltSince(flushedAt,
+						drained.keySet().stream().map(Key::bucketStart).distinct().toList());
+				if (!rebuilt.isEmpty()) {
+					int before = drained.size();
+					drained.keySet().removeIf(key -> rebuilt.contains(key.bucketStart()));
+					meterRegistry.counter("banking.transaction.rollups.discarded").increment(before - drained.size());
+					log.info("Dropped {} unflushed rollup buckets of {} hours rebuilt meanwhile",
+							before - drained.size(), rebuilt.size());
+				}
+				if (!drained.isEmpty()) {
+					rollupRepository.add(drained.entrySet().stream()
+							.map(entry -> entry.getValue().toBucket(entry.getKey())).toList());
+				}
+				return lockedAt;
+			});
+			meterRegistry.counter("banking.transaction.rollups.flushed").increment(drained.size());
+		} catch (RuntimeException ex) {
+			drained.forEach((key, delta) -> pending.merge(key, delta, Delta::plus));
+			meterRegistry.counter("banking.transaction.rollups.flush.failures").increment();
+			log.warn("Could not flush {} transaction rollup buckets: {}", drained.size(), ex.getMessage());
+		}
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		flusher = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "transaction-rollups-flusher");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long intervalMillis = Math.max(1, config.getFlushInterval().toMillis());
+		flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (flusher != null) {
+			flusher.shutdownNow();
+			flusher = null;
+		}
+		flush();
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
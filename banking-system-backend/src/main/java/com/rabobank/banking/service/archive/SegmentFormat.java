@@ -0,0 +1,119 @@
+package com.rabobank.banking.service.archive;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Layout of a transaction segment file and the value encodings shared by the
+ * writer and the reader.
+ *
+ * <pre>
+ * [magic]
+ * [block 0: one deflated run per column] [block 1] ...
+ * [metadata: month, row count, dictionaries, block directory]
+ * [account index: entries, account id bytes, row postings]  (memory-mapped)
+ * [footer: metadata offset, index offset, magic]
+ * </pre>
+ *
+ * Rows are ordered newest first by {@code (transaction_date, transaction_id)}
+ * and cut into blocks of a fixed row count. Within a block, {@code type},
+ * {@code card_type} and {@code status} are one byte each into a per-segment
+ * dictionary, {@code transaction_date} is stored as microsecond deltas from
+ * the previous row, amounts as cents, and nullable values with a +1 offset so
+ * that 0 means null. Integers are zigzag varints.
+ *
+ * The account index lists every account that sent or received a row, sorted
+ * by the unsigned bytes of its id, each with the ascending row numbers it
+ * appears in.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+final class SegmentFormat {
+
+	static final byte[] MAGIC = "BKTXSEG1".getBytes(StandardCharsets.US_ASCII);
+	static final int FOOTER_BYTES = Long.BYTES * 2 + MAGIC.length;
+	static final int INDEX_ENTRY_BYTES = Integer.BYTES * 4;
+
+	static final int COL_TRANSACTION_ID = 0;
+	static final int COL_ACCOUNT_ID = 1;
+	static final int COL_TO_ACCOUNT_ID = 2;
+	static final int COL_TYPE = 3;
+	static final int COL_CARD_TYPE = 4;
+	static final int COL_STATUS = 5;
+	static final int COL_TRANSACTION_DATE = 6;
+	static final int COL_AMOUNT = 7;
+	static final int COL_FEE = 8;
+	static final int COL_TOTAL_AMOUNT = 9;
+	static final int COL_BALANCE_BEFORE = 10;
+	static final int COL_BALANCE_AFTER = 11;
+	static final int COL_DESCRIPTION = 12;
+	static final int COLUMNS = 13;
+
+	static final int DICT_TYPE = 0;
+	static final int DICT_CARD_TYPE = 1;
+	static final int DICT_STATUS = 2;
+	static final int DICTIONARIES = 3;
+
+	private SegmentFormat() {
+	}
+
+	static void writeVarLong(DataOutput out, long value) throws IOException {
+		long zigzag = (value << 1) ^ (value >> 63);
+		while ((zigzag & ~0x7FL) != 0) {
+			out.writeByte((int) ((zigzag & 0x7F) | 0x80));
+			zigzag >>>= 7;
+		}
+		out.writeByte((int) zigzag);
+	}
+
+	static long readVarLong(DataInput in) throws IOException {
+		long zigzag = 0;
+		for (int shift = 0;; shift += 7) {
+			byte b = in.readByte();
+			zigzag |= (long) (b & 0x7F) << shift;
+			if (b >= 0) {
+				break;
+			}
+		}
+		return (zigzag >>> 1) ^ -(zigzag & 1);
+	}
+
+	/**
+	 * Nullable non-negative or negative long; null is written as 0.
+	 */
+	static void writeNullableLong(DataOutput out, Long value) throws IOException {
+		if (value == null) {
+			writeVarLong(out, 0);
+		} else {
+			writeVarLong(out, value >= 0 ? value + 1 : value);
+		}
+	}
+
+	static Long readNullableLong(DataInput in) throws IOException {
+		long value = readVarLong(in);
+		return value == 0 ? null : value > 0 ? value - 1 : value;
+	}
+
+	static void writeNullableString(DataOutput out, String value) throws IOException {
+		if (value == null) {
+			writeVarLong(out, 0);
+			return;
+		}
+		byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+		writeVarLong(out, bytes.length + 1L);
+		out.write(bytes);
+	}
+
+	static String readNullableString(DataInput in) throws IOException {
+		int length = (int) readVarLong(in);
+		if (length == 0) {
+			return null;
+		}
+		byte[] bytes = new byte[length - 1];
+		in.readFully(bytes);
+		return new String(bytes, StandardCharsets.UTF_8);
+	}
+}
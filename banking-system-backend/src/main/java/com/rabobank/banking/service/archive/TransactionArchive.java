@@ -0,0 +1,268 @@
+package com.rabobank.banking.service.archive;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Consumer;
+
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.stereotype.Component;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.ArchiveUnavailableException;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto.Direction;
+import com.rabobank.banking.repository.ArchivedMonthJdbcRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Filter;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Position;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Transactions moved out of the database into immutable segment files, one
+ * per month, in {@code banking.transaction.archive.directory}. Segments found
+ * there at startup are opened and serve the history of every month before
+ * {@link #archivedBefore()}; the database serves the months after it.
+ *
+ * Which months are archived is decided by the catalog in the database, which
+ * gains a month in the transaction that drops its partition, so every
+ * instance draws the same boundary. The segment files themselves are only
+ * where the instance that wrote them, or whatever shares its directory, can
+ * read them; a history read covering an archived month without a matching
+ * local segment fails with {@link ArchiveUnavailableException} rather than
+ * returning an incomplete page.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class TransactionArchive implements DisposableBean {
+
+	private static final String FILE_PREFIX = "transactions-";
+	private static final String FILE_SUFFIX = ".seg";
+	private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+	private static final BigDecimal NO_FEE = new BigDecimal("0.00");
+
+	private final Path directory;
+	private final TransactionProperties.Archive config;
+	private final ArchivedMonthJdbcRepository archivedMonthRepository;
+	private final ConcurrentNavigableMap<YearMonth, TransactionSegment> segments = new ConcurrentSkipListMap<>();
+
+	public TransactionArchive(TransactionProperties properties, ArchivedMonthJdbcRepository archivedMonthRepository) {
+		this.config = properties.getArchive();
+		this.archivedMonthRepository = archivedMonthRepository;
+		this.directory = Path.of(config.getDirectory());
+		openSegments();
+	}
+
+	/**
+	 * Start of the month after the newest month in the catalog; history before
+	 * it is read from the archive only. Empty while nothing is archived.
+	 */
+	public Optional<LocalDateTime> archivedBefore() {
+		return archivedMonthRepository.findLatest().map(month -> month.plusMonths(1).atDay(1).atStartOfDay());
+	}
+
+	/**
+	 * Adds the month to the catalog, after which every instance reads it from
+	 * the archive. Run in the transaction that drops its partition.
+	 */
+	public void markArchived(YearMonth month, long rowCount) {
+		archivedMonthRepository.record(month, rowCount);
+	}
+
+	/**
+	 * Writes the month's rows to a new segment. An existing segment of the
+	 * month is replaced. The month is served from the segment once it is
+	 * {@linkplain #markArchived marked archived}.
+	 *
+	 * @param rows passes every row of the month to its argument, newest first
+	 *             by {@code (transaction_date, transaction_id)}
+	 * @return number of rows archived
+	 */
+	public int archive(YearMonth month, Consumer<Consumer<Transaction>> rows) {
+		Path target = directory.resolve(FILE_PREFIX + month.format(MONTH) + FILE_SUFFIX);
+		Path temporary = directory.resolve(target.getFileName() + ".tmp");
+		try {
+			Files.createDirectories(directory);
+			try (TransactionSegmentWriter writer = new TransactionSegmentWriter(temporary, month,
+					Math.max(1, config.getBlockRows()))) {
+				rows.accept(row -> {
+					try {
+						writer.append(row);
+					} catch (IOException ex) {
+						throw new UncheckedIOException(ex);
+					}
+				});
+				writer.finish();
+			}
+			Files.move(temporary, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			TransactionSegment segment = TransactionSegment.open(target, config.getCachedBlocks());
+			TransactionSegment replaced = segments.put(month, segment);
+			if (replaced != null) {
+				replaced.close();
+			}
+			log.info("Archived {} transactions of {} to {}", segment.rowCount(), month, target);
+			return segment.rowCount();
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Could not archive transactions of " + month, ex);
+		} finally {
+			try {
+				Files.deleteIfExists(temporary);
+			} catch (IOException ex) {
+				log.warn("Could not delete {}: {}", temporary, ex.getMessage());
+			}
+		}
+	}
+
+	/**
+	 * Up to {@code limit} archived transactions of the account, newest first,
+	 * with the same filter and keyset semantics as the database history.
+	 *
+	 * @param after position of the previous page, null for the first page
+	 * @throws ArchiveUnavailableException if an archived month in the range has
+	 *                                     no complete segment here
+	 */
+	public List<TransactionHistoryItemDto> findPage(String accountId, Filter filter, Position after, int limit) {
+		requireSegments(filter, after);
+		List<TransactionHistoryItemDto> page = new ArrayList<>();
+		try {
+			for (TransactionSegment segment : segments.descendingMap().values()) {
+				if (page.size() >= limit) {
+					break;
+				}
+				if (filter.to() != null && !segment.oldest().isBefore(filter.to())
+						|| filter.from() != null && segment.newest().isBefore(filter.from())
+						|| after != null && segment.oldest().isAfter(after.transactionDate())) {
+					continue;
+				}
+				int[] rows = segment.rowsOf(accountId);
+				for (int i = firstRow(segment, rows, filter, after); i < rows.length && page.size() < limit; i++) {
+					Transaction t = segment.row(rows[i]);
+					if (filter.from() != null && t.getTransactionDate().isBefore(filter.from())) {
+						break;
+					}
+					if (filter.type() == null || filter.type() == t.getType()) {
+						page.add(toHistoryItem(t, accountId));
+					}
+				}
+			}
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Could not read archived transactions of " + accountId, ex);
+		}
+		return page;
+	}
+
+	@Override
+	public void destroy() throws IOException {
+		for (TransactionSegment segment : segments.values()) {
+			segment.close();
+		}
+		segments.clear();
+	}
+
+	/**
+	 * Checks that every cataloged month the read may reach has a local segment
+	 * holding all of its archived rows.
+	 */
+	private void requireSegments(Filter filter, Position after) {
+		for (Map.Entry<YearMonth, Long> archived : archivedMonthRepository.findAll().entrySet()) {
+			YearMonth month = archived.getKey();
+			LocalDateTime start = month.atDay(1).atStartOfDay();
+			LocalDateTime end = month.plusMonths(1).atDay(1).atStartOfDay();
+			if (filter.from() != null && !end.isAfter(filter.from())
+					|| filter.to() != null && !start.isBefore(filter.to())
+					|| after != null && start.isAfter(after.transactionDate())) {
+				continue;
+			}
+			TransactionSegment segment = segments.get(month);
+			if (segment == null || segment.rowCount() != archived.getValue()) {
+				throw new ArchiveUnavailableException(month);
+			}
+		}
+	}
+
+	/**
+	 * First of the newest-first rows that is before both {@code filter.to} and
+	 * the keyset position, found by binary search.
+	 */
+	private static int firstRow(TransactionSegment segment, int[] rows, Filter filter, Position after)
+			throws IOException {
+		if (filter.to() == null && after == null) {
+			return 0;
+		}
+		int low = 0;
+		int high = rows.length;
+		while (low < high) {
+			int mid = (low + high) >>> 1;
+			if (isStart(segment.row(rows[mid]), filter, after)) {
+				high = mid;
+			} else {
+				low = mid + 1;
+			}
+		}
+		return low;
+	}
+
+	private static boolean isStart(Transaction t, Filter filter, Position after) {
+		if (filter.to() != null && !t.getTransactionDate().isBefore(filter.to())) {
+			return false;
+		}
+		if (after == null) {
+			return true;
+		}
+		int byDate = t.getTransactionDate().compareTo(after.transactionDate());
+		return byDate < 0 || byDate == 0 && t.getTransactionId().compareTo(after.transactionId()) < 0;
+	}
+
+	private static TransactionHistoryItemDto toHistoryItem(Transaction t, String accountId) {
+		boolean debit = accountId.equals(t.getAccountId());
+		TransactionHistoryItemDto.TransactionHistoryItemDtoBuilder item = TransactionHistoryItemDto.builder()
+				.transactionId(t.getTransactionId()).type(t.getType())
+				.direction(debit ? Direction.DEBIT : Direction.CREDIT).amount(t.getAmount())
+				.description(t.getDescription()).status(t.getStatus()).transactionDate(t.getTransactionDate());
+		if (debit) {
+			return item.counterpartyAccountId(t.getToAccountId()).fee(t.getFee()).totalAmount(t.getTotalAmount())
+					.cardType(t.getCardType()).balanceAfter(t.getBalanceAfter()).build();
+		}
+		return item.counterpartyAccountId(t.getAccountId()).fee(NO_FEE)
+				.totalAmount(t.getAmount()).build();
+	}
+
+	private void openSegments() {
+		if (!Files.isDirectory(directory)) {
+			return;
+		}
+		try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, FILE_PREFIX + "*" + FILE_SUFFIX)) {
+			for (Path file : files) {
+				try {
+					TransactionSegment segment = TransactionSegment.open(file, config.getCachedBlocks());
+					segments.put(segment.month(), segment);
+				} catch (IOException | RuntimeException ex) {
+					log.error("Skipping unreadable archive segment {}: {}", file, ex.getMessage());
+				}
+			}
+		} catch (IOException ex) {
+			log.error("Could not list archive segments in {}: {}", directory, ex.getMessage());
+		}
+		if (!segments.isEmpty()) {
+			log.info("Opened {} archive segments, {} to {}", segments.size(), segments.firstKey(),
+					segments.lastKey());
+		}
+	}
+}
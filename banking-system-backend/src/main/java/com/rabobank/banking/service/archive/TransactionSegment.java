@@ -0,0 +1,276 @@
+package com.rabobank.banking.service.archive;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.lang.reflect.Array;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+
+/**
+ * Read-only view of one segment file. The account index is memory-mapped and
+ * searched in place; blocks are read and inflated on demand and the most
+ * recently used ones are kept decoded. Safe for concurrent readers.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+final class TransactionSegment implements Closeable {
+
+	private static final int[] NO_ROWS = new int[0];
+
+	private final Path path;
+	private final FileChannel channel;
+	private final MappedByteBuffer index;
+	private final YearMonth month;
+	private final int rowCount;
+	private final int blockRows;
+	private final LocalDateTime oldest;
+	private final LocalDateTime newest;
+	private final Transaction.TransactionType[] types;
+	private final CardType[] cardTypes;
+	private final Transaction.TransactionStatus[] statuses;
+	private final long[][] columnOffsets;
+	private final int[][] compressedLengths;
+	private final int[][] rawLengths;
+	private final int[] blockSizes;
+	private final Map<Integer, Transaction[]> decodedBlocks;
+
+	private final int accountCount;
+	private final int keysStart;
+	private final int postingsStart;
+
+	private TransactionSegment(Path path, FileChannel channel, int cachedBlocks) throws IOException {
+		this.path = path;
+		this.channel = channel;
+		long size = channel.size();
+		if (size < SegmentFormat.MAGIC.length + SegmentFormat.FOOTER_BYTES) {
+			throw new IOException("Segment " + path + " is truncated");
+		}
+		ByteBuffer footer = read(size - SegmentFormat.FOOTER_BYTES, SegmentFormat.FOOTER_BYTES);
+		long metadataOffset = footer.getLong();
+		long indexOffset = footer.getLong();
+		byte[] magic = new byte[SegmentFormat.MAGIC.length];
+		footer.get(magic);
+		if (!Arrays.equals(magic, SegmentFormat.MAGIC)) {
+			throw new IOException("Segment " + path + " has no valid footer");
+		}
+
+		DataInputStream metadata = new DataInputStream(new ByteArrayInputStream(
+				read(metadataOffset, (int) (indexOffset - metadataOffset)).array()));
+		int yearMonth = metadata.readInt();
+		this.month = YearMonth.of(yearMonth / 100, yearMonth % 100);
+		this.rowCount = metadata.readInt();
+		this.blockRows = metadata.readInt();
+		this.oldest = dateTime(metadata.readLong());
+		this.newest = dateTime(metadata.readLong());
+		this.types = readDictionary(metadata, Transaction.TransactionType.class);
+		this.cardTypes = readDictionary(metadata, CardType.class);
+		this.statuses = readDictionary(metadata, Transaction.TransactionStatus.class);
+		int blockCount = metadata.readInt();
+		this.blockSizes = new int[blockCount];
+		this.columnOffsets = new long[blockCount][SegmentFormat.COLUMNS];
+		this.compressedLengths = new int[blockCount][SegmentFormat.COLUMNS];
+		this.rawLengths = new int[blockCount][SegmentFormat.COLUMNS];
+		for (int block = 0; block < blockCount; block++) {
+			blockSizes[block] = metadata.readInt();
+			for (int column = 0; column < SegmentFormat.COLUMNS; column++) {
+				columnOffsets[block][column] = metadata.readLong();
+				compressedLengths[block][column] = metadata.readInt();
+				rawLengths[block][column] = metadata.readInt();
+			}
+		}
+
+		this.index = channel.map(FileChannel.MapMode.READ_ONLY, indexOffset,
+				size - SegmentFormat.FOOTER_BYTES - indexOffset);
+		this.accountCount = index.getInt(0);
+		int keysLength = index.getInt(Integer.BYTES);
+		this.keysStart = 2 * Integer.BYTES + accountCount * SegmentFormat.INDEX_ENTRY_BYTES;
+		this.postingsStart = keysStart + keysLength;
+		this.decodedBlocks = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<Integer, Transaction[]> eldest) {
+				return size() > Math.max(1, cachedBlocks);
+			}
+		};
+	}
+
+	static TransactionSegment open(Path path, int cachedBlocks) throws IOException {
+		FileChannel channel = FileChannel.open(path, StandardOpenOption.READ);
+		try {
+			return new TransactionSegment(path, channel, cachedBlocks);
+		} catch (IOException | RuntimeException ex) {
+			channel.close();
+			throw ex;
+		}
+	}
+
+	Path path() {
+		return path;
+	}
+
+	YearMonth month() {
+		return month;
+	}
+
+	int rowCount() {
+		return rowCount;
+	}
+
+	LocalDateTime oldest() {
+		return oldest;
+	}
+
+	LocalDateTime newest() {
+		return newest;
+	}
+
+	/**
+	 * Rows the account sent or received, newest first, found by binary search
+	 * of the mapped index.
+	 */
+	int[] rowsOf(String accountId) {
+		byte[] key = accountId.getBytes(StandardCharsets.UTF_8);
+		int low = 0;
+		int high = accountCount - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			int entry = 2 * Integer.BYTES + mid * SegmentFormat.INDEX_ENTRY_BYTES;
+			byte[] candidate = new byte[index.getInt(entry + Integer.BYTES)];
+			index.get(keysStart + index.getInt(entry), candidate);
+			int comparison = Arrays.compareUnsigned(candidate, key);
+			if (comparison < 0) {
+				low = mid + 1;
+			} else if (comparison > 0) {
+				high = mid - 1;
+			} else {
+				int start = postingsStart + index.getInt(entry + 2 * Integer.BYTES) * Integer.BYTES;
+				int[] rows = new int[index.getInt(entry + 3 * Integer.BYTES)];
+				for (int i = 0; i < rows.length; i++) {
+					rows[i] = index.getInt(start + i * Integer.BYTES);
+				}
+				return rows;
+			}
+		}
+		return NO_ROWS;
+	}
+
+	Transaction row(int row) throws IOException {
+		return block(row / blockRows)[row % blockRows];
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private Transaction[] block(int block) throws IOException {
+		synchronized (decodedBlocks) {
+			Transaction[] rows = decodedBlocks.get(block);
+			if (rows != null) {
+				return rows;
+			}
+		}
+		Transaction[] rows = decode(block);
+		synchronized (decodedBlocks) {
+			decodedBlocks.put(block, rows);
+		}
+		return rows;
+	}
+
+	private Transaction[] decode(int block) throws IOException {
+		DataInputStream[] columns = new DataInputStream[SegmentFormat.COLUMNS];
+		for (int column = 0; column < SegmentFormat.COLUMNS; column++) {
+			columns[column] = new DataInputStream(new ByteArrayInputStream(inflate(block, column)));
+		}
+		Transaction[] rows = new Transaction[blockSizes[block]];
+		long micros = 0;
+		for (int i = 0; i < rows.length; i++) {
+			long delta = SegmentFormat.readVarLong(columns[SegmentFormat.COL_TRANSACTION_DATE]);
+			micros = i == 0 ? delta : micros + delta;
+			rows[i] = Transaction.builder()
+					.transactionId(SegmentFormat.readNullableString(columns[SegmentFormat.COL_TRANSACTION_ID]))
+					.accountId(SegmentFormat.readNullableString(columns[SegmentFormat.COL_ACCOUNT_ID]))
+					.toAccountId(SegmentFormat.readNullableString(columns[SegmentFormat.COL_TO_ACCOUNT_ID]))
+					.type(types[columns[SegmentFormat.COL_TYPE].readUnsignedByte()])
+					.cardType(cardTypes[columns[SegmentFormat.COL_CARD_TYPE].readUnsignedByte()])
+					.status(statuses[columns[SegmentFormat.COL_STATUS].readUnsignedByte()])
+					.transactionDate(dateTime(micros))
+					.amount(amount(SegmentFormat.readNullableLong(columns[SegmentFormat.COL_AMOUNT])))
+					.fee(amount(SegmentFormat.readNullableLong(columns[SegmentFormat.COL_FEE])))
+					.totalAmount(amount(SegmentFormat.readNullableLong(columns[SegmentFormat.COL_TOTAL_AMOUNT])))
+					.balanceBefore(amount(SegmentFormat.readNullableLong(columns[SegmentFormat.COL_BALANCE_BEFORE])))
+					.balanceAfter(amount(SegmentFormat.readNullableLong(columns[SegmentFormat.COL_BALANCE_AFTER])))
+					.description(SegmentFormat.readNullableString(columns[SegmentFormat.COL_DESCRIPTION])).build();
+		}
+		return rows;
+	}
+
+	private byte[] inflate(int block, int column) throws IOException {
+		ByteBuffer compressed = read(columnOffsets[block][column], compressedLengths[block][column]);
+		byte[] raw = new byte[rawLengths[block][column]];
+		Inflater inflater = new Inflater();
+		try {
+			inflater.setInput(compressed.array());
+			int length = 0;
+			while (length < raw.length && !inflater.finished()) {
+				length += inflater.inflate(raw, length, raw.length - length);
+			}
+			if (length != raw.length) {
+				throw new IOException("Segment " + path + " block " + block + " is corrupt");
+			}
+			return raw;
+		} catch (DataFormatException ex) {
+			throw new IOException("Segment " + path + " block " + block + " is corrupt", ex);
+		} finally {
+			inflater.end();
+		}
+	}
+
+	private ByteBuffer read(long offset, int length) throws IOException {
+		ByteBuffer buffer = ByteBuffer.allocate(length);
+		while (buffer.hasRemaining()) {
+			if (channel.read(buffer, offset + buffer.position()) < 0) {
+				throw new IOException("Segment " + path + " is truncated");
+			}
+		}
+		buffer.flip();
+		return buffer;
+	}
+
+	private static <E extends Enum<E>> E[] readDictionary(DataInputStream in, Class<E> type) throws IOException {
+		@SuppressWarnings("unchecked")
+		E[] values = (E[]) Array.newInstance(type, in.readInt());
+		for (int i = 0; i < values.length; i++) {
+			values[i] = Enum.valueOf(type, in.readUTF());
+		}
+		return values;
+	}
+
+	private static LocalDateTime dateTime(long micros) {
+		return LocalDateTime.ofEpochSecond(Math.floorDiv(micros, 1_000_000L),
+				(int) Math.floorMod(micros, 1_000_000L) * 1_000, ZoneOffset.UTC);
+	}
+
+	private static BigDecimal amount(Long cents) {
+		return cents == null ? null : Money.ofCents(cents).toBigDecimal();
+	}
+}
@@ -0,0 +1,275 @@
+package com.rabobank.banking.service.archive;
+
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.Deflater;
+
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+
+/**
+ * Writes one segment file from rows supplied newest first. Columns are
+ * buffered for one block at a time; only the account postings grow with the
+ * number of rows. The file is complete and synced once {@link #finish()}
+ * returns.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+final class TransactionSegmentWriter implements Closeable {
+
+	private record Block(int rows, long[] offsets, int[] compressedLengths, int[] rawLengths) {
+	}
+
+	/** Ascending row numbers of one account. */
+	private static final class Postings {
+		private int[] rows = new int[4];
+		private int size;
+
+		private void add(int row) {
+			if (size == rows.length) {
+				rows = Arrays.copyOf(rows, size * 2);
+			}
+			rows[size++] = row;
+		}
+	}
+
+	private final FileOutputStream file;
+	private final DataOutputStream out;
+	private final YearMonth month;
+	private final int blockRows;
+	private final ByteArrayOutputStream[] columnBytes = new ByteArrayOutputStream[SegmentFormat.COLUMNS];
+	private final DataOutputStream[] columns = new DataOutputStream[SegmentFormat.COLUMNS];
+	private final List<Map<String, Integer>> dictionaries = new ArrayList<>();
+	private final Map<String, Postings> postings = new HashMap<>();
+	private final List<Block> blocks = new ArrayList<>();
+	private final Deflater deflater = new Deflater();
+	private final byte[] deflateBuffer = new byte[64 * 1024];
+
+	private long position;
+	private int rowCount;
+	private int rowsInBlock;
+	private long previousMicros;
+	private long minMicros = Long.MAX_VALUE;
+	private long maxMicros = Long.MIN_VALUE;
+	private Transaction previous;
+
+	TransactionSegmentWriter(Path path, YearMonth month, int blockRows) throws IOException {
+		this.file = new FileOutputStream(path.toFile());
+		this.out = new DataOutputStream(new BufferedOutputStream(file, 256 * 1024));
+		this.month = month;
+		this.blockRows = blockRows;
+		for (int i = 0; i < SegmentFormat.COLUMNS; i++) {
+			columnBytes[i] = new ByteArrayOutputStream();
+			columns[i] = new DataOutputStream(columnBytes[i]);
+		}
+		for (int i = 0; i < SegmentFormat.DICTIONARIES; i++) {
+			dictionaries.add(new LinkedHashMap<>());
+		}
+		write(SegmentFormat.MAGIC);
+	}
+
+	/**
+	 * Adds the next row.
+	 *
+	 * @throws IllegalArgumentException if the row is newer than the previous one
+	 */
+	void append(Transaction t) throws IOException {
+		if (previous != null && compare(t, previous) > 0) {
+			throw new IllegalArgumentException(
+					"Rows must be newest first: " + t.getTransactionId() + " after " + previous.getTransactionId());
+		}
+		previous = t;
+		int row = rowCount++;
+		long micros = micros(t.getTransactionDate());
+		minMicros = Math.min(minMicros, micros);
+		maxMicros = Math.max(maxMicros, micros);
+
+		SegmentFormat.writeNullableString(columns[SegmentFormat.COL_TRANSACTION_ID], t.getTransactionId());
+		SegmentFormat.writeNullableString(columns[SegmentFormat.COL_ACCOUNT_ID], t.getAccountId());
+		SegmentFormat.writeNullableString(columns[SegmentFormat.COL_TO_ACCOUNT_ID], t.getToAccountId());
+		columns[SegmentFormat.COL_TYPE].writeByte(code(SegmentFormat.DICT_TYPE, t.getType().name()));
+		columns[SegmentFormat.COL_CARD_TYPE].writeByte(code(SegmentFormat.DICT_CARD_TYPE, t.getCardType().name()));
+		columns[SegmentFormat.COL_STATUS].writeByte(code(SegmentFormat.DICT_STATUS, t.getStatus().name()));
+		SegmentFormat.writeVarLong(columns[SegmentFormat.COL_TRANSACTION_DATE],
+				rowsInBlock == 0 ? micros : micros - previousMicros);
+		previousMicros = micros;
+		SegmentFormat.writeNullableLong(columns[SegmentFormat.COL_AMOUNT], cents(t.getAmount()));
+		SegmentFormat.writeNullableLong(columns[SegmentFormat.COL_FEE], cents(t.getFee()));
+		SegmentFormat.writeNullableLong(columns[SegmentFormat.COL_TOTAL_AMOUNT], cents(t.getTotalAmount()));
+		SegmentFormat.writeNullableLong(columns[SegmentFormat.COL_BALANCE_BEFORE], cents(t.getBalanceBefore()));
+		SegmentFormat.writeNullableLong(columns[SegmentFormat.COL_BALANCE_AFTER], cents(t.getBalanceAfter()));
+		SegmentFormat.writeNullableString(columns[SegmentFormat.COL_DESCRIPTION], t.getDescription());
+
+		postings.computeIfAbsent(t.getAccountId(), id -> new Postings()).add(row);
+		if (t.getToAccountId() != null && !t.getToAccountId().equals(t.getAccountId())) {
+			postings.computeIfAbsent(t.getToAccountId(), id -> new Postings()).add(row);
+		}
+		if (++rowsInBlock == blockRows) {
+			flushBlock();
+		}
+	}
+
+	/**
+	 * Writes the last block, the metadata, the account index and the footer,
+	 * and syncs the file.
+	 */
+	void finish() throws IOException {
+		if (rowsInBlock > 0) {
+			flushBlock();
+		}
+		if (rowCount == 0) {
+			minMicros = micros(month.atDay(1).atStartOfDay());
+			maxMicros = minMicros;
+		}
+		long metadataOffset = position;
+		ByteArrayOutputStream metadataBytes = new ByteArrayOutputStream();
+		DataOutputStream metadata = new DataOutputStream(metadataBytes);
+		metadata.writeInt(month.getYear() * 100 + month.getMonthValue());
+		metadata.writeInt(rowCount);
+		metadata.writeInt(blockRows);
+		metadata.writeLong(minMicros);
+		metadata.writeLong(maxMicros);
+		for (Map<String, Integer> dictionary : dictionaries) {
+			metadata.writeInt(dictionary.size());
+			for (String value : dictionary.keySet()) {
+				metadata.writeUTF(value);
+			}
+		}
+		metadata.writeInt(blocks.size());
+		for (Block block : blocks) {
+			metadata.writeInt(block.rows());
+			for (int column = 0; column < SegmentFormat.COLUMNS; column++) {
+				metadata.writeLong(block.offsets()[column]);
+				metadata.writeInt(block.compressedLengths()[column]);
+				metadata.writeInt(block.rawLengths()[column]);
+			}
+		}
+		metadata.flush();
+		write(metadataBytes.toByteArray());
+
+		long indexOffset = position;
+		writeIndex();
+
+		out.writeLong(metadataOffset);
+		out.writeLong(indexOffset);
+		out.write(SegmentFormat.MAGIC);
+		out.flush();
+		file.getFD().sync();
+	}
+
+	@Override
+	public void close() throws IOException {
+		deflater.end();
+		out.close();
+	}
+
+	private void writeIndex() throws IOException {
+		byte[][] keys = postings.keySet().stream().map(id -> id.getBytes(StandardCharsets.UTF_8))
+				.sorted(Arrays::compareUnsigned).toArray(byte[][]::new);
+		int keysLength = 0;
+		for (byte[] key : keys) {
+			keysLength += key.length;
+		}
+		// Written straight to the file; postings can be as large as two ints per row
+		DataOutputStream index = out;
+		index.writeInt(keys.length);
+		index.writeInt(keysLength);
+		int keyOffset = 0;
+		int postingsStart = 0;
+		for (byte[] key : keys) {
+			Postings rows = postings.get(new String(key, StandardCharsets.UTF_8));
+			index.writeInt(keyOffset);
+			index.writeInt(key.length);
+			index.writeInt(postingsStart);
+			index.writeInt(rows.size);
+			keyOffset += key.length;
+			postingsStart += rows.size;
+		}
+		for (byte[] key : keys) {
+			index.write(key);
+		}
+		for (byte[] key : keys) {
+			Postings rows = postings.get(new String(key, StandardCharsets.UTF_8));
+			for (int i = 0; i < rows.size; i++) {
+				index.writeInt(rows.rows[i]);
+			}
+		}
+		position += 2L * Integer.BYTES + (long) keys.length * SegmentFormat.INDEX_ENTRY_BYTES + keysLength
+				+ (long) postingsStart * Integer.BYTES;
+	}
+
+	private void flushBlock() throws IOException {
+		long[] offsets = new long[SegmentFormat.COLUMNS];
+		int[] compressedLengths = new int[SegmentFormat.COLUMNS];
+		int[] rawLengths = new int[SegmentFormat.COLUMNS];
+		for (int column = 0; column < SegmentFormat.COLUMNS; column++) {
+			columns[column].flush();
+			byte[] raw = columnBytes[column].toByteArray();
+			byte[] compressed = deflate(raw);
+			offsets[column] = position;
+			compressedLengths[column] = compressed.length;
+			rawLengths[column] = raw.length;
+			write(compressed);
+			columnBytes[column].reset();
+		}
+		blocks.add(new Block(rowsInBlock, offsets, compressedLengths, rawLengths));
+		rowsInBlock = 0;
+	}
+
+	private byte[] deflate(byte[] raw) {
+		deflater.reset();
+		deflater.setInput(raw);
+		deflater.finish();
+		ByteArrayOutputStream compressed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+		while (!deflater.finished()) {
+			int length = deflater.deflate(deflateBuffer);
+			compressed.write(deflateBuffer, 0, length);
+		}
+		return compressed.toByteArray();
+	}
+
+	private void write(byte[] bytes) throws IOException {
+		out.write(bytes);
+		position += bytes.length;
+	}
+
+	private int code(int dictionary, String value) {
+		Map<String, Integer> codes = dictionaries.get(dictionary);
+		Integer code = codes.get(value);
+		if (code == null) {
+			code = codes.size();
+			codes.put(value, code);
+		}
+		return code;
+	}
+
+	static long micros(LocalDateTime dateTime) {
+		return dateTime.toEpochSecond(ZoneOffset.UTC) * 1_000_000L + dateTime.getNano() / 1_000;
+	}
+
+	private static Long cents(BigDecimal amount) {
+		return amount == null ? null : Money.of(amount).cents();
+	}
+
+	private static int compare(Transaction a, Transaction b) {
+		int byDate = a.getTransactionDate().compareTo(b.getTransactionDate());
+		return byDate != 0 ? byDate : a.getTransactionId().compareTo(b.getTransactionId());
+	}
+}
@@ -0,0 +1,125 @@
+package com.rabobank.banking.service.card;
+
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Fixed-size Bloom filter over strings. Answers "definitely absent" or
+ * "possibly present"; there are no false negatives. Sized from the expected
+ * number of entries and the target false-positive rate, and safe for
+ * concurrent adds and lookups.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public final class BloomFilter {
+
+	private final AtomicLongArray words;
+	private final long bitSize;
+	private final int hashFunctions;
+	private final AtomicLong added = new AtomicLong();
+
+	/**
+	 * @param expectedEntries   entries at which the false-positive rate is reached
+	 * @param falsePositiveRate target rate, between 0 and 1 exclusive
+	 */
+	public BloomFilter(long expectedEntries, double falsePositiveRate) {
+		if (expectedEntries <= 0) {
+			throw new IllegalArgumentException("Expected entries must be positive");
+		}
+		if (falsePositiveRate <= 0 || falsePositiveRate >= 1) {
+			throw new IllegalArgumentException("False-positive rate must be between 0 and 1");
+		}
+		long bits = optimalBits(expectedEntries, falsePositiveRate);
+		this.words = new AtomicLongArray(Math.toIntExact((bits + 63) / 64));
+		this.bitSize = (long) words.length() * 64;
+		this.hashFunctions = optimalHashFunctions(expectedEntries, bitSize);
+	}
+
+	/**
+	 * Bits needed for {@code n} entries at rate {@code p}: -n ln p / (ln 2)^2.
+	 */
+	static long optimalBits(long n, double p) {
+		return Math.max(64, (long) Math.ceil(-n * Math.log(p) / (Math.log(2) * Math.log(2))));
+	}
+
+	static int optimalHashFunctions(long n, long m) {
+		return Math.max(1, (int) Math.round((double) m / n * Math.log(2)));
+	}
+
+	public void put(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashFunctions; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+			int word = (int) (bit >>> 6);
+			long mask = 1L << bit;
+			long current;
+			while (((current = words.get(word)) & mask) == 0) {
+				if (words.compareAndSet(word, current, current | mask)) {
+					break;
+				}
+			}
+		}
+		added.incrementAndGet();
+	}
+
+	public boolean mightContain(String value) {
+		long hash1 = hash(value);
+		long hash2 = mix(hash1 ^ 0x9E3779B97F4A7C15L) | 1;
+		for (int i = 0; i < hashFunctions; i++) {
+			long bit = Math.floorMod(hash1 + i * hash2, bitSize);
+			if ((words.get((int) (bit >>> 6)) & (1L << bit)) == 0) {
+				return false;
+			}
+		}
+		return true;
+	}
+
+	/**
+	 * Expected false-positive rate for the entries added so far:
+	 * (1 - e^(-kn/m))^k.
+	 */
+	public double expectedFalsePositiveRate() {
+		return Math.pow(1 - Math.exp(-hashFunctions * (double) added.get() / bitSize), hashFunctions);
+	}
+
+	public long bitSize() {
+		return bitSize;
+	}
+
+	public long memoryBytes() {
+		return bitSize / 8;
+	}
+
+	public int hashFunctions() {
+		return hashFunctions;
+	}
+
+	/** Entries added, counting duplicates. */
+	public long addedEntries() {
+		return added.get();
+	}
+
+	/**
+	 * FNV-1a over the UTF-8 bytes, finished with the MurmurHash3 mixer.
+	 */
+	private static long hash(String value) {
+		long hash = 0xcbf29ce484222325L;
+		for (byte b : value.getBytes(StandardCharsets.UTF_8)) {
+			hash ^= b;
+			hash *= 0x100000001b3L;
+		}
+		return mix(hash);
+	}
+
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+}
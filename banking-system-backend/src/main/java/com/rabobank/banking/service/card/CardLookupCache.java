@@ -0,0 +1,157 @@
+package com.rabobank.banking.service.card;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.rabobank.banking.config.CardProperties;
+import com.rabobank.banking.repository.CardDetails;
+import com.rabobank.banking.repository.CardRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+
+/**
+ * Bounded LRU of {@link CardDetails} keyed by card number, so that the card
+ * check of a withdraw or transfer needs no query once the card has been seen.
+ *
+ * Entries are dropped whenever a card is updated or deleted through Hibernate
+ * (see {@code CardEventListenerConfig}), once when the change is flushed and
+ * again after the transaction completes. Every invalidation bumps a generation
+ * counter, and a lookup only caches what it loaded if no invalidation happened
+ * while it was loading, so a load that read the old row cannot overwrite a
+ * newer invalidation. Other instances do not see these invalidations; entries
+ * expire {@code ttl} after they were loaded, which bounds how long a change
+ * made elsewhere can go unnoticed. Unknown card numbers are not cached.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+public class CardLookupCache {
+
+	private record Entry(CardDetails details, long loadedAt) {
+	}
+
+	private final CardRepository cardRepository;
+	private final CardProperties.Cache config;
+	private final long ttlNanos;
+	private final Map<String, Entry> cache;
+	/** Card number each cached card id is stored under; guarded by {@code cache}. */
+	private final Map<Long, String> numberById = new HashMap<>();
+	private final Counter hits;
+	private final Counter misses;
+	private final Counter evictions;
+	/** Bumped on every invalidation; guarded by {@code cache}. */
+	private long generation;
+
+	public CardLookupCache(CardRepository cardRepository, CardProperties properties, MeterRegistry meterRegistry) {
+		this.cardRepository = cardRepository;
+		this.config = properties.getCache();
+		this.ttlNanos = config.getTtl().toNanos();
+		this.hits = meterRegistry.counter("banking.card.cache.hits");
+		this.misses = meterRegistry.counter("banking.card.cache.misses");
+		this.evictions = meterRegistry.counter("banking.card.cache.evictions");
+		int maxSize = config.getMaxSize();
+		this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+			@Override
+			protected boolean removeEldestEntry(Map.Entry<String, Entry> eldest) {
+				if (size() > maxSize) {
+					evictions.increment();
+					numberById.remove(eldest.getValue().details().id(), eldest.getKey());
+					return true;
+				}
+				return false;
+			}
+		};
+		Gauge.builder("banking.card.cache.size", this, CardLookupCache::size).register(meterRegistry);
+	}
+
+	/**
+	 * Details of the card with this number, from the cache or the database.
+	 */
+	public Optional<CardDetails> get(String cardNumber) {
+		if (!config.isEnabled()) {
+			return cardRepository.findDetailsByCardNumber(cardNumber);
+		}
+		long loadedAt = System.nanoTime();
+		long loadGeneration;
+		synchronized (cache) {
+			Entry cached = cache.get(cardNumber);
+			if (cached != null) {
+				if (loadedAt - cached.loadedAt() < ttlNanos) {
+					hits.increment();
+					return Optional.of(cached.details());
+				}
+				remove(cardNumber);
+			}
+			loadGeneration = generation;
+		}
+		misses.increment();
+		Optional<CardDetails> loaded = cardRepository.findDetailsByCardNumber(cardNumber);
+		loaded.ifPresent(details -> {
+			synchronized (cache) {
+				if (generation == loadGeneration) {
+					put(cardNumber, new Entry(details, loadedAt));
+				}
+			}
+		});
+		return loaded;
+	}
+
+	/**
+	 * Drops the card now and, inside a transaction, again after it completes.
+	 */
+	public void invalidate(Long cardId, String cardNumber) {
+		evict(cardId, cardNumber);
+		if (TransactionSynchronizationManager.isSynchronizationActive()) {
+			TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronization() {
+				@Override
+				public void afterCompletion(int status) {
+					evict(cardId, cardNumber);
+				}
+			});
+		}
+	}
+
+	public int size() {
+		synchronized (cache) {
+			return cache.size();
+		}
+	}
+
+	private void evict(Long cardId, String cardNumber) {
+		synchronized (cache) {
+			generation++;
+			remove(cardNumber);
+			// Also catches a changed card number, cached under the old one
+			if (cardId != null) {
+				String cachedNumber = numberById.remove(cardId);
+				if (cachedNumber != null) {
+					cache.remove(cachedNumber);
+				}
+			}
+		}
+	}
+
+	private void put(String cardNumber, Entry entry) {
+		cache.put(cardNumber, entry);
+		String previousNumber = numberById.put(entry.details().id(), cardNumber);
+		if (previousNumber != null && !previousNumber.equals(cardNumber)) {
+			cache.remove(previousNumber);
+		}
+	}
+
+	private void remove(String cardNumber) {
+		Entry removed = cache.remove(cardNumber);
+		if (removed != null) {
+			numberById.remove(removed.details().id(), cardNumber);
+		}
+	}
+}
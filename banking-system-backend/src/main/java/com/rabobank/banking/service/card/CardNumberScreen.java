@@ -0,0 +1,193 @@
+package com.rabobank.banking.service.card;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.ToDoubleFunction;
+
+import org.springframework.context.SmartLifecycle;
+import org.springframework.stereotype.Component;
+
+import com.rabobank.banking.config.CardProperties;
+import com.rabobank.banking.domain.exception.InvalidCardException;
+import com.rabobank.banking.repository.CardNumberJdbcRepository;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Rejects card numbers that cannot belong to a card before a withdraw or
+ * transfer opens a transaction or takes a connection: optionally numbers
+ * failing the Luhn checksum, and numbers absent from a {@link BloomFilter} of
+ * all known cards.
+ *
+ * The filter is built from the {@code cards} table in the background at
+ * startup and rebuilt every {@code refresh-interval}; cards inserted through
+ * JPA on this instance are added immediately. Until the first build completes
+ * every number passes. Rejections raise the same "Card not found" error as
+ * the database lookup.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@Slf4j
+public class CardNumberScreen implements SmartLifecycle {
+
+	private final CardNumberJdbcRepository cardNumberRepository;
+	private final CardProperties properties;
+	private final CardProperties.Filter config;
+	private final Counter rejectedLuhn;
+	private final Counter rejectedUnknown;
+	private final Object swapLock = new Object();
+
+	private volatile BloomFilter filter;
+	private List<String> registeredDuringBuild;
+	private ScheduledExecutorService loader;
+	private volatile boolean running;
+
+	public CardNumberScreen(CardNumberJdbcRepository cardNumberRepository, CardProperties properties,
+			MeterRegistry meterRegistry) {
+		this.cardNumberRepository = cardNumberRepository;
+		this.properties = properties;
+		this.config = properties.getFilter();
+		this.rejectedLuhn = meterRegistry.counter("banking.card.screen.rejected", "reason", "luhn");
+		this.rejectedUnknown = meterRegistry.counter("banking.card.screen.rejected", "reason", "unknown");
+		Gauge.builder("banking.card.filter.memory", this, screen -> screen.filterStat(BloomFilter::memoryBytes))
+				.baseUnit("bytes").register(meterRegistry);
+		Gauge.builder("banking.card.filter.cards", this, screen -> screen.filterStat(BloomFilter::addedEntries))
+				.register(meterRegistry);
+		Gauge.builder("banking.card.filter.false.positive.rate", this,
+				screen -> screen.filterStat(BloomFilter::expectedFalsePositiveRate)).register(meterRegistry);
+	}
+
+	/**
+	 * @throws InvalidCardException if the number definitely belongs to no card
+	 */
+	public void check(String cardNumber) {
+		if (properties.isLuhnCheckEnabled() && !passesLuhn(cardNumber)) {
+			rejectedLuhn.increment();
+			throw new InvalidCardException("Card not found");
+		}
+		BloomFilter current = filter;
+		if (current != null && !current.mightContain(cardNumber)) {
+			rejectedUnknown.increment();
+			throw new InvalidCardException("Card not found");
+		}
+	}
+
+	/**
+	 * Adds a newly inserted card number.
+	 */
+	public void register(String cardNumber) {
+		synchronized (swapLock) {
+			if (filter != null) {
+				filter.put(cardNumber);
+			}
+			if (registeredDuringBuild != null) {
+				registeredDuringBuild.add(cardNumber);
+			}
+		}
+	}
+
+	/**
+	 * Builds a new filter from the table and swaps it in. Numbers registered
+	 * while the table was being read are replayed into the new filter.
+	 */
+	void rebuild() {
+		synchronized (swapLock) {
+			registeredDuringBuild = new ArrayList<>();
+		}
+		try {
+			long start = System.nanoTime();
+			BloomFilter built = new BloomFilter(config.getExpectedCards(), config.getFalsePositiveRate());
+			long cards = cardNumberRepository.forEachCardNumber(config.getLoadPageSize(), built::put);
+			synchronized (swapLock) {
+				registeredDuringBuild.forEach(built::put);
+				filter = built;
+			}
+			log.info("Card filter built: {} cards, {} KB, {} hash functions, expected false-positive rate {} ({} ms)",
+					cards, built.memoryBytes() / 1024, built.hashFunctions(),
+					String.format("%.5f", built.expectedFalsePositiveRate()),
+					TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start));
+			if (cards > config.getExpectedCards()) {
+				log.warn("Card filter holds {} cards but is sized for {}; raise banking.card.filter.expected-cards",
+						cards, config.getExpectedCards());
+			}
+		} catch (RuntimeException ex) {
+			log.warn("Could not build card filter, card numbers are not pre-screened: {}", ex.getMessage());
+		} finally {
+			synchronized (swapLock) {
+				registeredDuringBuild = null;
+			}
+		}
+	}
+
+	private double filterStat(ToDoubleFunction<BloomFilter> stat) {
+		BloomFilter current = filter;
+		return current == null ? 0 : stat.applyAsDouble(current);
+	}
+
+	/**
+	 * Luhn (mod 10) checksum over a string of digits.
+	 */
+	public static boolean passesLuhn(String cardNumber) {
+		if (cardNumber == null || cardNumber.isEmpty()) {
+			return false;
+		}
+		int sum = 0;
+		boolean doubled = false;
+		for (int i = cardNumber.length() - 1; i >= 0; i--) {
+			int digit = cardNumber.charAt(i) - '0';
+			if (digit < 0 || digit > 9) {
+				return false;
+			}
+			if (doubled) {
+				digit *= 2;
+				if (digit > 9) {
+					digit -= 9;
+				}
+			}
+			sum += digit;
+			doubled = !doubled;
+		}
+		return sum % 10 == 0;
+	}
+
+	@Override
+	public void start() {
+		running = true;
+		if (!config.isEnabled()) {
+			return;
+		}
+		loader = Executors.newSingleThreadScheduledExecutor(runnable -> {
+			Thread thread = new Thread(runnable, "card-filter-loader");
+			thread.setDaemon(true);
+			return thread;
+		});
+		long refreshMillis = config.getRefreshInterval().toMillis();
+		if (refreshMillis > 0) {
+			loader.scheduleWithFixedDelay(this::rebuild, 0, refreshMillis, TimeUnit.MILLISECONDS);
+		} else {
+			loader.execute(this::rebuild);
+		}
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		if (loader != null) {
+			loader.shutdownNow();
+			loader = null;
+		}
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+}
@@ -0,0 +1,99 @@
+package com.rabobank.banking.service.id;
+
+import java.time.Instant;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import com.rabobank.banking.config.TransactionProperties;
+
+/**
+ * Snowflake-style ids: 41 bits of milliseconds since 2024-01-01, a 12-bit
+ * per-millisecond sequence and a 10-bit node id, rendered as 13 fixed-width
+ * Crockford base32 characters after the {@code TXN-} prefix. Ids from one
+ * node sort in generation order, so inserts append to the right edge of the
+ * primary key index. Opt-in with {@code banking.transaction.id.strategy:
+ * time-ordered}, which the bundled application.yml sets.
+ *
+ * Generation is lock-free: the last issued (time, sequence) pair lives in one
+ * {@link AtomicLong}. When a millisecond's 4096 sequence values run out the
+ * counter borrows from the next millisecond instead of waiting, and a clock
+ * that steps backwards is ignored, so ids never repeat or go backwards.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@ConditionalOnProperty(prefix = "banking.transaction.id", name = "strategy", havingValue = "time-ordered")
+public class TimeOrderedTransactionIdGenerator implements TransactionIdGenerator {
+
+	static final long EPOCH_MILLIS = Instant.parse("2024-01-01T00:00:00Z").toEpochMilli();
+	static final int NODE_BITS = 10;
+	static final int SEQUENCE_BITS = 12;
+	static final int MAX_NODE_ID = (1 << NODE_BITS) - 1;
+
+	private static final String DIGITS = "0123456789ABCDEFGHJKMNPQRSTVWXYZ";
+	private static final char[] ALPHABET = DIGITS.toCharArray();
+	private static final int ENCODED_LENGTH = 13;
+
+	private final long nodeId;
+	private final AtomicLong lastTimeAndSequence = new AtomicLong();
+
+	@Autowired
+	public TimeOrderedTransactionIdGenerator(TransactionProperties properties) {
+		this(properties.getId().getNodeId());
+	}
+
+	TimeOrderedTransactionIdGenerator(int nodeId) {
+		if (nodeId < 0 || nodeId > MAX_NODE_ID) {
+			throw new IllegalArgumentException("Transaction id node id must be between 0 and " + MAX_NODE_ID);
+		}
+		this.nodeId = nodeId;
+	}
+
+	@Override
+	public String nextId() {
+		return encode(nextValue());
+	}
+
+	@Override
+	public Optional<Instant> timestampOf(String transactionId) {
+		if (transactionId == null || transactionId.length() != PREFIX.length() + ENCODED_LENGTH
+				|| !transactionId.startsWith(PREFIX)) {
+			return Optional.empty();
+		}
+		long value = 0;
+		for (int i = PREFIX.length(); i < transactionId.length(); i++) {
+			int digit = DIGITS.indexOf(transactionId.charAt(i));
+			if (digit < 0) {
+				return Optional.empty();
+			}
+			value = value << 5 | digit;
+		}
+		return Optional.of(Instant.ofEpochMilli((value >>> (NODE_BITS + SEQUENCE_BITS)) + EPOCH_MILLIS));
+	}
+
+	long nextValue() {
+		long now = (System.currentTimeMillis() - EPOCH_MILLIS) << SEQUENCE_BITS;
+		long previous;
+		long next;
+		do {
+			previous = lastTimeAndSequence.get();
+			next = Math.max(now, previous + 1);
+		} while (!lastTimeAndSequence.compareAndSet(previous, next));
+		return next << NODE_BITS | nodeId;
+	}
+
+	static String encode(long value) {
+		char[] chars = new char[PREFIX.length() + ENCODED_LENGTH];
+		PREFIX.getChars(0, PREFIX.length(), chars, 0);
+		for (int i = chars.length - 1; i >= PREFIX.length(); i--) {
+			chars[i] = ALPHABET[(int) (value & 31)];
+			value >>>= 5;
+		}
+		return new String(chars);
+	}
+}
@@ -0,0 +1,32 @@
+package com.rabobank.banking.service.id;
+
+import java.time.Instant;
+import java.util.Optional;
+
+/**
+ * Source of primary keys for new transactions. Selected with
+ * {@code banking.transaction.id.strategy}.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public interface TransactionIdGenerator {
+
+	/** Prefix shared by every transaction id format. */
+	String PREFIX = "TXN-";
+
+	/**
+	 * @return a new id, unique across all instances sharing the database
+	 */
+	String nextId();
+
+	/**
+	 * Time the id was generated at, for formats that record it.
+	 *
+	 * @return empty if the format records no time or the id isn't of this
+	 *         format
+	 */
+	default Optional<Instant> timestampOf(String transactionId) {
+		return Optional.empty();
+	}
+}
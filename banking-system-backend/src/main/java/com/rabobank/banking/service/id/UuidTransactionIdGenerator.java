@@ -0,0 +1,25 @@
+package com.rabobank.banking.service.id;
+
+import java.util.UUID;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+/**
+ * Original {@code TXN-<random uuid>} format. Ids are random, so inserts land
+ * all over the primary key index. Used when no strategy is configured, so
+ * deployments relying on the format keep it.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@ConditionalOnProperty(prefix = "banking.transaction.id", name = "strategy", havingValue = "uuid",
+		matchIfMissing = true)
+public class UuidTransactionIdGenerator implements TransactionIdGenerator {
+
+	@Override
+	public String nextId() {
+		return PREFIX + UUID.randomUUID().toString();
+	}
+}
@@ -0,0 +1,544 @@
+package com.rabobank.banking.service.ledger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.SmartLifecycle;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.RecoverableDataAccessException;
+import org.springframework.dao.TransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.CannotCreateTransactionException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.config.LedgerProperties;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.BankingException;
+import com.rabobank.banking.domain.exception.ConcurrencyConflictException;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.repository.LedgerJdbcRepository;
+
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Ledger engine that keeps balances of all known accounts in memory as cents
+ * indexed by an int slot, and applies postings on a single writer thread.
+ *
+ * Postings are applied in batches: every posting in a batch is checked and
+ * applied in memory, the batch is appended to the journal with one fsync, and
+ * only then are callers released. A failed fsync reverts the batch. Durable
+ * postings are written to Postgres asynchronously, in journal order, by a
+ * second thread; on startup any journaled posting missing from Postgres is
+ * re-applied and re-queued.
+ *
+ * A caller whose posting is still queued when {@code posting-timeout} runs out
+ * withdraws it, so a timed-out posting is never applied. Once the writer has
+ * taken a posting the caller waits for its outcome. Accounts the engine hasn't
+ * seen yet are loaded by the caller before queuing, so the writer never waits
+ * on the database. If Postgres rejects a batch for a reason retrying won't
+ * fix, persisting stops and new postings are refused until the cause is fixed
+ * and the application restarted; the journal keeps everything for replay.
+ * The client that posted is remembered until Postgres has the posting, and its
+ * write is recorded for read-your-writes routing only then.
+ *
+ * Enabled with {@code banking.ledger.engine=in-memory}. While it is enabled it
+ * must be the only writer of account balances.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Component
+@ConditionalOnProperty(prefix = "banking.ledger", name = "engine", havingValue = "in-memory")
+@Slf4j
+public class InMemoryLedgerEngine implements LedgerEngine, SmartLifecycle {
+
+	private static final int LOOKUP_CHUNK = 1000;
+
+	private final LedgerProperties properties;
+	private final LedgerJdbcRepository ledgerJdbcRepository;
+	private final TransactionTemplate transactionTemplate;
+	private final ObjectProvider<ClientWriteTracker> writeTracker;
+	private final BlockingQueue<PendingPosting> postingQueue;
+	private final BlockingQueue<LedgerJournal.Entry> persistQueue = new LinkedBlockingQueue<>();
+	private final AtomicLong persistedSequence = new AtomicLong();
+	/** Client of each queued posting that had one, by journal sequence, until it is persisted. */
+	private final Map<Long, String> clientBySequence = new ConcurrentHashMap<>();
+	private final Timer fsyncTimer;
+	private final MeterRegistry meterRegistry;
+
+	// Written by the writer thread only once started; read by callers to skip loading known accounts
+	private final Map<String, Integer> slots = new ConcurrentHashMap<>();
+	private long[] balances = new long[1024];
+	private long[] undo = new long[256];
+	private int undoSize;
+	private long sequence;
+
+	private volatile long journaledSequence;
+	private volatile boolean running;
+	private volatile boolean halted;
+	private LedgerJournal journal;
+	private Thread writer;
+	private Thread persister;
+
+	/**
+	 * A queued posting, the client that posted it and the balances, in cents,
+	 * of its accounts that the engine didn't hold yet when it was queued.
+	 * Either the writer or the timed-out caller claims it, never both.
+	 */
+	private record PendingPosting(Transaction transaction, String client, Map<String, Long> loadedBalances,
+			CompletableFuture<Transaction> result, AtomicBoolean claimed) {
+
+		boolean claim() {
+			return claimed.compareAndSet(false, true);
+		}
+	}
+
+	public InMemoryLedgerEngine(LedgerProperties properties, LedgerJdbcRepository ledgerJdbcRepository,
+			PlatformTransactionManager transactionManager, MeterRegistry meterRegistry,
+			ObjectProvider<ClientWriteTracker> writeTracker) {
+		this.properties = properties;
+		this.writeTracker = writeTracker;
+		this.ledgerJdbcRepository = ledgerJdbcRepository;
+		this.transactionTemplate = new TransactionTemplate(transactionManager);
+		this.postingQueue = new ArrayBlockingQueue<>(properties.getQueueCapacity());
+		this.fsyncTimer = meterRegistry.timer("banking.ledger.journal.fsync");
+		this.meterRegistry = meterRegistry;
+		Gauge.builder("banking.ledger.queue.depth", postingQueue, BlockingQueue::size).register(meterRegistry);
+		Gauge.builder("banking.ledger.persist.lag", this, e -> e.journaledSequence - e.persistedSequence.get())
+				.register(meterRegistry);
+		Gauge.builder("banking.ledger.persist.halted", this, e -> e.halted ? 1 : 0)
+				.description("1 when persisting stopped on an error that retrying can't fix").register(meterRegistry);
+	}
+
+	@Override
+	public Transaction post(Transaction transaction) {
+		if (!running || halted) {
+			throw new BankingException("Ledger engine is not running", "LEDGER_UNAVAILABLE");
+		}
+		ClientWriteTracker tracker = writeTracker.getIfAvailable();
+		PendingPosting pending = new PendingPosting(transaction, tracker != null ? tracker.currentClient() : null,
+				loadUnknownAccounts(transaction), new CompletableFuture<>(), new AtomicBoolean());
+		if (!postingQueue.offer(pending)) {
+			throw new ConcurrencyConflictException("Ledger is at capacity, please retry");
+		}
+		try {
+			try {
+				return pending.result().get(properties.getPostingTimeout().toMillis(), TimeUnit.MILLISECONDS);
+			} catch (TimeoutException ex) {
+				if (pending.claim()) {
+					// Withdrawn before the writer took it: it will never be applied
+					pending.result().cancel(false);
+					throw new BankingException("Ledger posting did not complete in time", "LEDGER_TIMEOUT", ex);
+				}
+				// The writer is applying it; its outcome follows within one batch
+				return pending.result().get();
+			}
+		} catch (ExecutionException ex) {
+			if (ex.getCause() instanceof RuntimeException runtime) {
+				throw runtime;
+			}
+			throw new BankingException("Ledger posting failed", "LEDGER_UNAVAILABLE", ex.getCause());
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			throw new BankingException("Interrupted while waiting for ledger", "LEDGER_UNAVAILABLE", ex);
+		}
+	}
+
+	/**
+	 * Balances of the posting's accounts that have no slot yet, read on the
+	 * caller's thread. While the engine is the only writer, the stored balance
+	 * of an account it hasn't seen is current.
+	 *
+	 * @throws AccountNotFoundException if an account doesn't exist
+	 */
+	private Map<String, Long> loadUnknownAccounts(Transaction transaction) {
+		Map<String, Long> loaded = new HashMap<>(2);
+		loadIfUnknown(transaction.getAccountId(), loaded);
+		if (transaction.getType() == Transaction.TransactionType.TRANSFER) {
+			loadIfUnknown(transaction.getToAccountId(), loaded);
+		}
+		return loaded;
+	}
+
+	private void loadIfUnknown(String accountId, Map<String, Long> loaded) {
+		if (!slots.containsKey(accountId)) {
+			BigDecimal balance = ledgerJdbcRepository.findBalance(accountId)
+					.orElseThrow(() -> new AccountNotFoundException(accountId));
+			loaded.put(accountId, Money.of(balance).cents());
+		}
+	}
+
+	/**
+	 * Current in-memory balance, for diagnostics and tests. Not synchronized
+	 * with the writer thread.
+	 */
+	public Optional<BigDecimal> getBalance(String accountId) {
+		Integer slot = slots.get(accountId);
+		return slot == null ? Optional.empty() : Optional.of(Money.ofCents(balances[slot]).toBigDecimal());
+	}
+
+	@Override
+	public void start() {
+		try {
+			journal = new LedgerJournal(properties.getJournalPath());
+			ledgerJdbcRepository.findActiveBalances().forEach((accountId, balance) -> slot(accountId,
+					Money.of(balance).cents()));
+			replayJournal();
+		} catch (IOException ex) {
+			throw new UncheckedIOException("Could not open ledger journal " + properties.getJournalPath(), ex);
+		}
+		running = true;
+		writer = new Thread(this::writeLoop, "ledger-writer");
+		persister = new Thread(this::persistLoop, "ledger-persister");
+		writer.start();
+		persister.start();
+		log.info("In-memory ledger started with {} accounts, journal {}", slots.size(), properties.getJournalPath());
+	}
+
+	@Override
+	public void stop() {
+		running = false;
+		join(writer);
+		join(persister);
+		try {
+			if (journal != null) {
+				journal.close();
+			}
+		} catch (IOException ex) {
+			log.warn("Could not close ledger journal", ex);
+		}
+		log.info("In-memory ledger stopped at sequence {}, persisted up to {}", journaledSequence,
+				persistedSequence.get());
+	}
+
+	@Override
+	public boolean isRunning() {
+		return running;
+	}
+
+	@Override
+	public int getPhase() {
+		// Start before the web server accepts requests, stop after it has drained
+		return 0;
+	}
+
+	private void replayJournal() throws IOException {
+		List<LedgerJournal.Entry> entries = journal.replay();
+		Set<String> persisted = new HashSet<>();
+		for (int i = 0; i < entries.size(); i += LOOKUP_CHUNK) {
+			List<String> ids = entries.subList(i, Math.min(entries.size(), i + LOOKUP_CHUNK)).stream()
+					.map(e -> e.transaction().getTransactionId()).toList();
+			persisted.addAll(ledgerJdbcRepository.findExistingTransactionIds(ids));
+		}
+
+		int replayed = 0;
+		for (LedgerJournal.Entry entry : entries) {
+			sequence = Math.max(sequence, entry.sequence());
+			if (!persisted.contains(entry.transaction().getTransactionId())) {
+				reapply(entry.transaction());
+				persistQueue.add(entry);
+				replayed++;
+			}
+		}
+		journaledSequence = sequence;
+		if (replayed == 0) {
+			persistedSequence.set(sequence);
+			journal.truncate();
+		} else {
+			log.info("Replayed {} journaled postings not yet in Postgres", replayed);
+		}
+	}
+
+	private void writeLoop() {
+		List<PendingPosting> batch = new ArrayList<>(properties.getMaxBatchSize());
+		while (running || !postingQueue.isEmpty()) {
+			try {
+				PendingPosting first = postingQueue.poll(100, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				postingQueue.drainTo(batch, properties.getMaxBatchSize() - 1);
+				applyBatch(batch);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} catch (RuntimeException ex) {
+				log.error("Ledger writer failed on a batch", ex);
+				batch.forEach(p -> p.result().completeExceptionally(ex));
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	private void applyBatch(List<PendingPosting> batch) {
+		List<PendingPosting> applied = new ArrayList<>(batch.size());
+		long sequenceBefore = sequence;
+		undoSize = 0;
+		for (PendingPosting pending : batch) {
+			if (!pending.claim()) {
+				// Its caller timed out and withdrew it
+				continue;
+			}
+			int mark = undoSize;
+			try {
+				apply(pending);
+				journal.append(sequence + 1, pending.transaction());
+				sequence++;
+				applied.add(pending);
+			} catch (IOException | RuntimeException ex) {
+				revertTo(mark);
+				pending.result().completeExceptionally(ex);
+			}
+		}
+		if (applied.isEmpty()) {
+			return;
+		}
+
+		long start = System.nanoTime();
+		try {
+			journal.flushBatch();
+		} catch (IOException ex) {
+			log.error("Ledger journal write failed, reverting {} postings", applied.size(), ex);
+			revertBatch();
+			journal.discardBatch();
+			sequence = sequenceBefore;
+			BankingException failure = new BankingException("Ledger journal unavailable", "LEDGER_UNAVAILABLE", ex);
+			applied.forEach(p -> p.result().completeExceptionally(failure));
+			return;
+		}
+		fsyncTimer.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+
+		long entrySequence = sequenceBefore;
+		for (PendingPosting pending : applied) {
+			if (pending.client() != null) {
+				clientBySequence.put(entrySequence + 1, pending.client());
+			}
+			persistQueue.add(new LedgerJournal.Entry(++entrySequence, pending.transaction()));
+			pending.result().complete(pending.transaction());
+		}
+		journaledSequence = sequence;
+		truncateJournalIfPersisted();
+	}
+
+	private void apply(PendingPosting pending) {
+		Transaction transaction = pending.transaction();
+		int from = slotOf(transaction.getAccountId(), pending.loadedBalances());
+		int to = transaction.getType() == Transaction.TransactionType.TRANSFER
+				? slotOf(transaction.getToAccountId(), pending.loadedBalances())
+				: -1;
+		long total = Money.of(transaction.getTotalAmount()).cents();
+		long before = balances[from];
+		if (before < total) {
+			throw new InsufficientFundsException(transaction.getAccountId(), Money.ofCents(before).toBigDecimal(),
+					transaction.getTotalAmount());
+		}
+		set(from, before - total);
+		if (to >= 0) {
+			set(to, Math.addExact(balances[to], Money.of(transaction.getAmount()).cents()));
+		}
+		transaction.setBalanceBefore(Money.ofCents(before).toBigDecimal());
+		transaction.setBalanceAfter(Money.ofCents(before - total).toBigDecimal());
+		transaction.setTransactionDate(LocalDateTime.now());
+		transaction.setStatus(Transaction.TransactionStatus.SUCCESS);
+	}
+
+	/**
+	 * Re-applies a journaled posting during replay; it was validated when first
+	 * applied, so only the deltas are needed.
+	 */
+	private void reapply(Transaction transaction) {
+		int from = slotOrLoad(transaction.getAccountId());
+		balances[from] -= Money.of(transaction.getTotalAmount()).cents();
+		if (transaction.getToAccountId() != null) {
+			int to = slotOrLoad(transaction.getToAccountId());
+			balances[to] += Money.of(transaction.getAmount()).cents();
+		}
+	}
+
+	private void set(int slot, long balance) {
+		if (undoSize + 2 > undo.length) {
+			undo = Arrays.copyOf(undo, undo.length * 2);
+		}
+		undo[undoSize++] = slot;
+		undo[undoSize++] = balances[slot];
+		balances[slot] = balance;
+	}
+
+	private void revertBatch() {
+		revertTo(0);
+	}
+
+	private void revertTo(int mark) {
+		for (int i = undoSize - 2; i >= mark; i -= 2) {
+			balances[(int) undo[i]] = undo[i + 1];
+		}
+		undoSize = mark;
+	}
+
+	/**
+	 * Slot of an account on the writer thread, taking the balance the caller
+	 * loaded when the account is new.
+	 */
+	private int slotOf(String accountId, Map<String, Long> loadedBalances) {
+		Integer slot = slots.get(accountId);
+		if (slot != null) {
+			return slot;
+		}
+		Long balance = loadedBalances.get(accountId);
+		if (balance == null) {
+			throw new AccountNotFoundException(accountId);
+		}
+		return slot(accountId, balance);
+	}
+
+	/**
+	 * Slot of an account during replay, before the writer thread starts.
+	 */
+	private int slotOrLoad(String accountId) {
+		Integer slot = slots.get(accountId);
+		if (slot != null) {
+			return slot;
+		}
+		BigDecimal balance = ledgerJdbcRepository.findBalance(accountId)
+				.orElseThrow(() -> new AccountNotFoundException(accountId));
+		return slot(accountId, Money.of(balance).cents());
+	}
+
+	private int slot(String accountId, long balance) {
+		int slot = slots.size();
+		if (slot == balances.length) {
+			balances = Arrays.copyOf(balances, balances.length * 2);
+		}
+		balances[slot] = balance;
+		slots.put(accountId, slot);
+		return slot;
+	}
+
+	private void truncateJournalIfPersisted() {
+		try {
+			if (persistedSequence.get() == journaledSequence && journal.size() > properties.getJournalMaxBytes()) {
+				journal.truncate();
+			}
+		} catch (IOException ex) {
+			log.warn("Could not truncate ledger journal", ex);
+		}
+	}
+
+	private void persistLoop() {
+		List<LedgerJournal.Entry> batch = new ArrayList<>(properties.getPersistBatchSize());
+		while (running || !postingQueue.isEmpty() || !persistQueue.isEmpty()) {
+			try {
+				LedgerJournal.Entry first = persistQueue.poll(200, TimeUnit.MILLISECONDS);
+				if (first == null) {
+					continue;
+				}
+				batch.add(first);
+				persistQueue.drainTo(batch, properties.getPersistBatchSize() - 1);
+				if (!persistWithRetry(batch)) {
+					return;
+				}
+				persistedSequence.set(batch.get(batch.size() - 1).sequence());
+				recordClientWrites(batch);
+			} catch (InterruptedException ex) {
+				Thread.currentThread().interrupt();
+				return;
+			} finally {
+				batch.clear();
+			}
+		}
+	}
+
+	/**
+	 * Writes the batch to Postgres, retrying transient failures until it
+	 * succeeds. While shutting down it gives up after a few attempts; the
+	 * journal still holds the postings and they are replayed on the next start.
+	 * Any other failure halts the engine.
+	 */
+	private boolean persistWithRetry(List<LedgerJournal.Entry> batch) throws InterruptedException {
+		List<Transaction> transactions = batch.stream().map(LedgerJournal.Entry::transaction).toList();
+		long backoff = 100;
+		for (int attempt = 1;; attempt++) {
+			try {
+				transactionTemplate.executeWithoutResult(status -> ledgerJdbcRepository.applyPostings(transactions));
+				return true;
+			} catch (RuntimeException ex) {
+				if (!isTransient(ex)) {
+					halted = true;
+					meterRegistry.counter("banking.ledger.persist.failures", "outcome", "halted").increment();
+					log.error("Ledger halted: Postgres rejected {} postings and retrying won't help; new postings are "
+							+ "refused and {} journaled postings wait for replay after a restart", transactions.size(),
+							persistQueue.size() + batch.size(), ex);
+					return false;
+				}
+				meterRegistry.counter("banking.ledger.persist.failures", "outcome", "retried").increment();
+				log.error("Could not persist {} ledger postings (attempt {})", transactions.size(), attempt, ex);
+				if (!running && attempt >= 3) {
+					log.warn("Leaving {} postings in the journal for replay", persistQueue.size() + batch.size());
+					return false;
+				}
+				Thread.sleep(backoff);
+				backoff = Math.min(backoff * 2, 5000);
+			}
+		}
+	}
+
+	private void recordClientWrites(List<LedgerJournal.Entry> batch) {
+		if (clientBySequence.isEmpty()) {
+			return;
+		}
+		ClientWriteTracker tracker = writeTracker.getIfAvailable();
+		for (LedgerJournal.Entry entry : batch) {
+			String client = clientBySequence.remove(entry.sequence());
+			if (tracker != null && client != null) {
+				tracker.recordWrite(client);
+			}
+		}
+	}
+
+	private static boolean isTransient(RuntimeException ex) {
+		return ex instanceof TransientDataAccessException || ex instanceof RecoverableDataAccessException
+				|| ex instanceof DataAccessResourceFailureException || ex instanceof CannotCreateTransactionException;
+	}
+
+	private static void join(Thread thread) {
+		if (thread == null) {
+			return;
+		}
+		try {
+			thread.join(TimeUnit.SECONDS.toMillis(30));
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+		}
+	}
+}
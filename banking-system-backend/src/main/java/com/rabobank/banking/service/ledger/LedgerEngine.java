@@ -0,0 +1,29 @@
+package com.rabobank.banking.service.ledger;
+
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+import com.rabobank.banking.domain.model.Transaction;
+
+/**
+ * Alternative backend that applies already validated and priced postings to
+ * account balances. {@code TransactionService} delegates to it when one is
+ * configured instead of locking account rows itself.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public interface LedgerEngine {
+
+	/**
+	 * Applies a withdrawal or transfer. A withdrawal debits {@code totalAmount}
+	 * from {@code accountId}; a transfer additionally credits {@code amount} to
+	 * {@code toAccountId}. On success the balances and date of the transaction
+	 * are filled in and the posting is durable.
+	 *
+	 * @param transaction a priced transaction without balances
+	 * @return the same transaction, completed
+	 * @throws InsufficientFundsException if the source cannot cover the total
+	 * @throws AccountNotFoundException   if either account doesn't exist
+	 */
+	Transaction post(Transaction transaction);
+}
@@ -0,0 +1,203 @@
+package com.rabobank.banking.service.ledger;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.ZoneOffset;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.zip.CRC32;
+
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Append-only journal of applied postings. Records are framed as
+ * {@code [length][body][crc32]}; a torn or corrupt tail left by a crash is
+ * dropped on replay. Only the ledger writer thread appends.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+@Slf4j
+class LedgerJournal implements Closeable {
+
+	private static final byte NONE = 0;
+	private static final byte PRESENT = 1;
+
+	private final Path path;
+	private final FileChannel channel;
+	private final ByteArrayOutputStream batchBytes = new ByteArrayOutputStream(64 * 1024);
+	private final DataOutputStream batchOut = new DataOutputStream(batchBytes);
+	private final ByteArrayOutputStream recordBytes = new ByteArrayOutputStream(512);
+	private final DataOutputStream recordOut = new DataOutputStream(recordBytes);
+	private final CRC32 crc = new CRC32();
+
+	record Entry(long sequence, Transaction transaction) {
+	}
+
+	LedgerJournal(Path path) throws IOException {
+		this.path = path;
+		Path parent = path.toAbsolutePath().getParent();
+		if (parent != null) {
+			Files.createDirectories(parent);
+		}
+		this.channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ,
+				StandardOpenOption.WRITE);
+	}
+
+	/**
+	 * Reads every intact record from the start of the journal, truncates any
+	 * torn tail and leaves the channel positioned for appending.
+	 */
+	List<Entry> replay() throws IOException {
+		List<Entry> entries = new ArrayList<>();
+		long size = channel.size();
+		ByteBuffer all = ByteBuffer.allocate((int) Math.min(size, Integer.MAX_VALUE));
+		channel.read(all, 0);
+		all.flip();
+
+		long validEnd = 0;
+		while (all.remaining() >= Integer.BYTES) {
+			int length = all.getInt();
+			if (length <= 0 || all.remaining() < length + Integer.BYTES) {
+				break;
+			}
+			byte[] body = new byte[length];
+			all.get(body);
+			int expectedCrc = all.getInt();
+			crc.reset();
+			crc.update(body);
+			if ((int) crc.getValue() != expectedCrc) {
+				break;
+			}
+			entries.add(decode(body));
+			validEnd = all.position();
+		}
+		if (validEnd < size) {
+			log.warn("Dropping {} bytes of torn ledger journal tail in {}", size - validEnd, path);
+			channel.truncate(validEnd);
+		}
+		channel.position(validEnd);
+		return entries;
+	}
+
+	/**
+	 * Buffers a record for the current batch; nothing is written until
+	 * {@link #flushBatch()}.
+	 */
+	void append(long sequence, Transaction transaction) throws IOException {
+		recordBytes.reset();
+		encode(recordOut, sequence, transaction);
+		recordOut.flush();
+		crc.reset();
+		crc.update(recordBytes.toByteArray(), 0, recordBytes.size());
+		batchOut.writeInt(recordBytes.size());
+		recordBytes.writeTo(batchOut);
+		batchOut.writeInt((int) crc.getValue());
+	}
+
+	/**
+	 * Writes the buffered batch and forces it to disk with a single fsync.
+	 */
+	void flushBatch() throws IOException {
+		batchOut.flush();
+		if (batchBytes.size() == 0) {
+			return;
+		}
+		ByteBuffer buffer = ByteBuffer.wrap(batchBytes.toByteArray(), 0, batchBytes.size());
+		try {
+			while (buffer.hasRemaining()) {
+				channel.write(buffer);
+			}
+			channel.force(false);
+		} finally {
+			batchBytes.reset();
+		}
+	}
+
+	/**
+	 * Drops the buffered batch after a failed apply or write.
+	 */
+	void discardBatch() {
+		batchBytes.reset();
+	}
+
+	long size() throws IOException {
+		return channel.size();
+	}
+
+	/**
+	 * Empties the journal once every record in it has been persisted elsewhere.
+	 */
+	void truncate() throws IOException {
+		channel.truncate(0);
+		channel.position(0);
+		channel.force(true);
+	}
+
+	@Override
+	public void close() throws IOException {
+		channel.close();
+	}
+
+	private static void encode(DataOutputStream out, long sequence, Transaction t) throws IOException {
+		out.writeLong(sequence);
+		out.writeUTF(t.getTransactionId());
+		out.writeByte(t.getType().ordinal());
+		out.writeUTF(t.getAccountId());
+		writeNullable(out, t.getToAccountId());
+		out.writeLong(Money.of(t.getAmount()).cents());
+		out.writeLong(Money.of(t.getFee()).cents());
+		out.writeLong(Money.of(t.getTotalAmount()).cents());
+		out.writeByte(t.getCardType().ordinal());
+		out.writeLong(Money.of(t.getBalanceBefore()).cents());
+		out.writeLong(Money.of(t.getBalanceAfter()).cents());
+		out.writeLong(t.getTransactionDate().toEpochSecond(ZoneOffset.UTC));
+		out.writeInt(t.getTransactionDate().getNano());
+		writeNullable(out, t.getDescription());
+	}
+
+	private static Entry decode(byte[] body) throws IOException {
+		DataInputStream in = new DataInputStream(new ByteArrayInputStream(body));
+		long sequence = in.readLong();
+		Transaction transaction = Transaction.builder().transactionId(in.readUTF())
+				.type(Transaction.TransactionType.values()[in.readByte()]).accountId(in.readUTF())
+				.toAccountId(readNullable(in)).amount(amount(in.readLong())).fee(amount(in.readLong()))
+				.totalAmount(amount(in.readLong())).cardType(CardType.values()[in.readByte()])
+				.balanceBefore(amount(in.readLong())).balanceAfter(amount(in.readLong()))
+				.transactionDate(LocalDateTime.ofEpochSecond(in.readLong(), in.readInt(), ZoneOffset.UTC))
+				.description(readNullable(in)).status(Transaction.TransactionStatus.SUCCESS).build();
+		return new Entry(sequence, transaction);
+	}
+
+	private static BigDecimal amount(long cents) {
+		return Money.ofCents(cents).toBigDecimal();
+	}
+
+	private static void writeNullable(DataOutputStream out, String value) throws IOException {
+		if (value == null) {
+			out.writeByte(NONE);
+		} else {
+			out.writeByte(PRESENT);
+			out.writeUTF(value);
+		}
+	}
+
+	private static String readNullable(DataInputStream in) throws IOException {
+		return in.readByte() == PRESENT ? in.readUTF() : null;
+	}
+}
@@ -0,0 +1,102 @@
+package com.rabobank.banking.service.statement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+
+/**
+ * Statement as CSV with a header row. The first column tells the opening and
+ * closing rows from the transactions. Text starting like a spreadsheet formula
+ * is prefixed with a quote.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+final class CsvStatementWriter extends StatementWriter {
+
+	private static final String HEADER = "record,transaction_date,transaction_id,type,direction,"
+			+ "counterparty_account_id,amount,fee,total_amount,status,description,balance";
+
+	/** Empty columns between the date and the balance of an opening or closing row. */
+	private static final String EMPTY_COLUMNS = ",,,,,,,,,,";
+
+	CsvStatementWriter(OutputStream out, int bufferSize) {
+		super(out, bufferSize);
+	}
+
+	@Override
+	public void writeOpening(String accountId, LocalDateTime from, LocalDateTime to, BigDecimal balance)
+			throws IOException {
+		line.append(HEADER);
+		endLine();
+		balanceRow("OPENING", from, balance);
+	}
+
+	@Override
+	public void writeTransaction(TransactionHistoryItemDto t, BigDecimal balance) throws IOException {
+		line.append("TRANSACTION,").append(DATE_TIME.format(t.getTransactionDate())).append(',');
+		text(t.getTransactionId());
+		line.append(',').append(t.getType()).append(',').append(t.getDirection()).append(',');
+		text(t.getCounterpartyAccountId());
+		line.append(',');
+		amount(t.getAmount());
+		line.append(',');
+		amount(t.getFee());
+		line.append(',');
+		amount(t.getTotalAmount());
+		line.append(',').append(t.getStatus()).append(',');
+		text(t.getDescription());
+		line.append(',');
+		amount(balance);
+		endLine();
+	}
+
+	@Override
+	public void writeClosing(BigDecimal balance, long transactions) throws IOException {
+		balanceRow("CLOSING", null, balance);
+	}
+
+	private void balanceRow(String record, LocalDateTime at, BigDecimal balance) throws IOException {
+		line.append(record).append(',');
+		if (at != null) {
+			line.append(DATE_TIME.format(at));
+		}
+		line.append(EMPTY_COLUMNS);
+		amount(balance);
+		endLine();
+	}
+
+	private void amount(BigDecimal amount) {
+		if (amount != null) {
+			line.append(amount.toPlainString());
+		}
+	}
+
+	private void text(String value) {
+		if (value == null || value.isEmpty()) {
+			return;
+		}
+		boolean formula = "=+-@".indexOf(value.charAt(0)) >= 0;
+		boolean quoted = formula || value.indexOf(',') >= 0 || value.indexOf('"') >= 0 || value.indexOf('\n') >= 0
+				|| value.indexOf('\r') >= 0;
+		if (!quoted) {
+			line.append(value);
+			return;
+		}
+		line.append('"');
+		if (formula) {
+			line.append('\'');
+		}
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			if (c == '"') {
+				line.append('"');
+			}
+			line.append(c);
+		}
+		line.append('"');
+	}
+}
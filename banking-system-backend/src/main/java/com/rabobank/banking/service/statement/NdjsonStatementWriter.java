@@ -0,0 +1,93 @@
+package com.rabobank.banking.service.statement;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+
+/**
+ * Statement as newline-delimited JSON: an {@code opening} object, one
+ * {@code transaction} object per line and a {@code closing} object, told apart
+ * by their {@code record} field. Amounts are JSON numbers.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+final class NdjsonStatementWriter extends StatementWriter {
+
+	NdjsonStatementWriter(OutputStream out, int bufferSize) {
+		super(out, bufferSize);
+	}
+
+	@Override
+	public void writeOpening(String accountId, LocalDateTime from, LocalDateTime to, BigDecimal balance)
+			throws IOException {
+		line.append("{\"record\":\"opening\"");
+		string("accountId", accountId);
+		string("from", DATE_TIME.format(from));
+		string("to", to != null ? DATE_TIME.format(to) : null);
+		number("balance", balance);
+		line.append('}');
+		endLine();
+	}
+
+	@Override
+	public void writeTransaction(TransactionHistoryItemDto t, BigDecimal balance) throws IOException {
+		line.append("{\"record\":\"transaction\"");
+		string("transactionId", t.getTransactionId());
+		string("transactionDate", DATE_TIME.format(t.getTransactionDate()));
+		string("type", t.getType().name());
+		string("direction", t.getDirection().name());
+		string("counterpartyAccountId", t.getCounterpartyAccountId());
+		number("amount", t.getAmount());
+		number("fee", t.getFee());
+		number("totalAmount", t.getTotalAmount());
+		string("status", t.getStatus().name());
+		string("description", t.getDescription());
+		number("balance", balance);
+		line.append('}');
+		endLine();
+	}
+
+	@Override
+	public void writeClosing(BigDecimal balance, long transactions) throws IOException {
+		line.append("{\"record\":\"closing\"");
+		number("balance", balance);
+		line.append(",\"transactions\":").append(transactions).append('}');
+		endLine();
+	}
+
+	private void number(String name, BigDecimal value) {
+		line.append(",\"").append(name).append("\":");
+		line.append(value != null ? value.toPlainString() : "null");
+	}
+
+	private void string(String name, String value) {
+		line.append(",\"").append(name).append("\":");
+		if (value == null) {
+			line.append("null");
+			return;
+		}
+		line.append('"');
+		for (int i = 0; i < value.length(); i++) {
+			char c = value.charAt(i);
+			switch (c) {
+			case '"' -> line.append("\\\"");
+			case '\\' -> line.append("\\\\");
+			case '\n' -> line.append("\\n");
+			case '\r' -> line.append("\\r");
+			case '\t' -> line.append("\\t");
+			default -> {
+				if (c < 0x20) {
+					line.append(String.format("\\u%04x", (int) c));
+				} else {
+					line.append(c);
+				}
+			}
+			}
+		}
+		line.append('"');
+	}
+}
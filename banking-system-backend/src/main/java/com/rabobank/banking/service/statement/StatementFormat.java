@@ -0,0 +1,30 @@
+package com.rabobank.banking.service.statement;
+
+/**
+ * Output formats of an account statement.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public enum StatementFormat {
+
+	CSV("text/csv", "csv"),
+
+	NDJSON("application/x-ndjson", "ndjson");
+
+	private final String mediaType;
+	private final String extension;
+
+	StatementFormat(String mediaType, String extension) {
+		this.mediaType = mediaType;
+		this.extension = extension;
+	}
+
+	public String mediaType() {
+		return mediaType;
+	}
+
+	public String extension() {
+		return extension;
+	}
+}
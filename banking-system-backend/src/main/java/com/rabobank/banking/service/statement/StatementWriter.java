@@ -0,0 +1,84 @@
+package com.rabobank.banking.service.statement;
+
+import java.io.BufferedWriter;
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+
+/**
+ * Writes an account statement as it is read: an opening balance, one line per
+ * transaction with the running balance after it, and a closing balance.
+ *
+ * Every line is built in one reused {@link StringBuilder} and written to a
+ * buffer of fixed size, so memory use doesn't depend on the number of lines.
+ * Nothing reaches the client until the buffer fills or {@link #flush()} is
+ * called.
+ *
+ * @author Sweta Rabobank Assignment
+ * @version 1.0.0
+ */
+public abstract class StatementWriter implements Closeable {
+
+	protected static final DateTimeFormatter DATE_TIME = DateTimeFormatter.ISO_LOCAL_DATE_TIME;
+
+	protected final StringBuilder line = new StringBuilder(256);
+
+	private final Writer out;
+
+	protected StatementWriter(OutputStream out, int bufferSize) {
+		this.out = new BufferedWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8), Math.max(1024, bufferSize));
+	}
+
+	public static StatementWriter of(StatementFormat format, OutputStream out, int bufferSize) {
+		return switch (format) {
+		case CSV -> new CsvStatementWriter(out, bufferSize);
+		case NDJSON -> new NdjsonStatementWriter(out, bufferSize);
+		};
+	}
+
+	/**
+	 * @param to end of the statement, null if it runs up to now
+	 */
+	public abstract void writeOpening(String accountId, LocalDateTime from, LocalDateTime to, BigDecimal balance)
+			throws IOException;
+
+	/**
+	 * @param balance account balance after the transaction
+	 */
+	public abstract void writeTransaction(TransactionHistoryItemDto transaction, BigDecimal balance)
+			throws IOException;
+
+	public abstract void writeClosing(BigDecimal balance, long transactions) throws IOException;
+
+	/**
+	 * Sends everything written so far to the client.
+	 */
+	public void flush() throws IOException {
+		out.flush();
+	}
+
+	/**
+	 * Flushes and closes the underlying stream.
+	 */
+	@Override
+	public void close() throws IOException {
+		out.close();
+	}
+
+	/**
+	 * Writes the current line and clears it for the next one.
+	 */
+	protected void endLine() throws IOException {
+		line.append('\n');
+		out.append(line);
+		line.setLength(0);
+	}
+}
@@ -0,0 +1,63 @@
+-- Range-partition transactions by month of transaction_date. The primary key
+-- of a partitioned table must contain the partition key, so it becomes
+-- (transaction_id, transaction_date); ids are generated unique and lookups by
+-- id still use its leading column in every partition.
+ALTER TABLE transactions RENAME TO transactions_unpartitioned;
+ALTER TABLE transactions_unpartitioned RENAME CONSTRAINT transactions_pkey TO transactions_unpartitioned_pkey;
+DROP INDEX idx_transactions_account_date;
+DROP INDEX idx_transactions_to_account_date;
+
+CREATE TABLE transactions (
+    transaction_id VARCHAR(50) NOT NULL,
+    account_id VARCHAR(20) NOT NULL,
+    to_account_id VARCHAR(20),
+    type VARCHAR(20) NOT NULL,
+    amount DECIMAL(15, 2) NOT NULL,
+    fee DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    total_amount DECIMAL(15, 2) NOT NULL,
+    card_type VARCHAR(10) NOT NULL,
+    balance_before DECIMAL(15, 2),
+    balance_after DECIMAL(15, 2),
+    description VARCHAR(255),
+    status VARCHAR(20) NOT NULL DEFAULT 'SUCCESS',
+    transaction_date TIMESTAMP NOT NULL,
+    PRIMARY KEY (transaction_id, transaction_date),
+    CONSTRAINT chk_transaction_type CHECK (type IN ('WITHDRAWAL', 'TRANSFER')),
+    CONSTRAINT chk_transaction_status CHECK (status IN ('SUCCESS', 'FAILED', 'PENDING')),
+    CONSTRAINT chk_transaction_card_type CHECK (card_type IN ('DEBIT', 'CREDIT'))
+) PARTITION BY RANGE (transaction_date);
+
+CREATE INDEX idx_transactions_account_date
+    ON transactions (account_id, transaction_date DESC, transaction_id DESC);
+
+CREATE INDEX idx_transactions_to_account_date
+    ON transactions (to_account_id, transaction_date DESC, transaction_id DESC)
+    WHERE to_account_id IS NOT NULL;
+
+-- Catches rows no monthly partition covers, so inserts never fail; the
+-- partition maintainer keeps months ahead created so it stays empty.
+CREATE TABLE transactions_default PARTITION OF transactions DEFAULT;
+
+-- One partition per month from the oldest existing row to three months ahead,
+-- named transactions_pYYYYMM like the ones the maintainer creates
+DO $$
+DECLARE
+    partition_month DATE := date_trunc('month',
+            COALESCE((SELECT MIN(transaction_date) FROM transactions_unpartitioned), now()));
+    last_month DATE := date_trunc('month', now()) + INTERVAL '3 months';
+BEGIN
+    WHILE partition_month <= last_month LOOP
+        EXECUTE format('CREATE TABLE %I PARTITION OF transactions FOR VALUES FROM (%L) TO (%L)',
+                       'transactions_p' || to_char(partition_month, 'YYYYMM'),
+                       partition_month, partition_month + INTERVAL '1 month');
+        partition_month := partition_month + INTERVAL '1 month';
+    END LOOP;
+END $$;
+
+INSERT INTO transactions (transaction_id, account_id, to_account_id, type, amount, fee, total_amount, card_type,
+                          balance_before, balance_after, description, status, transaction_date)
+SELECT transaction_id, account_id, to_account_id, type, amount, fee, total_amount, card_type,
+       balance_before, balance_after, description, status, transaction_date
+  FROM transactions_unpartitioned;
+
+DROP TABLE transactions_unpartitioned;
@@ -0,0 +1,17 @@
+-- End-of-day balance of every active account: balance is the account's
+-- balance (including its buckets) at the start of the day after snapshot_date.
+CREATE TABLE IF NOT EXISTS account_daily_balances (
+    account_id VARCHAR(20) NOT NULL,
+    snapshot_date DATE NOT NULL,
+    balance DECIMAL(15, 2) NOT NULL,
+    PRIMARY KEY (account_id, snapshot_date),
+    CONSTRAINT fk_daily_balance_account FOREIGN KEY (account_id) REFERENCES accounts(account_id) ON DELETE CASCADE
+);
+
+-- Days whose snapshot is complete for every active account. The snapshot job
+-- continues from the newest one and never revisits a day listed here.
+CREATE TABLE IF NOT EXISTS account_balance_snapshot_days (
+    snapshot_date DATE PRIMARY KEY,
+    accounts INT NOT NULL,
+    completed_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,13 @@
+-- Hourly totals of successful transactions per card type and transaction
+-- type. Rows are incremented by the application as transactions commit and
+-- can be rebuilt from the transactions table for any range of hours.
+CREATE TABLE IF NOT EXISTS transaction_rollups (
+    bucket_start TIMESTAMP NOT NULL,
+    card_type VARCHAR(10) NOT NULL,
+    type VARCHAR(20) NOT NULL,
+    transaction_count BIGINT NOT NULL,
+    amount DECIMAL(19, 2) NOT NULL,
+    fee DECIMAL(19, 2) NOT NULL,
+    total_amount DECIMAL(19, 2) NOT NULL,
+    PRIMARY KEY (bucket_start, card_type, type)
+);
@@ -0,0 +1,3 @@
+-- Transaction id assigned when a key is claimed, so a retry that takes over an
+-- abandoned claim can find the transaction instead of moving the money again
+ALTER TABLE idempotency_keys ADD COLUMN transaction_id VARCHAR(50);
@@ -0,0 +1,8 @@
+-- Months whose transactions were written to archive segment files and
+-- dropped from the database. Recorded in the transaction that drops the
+-- partition, so every instance agrees on where a month's history lives.
+CREATE TABLE IF NOT EXISTS archived_transaction_months (
+    month DATE PRIMARY KEY,
+    row_count BIGINT NOT NULL,
+    archived_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,22 @@
+-- Withdrawals and transfers accepted for background processing, keyed by the
+-- transaction id handed to the client. A row is written before the request is
+-- acknowledged and carries the request until it reaches SUCCESS or FAILED, so
+-- status polls survive restarts and unfinished requests can be recovered.
+CREATE TABLE IF NOT EXISTS async_transaction_requests (
+    transaction_id VARCHAR(50) PRIMARY KEY,
+    operation VARCHAR(20) NOT NULL,
+    request_body TEXT NOT NULL,
+    client_id VARCHAR(100),
+    status VARCHAR(20) NOT NULL DEFAULT 'PENDING',
+    error_code VARCHAR(50),
+    message VARCHAR(500),
+    accepted_at TIMESTAMP NOT NULL,
+    claimed_at TIMESTAMP,
+    completed_at TIMESTAMP,
+    CONSTRAINT chk_async_request_operation CHECK (operation IN ('WITHDRAWAL', 'TRANSFER')),
+    CONSTRAINT chk_async_request_status CHECK (status IN ('PENDING', 'SUCCESS', 'FAILED'))
+);
+
+CREATE INDEX IF NOT EXISTS idx_async_transaction_requests_pending
+    ON async_transaction_requests (accepted_at)
+    WHERE status = 'PENDING';
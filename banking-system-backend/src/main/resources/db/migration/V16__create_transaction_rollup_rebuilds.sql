@@ -0,0 +1,7 @@
+-- Hours of transaction_rollups last rebuilt from the transactions table, and
+-- when. A flush drops the totals it still holds for hours rebuilt since its
+-- previous successful flush, because the rebuild already counted them.
+CREATE TABLE IF NOT EXISTS transaction_rollup_rebuilds (
+    bucket_start TIMESTAMP PRIMARY KEY,
+    rebuilt_at TIMESTAMP NOT NULL
+);
@@ -0,0 +1,14 @@
+-- Idempotency keys for withdraw/transfer; a row is claimed as PENDING before
+-- the money moves and completed with the serialized response afterwards
+CREATE TABLE IF NOT EXISTS idempotency_keys (
+    idempotency_key VARCHAR(100) PRIMARY KEY,
+    operation VARCHAR(20) NOT NULL,
+    request_hash VARCHAR(64) NOT NULL,
+    status VARCHAR(20) NOT NULL,
+    response_body TEXT,
+    created_at TIMESTAMP NOT NULL,
+    completed_at TIMESTAMP,
+    CONSTRAINT chk_idempotency_status CHECK (status IN ('PENDING', 'COMPLETED'))
+);
+
+CREATE INDEX idx_idempotency_keys_created_at ON idempotency_keys(created_at);
@@ -0,0 +1,14 @@
+-- Sub-balances for heavily credited accounts. An account with bucket_count > 0
+-- receives credits on one of its bucket rows instead of the accounts row; its
+-- balance is accounts.balance plus the sum of its buckets.
+ALTER TABLE accounts ADD COLUMN bucket_count INT NOT NULL DEFAULT 0;
+
+CREATE TABLE IF NOT EXISTS account_balance_buckets (
+    account_id VARCHAR(20) NOT NULL,
+    bucket INT NOT NULL,
+    balance DECIMAL(15, 2) NOT NULL DEFAULT 0.00,
+    updated_at TIMESTAMP NOT NULL,
+    PRIMARY KEY (account_id, bucket),
+    CONSTRAINT fk_bucket_account FOREIGN KEY (account_id) REFERENCES accounts(account_id) ON DELETE CASCADE,
+    CONSTRAINT chk_bucket_balance CHECK (balance >= 0)
+);
@@ -0,0 +1,14 @@
+-- Transaction history is read per account, newest first, by keyset on
+-- (transaction_date, transaction_id). Outgoing rows are found by account_id,
+-- incoming transfers by to_account_id; both indexes return rows in page order.
+CREATE INDEX idx_transactions_account_date
+    ON transactions (account_id, transaction_date DESC, transaction_id DESC);
+
+CREATE INDEX idx_transactions_to_account_date
+    ON transactions (to_account_id, transaction_date DESC, transaction_id DESC)
+    WHERE to_account_id IS NOT NULL;
+
+-- Covered by the composite index, or never selective enough to be used
+DROP INDEX IF EXISTS idx_transactions_account_id;
+DROP INDEX IF EXISTS idx_transactions_date;
+DROP INDEX IF EXISTS idx_transactions_type;
@@ -0,0 +1,104 @@
+package com.rabobank.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.orm.jpa.SharedEntityManagerCreator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import com.rabobank.banking.domain.model.Account;
+import com.rabobank.banking.dto.response.AccountBalanceResponseDto;
+import com.rabobank.banking.dto.response.AllAccountsBalanceResponseDto;
+import com.rabobank.banking.service.AccountService;
+
+import jakarta.persistence.EntityManager;
+import jakarta.persistence.EntityManagerFactory;
+
+/**
+ * Time and allocation to build the balance list of 100,000 accounts, once by
+ * hydrating managed Account, User and Card entities and once through the
+ * constructor projection. Run with {@code -prof gc}; {@code gc.alloc.rate.norm}
+ * is the heap allocated per 100,000 rows.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Djmh.args="AccountBalanceReadBenchmark -prof gc -jvmArgs -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/rabobank_banking"
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+@Warmup(iterations = 3)
+@Measurement(iterations = 10)
+public class AccountBalanceReadBenchmark {
+
+	private static final int ACCOUNTS = 100_000;
+
+	private static final String ACTIVE_ACCOUNTS_WITH_DETAILS =
+			"SELECT a FROM Account a JOIN FETCH a.user JOIN FETCH a.card WHERE a.active = true";
+
+	private ConfigurableApplicationContext context;
+	private EntityManager entityManager;
+	private AccountService accountService;
+	private TransactionTemplate readOnly;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkDatabase.start(Map.of());
+		BenchmarkDatabase.seedAccounts(context.getBean(JdbcTemplate.class), ACCOUNTS, new BigDecimal("100.00"));
+		entityManager = SharedEntityManagerCreator
+				.createSharedEntityManager(context.getBean(EntityManagerFactory.class));
+		accountService = context.getBean(AccountService.class);
+		readOnly = new TransactionTemplate(context.getBean(PlatformTransactionManager.class));
+		readOnly.setReadOnly(true);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	/**
+	 * Baseline: the read path before projections, without bucket balances.
+	 */
+	@Benchmark
+	public List<AccountBalanceResponseDto> entities() {
+		return readOnly.execute(status -> {
+			List<Account> accounts = entityManager.createQuery(ACTIVE_ACCOUNTS_WITH_DETAILS, Account.class)
+					.getResultList();
+			List<AccountBalanceResponseDto> balances = new ArrayList<>(accounts.size());
+			for (Account account : accounts) {
+				balances.add(AccountBalanceResponseDto.builder().accountId(account.getAccountId())
+						.accountNumber(account.getAccountNumber()).userName(account.getUser().getFullName())
+						.userEmail(account.getUser().getEmail()).balance(account.getBalance().toBigDecimal())
+						.cardType(account.getCard().getCardType())
+						.cardNumber(account.getCard().getMaskedCardNumber()).active(account.isActive()).build());
+			}
+			return balances;
+		});
+	}
+
+	@Benchmark
+	public AllAccountsBalanceResponseDto projections() {
+		return accountService.getAllAccountBalances();
+	}
+}
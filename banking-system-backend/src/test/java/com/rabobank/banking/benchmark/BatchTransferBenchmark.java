@@ -0,0 +1,102 @@
+package com.rabobank.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rabobank.banking.dto.request.TransferRequestDto;
+import com.rabobank.banking.dto.response.BatchTransferResponseDto;
+import com.rabobank.banking.service.BatchTransferService;
+import com.rabobank.banking.service.TransactionService;
+
+/**
+ * Time to apply 10,000 transfers between 1,000 accounts, once through the
+ * batch service at several chunk sizes and once as individual transfers.
+ * Divide 10,000 by the reported time for transfers per second.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Djmh.args="BatchTransferBenchmark -jvmArgs -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/rabobank_banking"
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 2)
+@Measurement(iterations = 5)
+public class BatchTransferBenchmark {
+
+	private static final int ACCOUNTS = 1000;
+	private static final int TRANSFERS = 10_000;
+
+	@Param({ "50", "200", "1000" })
+	public int chunkSize;
+
+	private ConfigurableApplicationContext context;
+	private BatchTransferService batchTransferService;
+	private TransactionService transactionService;
+	private List<TransferRequestDto> transfers;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkDatabase.start(Map.of("banking.transaction.batch.chunk-size", chunkSize));
+		BenchmarkDatabase.seedAccounts(context.getBean(JdbcTemplate.class), ACCOUNTS,
+				new BigDecimal("1000000000.00"));
+		batchTransferService = context.getBean(BatchTransferService.class);
+		transactionService = context.getBean(TransactionService.class);
+
+		Random random = new Random(42);
+		transfers = new ArrayList<>(TRANSFERS);
+		for (int i = 0; i < TRANSFERS; i++) {
+			int from = random.nextInt(ACCOUNTS);
+			int to = (from + 1 + random.nextInt(ACCOUNTS - 1)) % ACCOUNTS;
+			transfers.add(TransferRequestDto.builder().fromAccountId(BenchmarkDatabase.accountId(from))
+					.toAccountId(BenchmarkDatabase.accountId(to)).cardNumber(BenchmarkDatabase.cardNumber(from))
+					.amount(new BigDecimal("0.01")).description("Payroll").build());
+		}
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		context.close();
+	}
+
+	@Benchmark
+	public BatchTransferResponseDto batch() {
+		return batchTransferService.transferAll(transfers);
+	}
+
+	/**
+	 * Baseline: one transaction and commit per transfer. Independent of
+	 * {@code chunkSize}; run it with {@code -p chunkSize=200} to avoid repeats.
+	 */
+	@Benchmark
+	public int individual() {
+		int succeeded = 0;
+		for (TransferRequestDto transfer : transfers) {
+			transactionService.transfer(transfer);
+			succeeded++;
+		}
+		return succeeded;
+	}
+}
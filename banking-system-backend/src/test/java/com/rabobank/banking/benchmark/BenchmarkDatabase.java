@@ -0,0 +1,128 @@
+package com.rabobank.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.sql.Date;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.time.LocalDate;
+import java.util.HashMap;
+import java.util.Map;
+
+import javax.sql.DataSource;
+
+import org.springframework.boot.WebApplicationType;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+
+import com.rabobank.banking.BankingSystemApplication;
+
+/**
+ * Shared setup for benchmarks that need the real application against
+ * PostgreSQL. The database must already contain the schema from
+ * {@code db/migration}; connection settings come from the
+ * {@code benchmark.db.url}, {@code benchmark.db.username} and
+ * {@code benchmark.db.password} system properties. Benchmark rows use the
+ * {@code BENCH} account prefix and are replaced on every seed.
+ */
+final class BenchmarkDatabase {
+
+	static final String ACCOUNT_PREFIX = "BENCH";
+
+	private BenchmarkDatabase() {
+	}
+
+	static ConfigurableApplicationContext start(Map<String, Object> overrides) {
+		Map<String, Object> properties = new HashMap<>();
+		properties.put("spring.datasource.url", url());
+		properties.put("spring.datasource.username", username());
+		properties.put("spring.datasource.password", password());
+		properties.put("spring.datasource.hikari.maximum-pool-size", 10);
+		properties.put("logging.level.root", "WARN");
+		properties.put("logging.level.com.rabobank.banking", "WARN");
+		properties.put("logging.level.org.hibernate.SQL", "WARN");
+		properties.put("logging.level.org.hibernate.type.descriptor.sql.BasicBinder", "WARN");
+		properties.putAll(overrides);
+		return new SpringApplicationBuilder(BankingSystemApplication.class).web(WebApplicationType.NONE)
+				.properties(properties).run();
+	}
+
+	/**
+	 * Plain connection-per-call data source for benchmarks that only need SQL,
+	 * not the application context.
+	 */
+	static DataSource dataSource() {
+		return new DriverManagerDataSource(url(), username(), password());
+	}
+
+	private static String url() {
+		return System.getProperty("benchmark.db.url", "jdbc:postgresql://localhost:5432/rabobank_banking");
+	}
+
+	private static String username() {
+		return System.getProperty("benchmark.db.username", "rabobank_user");
+	}
+
+	private static String password() {
+		return System.getProperty("benchmark.db.password", "rabobank_pass");
+	}
+
+	/**
+	 * Replaces all benchmark accounts with {@code count} fresh accounts, each with
+	 * a valid debit card and the given balance.
+	 */
+	static void seedAccounts(JdbcTemplate jdbc, int count, BigDecimal balance) {
+		jdbc.update("DELETE FROM transactions WHERE account_id LIKE 'BENCH%' OR to_account_id LIKE 'BENCH%'");
+		jdbc.update("DELETE FROM cards WHERE account_id LIKE 'BENCH%'");
+		jdbc.update("DELETE FROM accounts WHERE account_id LIKE 'BENCH%'");
+		jdbc.update("INSERT INTO users (first_name, last_name, email, phone_number, created_at, updated_at) "
+				+ "VALUES ('Bench', 'User', 'bench@example.com', '+31600000000', NOW(), NOW()) "
+				+ "ON CONFLICT (email) DO NOTHING");
+		Long userId = jdbc.queryForObject("SELECT id FROM users WHERE email = 'bench@example.com'", Long.class);
+		Date expiry = Date.valueOf(LocalDate.now().plusYears(5));
+
+		jdbc.batchUpdate("INSERT INTO accounts (account_id, account_number, user_id, balance, active, created_at, "
+				+ "updated_at) VALUES (?, ?, ?, ?, true, NOW(), NOW())", new IndexedSetter(count, (ps, i) -> {
+					ps.setString(1, accountId(i));
+					ps.setString(2, "BENCHNL" + String.format("%010d", i));
+					ps.setLong(3, userId);
+					ps.setBigDecimal(4, balance);
+				}));
+		jdbc.batchUpdate("INSERT INTO cards (card_number, card_type, account_id, expiry_date, card_holder_name, "
+				+ "active, created_at, updated_at) VALUES (?, 'DEBIT', ?, ?, 'BENCH USER', true, NOW(), NOW())",
+				new IndexedSetter(count, (ps, i) -> {
+					ps.setString(1, cardNumber(i));
+					ps.setString(2, accountId(i));
+					ps.setDate(3, expiry);
+				}));
+	}
+
+	static String accountId(int index) {
+		return ACCOUNT_PREFIX + String.format("%06d", index);
+	}
+
+	static String cardNumber(int index) {
+		return "99" + String.format("%014d", index);
+	}
+
+	@FunctionalInterface
+	interface RowSetter {
+		void set(PreparedStatement ps, int index) throws SQLException;
+	}
+
+	private record IndexedSetter(int count, RowSetter setter)
+			implements BatchPreparedStatementSetter {
+
+		@Override
+		public void setValues(PreparedStatement ps, int i) throws SQLException {
+			setter.set(ps, i);
+		}
+
+		@Override
+		public int getBatchSize() {
+			return count;
+		}
+	}
+}
@@ -0,0 +1,106 @@
+package com.rabobank.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rabobank.banking.domain.exception.ConcurrencyConflictException;
+import com.rabobank.banking.dto.request.TransferRequestDto;
+import com.rabobank.banking.dto.request.WithdrawRequestDto;
+import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.service.TransactionService;
+
+/**
+ * Compares pessimistic row locking with optimistic version checks for
+ * withdraw and transfer. LOW contention spreads 16 threads over 1000 accounts;
+ * HIGH contention points all of them at two accounts.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Djmh.args="ConcurrencyModeBenchmark -jvmArgs -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/rabobank_banking"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Threads(16)
+@Fork(1)
+@Warmup(iterations = 2, time = 5)
+@Measurement(iterations = 5, time = 10)
+public class ConcurrencyModeBenchmark {
+
+	private static final BigDecimal AMOUNT = new BigDecimal("0.01");
+
+	@Param({ "PESSIMISTIC", "OPTIMISTIC" })
+	public String mode;
+
+	@Param({ "LOW", "HIGH" })
+	public String contention;
+
+	private ConfigurableApplicationContext context;
+	private TransactionService transactionService;
+	private int accountCount;
+	private final AtomicLong conflicts = new AtomicLong();
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		context = BenchmarkDatabase.start(Map.of("banking.transaction.concurrency-mode", mode,
+				"banking.transaction.retry.optimistic-max-attempts", 20));
+		accountCount = "HIGH".equals(contention) ? 2 : 1000;
+		BenchmarkDatabase.seedAccounts(context.getBean(JdbcTemplate.class), accountCount,
+				new BigDecimal("1000000000.00"));
+		transactionService = context.getBean(TransactionService.class);
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		System.out.printf("%n%s/%s: %d operations gave up on contention%n", mode, contention, conflicts.get());
+		context.close();
+	}
+
+	@Benchmark
+	public TransactionResponseDto withdraw() {
+		int account = ThreadLocalRandom.current().nextInt(accountCount);
+		try {
+			return transactionService.withdraw(WithdrawRequestDto.builder().accountId(BenchmarkDatabase.accountId(account))
+					.cardNumber(BenchmarkDatabase.cardNumber(account)).amount(AMOUNT).build());
+		} catch (ConcurrencyConflictException ex) {
+			conflicts.incrementAndGet();
+			return null;
+		}
+	}
+
+	@Benchmark
+	public TransactionResponseDto transfer() {
+		ThreadLocalRandom random = ThreadLocalRandom.current();
+		int from = random.nextInt(accountCount);
+		int to = (from + 1 + random.nextInt(accountCount - 1)) % accountCount;
+		try {
+			return transactionService.transfer(TransferRequestDto.builder().fromAccountId(BenchmarkDatabase.accountId(from))
+					.toAccountId(BenchmarkDatabase.accountId(to)).cardNumber(BenchmarkDatabase.cardNumber(from))
+					.amount(AMOUNT).build());
+		} catch (ConcurrencyConflictException ex) {
+			conflicts.incrementAndGet();
+			return null;
+		}
+	}
+}
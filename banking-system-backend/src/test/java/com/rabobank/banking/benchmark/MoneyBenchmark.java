@@ -0,0 +1,80 @@
+package com.rabobank.banking.benchmark;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.payment.CardPaymentStrategy;
+import com.rabobank.banking.domain.payment.FeeRuleEngine;
+
+/**
+ * The in-memory part of a credit card withdrawal: price the fee, check the
+ * balance and debit it, once with the former {@link BigDecimal} arithmetic
+ * and once with {@link Money}. Run with {@code -prof gc} to compare the
+ * allocation rate ({@code gc.alloc.rate.norm} is bytes per withdrawal).
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="MoneyBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Thread)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class MoneyBenchmark {
+
+	private static final BigDecimal FEE_PERCENTAGE = new BigDecimal("0.01");
+
+	private final CardPaymentStrategy strategy = new FeeRuleEngine(new TransactionProperties())
+			.strategyFor(CardType.CREDIT);
+
+	private final BigDecimal decimalAmount = new BigDecimal("123.45");
+	private BigDecimal decimalBalance = new BigDecimal("1000000.00");
+
+	private final Money amount = Money.of("123.45");
+	private Money balance = Money.of("1000000.00");
+
+	@Benchmark
+	public BigDecimal bigDecimalWithdraw() {
+		validate(decimalAmount);
+		BigDecimal fee = decimalAmount.multiply(FEE_PERCENTAGE).setScale(2, RoundingMode.HALF_UP);
+		BigDecimal total = decimalAmount.add(fee);
+		validate(total);
+		if (decimalBalance.compareTo(total) < 0) {
+			decimalBalance = new BigDecimal("1000000.00");
+		}
+		decimalBalance = decimalBalance.subtract(total);
+		return decimalBalance;
+	}
+
+	@Benchmark
+	public Money moneyWithdraw() {
+		Money total = strategy.totalAmount(amount);
+		if (balance.isLessThan(total)) {
+			balance = Money.of("1000000.00");
+		}
+		balance = balance.minus(total);
+		return balance;
+	}
+
+	private static void validate(BigDecimal value) {
+		if (value == null || value.compareTo(BigDecimal.ZERO) <= 0) {
+			throw new IllegalArgumentException("Amount must be greater than zero");
+		}
+	}
+}
@@ -0,0 +1,62 @@
+package com.rabobank.banking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.service.id.TimeOrderedTransactionIdGenerator;
+import com.rabobank.banking.service.id.TransactionIdGenerator;
+import com.rabobank.banking.service.id.UuidTransactionIdGenerator;
+
+/**
+ * Id generation cost in isolation, single threaded and with 16 threads
+ * contending. Run with {@code -prof gc} to compare allocation per id.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec -Djmh.args="TransactionIdGeneratorBenchmark -prof gc"
+ * </pre>
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+public class TransactionIdGeneratorBenchmark {
+
+	private final TransactionIdGenerator uuid = new UuidTransactionIdGenerator();
+	private final TransactionIdGenerator timeOrdered = new TimeOrderedTransactionIdGenerator(
+			new TransactionProperties());
+
+	@Benchmark
+	public String uuid() {
+		return uuid.nextId();
+	}
+
+	@Benchmark
+	public String timeOrdered() {
+		return timeOrdered.nextId();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public String uuidContended() {
+		return uuid.nextId();
+	}
+
+	@Benchmark
+	@Threads(16)
+	public String timeOrderedContended() {
+		return timeOrdered.nextId();
+	}
+}
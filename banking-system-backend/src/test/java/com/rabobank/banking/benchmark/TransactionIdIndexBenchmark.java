@@ -0,0 +1,88 @@
+package com.rabobank.banking.benchmark;
+
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.service.id.TimeOrderedTransactionIdGenerator;
+import com.rabobank.banking.service.id.TransactionIdGenerator;
+import com.rabobank.banking.service.id.UuidTransactionIdGenerator;
+
+/**
+ * Inserts {@code rows} ids of each format into a scratch table shaped like the
+ * {@code transactions} primary key and reports insert time plus the size of
+ * the resulting B-tree. Random ids split pages all over the index and leave
+ * it roughly half full; time-ordered ids fill pages left to right.
+ *
+ * <pre>
+ * mvn -Pbenchmark test-compile exec:exec \
+ *     -Djmh.args="TransactionIdIndexBenchmark -jvmArgs -Dbenchmark.db.url=jdbc:postgresql://localhost:5432/rabobank_banking"
+ * </pre>
+ */
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@State(Scope.Benchmark)
+@Fork(1)
+@Warmup(iterations = 0)
+@Measurement(iterations = 1)
+public class TransactionIdIndexBenchmark {
+
+	private static final String TABLE = "bench_transaction_ids";
+	private static final int BATCH_SIZE = 1000;
+
+	@Param({ "uuid", "time-ordered" })
+	public String strategy;
+
+	@Param({ "3000000" })
+	public int rows;
+
+	private JdbcTemplate jdbc;
+	private TransactionIdGenerator generator;
+
+	@Setup(Level.Trial)
+	public void setUp() {
+		jdbc = new JdbcTemplate(BenchmarkDatabase.dataSource());
+		jdbc.execute("DROP TABLE IF EXISTS " + TABLE);
+		jdbc.execute("CREATE TABLE " + TABLE + " (transaction_id VARCHAR(50) PRIMARY KEY)");
+		generator = "uuid".equals(strategy) ? new UuidTransactionIdGenerator()
+				: new TimeOrderedTransactionIdGenerator(new TransactionProperties());
+	}
+
+	@TearDown(Level.Trial)
+	public void tearDown() {
+		jdbc.execute("VACUUM ANALYZE " + TABLE);
+		Long indexBytes = jdbc.queryForObject("SELECT pg_relation_size('" + TABLE + "_pkey')", Long.class);
+		Long tableBytes = jdbc.queryForObject("SELECT pg_relation_size('" + TABLE + "')", Long.class);
+		System.out.printf("%n%s: %d rows, primary key %d MB, heap %d MB, %.1f bytes/row in index%n", strategy, rows,
+				indexBytes >> 20, tableBytes >> 20, (double) indexBytes / rows);
+		jdbc.execute("DROP TABLE " + TABLE);
+	}
+
+	@Benchmark
+	public int insert() {
+		String sql = "INSERT INTO " + TABLE + " (transaction_id) VALUES (?)";
+		int inserted = 0;
+		while (inserted < rows) {
+			int batch = Math.min(BATCH_SIZE, rows - inserted);
+			jdbc.batchUpdate(sql, Stream.generate(() -> new Object[] { generator.nextId() })
+					.limit(batch).toList());
+			inserted += batch;
+		}
+		return inserted;
+	}
+}
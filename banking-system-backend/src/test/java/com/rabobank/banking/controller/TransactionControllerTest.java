@@ -0,0 +1,126 @@
+package com.rabobank.banking.controller;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.repository.AsyncTransactionRequestJdbcRepository;
+import com.rabobank.banking.repository.IdempotencyKeyJdbcRepository;
+import com.rabobank.banking.repository.IdempotencyKeyJdbcRepository.IdempotencyRecord;
+import com.rabobank.banking.service.AsyncTransactionProcessor;
+import com.rabobank.banking.service.BatchTransferService;
+import com.rabobank.banking.service.IdempotencyService;
+import com.rabobank.banking.service.TransactionService;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionControllerTest {
+
+    private static final String WITHDRAWAL = """
+        {"accountId": "ACC001", "amount": 100.00, "cardNumber": "4532123456781234"}
+        """;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private BatchTransferService batchTransferService;
+
+    @Mock
+    private IdempotencyKeyJdbcRepository idempotencyRepository;
+
+    @Mock
+    private AsyncTransactionRequestJdbcRepository requestRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private final CountDownLatch release = new CountDownLatch(1);
+    private AsyncTransactionProcessor processor;
+    private MockMvc mockMvc;
+
+    @BeforeEach
+    void setUp() {
+        ObjectMapper objectMapper = new ObjectMapper().findAndRegisterModules();
+        TransactionProperties properties = new TransactionProperties();
+        IdempotencyService idempotencyService = new IdempotencyService(idempotencyRepository, transactionService,
+            objectMapper, properties, new SimpleMeterRegistry());
+        processor = new AsyncTransactionProcessor(transactionService, idempotencyService, requestRepository,
+            transactionManager, objectMapper, properties, new SimpleMeterRegistry(),
+            new StaticListableBeanFactory().getBeanProvider(ClientWriteTracker.class));
+        mockMvc = MockMvcBuilders.standaloneSetup(new TransactionController(transactionService, idempotencyService,
+            processor, batchTransferService, properties)).setControllerAdvice(new GlobalExceptionHandler()).build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        release.countDown();
+        processor.stop();
+    }
+
+    @Test
+    void withdrawAsync_RepeatedIdempotencyKeyReturnsFirstSubmissionTest() throws Exception {
+        // Keys claimed so far, as the idempotency_keys table would keep them
+        Map<String, IdempotencyRecord> claims = new ConcurrentHashMap<>();
+        when(idempotencyRepository.claim(anyString(), anyString(), anyString(), anyString(), any()))
+            .thenAnswer(i -> claims.putIfAbsent(i.getArgument(0), new IdempotencyRecord(i.getArgument(0),
+                i.getArgument(1), i.getArgument(2), false, i.getArgument(3), null, LocalDateTime.now())) == null);
+        when(idempotencyRepository.find("key-1")).thenAnswer(i -> Optional.ofNullable(claims.get("key-1")));
+        when(transactionService.generateTransactionId()).thenReturn("TXN-1", "TXN-2");
+        when(requestRepository.claim(any(), any()))
+            .thenAnswer(i -> new HashSet<>(i.<Collection<String>>getArgument(0)));
+        // Keeps the first submission pending while it is resubmitted
+        when(transactionService.withdraw(any(), anyString())).thenAnswer(i -> {
+            release.await(5, TimeUnit.SECONDS);
+            return TransactionResponseDto.builder().transactionId(i.getArgument(1))
+                .status(Transaction.TransactionStatus.SUCCESS).build();
+        });
+        processor.start();
+
+        for (int attempt = 0; attempt < 2; attempt++) {
+            mockMvc.perform(post("/api/transactions/withdraw").param("async", "true")
+                    .header("Idempotency-Key", "key-1").contentType(MediaType.APPLICATION_JSON).content(WITHDRAWAL))
+                .andExpect(status().isAccepted())
+                .andExpect(jsonPath("$.transactionId").value("TXN-1"))
+                .andExpect(jsonPath("$.status").value("PENDING"));
+        }
+
+        verify(requestRepository, times(1)).insert(eq("TXN-1"), eq(Transaction.TransactionType.WITHDRAWAL),
+            anyString(), any(), any());
+        assertEquals("TXN-1", claims.get("key-1").transactionId());
+    }
+}
@@ -0,0 +1,112 @@
+package com.rabobank.banking.datasource;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.mockito.Mockito.when;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.time.Duration;
+
+import javax.sql.DataSource;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.mockito.junit.jupiter.MockitoSettings;
+import org.mockito.quality.Strictness;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+@MockitoSettings(strictness = Strictness.LENIENT)
+class ReplicaRoutingDataSourceTest {
+
+    @Mock
+    private DataSource primary;
+
+    @Mock
+    private DataSource replica;
+
+    @Mock
+    private Connection primaryConnection;
+
+    @Mock
+    private Connection replicaConnection;
+
+    @Mock
+    private ReplicaLagMonitor lagMonitor;
+
+    private ClientWriteTracker writeTracker;
+    private ReplicaRoutingDataSource routingDataSource;
+
+    @BeforeEach
+    void setUp() throws SQLException {
+        when(primary.getConnection()).thenReturn(primaryConnection);
+        when(replica.getConnection()).thenReturn(replicaConnection);
+        when(lagMonitor.isReplicaUsable()).thenReturn(true);
+        writeTracker = new ClientWriteTracker(Duration.ofMinutes(1));
+        routingDataSource = new ReplicaRoutingDataSource(primary, replica, lagMonitor, writeTracker,
+            new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        writeTracker.clear();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        TransactionSynchronizationManager.setActualTransactionActive(false);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(false);
+    }
+
+    @Test
+    void getConnection_WritesAndNonTransactionalWorkUsePrimaryTest() throws SQLException {
+        assertSame(primaryConnection, routingDataSource.getConnection());
+
+        beginTransaction(false);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ReadOnlyTransactionUsesReplicaTest() throws SQLException {
+        beginTransaction(true);
+
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ReadOnlyFallsBackToPrimaryWhileReplicaLagsTest() throws SQLException {
+        when(lagMonitor.isReplicaUsable()).thenReturn(false);
+        beginTransaction(true);
+
+        assertSame(primaryConnection, routingDataSource.getConnection());
+    }
+
+    @Test
+    void getConnection_ClientReadsItsOwnCommittedWriteFromPrimaryTest() throws SQLException {
+        writeTracker.bind("client-a");
+        beginTransaction(false);
+        routingDataSource.getConnection();
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        tearDown();
+
+        writeTracker.bind("client-a");
+        beginTransaction(true);
+        assertSame(primaryConnection, routingDataSource.getConnection());
+
+        writeTracker.bind("client-b");
+        assertSame(replicaConnection, routingDataSource.getConnection());
+    }
+
+    private static void beginTransaction(boolean readOnly) {
+        TransactionSynchronizationManager.initSynchronization();
+        TransactionSynchronizationManager.setActualTransactionActive(true);
+        TransactionSynchronizationManager.setCurrentTransactionReadOnly(readOnly);
+    }
+}
@@ -0,0 +1,43 @@
+package com.rabobank.banking.domain.model;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+
+import org.junit.jupiter.api.Test;
+
+class MoneyTest {
+
+    @Test
+    void of_KeepsExactCentsTest() {
+        assertEquals(12345L, Money.of("123.45").cents());
+        assertEquals(500L, Money.of(new BigDecimal("5")).cents());
+        assertEquals(new BigDecimal("123.45"), Money.of("123.45").toBigDecimal());
+    }
+
+    @Test
+    void of_FractionalCentsThrowsExceptionTest() {
+        assertThrows(ArithmeticException.class, () -> Money.of("1.005"));
+    }
+
+    @Test
+    void times_RoundsHalfUpLikeBigDecimalTest() {
+        for (String amount : new String[] { "0.01", "0.50", "1.49", "1.50", "123.45", "150.50", "99999.99" }) {
+            BigDecimal expected = new BigDecimal(amount).multiply(new BigDecimal("0.01")).setScale(2,
+                RoundingMode.HALF_UP);
+
+            assertEquals(expected, Money.of(amount).times(1, 100).toBigDecimal(), amount);
+        }
+        assertEquals(Money.of("-1.51"), Money.of("-150.50").times(1, 100));
+    }
+
+    @Test
+    void plus_OverflowThrowsExceptionTest() {
+        Money max = Money.ofCents(Long.MAX_VALUE);
+
+        assertThrows(ArithmeticException.class, () -> max.plus(Money.ofCents(1)));
+        assertThrows(ArithmeticException.class, () -> max.times(2, 1));
+    }
+}
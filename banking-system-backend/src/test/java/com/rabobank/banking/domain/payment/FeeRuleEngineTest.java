@@ -0,0 +1,85 @@
+package com.rabobank.banking.domain.payment;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.InvalidFeeRuleException;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
+
+class FeeRuleEngineTest {
+
+    private TransactionProperties properties;
+    private FeeRuleEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        engine = new FeeRuleEngine(properties);
+    }
+
+    @Test
+    void fee_CreditDefaultsToOnePercentTest() {
+        CardPaymentStrategy credit = engine.strategyFor(CardType.CREDIT);
+
+        assertEquals(Money.of("1.00"), credit.fee(Money.of("100.00")));
+        assertEquals(Money.of("101.00"), credit.totalAmount(Money.of("100.00")));
+        assertEquals(Money.of("1.23"), credit.fee(Money.of("123.45")));
+    }
+
+    @Test
+    void fee_DebitAlwaysZeroTest() {
+        CardPaymentStrategy debit = engine.strategyFor(CardType.DEBIT);
+
+        assertEquals(Money.ZERO, debit.fee(Money.of("100.00")));
+        assertEquals(Money.of("100.00"), debit.totalAmount(Money.of("100.00")));
+    }
+
+    @Test
+    void fee_InvalidAmountThrowsExceptionTest() {
+        CardPaymentStrategy credit = engine.strategyFor(CardType.CREDIT);
+
+        assertThrows(IllegalArgumentException.class, () -> credit.fee(null));
+        assertThrows(IllegalArgumentException.class, () -> credit.fee(Money.of("-100.00")));
+    }
+
+    @Test
+    void fee_ConfiguredBandsWithFlatAndCapsTest() {
+        properties.getFees().getRules().put(CardType.CREDIT, List.of(
+            FeeRule.builder().percentage(new BigDecimal("0.015")).flat(new BigDecimal("0.25"))
+                .minFee(new BigDecimal("1.00")).build(),
+            FeeRule.builder().fromAmount(new BigDecimal("1000.00")).percentage(new BigDecimal("0.01"))
+                .maxFee(new BigDecimal("20.00")).build()));
+        CardPaymentStrategy credit = new FeeRuleEngine(properties).strategyFor(CardType.CREDIT);
+
+        assertEquals(Money.of("1.00"), credit.fee(Money.of("10.00")));
+        assertEquals(Money.of("15.24"), credit.fee(Money.of("999.29")));
+        assertEquals(Money.of("10.00"), credit.fee(Money.of("1000.00")));
+        assertEquals(Money.of("20.00"), credit.fee(Money.of("5000.00")));
+    }
+
+    @Test
+    void reload_SwapsRulesAndKeepsOthersTest() {
+        engine.reload(Map.of(CardType.DEBIT, List.of(FeeRule.builder().flat(new BigDecimal("0.10")).build())));
+
+        assertEquals(Money.of("0.10"), engine.strategyFor(CardType.DEBIT).fee(Money.of("50.00")));
+        assertEquals(Money.of("0.50"), engine.strategyFor(CardType.CREDIT).fee(Money.of("50.00")));
+    }
+
+    @Test
+    void reload_InvalidRulesKeepCurrentRulesTest() {
+        Map<CardType, List<FeeRule>> invalid = Map.of(CardType.CREDIT, List.of(
+            FeeRule.builder().minFee(new BigDecimal("5.00")).maxFee(new BigDecimal("1.00")).build()));
+
+        assertThrows(InvalidFeeRuleException.class, () -> engine.reload(invalid));
+        assertEquals(Money.of("1.00"), engine.strategyFor(CardType.CREDIT).fee(Money.of("100.00")));
+    }
+}
@@ -0,0 +1,90 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.dto.response.AccountBalanceAtResponseDto;
+import com.rabobank.banking.repository.AccountDailyBalanceJdbcRepository;
+import com.rabobank.banking.repository.AccountDailyBalanceJdbcRepository.Snapshot;
+import com.rabobank.banking.repository.AccountRepository;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+@ExtendWith(MockitoExtension.class)
+class AccountBalanceHistoryServiceTest {
+
+    private static final LocalDateTime AT = LocalDateTime.of(2025, 10, 15, 14, 30);
+
+    @Mock
+    private AccountDailyBalanceJdbcRepository dailyBalanceRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @InjectMocks
+    private AccountBalanceHistoryService accountBalanceHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(accountRepository.existsById("ACC001")).thenReturn(true);
+    }
+
+    @Test
+    void getBalanceAt_AddsMovementsSinceSnapshotTest() {
+        LocalDate snapshotDate = LocalDate.of(2025, 10, 14);
+        when(dailyBalanceRepository.findLatestBefore("ACC001", AT.toLocalDate()))
+            .thenReturn(Optional.of(new Snapshot(snapshotDate, new BigDecimal("1000.00"))));
+        when(dailyBalanceRepository.netMovement("ACC001", AT.toLocalDate().atStartOfDay(), AT))
+            .thenReturn(new BigDecimal("-101.00"));
+
+        AccountBalanceAtResponseDto response = accountBalanceHistoryService.getBalanceAt("ACC001", AT);
+
+        assertEquals(new BigDecimal("899.00"), response.getBalance());
+        assertEquals(snapshotDate, response.getSnapshotDate());
+        verify(dailyBalanceRepository, never()).findCurrentBalance(any());
+    }
+
+    @Test
+    void getBalanceAt_WorksBackFromCurrentBalanceWithoutSnapshotTest() {
+        when(dailyBalanceRepository.findCurrentBalance("ACC001")).thenReturn(Optional.of(new BigDecimal("500.00")));
+        when(dailyBalanceRepository.netMovement(eq("ACC001"), any(), isNull())).thenReturn(new BigDecimal("200.00"));
+
+        AccountBalanceAtResponseDto response = accountBalanceHistoryService.getBalanceAt("ACC001", AT);
+
+        assertEquals(new BigDecimal("300.00"), response.getBalance());
+        assertNull(response.getSnapshotDate());
+        verify(dailyBalanceRepository).netMovement("ACC001", AT, null);
+    }
+
+    @Test
+    void getBalanceAt_RejectsWindowReachingIntoArchiveTest() {
+        when(transactionArchive.archivedBefore()).thenReturn(Optional.of(LocalDateTime.of(2025, 11, 1, 0, 0)));
+
+        assertThrows(InvalidTransactionException.class,
+            () -> accountBalanceHistoryService.getBalanceAt("ACC001", AT));
+        verify(dailyBalanceRepository, never()).netMovement(any(), any(), any());
+    }
+}
@@ -0,0 +1,123 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.ConcurrencyConflictException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+class AccountLaneDispatcherTest {
+
+    private TransactionProperties properties;
+    private AccountLaneDispatcher dispatcher;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        properties.getLanes().setEnabled(true);
+        properties.getLanes().setCount(16);
+        dispatcher = new AccountLaneDispatcher(properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void laneCount_RoundedUpToPowerOfTwoTest() {
+        properties.getLanes().setCount(50);
+
+        assertEquals(64, new AccountLaneDispatcher(properties, new SimpleMeterRegistry()).laneCount());
+        assertEquals(16, dispatcher.laneCount());
+    }
+
+    @Test
+    void execute_SameAccountIsSerializedTest() throws Exception {
+        AtomicInteger running = new AtomicInteger();
+        AtomicInteger maxRunning = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<Integer>> futures = new ArrayList<>();
+            for (int i = 0; i < 200; i++) {
+                futures.add(pool.submit(() -> dispatcher.execute("ACC001", () -> {
+                    maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+                    Thread.onSpinWait();
+                    return running.decrementAndGet();
+                })));
+            }
+            for (Future<Integer> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, maxRunning.get());
+    }
+
+    @Test
+    void execute_OpposingTransfersDoNotDeadlockTest() throws Exception {
+        String a = "ACC001";
+        String b = "ACC002";
+        AtomicInteger completed = new AtomicInteger();
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < 500; i++) {
+                boolean forward = i % 2 == 0;
+                futures.add(pool.submit(() -> dispatcher.execute(forward ? a : b, forward ? b : a,
+                    completed::incrementAndGet)));
+            }
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(500, completed.get());
+    }
+
+    @Test
+    void execute_TimesOutWhenLaneIsBusyTest() throws Exception {
+        properties.getLanes().setAcquireTimeout(Duration.ofMillis(50));
+        AccountLaneDispatcher shortTimeout = new AccountLaneDispatcher(properties, new SimpleMeterRegistry());
+        CountDownLatch holding = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        Thread holder = new Thread(() -> shortTimeout.execute("ACC001", () -> {
+            holding.countDown();
+            try {
+                return release.await(5, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                return false;
+            }
+        }));
+        holder.start();
+        assertTrue(holding.await(5, TimeUnit.SECONDS));
+
+        assertThrows(ConcurrencyConflictException.class, () -> shortTimeout.execute("ACC001", () -> true));
+
+        release.countDown();
+        holder.join();
+    }
+
+    @Test
+    void execute_DisabledRunsDirectlyTest() {
+        properties.getLanes().setEnabled(false);
+        AccountLaneDispatcher disabled = new AccountLaneDispatcher(properties, new SimpleMeterRegistry());
+
+        assertEquals("ok", disabled.execute("ACC001", "ACC002", () -> "ok"));
+    }
+}
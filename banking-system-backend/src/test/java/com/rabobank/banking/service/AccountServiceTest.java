@@ -1,18 +1,29 @@
 package com.rabobank.banking.service;
 
+import com.rabobank.banking.config.AccountProperties;
 import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
 import com.rabobank.banking.domain.model.Account;
 import com.rabobank.banking.domain.model.Card;
 import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
 import com.rabobank.banking.domain.model.User;
+import com.rabobank.banking.dto.response.AccountBalancePageResponseDto;
 import com.rabobank.banking.dto.response.AccountBalanceResponseDto;
 import com.rabobank.banking.dto.response.AllAccountsBalanceResponseDto;
+import com.rabobank.banking.repository.AccountBalanceJdbcRepository;
+import com.rabobank.banking.repository.AccountBalanceView;
+import com.rabobank.banking.repository.AccountBucketJdbcRepository;
 import com.rabobank.banking.repository.AccountRepository;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
 import java.math.BigDecimal;
@@ -20,7 +31,9 @@ import java.time.LocalDate;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 
 import static org.junit.jupiter.api.Assertions.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +44,21 @@ class AccountServiceTest {
     @Mock
     private AccountRepository accountRepository;
 
+    @Mock
+    private AccountBucketJdbcRepository accountBucketRepository;
+
+    @Mock
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+
+    @Spy
+    private AccountProperties accountProperties = new AccountProperties();
+
+    @Mock
+    private BalanceTotals balanceTotals;
+
+    @Spy
+    private MeterRegistry meterRegistry = new SimpleMeterRegistry();
+
     @InjectMocks
     private AccountService accountService;
 
@@ -82,7 +110,7 @@ class AccountServiceTest {
             .accountNumber("NL91RABO0417164300")
             .user(testUser1)
             .card(testCard1)
-            .balance(new BigDecimal("1500.00"))
+            .balance(Money.of("1500.00"))
             .active(true)
             .build();
 
@@ -91,7 +119,7 @@ class AccountServiceTest {
             .accountNumber("NL91RABO0417164301")
             .user(testUser2)
             .card(testCard2)
-            .balance(new BigDecimal("2500.00"))
+            .balance(Money.of("2500.00"))
             .active(true)
             .build();
 
@@ -103,7 +131,7 @@ class AccountServiceTest {
     void getAllAccountBalances_SuccessTest() {
         // Arrange
         List<Account> accounts = Arrays.asList(testAccount1, testAccount2);
-        when(accountRepository.findAllActiveAccountsWithDetails()).thenReturn(accounts);
+        when(accountRepository.findActiveBalanceViews()).thenReturn(views(accounts));
 
         // Act
         AllAccountsBalanceResponseDto response = accountService.getAllAccountBalances();
@@ -123,13 +151,54 @@ class AccountServiceTest {
         assertEquals(CardType.DEBIT, acc1.getCardType());
         assertTrue(acc1.isActive());
 
-        verify(accountRepository, times(1)).findAllActiveAccountsWithDetails();
+        verify(accountRepository, times(1)).findActiveBalanceViews();
+    }
+
+    @Test
+    void getAllAccountBalances_IncludesBucketBalancesTest() {
+        testAccount2.setBucketCount(4);
+        when(accountRepository.findActiveBalanceViews()).thenReturn(views(Arrays.asList(testAccount1, testAccount2)));
+        when(accountBucketRepository.sumByAccount()).thenReturn(Map.of("ACC002", Money.of("300.00")));
+
+        AllAccountsBalanceResponseDto response = accountService.getAllAccountBalances();
+
+        assertEquals(new BigDecimal("2800.00"), response.getAccounts().get(1).getBalance());
+        assertEquals(new BigDecimal("4300.00"), response.getTotalBalance());
+    }
+
+    @Test
+    void getAccountBalancesPage_ReturnsCursorOfNextPageTest() {
+        when(accountBalanceRepository.findPage("", 3)).thenReturn(List.of(balanceRow("ACC001"), balanceRow("ACC002"),
+            balanceRow("ACC003")));
+
+        AccountBalancePageResponseDto first = accountService.getAccountBalancesPage(null, 2);
+
+        assertEquals(2, first.getAccounts().size());
+        assertNotNull(first.getNextCursor());
+
+        when(accountBalanceRepository.findPage("ACC002", 3)).thenReturn(List.of(balanceRow("ACC003")));
+
+        AccountBalancePageResponseDto second = accountService.getAccountBalancesPage(first.getNextCursor(), 2);
+
+        assertEquals("ACC003", second.getAccounts().get(0).getAccountId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getAccountBalancesPage_LimitCappedAtMaxPageSizeTest() {
+        accountProperties.getBalances().setMaxPageSize(50);
+        when(accountBalanceRepository.findPage("", 51)).thenReturn(List.of());
+
+        accountService.getAccountBalancesPage(null, 10_000);
+
+        verify(accountBalanceRepository).findPage("", 51);
+        assertThrows(InvalidTransactionException.class, () -> accountService.getAccountBalancesPage("%%", 10));
     }
 
     @Test
     void getAllAccountBalances_EmptyListTest() {
         
-        when(accountRepository.findAllActiveAccountsWithDetails()).thenReturn(Collections.emptyList());
+        when(accountRepository.findActiveBalanceViews()).thenReturn(Collections.emptyList());
 
         
         AllAccountsBalanceResponseDto response = accountService.getAllAccountBalances();
@@ -137,7 +206,7 @@ class AccountServiceTest {
         
         assertNotNull(response);
         assertEquals(0, response.getTotalAccounts());
-        assertEquals(BigDecimal.ZERO, response.getTotalBalance());
+        assertEquals(new BigDecimal("0.00"), response.getTotalBalance());
         assertTrue(response.getAccounts().isEmpty());
     }
 
@@ -145,7 +214,7 @@ class AccountServiceTest {
     void getAllAccountBalances_SingleAccountTest() {
         
         List<Account> accounts = Collections.singletonList(testAccount1);
-        when(accountRepository.findAllActiveAccountsWithDetails()).thenReturn(accounts);
+        when(accountRepository.findActiveBalanceViews()).thenReturn(views(accounts));
 
         
         AllAccountsBalanceResponseDto response = accountService.getAllAccountBalances();
@@ -168,7 +237,7 @@ class AccountServiceTest {
         assertNotNull(account);
         assertEquals("ACC001", account.getAccountId());
         assertEquals("NL91RABO0417164300", account.getAccountNumber());
-        assertEquals(new BigDecimal("1500.00"), account.getBalance());
+        assertEquals(Money.of("1500.00"), account.getBalance());
         verify(accountRepository, times(1)).findById("ACC001");
     }
 
@@ -213,11 +282,39 @@ class AccountServiceTest {
         );
     }
 
+    @Test
+    void getAccountsByIdWithLock_SuccessTest() {
+
+        Set<String> ids = Set.of("ACC001", "ACC002");
+        when(accountRepository.findAllByIdWithLock(ids)).thenReturn(Arrays.asList(testAccount1, testAccount2));
+
+        Map<String, Account> accounts = accountService.getAccountsByIdWithLock(ids);
+
+        assertEquals(2, accounts.size());
+        assertSame(testAccount1, accounts.get("ACC001"));
+        assertSame(testAccount2, accounts.get("ACC002"));
+        assertEquals(1, meterRegistry.get("banking.account.lock.wait").tag("outcome", "acquired").timer().count());
+    }
+
+    @Test
+    void getAccountsByIdWithLock_MissingAccount_ThrowsExceptionTest() {
+
+        Set<String> ids = Set.of("ACC001", "ACC999");
+        when(accountRepository.findAllByIdWithLock(ids)).thenReturn(Collections.singletonList(testAccount1));
+
+        AccountNotFoundException exception = assertThrows(
+            AccountNotFoundException.class,
+            () -> accountService.getAccountsByIdWithLock(ids)
+        );
+
+        assertTrue(exception.getMessage().contains("ACC999"));
+    }
+
     @Test
     void getAllAccountBalances_VerifyMaskedCardNumberTest() {
         
         List<Account> accounts = Collections.singletonList(testAccount1);
-        when(accountRepository.findAllActiveAccountsWithDetails()).thenReturn(accounts);
+        when(accountRepository.findActiveBalanceViews()).thenReturn(views(accounts));
 
        
         AllAccountsBalanceResponseDto response = accountService.getAllAccountBalances();
@@ -243,16 +340,54 @@ class AccountServiceTest {
             .accountNumber("NL91RABO0417164302")
             .user(testUser1)
             .card(testCard3)
-            .balance(new BigDecimal("750.50"))
+            .balance(Money.of("750.50"))
             .active(true)
             .build();
         testCard3.setAccount(account3);
         List<Account> accounts = Arrays.asList(testAccount1, testAccount2, account3);
-        when(accountRepository.findAllActiveAccountsWithDetails()).thenReturn(accounts);
+        when(accountRepository.findActiveBalanceViews()).thenReturn(views(accounts));
 
        
         AllAccountsBalanceResponseDto response = accountService.getAllAccountBalances();
 
         assertEquals(new BigDecimal("4750.50"), response.getTotalBalance());
     }
-}
\ No newline at end of file
+
+    @Test
+    void getAccountBalancesByUser_AccountWithoutCardTest() {
+        Account noCard = Account.builder()
+            .accountId("ACC004")
+            .accountNumber("NL91RABO0417164303")
+            .user(testUser1)
+            .balance(Money.of("20.00"))
+            .active(false)
+            .build();
+        when(accountRepository.findBalanceViewsByUserId(1L)).thenReturn(views(Arrays.asList(testAccount1, noCard)));
+
+        AllAccountsBalanceResponseDto response = accountService.getAccountBalancesByUser(1L);
+
+        assertEquals(2, response.getTotalAccounts());
+        assertEquals(new BigDecimal("1520.00"), response.getTotalBalance());
+        assertEquals("**** **** **** 1234", response.getAccounts().get(0).getCardNumber());
+        assertEquals("No card", response.getAccounts().get(1).getCardNumber());
+        assertNull(response.getAccounts().get(1).getCardType());
+        assertFalse(response.getAccounts().get(1).isActive());
+        verifyNoInteractions(accountBucketRepository);
+    }
+
+    private static List<AccountBalanceView> views(List<Account> accounts) {
+        return accounts.stream().map(AccountServiceTest::view).toList();
+    }
+
+    private static AccountBalanceView view(Account account) {
+        Card card = account.getCard();
+        return new AccountBalanceView(account.getAccountId(), account.getAccountNumber(),
+            account.getUser().getFirstName(), account.getUser().getLastName(), account.getUser().getEmail(),
+            account.getBalance(), account.getBucketCount(), card != null ? card.getCardType() : null,
+            card != null ? card.getCardNumber() : null, account.isActive());
+    }
+
+    private static AccountBalanceResponseDto balanceRow(String accountId) {
+        return AccountBalanceResponseDto.builder().accountId(accountId).balance(new BigDecimal("10.00")).build();
+    }
+}
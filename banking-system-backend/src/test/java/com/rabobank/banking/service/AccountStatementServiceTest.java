@@ -0,0 +1,147 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.when;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+import java.util.function.Consumer;
+import java.util.zip.GZIPInputStream;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.AccountBalanceAtResponseDto;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto.Direction;
+import com.rabobank.banking.repository.AccountRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Filter;
+import com.rabobank.banking.service.archive.TransactionArchive;
+import com.rabobank.banking.service.statement.StatementFormat;
+import com.rabobank.banking.service.statement.StatementWriter;
+
+@ExtendWith(MockitoExtension.class)
+class AccountStatementServiceTest {
+
+    private static final LocalDateTime FROM = LocalDateTime.of(2025, 10, 1, 0, 0);
+    private static final LocalDateTime TO = LocalDateTime.of(2025, 11, 1, 0, 0);
+
+    @Mock
+    private TransactionHistoryJdbcRepository historyRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private AccountBalanceHistoryService balanceHistoryService;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Spy
+    private AccountProperties accountProperties = new AccountProperties();
+
+    @InjectMocks
+    private AccountStatementService accountStatementService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(accountRepository.existsById("ACC001")).thenReturn(true);
+        lenient().when(balanceHistoryService.getBalanceAt("ACC001", FROM)).thenReturn(
+            AccountBalanceAtResponseDto.builder().accountId("ACC001").at(FROM).balance(new BigDecimal("1000.00"))
+                .build());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void export_WritesRunningBalanceAsGzippedCsvTest() throws Exception {
+        doAnswer(invocation -> {
+            Consumer<TransactionHistoryItemDto> consumer = invocation.getArgument(2);
+            consumer.accept(item("TXN-1", Direction.DEBIT, "100.00", "101.00", "ATM, Main St."));
+            consumer.accept(item("TXN-2", Direction.CREDIT, "40.50", "40.50", "=HYPERLINK(\"x\")"));
+            return null;
+        }).when(historyRepository).forEachChronological(eq("ACC001"), eq(new Filter(FROM, TO, null)), any());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        long written;
+        try (StatementWriter writer = accountStatementService.openWriter(StatementFormat.CSV, out, true)) {
+            written = accountStatementService.export("ACC001", FROM, TO, writer);
+        }
+
+        List<String> lines = new String(new GZIPInputStream(new ByteArrayInputStream(out.toByteArray()))
+            .readAllBytes(), StandardCharsets.UTF_8).lines().toList();
+        assertEquals(2, written);
+        assertEquals(5, lines.size());
+        assertTrue(lines.get(0).startsWith("record,transaction_date,"));
+        assertEquals("OPENING,2025-10-01T00:00:00,,,,,,,,,,1000.00", lines.get(1));
+        assertEquals("TRANSACTION,2025-10-02T09:15:00,TXN-1,WITHDRAWAL,DEBIT,,100.00,1.00,101.00,SUCCESS,"
+            + "\"ATM, Main St.\",899.00", lines.get(2));
+        assertTrue(lines.get(3).endsWith(",\"'=HYPERLINK(\"\"x\"\")\",939.50"));
+        assertEquals("CLOSING,,,,,,,,,,,939.50", lines.get(4));
+    }
+
+    @Test
+    void export_WritesNdjsonWithoutGzipTest() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (StatementWriter writer = accountStatementService.openWriter(StatementFormat.NDJSON, out, false)) {
+            accountStatementService.export("ACC001", FROM, null, writer);
+        }
+
+        List<String> lines = out.toString(StandardCharsets.UTF_8).lines().toList();
+        assertEquals("{\"record\":\"opening\",\"accountId\":\"ACC001\",\"from\":\"2025-10-01T00:00:00\","
+            + "\"to\":null,\"balance\":1000.00}", lines.get(0));
+        assertEquals("{\"record\":\"closing\",\"balance\":1000.00,\"transactions\":0}", lines.get(1));
+        assertTrue(accountStatementService.useGzip("br, gzip;q=0.8"));
+        assertFalse(accountStatementService.useGzip(null));
+    }
+
+    @Test
+    void validate_RejectsPeriodStartingInArchiveTest() {
+        when(transactionArchive.archivedBefore()).thenReturn(Optional.of(FROM.plusMonths(1)));
+
+        assertThrows(InvalidTransactionException.class,
+            () -> accountStatementService.validate("ACC001", FROM, TO));
+        assertThrows(InvalidTransactionException.class,
+            () -> accountStatementService.validate("ACC001", TO, FROM));
+    }
+
+    private static TransactionHistoryItemDto item(String transactionId, Direction direction, String amount,
+        String totalAmount, String description) {
+        boolean debit = direction == Direction.DEBIT;
+        return TransactionHistoryItemDto.builder()
+            .transactionId(transactionId)
+            .type(debit ? Transaction.TransactionType.WITHDRAWAL : Transaction.TransactionType.TRANSFER)
+            .direction(direction)
+            .counterpartyAccountId(debit ? null : "ACC002")
+            .amount(new BigDecimal(amount))
+            .fee(debit ? new BigDecimal("1.00") : new BigDecimal("0.00"))
+            .totalAmount(new BigDecimal(totalAmount))
+            .cardType(debit ? CardType.DEBIT : null)
+            .description(description)
+            .status(Transaction.TransactionStatus.SUCCESS)
+            .transactionDate(debit ? LocalDateTime.of(2025, 10, 2, 9, 15) : LocalDateTime.of(2025, 10, 3, 16, 0))
+            .build();
+    }
+}
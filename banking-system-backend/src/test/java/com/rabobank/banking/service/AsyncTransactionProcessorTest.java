@@ -0,0 +1,251 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+import com.rabobank.banking.domain.exception.TransactionNotFoundException;
+import com.rabobank.banking.domain.exception.TransactionQueueFullException;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.request.WithdrawRequestDto;
+import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.dto.response.TransactionStatusResponseDto;
+import com.rabobank.banking.repository.AsyncTransactionRequestJdbcRepository;
+import com.rabobank.banking.repository.AsyncTransactionRequestJdbcRepository.AsyncRequest;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class AsyncTransactionProcessorTest {
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private IdempotencyService idempotencyService;
+
+    @Mock
+    private AsyncTransactionRequestJdbcRepository requestRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private ObjectMapper objectMapper;
+    private TransactionProperties properties;
+    private AsyncTransactionProcessor processor;
+    private WithdrawRequestDto request;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        properties.getAsync().setWorkers(1);
+        properties.getAsync().setQueueCapacity(2);
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        lenient().when(requestRepository.claim(any(), any()))
+            .thenAnswer(i -> new HashSet<>(i.<Collection<String>>getArgument(0)));
+        processor = newProcessor();
+        processor.start();
+
+        request = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("100.00"))
+            .cardNumber("4532123456781234")
+            .build();
+    }
+
+    @AfterEach
+    void tearDown() {
+        processor.stop();
+    }
+
+    private AsyncTransactionProcessor newProcessor() {
+        return new AsyncTransactionProcessor(transactionService, idempotencyService, requestRepository,
+            transactionManager, objectMapper, properties, new SimpleMeterRegistry(),
+            new StaticListableBeanFactory().getBeanProvider(ClientWriteTracker.class));
+    }
+
+    @Test
+    void submitWithdraw_ReturnsPendingThenSuccessTest() throws Exception {
+        when(transactionService.generateTransactionId()).thenReturn("TXN-1");
+        when(transactionService.withdraw(any(), eq("TXN-1"))).thenReturn(TransactionResponseDto.builder()
+            .transactionId("TXN-1").status(Transaction.TransactionStatus.SUCCESS).build());
+
+        TransactionStatusResponseDto accepted = processor.submitWithdraw(null, request);
+        TransactionStatusResponseDto finished = processor.getStatus("TXN-1").get(5, TimeUnit.SECONDS);
+
+        assertEquals(Transaction.TransactionStatus.PENDING, accepted.getStatus());
+        assertEquals("TXN-1", accepted.getTransactionId());
+        assertEquals(Transaction.TransactionStatus.SUCCESS, finished.getStatus());
+        assertEquals("TXN-1", finished.getTransaction().getTransactionId());
+    }
+
+    @Test
+    void submitWithdraw_FailureIsReportedTest() throws Exception {
+        when(transactionService.generateTransactionId()).thenReturn("TXN-2");
+        when(transactionService.withdraw(any(), eq("TXN-2")))
+            .thenThrow(new InsufficientFundsException("ACC001", BigDecimal.ZERO, new BigDecimal("100.00")));
+
+        processor.submitWithdraw(null, request);
+        TransactionStatusResponseDto finished = processor.getStatus("TXN-2").get(5, TimeUnit.SECONDS);
+
+        assertEquals(Transaction.TransactionStatus.FAILED, finished.getStatus());
+        assertEquals("INSUFFICIENT_FUNDS", finished.getErrorCode());
+        verify(requestRepository).complete(eq("TXN-2"), eq(Transaction.TransactionStatus.FAILED),
+            eq("INSUFFICIENT_FUNDS"), any(), any());
+    }
+
+    @Test
+    void submitWithdraw_StoresRequestBeforeQueueingTest() throws Exception {
+        when(transactionService.generateTransactionId()).thenReturn("TXN-3");
+        when(transactionService.withdraw(any(), eq("TXN-3"))).thenReturn(TransactionResponseDto.builder()
+            .transactionId("TXN-3").status(Transaction.TransactionStatus.SUCCESS).build());
+
+        processor.submitWithdraw(null, request);
+        processor.getStatus("TXN-3").get(5, TimeUnit.SECONDS);
+
+        verify(requestRepository).insert(eq("TXN-3"), eq(Transaction.TransactionType.WITHDRAWAL),
+            eq(objectMapper.writeValueAsString(request)), isNull(), any());
+        verify(requestRepository).complete(eq("TXN-3"), eq(Transaction.TransactionStatus.SUCCESS), isNull(),
+            isNull(), any());
+    }
+
+    @Test
+    void submitWithdraw_CommitsBatchTogetherTest() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionService.canJoinTransaction()).thenReturn(true);
+        when(transactionService.generateTransactionId()).thenReturn("TXN-A", "TXN-B", "TXN-C");
+        when(transactionService.withdraw(any(), any())).thenAnswer(i -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return TransactionResponseDto.builder().transactionId(i.getArgument(1))
+                .status(Transaction.TransactionStatus.SUCCESS).build();
+        });
+
+        processor.submitWithdraw(null, request);
+        running.await(5, TimeUnit.SECONDS);
+        processor.submitWithdraw(null, request);
+        processor.submitWithdraw(null, request);
+        release.countDown();
+
+        assertEquals(Transaction.TransactionStatus.SUCCESS,
+            processor.getStatus("TXN-C").get(5, TimeUnit.SECONDS).getStatus());
+        verify(requestRepository).completeAll(eq(List.of("TXN-B", "TXN-C")), any());
+        verify(requestRepository, never()).complete(eq("TXN-B"), any(), any(), any(), any());
+    }
+
+    @Test
+    void recovery_RunsStaleRequestNotYetCommittedTest() throws Exception {
+        processor.stop();
+        properties.getAsync().setRecoverAfter(Duration.ofMillis(20));
+        when(requestRepository.reclaimStale(any(), any(), anyInt())).thenReturn(List.of(new AsyncRequest("TXN-R",
+            Transaction.TransactionType.WITHDRAWAL, objectMapper.writeValueAsString(request), null,
+            Transaction.TransactionStatus.PENDING, null, null)), List.of());
+        when(transactionService.findTransaction("TXN-R")).thenReturn(Optional.empty());
+        when(transactionService.withdraw(any(), eq("TXN-R"))).thenReturn(TransactionResponseDto.builder()
+            .transactionId("TXN-R").status(Transaction.TransactionStatus.SUCCESS).build());
+
+        processor = newProcessor();
+        processor.start();
+
+        verify(requestRepository, timeout(5000)).complete(eq("TXN-R"), eq(Transaction.TransactionStatus.SUCCESS),
+            isNull(), isNull(), any());
+        verify(transactionService).withdraw(eq(request), eq("TXN-R"));
+    }
+
+    @Test
+    void recovery_CompletesAlreadyCommittedRequestTest() throws Exception {
+        processor.stop();
+        properties.getAsync().setRecoverAfter(Duration.ofMillis(20));
+        when(requestRepository.reclaimStale(any(), any(), anyInt())).thenReturn(List.of(new AsyncRequest("TXN-R",
+            Transaction.TransactionType.WITHDRAWAL, objectMapper.writeValueAsString(request), null,
+            Transaction.TransactionStatus.PENDING, null, null)), List.of());
+        when(transactionService.findTransaction("TXN-R")).thenReturn(Optional.of(TransactionResponseDto.builder()
+            .transactionId("TXN-R").status(Transaction.TransactionStatus.SUCCESS).build()));
+
+        processor = newProcessor();
+        processor.start();
+
+        verify(requestRepository, timeout(5000)).complete(eq("TXN-R"), eq(Transaction.TransactionStatus.SUCCESS),
+            isNull(), isNull(), any());
+        verify(transactionService, never()).withdraw(any(), any());
+    }
+
+    @Test
+    void submitWithdraw_RejectsWhenQueueIsFullTest() throws Exception {
+        CountDownLatch running = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        when(transactionService.generateTransactionId()).thenReturn("TXN-A", "TXN-B", "TXN-C", "TXN-D");
+        when(transactionService.withdraw(any(), any())).thenAnswer(i -> {
+            running.countDown();
+            release.await(5, TimeUnit.SECONDS);
+            return TransactionResponseDto.builder().transactionId(i.getArgument(1))
+                .status(Transaction.TransactionStatus.SUCCESS).build();
+        });
+
+        processor.submitWithdraw(null, request);
+        running.await(5, TimeUnit.SECONDS);
+        processor.submitWithdraw(null, request);
+        processor.submitWithdraw(null, request);
+
+        assertThrows(TransactionQueueFullException.class, () -> processor.submitWithdraw(null, request));
+        release.countDown();
+    }
+
+    @Test
+    void getStatus_FallsBackToDatabaseTest() throws Exception {
+        when(transactionService.findTransaction("TXN-OLD")).thenReturn(Optional.of(TransactionResponseDto.builder()
+            .transactionId("TXN-OLD").status(Transaction.TransactionStatus.SUCCESS).build()));
+
+        assertEquals(Transaction.TransactionStatus.SUCCESS, processor.getStatus("TXN-OLD").get().getStatus());
+    }
+
+    @Test
+    void getStatus_AnswersStoredFailureTest() throws Exception {
+        when(requestRepository.find("TXN-FAILED")).thenReturn(Optional.of(new AsyncRequest("TXN-FAILED",
+            Transaction.TransactionType.WITHDRAWAL, "{}", null, Transaction.TransactionStatus.FAILED,
+            "INSUFFICIENT_FUNDS", "Insufficient funds")));
+
+        TransactionStatusResponseDto status = processor.getStatus("TXN-FAILED").get();
+
+        assertEquals(Transaction.TransactionStatus.FAILED, status.getStatus());
+        assertEquals("INSUFFICIENT_FUNDS", status.getErrorCode());
+    }
+
+    @Test
+    void getStatus_UnknownTransactionTest() {
+        when(transactionService.findTransaction("TXN-NONE")).thenReturn(Optional.empty());
+
+        assertThrows(TransactionNotFoundException.class, () -> processor.getStatus("TXN-NONE"));
+    }
+}
@@ -0,0 +1,86 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.repository.AccountBalanceJdbcRepository;
+import com.rabobank.banking.repository.AccountBalanceJdbcRepository.Totals;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class BalanceTotalsTest {
+
+    @Mock
+    private AccountBalanceJdbcRepository accountBalanceRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private BalanceTotals balanceTotals;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        balanceTotals = new BalanceTotals(accountBalanceRepository, new AccountProperties(), meterRegistry);
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    void current_EmptyUntilReconciledTest() {
+        balanceTotals.record(-100, 0);
+
+        assertTrue(balanceTotals.current().isEmpty());
+
+        when(accountBalanceRepository.totals()).thenReturn(new Totals(3, new BigDecimal("4000.00")));
+        balanceTotals.reconcile();
+
+        assertEquals(new Totals(3, new BigDecimal("4000.00")), balanceTotals.current().orElseThrow());
+    }
+
+    @Test
+    void record_AppliedOnlyAfterCommitTest() {
+        when(accountBalanceRepository.totals()).thenReturn(new Totals(3, new BigDecimal("4000.00")));
+        balanceTotals.reconcile();
+
+        TransactionSynchronizationManager.initSynchronization();
+        balanceTotals.record(-10100, 0);
+
+        assertEquals(new BigDecimal("4000.00"), balanceTotals.current().orElseThrow().totalBalance());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+
+        assertEquals(new BigDecimal("3899.00"), balanceTotals.current().orElseThrow().totalBalance());
+    }
+
+    @Test
+    void reconcile_ReportsAndCorrectsDriftTest() {
+        when(accountBalanceRepository.totals()).thenReturn(new Totals(3, new BigDecimal("4000.00")));
+        balanceTotals.reconcile();
+        balanceTotals.record(-500, -1);
+
+        when(accountBalanceRepository.totals()).thenReturn(new Totals(3, new BigDecimal("3990.00")));
+        balanceTotals.reconcile();
+
+        assertEquals(5.0, meterRegistry.get("banking.balance.totals.drift").gauge().value());
+        assertEquals(-1.0, meterRegistry.get("banking.balance.totals.drift.accounts").gauge().value());
+        assertEquals(new Totals(3, new BigDecimal("3990.00")), balanceTotals.current().orElseThrow());
+    }
+}
@@ -0,0 +1,167 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.model.Account;
+import com.rabobank.banking.domain.model.Card;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.domain.payment.FeeRuleEngine;
+import com.rabobank.banking.dto.request.TransferRequestDto;
+import com.rabobank.banking.dto.response.BatchTransferResponseDto;
+import com.rabobank.banking.repository.AccountBucketJdbcRepository;
+import com.rabobank.banking.repository.AccountBucketJdbcRepository.Bucket;
+import com.rabobank.banking.repository.CardRepository;
+import com.rabobank.banking.repository.TransactionRepository;
+import com.rabobank.banking.service.analytics.TransactionRollups;
+
+@ExtendWith(MockitoExtension.class)
+class BatchTransferServiceTest {
+
+    @Mock
+    private AccountService accountService;
+
+    @Mock
+    private CardRepository cardRepository;
+
+    @Mock
+    private TransactionRepository transactionRepository;
+
+    @Mock
+    private ContentionRetryExecutor retryExecutor;
+
+    @Mock
+    private TransactionService transactionService;
+
+    @Mock
+    private AccountBucketJdbcRepository accountBucketRepository;
+
+    @Mock
+    private BalanceTotals balanceTotals;
+
+    @Mock
+    private TransactionRollups transactionRollups;
+
+    private TransactionProperties properties;
+    private BatchTransferService batchTransferService;
+    private Account payer;
+    private Account payee;
+    private Card payerCard;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        batchTransferService = new BatchTransferService(accountService, cardRepository, transactionRepository,
+            new FeeRuleEngine(properties), retryExecutor, transactionService,
+            new BucketedBalanceService(accountBucketRepository, accountService, properties), balanceTotals,
+            transactionRollups, properties);
+
+        payer = Account.builder().accountId("ACC001").balance(Money.of("250.00")).active(true).build();
+        payee = Account.builder().accountId("ACC002").balance(Money.of("0.00")).active(true).build();
+        payerCard = Card.builder()
+            .id(1L)
+            .cardNumber("4532123456781234")
+            .cardType(CardType.DEBIT)
+            .account(payer)
+            .expiryDate(LocalDate.now().plusYears(2))
+            .active(true)
+            .build();
+
+        lenient().when(retryExecutor.execute(anyString(), any()))
+            .thenAnswer(i -> i.<Supplier<?>>getArgument(1).get());
+        lenient().when(transactionService.generateTransactionId()).thenReturn("TXN-1", "TXN-2", "TXN-3", "TXN-4");
+        lenient().when(accountService.getExistingAccountsByIdWithLock(any()))
+            .thenReturn(Map.of("ACC001", payer, "ACC002", payee));
+        lenient().when(cardRepository.findByCardNumberIn(any())).thenReturn(List.of(payerCard));
+    }
+
+    @Test
+    void transferAll_FailedItemDoesNotAbortOthersTest() {
+        List<TransferRequestDto> transfers = List.of(
+            transfer("ACC001", "ACC002", "100.00"),
+            transfer("ACC001", "ACC002", "200.00"),
+            transfer("ACC001", "ACC999", "10.00"),
+            transfer("ACC001", "ACC002", "150.00"));
+
+        BatchTransferResponseDto response = batchTransferService.transferAll(transfers);
+
+        assertEquals(4, response.getTotal());
+        assertEquals(2, response.getSucceeded());
+        assertEquals(Transaction.TransactionStatus.SUCCESS, response.getResults().get(0).getStatus());
+        assertEquals("INSUFFICIENT_FUNDS", response.getResults().get(1).getErrorCode());
+        assertEquals("ACCOUNT_NOT_FOUND", response.getResults().get(2).getErrorCode());
+        assertEquals(Transaction.TransactionStatus.SUCCESS, response.getResults().get(3).getStatus());
+        assertEquals(Money.of("0.00"), payer.getBalance());
+        assertEquals(Money.of("250.00"), payee.getBalance());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void transferAll_LocksOncePerChunkAndSavesTogetherTest() {
+        properties.getBatch().setChunkSize(2);
+        List<TransferRequestDto> transfers = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            transfers.add(transfer("ACC001", "ACC002", "10.00"));
+        }
+
+        BatchTransferResponseDto response = batchTransferService.transferAll(transfers);
+
+        assertEquals(4, response.getSucceeded());
+        verify(accountService, times(2)).getExistingAccountsByIdWithLock(any());
+        ArgumentCaptor<List<Transaction>> saved = ArgumentCaptor.forClass(List.class);
+        verify(transactionRepository, times(2)).saveAll(saved.capture());
+        assertEquals(2, saved.getValue().size());
+        assertEquals(3, response.getResults().get(3).getIndex());
+    }
+
+    @Test
+    void transferAll_BucketedSenderDrawsFromBucketsTest() {
+        payer.setBucketCount(2);
+        when(accountBucketRepository.lockBuckets("ACC001")).thenReturn(
+            List.of(new Bucket(0, Money.of("100.00")), new Bucket(1, Money.of("100.00"))));
+        List<TransferRequestDto> transfers = List.of(
+            transfer("ACC001", "ACC002", "300.00"),
+            transfer("ACC001", "ACC002", "200.00"));
+
+        BatchTransferResponseDto response = batchTransferService.transferAll(transfers);
+
+        assertEquals(Transaction.TransactionStatus.SUCCESS, response.getResults().get(0).getStatus());
+        assertEquals(new BigDecimal("450.00"), response.getResults().get(0).getTransaction().getBalanceBefore());
+        assertEquals("INSUFFICIENT_FUNDS", response.getResults().get(1).getErrorCode());
+        assertEquals(Money.of("0.00"), payer.getBalance());
+        assertEquals(Money.of("300.00"), payee.getBalance());
+        verify(accountBucketRepository).setBucketBalance(eq("ACC001"), eq(0), eq(Money.of("50.00")), any());
+    }
+
+    private static TransferRequestDto transfer(String from, String to, String amount) {
+        return TransferRequestDto.builder()
+            .fromAccountId(from)
+            .toAccountId(to)
+            .cardNumber("4532123456781234")
+            .amount(new BigDecimal(amount))
+            .build();
+    }
+}
@@ -0,0 +1,146 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.argThat;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.dao.PessimisticLockingFailureException;
+import org.springframework.orm.ObjectOptimisticLockingFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.config.TransactionProperties.ConcurrencyMode;
+import com.rabobank.banking.domain.exception.ConcurrencyConflictException;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+import com.rabobank.banking.domain.model.Account;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class ContentionRetryExecutorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private SimpleMeterRegistry meterRegistry;
+    private TransactionProperties properties;
+    private ContentionRetryExecutor executor;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new TransactionProperties();
+        properties.getRetry().setMaxAttempts(3);
+        properties.getRetry().setInitialBackoff(Duration.ZERO);
+        properties.getRetry().setMaxBackoff(Duration.ZERO);
+        executor = new ContentionRetryExecutor(transactionManager, properties, meterRegistry);
+
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void execute_RetriesLockTimeoutThenSucceedsTest() {
+        AtomicInteger calls = new AtomicInteger();
+
+        String result = executor.execute("transfer", () -> {
+            if (calls.incrementAndGet() < 3) {
+                throw new CannotAcquireLockException("lock timeout");
+            }
+            return "done";
+        });
+
+        assertEquals("done", result);
+        assertEquals(3, calls.get());
+        assertEquals(2, meterRegistry.get("banking.transaction.retries").tag("operation", "transfer").counter().count());
+        verify(transactionManager, times(2)).rollback(any());
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void executeReadOnly_RunsInReadOnlyTransactionTest() {
+        assertEquals("done", executor.executeReadOnly("ledger-transfer", () -> "done"));
+
+        verify(transactionManager).getTransaction(argThat(TransactionDefinition::isReadOnly));
+    }
+
+    @Test
+    void execute_GivesUpAfterMaxAttemptsTest() {
+        AtomicInteger calls = new AtomicInteger();
+
+        ConcurrencyConflictException exception = assertThrows(ConcurrencyConflictException.class,
+            () -> executor.execute("transfer", () -> {
+                calls.incrementAndGet();
+                throw new PessimisticLockingFailureException("deadlock detected");
+            }));
+
+        assertEquals(3, calls.get());
+        assertEquals(3, exception.getAttempts());
+        assertEquals(1, meterRegistry.get("banking.transaction.contention.exhausted").counter().count());
+    }
+
+    @Test
+    void execute_BusinessExceptionIsNotRetriedTest() {
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(InsufficientFundsException.class, () -> executor.execute("withdraw", () -> {
+            calls.incrementAndGet();
+            throw new InsufficientFundsException("ACC001", BigDecimal.ONE, BigDecimal.TEN);
+        }));
+
+        assertEquals(1, calls.get());
+    }
+
+    @Test
+    void backoffMillis_DoublesAndIsCappedTest() {
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(20));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(50));
+
+        assertEquals(20, executor.backoffMillis(1));
+        assertEquals(40, executor.backoffMillis(2));
+        assertEquals(50, executor.backoffMillis(3));
+        assertEquals(50, executor.backoffMillis(30));
+    }
+
+    @Test
+    void jitteredBackoffMillis_StaysWithinUpperHalfTest() {
+        properties.getRetry().setInitialBackoff(Duration.ofMillis(40));
+        properties.getRetry().setMaxBackoff(Duration.ofMillis(200));
+
+        for (int i = 0; i < 100; i++) {
+            long backoff = executor.jitteredBackoffMillis(2);
+            assertTrue(backoff >= 40 && backoff <= 80, "backoff out of range: " + backoff);
+        }
+    }
+
+    @Test
+    void execute_OptimisticModeUsesOptimisticAttemptLimitTest() {
+        properties.setConcurrencyMode(ConcurrencyMode.OPTIMISTIC);
+        properties.getRetry().setOptimisticMaxAttempts(5);
+        AtomicInteger calls = new AtomicInteger();
+
+        assertThrows(ConcurrencyConflictException.class, () -> executor.execute("withdraw", () -> {
+            calls.incrementAndGet();
+            throw new ObjectOptimisticLockingFailureException(Account.class, "ACC001");
+        }));
+
+        assertEquals(5, calls.get());
+    }
+}
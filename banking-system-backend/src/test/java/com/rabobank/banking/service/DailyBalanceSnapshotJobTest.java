@@ -0,0 +1,38 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.Test;
+
+class DailyBalanceSnapshotJobTest {
+
+    private static final LocalDate TODAY = LocalDate.of(2026, 10, 18);
+    private static final Duration SETTLE_DELAY = Duration.ofMinutes(5);
+
+    @Test
+    void pendingDays_ContinuesAfterLastCompletedDayTest() {
+        List<LocalDate> days = DailyBalanceSnapshotJob.pendingDays(Optional.of(TODAY.minusDays(4)),
+            TODAY.atTime(9, 0), SETTLE_DELAY);
+
+        assertEquals(List.of(TODAY.minusDays(3), TODAY.minusDays(2), TODAY.minusDays(1)), days);
+        assertTrue(DailyBalanceSnapshotJob.pendingDays(Optional.of(TODAY.minusDays(1)), TODAY.atTime(9, 0),
+            SETTLE_DELAY).isEmpty());
+    }
+
+    @Test
+    void pendingDays_WaitsForSettleDelayAfterMidnightTest() {
+        LocalDateTime justAfterMidnight = TODAY.atStartOfDay().plusMinutes(2);
+
+        assertEquals(List.of(TODAY.minusDays(2)),
+            DailyBalanceSnapshotJob.pendingDays(Optional.empty(), justAfterMidnight, SETTLE_DELAY));
+        assertEquals(List.of(TODAY.minusDays(1)),
+            DailyBalanceSnapshotJob.pendingDays(Optional.empty(), justAfterMidnight.plusMinutes(3), SETTLE_DELAY));
+    }
+}
@@ -0,0 +1,231 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.atMost;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+
+import java.math.BigDecimal;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.IntFunction;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.CannotAcquireLockException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class GroupCommitExecutorTest {
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionProperties properties;
+    private SimpleMeterRegistry meterRegistry;
+    private ClientWriteTracker writeTracker;
+    private GroupCommitExecutor groupCommitExecutor;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        properties.getGroupCommit().setEnabled(true);
+        properties.getGroupCommit().setCommitters(1);
+        properties.getGroupCommit().setWindow(Duration.ofMillis(200));
+        meterRegistry = new SimpleMeterRegistry();
+        writeTracker = new ClientWriteTracker(Duration.ofMinutes(1));
+        groupCommitExecutor = createExecutor();
+
+        lenient().when(transactionManager.getTransaction(any())).thenAnswer(i -> new SimpleTransactionStatus());
+    }
+
+    @Test
+    void execute_DisabledRunsInOwnTransactionTest() {
+        properties.getGroupCommit().setEnabled(false);
+
+        assertEquals("done", groupCommitExecutor.execute("withdraw", List.of("ACC001"), () -> "done"));
+
+        verify(transactionManager, times(1)).commit(any());
+    }
+
+    @Test
+    void execute_ConcurrentCallersShareOneCommitTest() throws Exception {
+        List<Future<Integer>> futures = runConcurrently(4, i -> i * 10);
+
+        for (int i = 0; i < futures.size(); i++) {
+            assertEquals(i * 10, futures.get(i).get(5, TimeUnit.SECONDS));
+        }
+        verify(transactionManager, atMost(2)).commit(any());
+    }
+
+    @Test
+    void execute_FailedItemFallsBackToPerItemCommitsTest() throws Exception {
+        List<Future<Integer>> futures = runConcurrently(3, i -> {
+            if (i == 1) {
+                throw new InsufficientFundsException("ACC001", BigDecimal.ZERO, BigDecimal.TEN);
+            }
+            return i;
+        });
+
+        assertEquals(0, futures.get(0).get(5, TimeUnit.SECONDS));
+        Exception failure = assertThrows(Exception.class, () -> futures.get(1).get(5, TimeUnit.SECONDS));
+        assertEquals(InsufficientFundsException.class, failure.getCause().getClass());
+        assertEquals(2, futures.get(2).get(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    void execute_RecordsWriteOfEveryGroupedCallerTest() throws Exception {
+        runConcurrently(3, i -> i);
+
+        for (int i = 0; i < 3; i++) {
+            writeTracker.bind("client-" + i);
+            assertTrue(writeTracker.recentlyWrote());
+        }
+        writeTracker.clear();
+    }
+
+    @Test
+    void execute_OpposingGroupsLockInTheSameOrderTest() throws Exception {
+        properties.getGroupCommit().setCommitters(2);
+        properties.getGroupCommit().setMaxGroupSize(2);
+        properties.getGroupCommit().setWindow(Duration.ofMillis(100));
+        groupCommitExecutor = createExecutor();
+        Map<String, ReentrantLock> rowLocks = Map.of("ACC001", new ReentrantLock(), "ACC002", new ReentrantLock());
+        List<ReentrantLock> held = new ArrayList<>();
+        lenient().doAnswer(i -> release(held)).when(transactionManager).commit(any());
+        lenient().doAnswer(i -> release(held)).when(transactionManager).rollback(any());
+
+        // The first group runs ACC001 then ACC002; the second is queued while it
+        // holds ACC001 and arrives as ACC002 then ACC001
+        List<String> arrivals = List.of("ACC001", "ACC002", "ACC002", "ACC001");
+        CountDownLatch firstGroupLocked = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(arrivals.size());
+        List<Future<String>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < arrivals.size(); i++) {
+                String accountId = arrivals.get(i);
+                if (i == 2) {
+                    assertTrue(firstGroupLocked.await(5, TimeUnit.SECONDS));
+                }
+                futures.add(pool.submit(() -> groupCommitExecutor.execute("transfer", List.of(accountId), () -> {
+                    lockRow(rowLocks.get(accountId), held);
+                    firstGroupLocked.countDown();
+                    // Keep the row until the other group has started
+                    sleepQuietly(200);
+                    return accountId;
+                })));
+                Thread.sleep(1);
+            }
+            for (int i = 0; i < arrivals.size(); i++) {
+                assertEquals(arrivals.get(i), futures.get(i).get(10, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+        assertEquals(0, meterRegistry.counter("banking.transaction.group.fallbacks").count());
+    }
+
+    /**
+     * Takes a row lock until the committer's transaction ends, giving up like a
+     * database lock timeout would.
+     */
+    private static void lockRow(ReentrantLock rowLock, List<ReentrantLock> held) {
+        try {
+            if (!rowLock.tryLock(1, TimeUnit.SECONDS)) {
+                throw new CannotAcquireLockException("deadlock detected");
+            }
+            synchronized (held) {
+                held.add(rowLock);
+            }
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            throw new CannotAcquireLockException("interrupted");
+        }
+    }
+
+    private static void sleepQuietly(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static Void release(List<ReentrantLock> held) {
+        synchronized (held) {
+            held.removeIf(lock -> {
+                if (lock.isHeldByCurrentThread()) {
+                    while (lock.isHeldByCurrentThread()) {
+                        lock.unlock();
+                    }
+                    return true;
+                }
+                return false;
+            });
+        }
+        return null;
+    }
+
+    private GroupCommitExecutor createExecutor() {
+        return new GroupCommitExecutor(
+            new ContentionRetryExecutor(transactionManager, properties, meterRegistry), transactionManager,
+            properties, meterRegistry,
+            new StaticListableBeanFactory(Map.of("writeTracker", writeTracker)).getBeanProvider(ClientWriteTracker.class));
+    }
+
+    private List<Future<Integer>> runConcurrently(int callers, IntFunction<Integer> work)
+        throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(callers);
+        CountDownLatch start = new CountDownLatch(1);
+        List<Future<Integer>> futures = new ArrayList<>();
+        try {
+            for (int i = 0; i < callers; i++) {
+                int item = i;
+                futures.add(pool.submit(() -> {
+                    start.await();
+                    writeTracker.bind("client-" + item);
+                    try {
+                        return groupCommitExecutor.execute("transfer", List.of("ACC00" + item), () -> work.apply(item));
+                    } finally {
+                        writeTracker.clear();
+                    }
+                }));
+            }
+            start.countDown();
+            for (Future<Integer> future : futures) {
+                try {
+                    future.get(5, TimeUnit.SECONDS);
+                } catch (Exception ex) {
+                    // Checked by the test
+                }
+            }
+        } finally {
+            pool.shutdown();
+        }
+        return futures;
+    }
+}
@@ -0,0 +1,259 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.BankingException;
+import com.rabobank.banking.domain.exception.IdempotencyKeyConflictException;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.request.WithdrawRequestDto;
+import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.repository.IdempotencyKeyJdbcRepository;
+import com.rabobank.banking.repository.IdempotencyKeyJdbcRepository.IdempotencyRecord;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class IdempotencyServiceTest {
+
+    @Mock
+    private IdempotencyKeyJdbcRepository repository;
+
+    @Mock
+    private TransactionService transactionService;
+
+    private ObjectMapper objectMapper;
+    private IdempotencyService idempotencyService;
+    private WithdrawRequestDto request;
+    private TransactionResponseDto response;
+
+    @BeforeEach
+    void setUp() {
+        objectMapper = new ObjectMapper().findAndRegisterModules();
+        idempotencyService = new IdempotencyService(repository, transactionService, objectMapper,
+            new TransactionProperties(), new SimpleMeterRegistry());
+        lenient().when(transactionService.generateTransactionId()).thenReturn("TXN-1");
+
+        request = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("100.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        response = TransactionResponseDto.builder()
+            .transactionId("TXN-1")
+            .accountId("ACC001")
+            .type(Transaction.TransactionType.WITHDRAWAL)
+            .amount(new BigDecimal("100.00"))
+            .fee(BigDecimal.ZERO)
+            .totalAmount(new BigDecimal("100.00"))
+            .cardType(CardType.DEBIT)
+            .status(Transaction.TransactionStatus.SUCCESS)
+            .timestamp(LocalDateTime.now())
+            .build();
+    }
+
+    @Test
+    void execute_WithoutKeyRunsWorkTest() {
+        assertSame(response, idempotencyService.execute(null, "withdraw", request, id -> response));
+
+        verify(repository, never()).claim(anyString(), anyString(), anyString(), anyString(), any());
+    }
+
+    @Test
+    void execute_RepeatedKeyServedFromCacheTest() {
+        when(repository.claim(eq("key-1"), eq("withdraw"), anyString(), eq("TXN-1"), any())).thenReturn(true);
+        AtomicInteger executions = new AtomicInteger();
+
+        idempotencyService.execute("key-1", "withdraw", request, id -> {
+            executions.incrementAndGet();
+            return response;
+        });
+        TransactionResponseDto replayed = idempotencyService.execute("key-1", "withdraw", request, id -> {
+            executions.incrementAndGet();
+            return response;
+        });
+
+        assertEquals(1, executions.get());
+        assertSame(response, replayed);
+        verify(repository, times(1)).complete(eq("key-1"), anyString(), any());
+    }
+
+    @Test
+    void execute_KeyReusedForDifferentRequestTest() {
+        when(repository.claim(eq("key-1"), eq("withdraw"), anyString(), eq("TXN-1"), any())).thenReturn(true);
+        idempotencyService.execute("key-1", "withdraw", request, id -> response);
+
+        WithdrawRequestDto other = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("500.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        IdempotencyKeyConflictException exception = assertThrows(IdempotencyKeyConflictException.class,
+            () -> idempotencyService.execute("key-1", "withdraw", other, id -> response));
+        assertEquals(IdempotencyKeyConflictException.KEY_REUSED, exception.getErrorCode());
+    }
+
+    @Test
+    void execute_CompletedKeyServedFromDatabaseTest() throws Exception {
+        when(repository.claim(eq("key-2"), eq("withdraw"), anyString(), anyString(), any())).thenAnswer(i -> {
+            String requestHash = i.getArgument(2);
+            when(repository.find("key-2")).thenReturn(Optional.of(new IdempotencyRecord("key-2", "withdraw",
+                requestHash, true, "TXN-1", objectMapper.writeValueAsString(response), LocalDateTime.now())));
+            return false;
+        });
+
+        TransactionResponseDto replayed = idempotencyService.execute("key-2", "withdraw", request, id -> {
+            throw new AssertionError("must not execute");
+        });
+
+        assertEquals("TXN-1", replayed.getTransactionId());
+        assertEquals(new BigDecimal("100.00"), replayed.getTotalAmount());
+    }
+
+    @Test
+    void execute_FailureReleasesClaimTest() {
+        when(repository.claim(eq("key-3"), eq("withdraw"), anyString(), anyString(), any())).thenReturn(true);
+
+        assertThrows(InsufficientFundsException.class, () -> idempotencyService.execute("key-3", "withdraw",
+            request, id -> {
+                throw new InsufficientFundsException("ACC001", BigDecimal.ZERO, new BigDecimal("100.00"));
+            }));
+
+        verify(repository).release("key-3");
+        verify(repository, never()).complete(anyString(), anyString(), any());
+    }
+
+    @Test
+    void execute_UnknownOutcomeKeepsClaimTest() {
+        when(repository.claim(eq("key-5"), eq("withdraw"), anyString(), anyString(), any())).thenReturn(true);
+
+        assertThrows(BankingException.class, () -> idempotencyService.execute("key-5", "withdraw", request, id -> {
+            throw new BankingException("Ledger posting did not complete in time", "LEDGER_TIMEOUT");
+        }));
+
+        verify(repository, never()).release(anyString());
+    }
+
+    @Test
+    void execute_StaleClaimReturnsCommittedTransactionTest() {
+        when(repository.claim(eq("key-6"), eq("withdraw"), anyString(), anyString(), any())).thenAnswer(i -> {
+            String requestHash = i.getArgument(2);
+            when(repository.find("key-6")).thenReturn(Optional.of(new IdempotencyRecord("key-6", "withdraw",
+                requestHash, false, "TXN-ORIGINAL", null, LocalDateTime.now().minusMinutes(5))));
+            return false;
+        });
+        when(repository.reclaimStale(eq("key-6"), anyString(), anyString(), any(), any())).thenReturn(true);
+        when(transactionService.findTransaction("TXN-ORIGINAL")).thenReturn(Optional.of(response));
+
+        TransactionResponseDto recovered = idempotencyService.execute("key-6", "withdraw", request, id -> {
+            throw new AssertionError("must not execute");
+        });
+
+        assertSame(response, recovered);
+        verify(repository).complete(eq("key-6"), anyString(), any());
+    }
+
+    @Test
+    void execute_StaleClaimRerunsUnderOriginalTransactionIdTest() {
+        when(repository.claim(eq("key-7"), eq("withdraw"), anyString(), anyString(), any())).thenAnswer(i -> {
+            String requestHash = i.getArgument(2);
+            when(repository.find("key-7")).thenReturn(Optional.of(new IdempotencyRecord("key-7", "withdraw",
+                requestHash, false, "TXN-ORIGINAL", null, LocalDateTime.now().minusMinutes(5))));
+            return false;
+        });
+        when(repository.reclaimStale(eq("key-7"), anyString(), anyString(), any(), any())).thenReturn(true);
+        when(transactionService.findTransaction("TXN-ORIGINAL")).thenReturn(Optional.empty());
+        List<String> usedIds = new ArrayList<>();
+
+        idempotencyService.execute("key-7", "withdraw", request, id -> {
+            usedIds.add(id);
+            return response;
+        });
+
+        assertEquals(List.of("TXN-ORIGINAL"), usedIds);
+    }
+
+    @Test
+    void purge_DeletesExpiredKeysInBatchesTest() {
+        idempotencyService.start();
+        try {
+            when(repository.purgeCreatedBefore(any(), eq(1000))).thenReturn(1000, 1000, 7);
+
+            idempotencyService.purge();
+
+            verify(repository, times(3)).purgeCreatedBefore(any(), eq(1000));
+        } finally {
+            idempotencyService.stop();
+        }
+    }
+
+    @Test
+    void execute_ConcurrentDuplicatesCoalesceTest() throws Exception {
+        when(repository.claim(eq("key-4"), eq("withdraw"), anyString(), anyString(), any())).thenReturn(true);
+        AtomicInteger executions = new AtomicInteger();
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            List<Future<TransactionResponseDto>> futures = new ArrayList<>();
+            futures.add(pool.submit(() -> idempotencyService.execute("key-4", "withdraw", request, id -> {
+                executions.incrementAndGet();
+                started.countDown();
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                return response;
+            })));
+            started.await(5, TimeUnit.SECONDS);
+            for (int i = 0; i < 3; i++) {
+                futures.add(pool.submit(() -> idempotencyService.execute("key-4", "withdraw", request, id -> {
+                    executions.incrementAndGet();
+                    return response;
+                })));
+            }
+            release.countDown();
+            for (Future<TransactionResponseDto> future : futures) {
+                assertSame(response, future.get(5, TimeUnit.SECONDS));
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+
+        assertEquals(1, executions.get());
+    }
+}
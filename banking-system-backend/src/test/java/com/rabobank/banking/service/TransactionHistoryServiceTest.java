@@ -0,0 +1,148 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InjectMocks;
+import org.mockito.Mock;
+import org.mockito.Spy;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.rabobank.banking.config.AccountProperties;
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+import com.rabobank.banking.dto.response.TransactionHistoryPageResponseDto;
+import com.rabobank.banking.repository.AccountRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Filter;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Position;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionHistoryServiceTest {
+
+    private static final LocalDateTime NOW = LocalDateTime.of(2025, 10, 26, 10, 30, 0, 123_456_000);
+
+    @Mock
+    private TransactionHistoryJdbcRepository historyRepository;
+
+    @Mock
+    private AccountRepository accountRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Spy
+    private AccountProperties accountProperties = new AccountProperties();
+
+    @InjectMocks
+    private TransactionHistoryService transactionHistoryService;
+
+    @BeforeEach
+    void setUp() {
+        lenient().when(accountRepository.existsById("ACC001")).thenReturn(true);
+    }
+
+    @Test
+    void getHistory_CursorContinuesAfterLastRowTest() {
+        when(historyRepository.findPage(eq("ACC001"), any(), isNull(), eq(3)))
+            .thenReturn(List.of(row("TXN-3", NOW), row("TXN-2", NOW), row("TXN-1", NOW.minusSeconds(1))));
+
+        TransactionHistoryPageResponseDto first = transactionHistoryService.getHistory("ACC001", null, null, null,
+            null, 2);
+
+        assertEquals(2, first.getTransactions().size());
+        assertNotNull(first.getNextCursor());
+
+        when(historyRepository.findPage("ACC001", new Filter(null, null, null), new Position(NOW, "TXN-2"), 3))
+            .thenReturn(List.of(row("TXN-1", NOW.minusSeconds(1))));
+
+        TransactionHistoryPageResponseDto second = transactionHistoryService.getHistory("ACC001", null, null, null,
+            first.getNextCursor(), 2);
+
+        assertEquals("TXN-1", second.getTransactions().get(0).getTransactionId());
+        assertNull(second.getNextCursor());
+    }
+
+    @Test
+    void getHistory_LimitCappedAtMaxPageSizeTest() {
+        accountProperties.getHistory().setMaxPageSize(20);
+        when(historyRepository.findPage(eq("ACC001"), any(), isNull(), anyInt())).thenReturn(List.of());
+
+        transactionHistoryService.getHistory("ACC001", null, null, Transaction.TransactionType.WITHDRAWAL, null,
+            10_000);
+
+        verify(historyRepository).findPage("ACC001", new Filter(null, null, Transaction.TransactionType.WITHDRAWAL),
+            null, 21);
+        assertThrows(InvalidTransactionException.class,
+            () -> transactionHistoryService.getHistory("ACC001", null, null, null, "bm90LWEtY3Vyc29y", 10));
+    }
+
+    @Test
+    void getHistory_ContinuesIntoArchiveAtBoundaryTest() {
+        LocalDateTime boundary = LocalDateTime.of(2025, 7, 1, 0, 0);
+        when(transactionArchive.archivedBefore()).thenReturn(Optional.of(boundary));
+        when(historyRepository.findPage("ACC001", new Filter(boundary, null, null), null, 3))
+            .thenReturn(List.of(row("TXN-3", boundary.plusDays(1))));
+        when(transactionArchive.findPage("ACC001", new Filter(null, boundary, null), null, 2))
+            .thenReturn(List.of(row("TXN-2", boundary.minusDays(1)), row("TXN-1", boundary.minusDays(2))));
+
+        TransactionHistoryPageResponseDto first = transactionHistoryService.getHistory("ACC001", null, null, null,
+            null, 2);
+
+        assertEquals(List.of("TXN-3", "TXN-2"),
+            first.getTransactions().stream().map(TransactionHistoryItemDto::getTransactionId).toList());
+
+        // Past the boundary only the archive is read
+        when(transactionArchive.findPage("ACC001", new Filter(null, boundary, null),
+            new Position(boundary.minusDays(1), "TXN-2"), 3))
+            .thenReturn(List.of(row("TXN-1", boundary.minusDays(2))));
+
+        TransactionHistoryPageResponseDto second = transactionHistoryService.getHistory("ACC001", null, null, null,
+            first.getNextCursor(), 2);
+
+        assertEquals("TXN-1", second.getTransactions().get(0).getTransactionId());
+        assertNull(second.getNextCursor());
+        verify(historyRepository).findPage(any(), any(), any(), anyInt());
+    }
+
+    @Test
+    void getHistory_RejectsEmptyRangeAndUnknownAccountTest() {
+        when(accountRepository.existsById("ACC999")).thenReturn(false);
+
+        assertThrows(InvalidTransactionException.class,
+            () -> transactionHistoryService.getHistory("ACC001", NOW, NOW, null, null, null));
+        assertThrows(AccountNotFoundException.class,
+            () -> transactionHistoryService.getHistory("ACC999", null, null, null, null, null));
+        verifyNoInteractions(historyRepository);
+    }
+
+    private static TransactionHistoryItemDto row(String transactionId, LocalDateTime transactionDate) {
+        return TransactionHistoryItemDto.builder()
+            .transactionId(transactionId)
+            .type(Transaction.TransactionType.TRANSFER)
+            .amount(new BigDecimal("10.00"))
+            .transactionDate(transactionDate)
+            .build();
+    }
+}
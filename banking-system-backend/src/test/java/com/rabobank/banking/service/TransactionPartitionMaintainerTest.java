@@ -0,0 +1,122 @@
+package com.rabobank.banking.service;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.YearMonth;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.InOrder;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.repository.TransactionPartitionJdbcRepository;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionPartitionMaintainerTest {
+
+    private static final YearMonth OCTOBER = YearMonth.of(2026, 10);
+
+    @Mock
+    private TransactionPartitionJdbcRepository partitionRepository;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionProperties properties;
+    private TransactionPartitionMaintainer maintainer;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        maintainer = new TransactionPartitionMaintainer(partitionRepository, transactionArchive, transactionManager,
+            properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void plan_CreatesMissingMonthsAheadTest() {
+        TransactionPartitionMaintainer.Plan plan = TransactionPartitionMaintainer.plan(
+            Set.of(OCTOBER, OCTOBER.plusMonths(1)), OCTOBER, 3, 0);
+
+        assertEquals(List.of(OCTOBER.plusMonths(2), OCTOBER.plusMonths(3)), plan.create());
+        assertTrue(plan.retire().isEmpty());
+    }
+
+    @Test
+    void plan_RetiresMonthsOutsideRetentionTest() {
+        Set<YearMonth> existing = Set.of(OCTOBER.minusMonths(13), OCTOBER.minusMonths(12), OCTOBER.minusMonths(11),
+            OCTOBER);
+
+        TransactionPartitionMaintainer.Plan plan = TransactionPartitionMaintainer.plan(existing, OCTOBER, 0, 12);
+
+        assertEquals(List.of(OCTOBER.minusMonths(13), OCTOBER.minusMonths(12)), plan.retire());
+        assertTrue(plan.create().isEmpty());
+    }
+
+    @Test
+    void maintain_SkipsWhenAnotherInstanceHoldsTheLockTest() {
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(partitionRepository.tryLock()).thenReturn(false);
+
+        maintainer.maintain();
+
+        verify(partitionRepository, never()).findMonthlyPartitions();
+        verify(partitionRepository, never()).createStandalonePartition(any());
+    }
+
+    @Test
+    void maintain_CreatesThenAttachesInSeparateTransactionsTest() {
+        YearMonth current = YearMonth.now();
+        properties.getPartitions().setMonthsAhead(0);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(partitionRepository.tryLock()).thenReturn(true);
+        when(partitionRepository.findMonthlyPartitions()).thenReturn(Set.of());
+        when(partitionRepository.attachMonthlyPartition(current)).thenReturn(3);
+
+        maintainer.maintain();
+
+        InOrder order = inOrder(partitionRepository);
+        order.verify(partitionRepository).createStandalonePartition(current);
+        order.verify(partitionRepository).attachMonthlyPartition(current);
+        verify(transactionManager, times(3)).commit(any());
+    }
+
+    @Test
+    void maintain_KeepsArchivedPartitionWhenRowsChangedTest() {
+        YearMonth current = YearMonth.now();
+        YearMonth expired = current.minusMonths(2);
+        properties.getPartitions().setMonthsAhead(0);
+        properties.getPartitions().setRetentionMonths(1);
+        properties.getPartitions()
+            .setRetentionAction(TransactionProperties.Partitions.RetentionAction.ARCHIVE);
+        when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        when(partitionRepository.tryLock()).thenReturn(true);
+        when(partitionRepository.findMonthlyPartitions()).thenReturn(Set.of(expired, current));
+        when(transactionArchive.archive(eq(expired), any())).thenReturn(10);
+        when(partitionRepository.lockAndCountRows(expired)).thenReturn(11L);
+
+        maintainer.maintain();
+
+        verify(partitionRepository, never()).dropMonthlyPartition(any());
+    }
+}
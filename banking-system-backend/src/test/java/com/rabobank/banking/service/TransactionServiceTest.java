@@ -3,7 +3,14 @@ package com.rabobank.banking.service;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
@@ -11,30 +18,49 @@ import static org.mockito.Mockito.when;
 
 import java.math.BigDecimal;
 import java.time.LocalDate;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.mockito.InjectMocks;
 import org.mockito.Mock;
+import org.mockito.Spy;
 import org.mockito.junit.jupiter.MockitoExtension;
 
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.config.TransactionProperties.ConcurrencyMode;
+import com.rabobank.banking.config.TransactionProperties.WithdrawMode;
 import com.rabobank.banking.domain.exception.InsufficientFundsException;
 import com.rabobank.banking.domain.exception.InvalidCardException;
 import com.rabobank.banking.domain.exception.InvalidTransactionException;
 import com.rabobank.banking.domain.model.Account;
 import com.rabobank.banking.domain.model.Card;
 import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Money;
 import com.rabobank.banking.domain.model.Transaction;
 import com.rabobank.banking.domain.model.User;
-import com.rabobank.banking.domain.payment.CreditCardPaymentStrategy;
-import com.rabobank.banking.domain.payment.DebitCardPaymentStrategy;
+import com.rabobank.banking.domain.payment.CardPaymentStrategy;
+import com.rabobank.banking.domain.payment.FeeRuleEngine;
 import com.rabobank.banking.dto.request.TransferRequestDto;
 import com.rabobank.banking.dto.request.WithdrawRequestDto;
 import com.rabobank.banking.dto.response.TransactionResponseDto;
+import com.rabobank.banking.repository.AccountBucketJdbcRepository;
 import com.rabobank.banking.repository.CardRepository;
+import com.rabobank.banking.repository.LedgerJdbcRepository;
 import com.rabobank.banking.repository.TransactionRepository;
+import com.rabobank.banking.service.analytics.TransactionRollups;
+import com.rabobank.banking.repository.CardDetails;
+import com.rabobank.banking.service.card.CardLookupCache;
+import com.rabobank.banking.service.card.CardNumberScreen;
+import com.rabobank.banking.service.id.TransactionIdGenerator;
+import com.rabobank.banking.service.id.UuidTransactionIdGenerator;
+import com.rabobank.banking.service.ledger.LedgerEngine;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
 
 @ExtendWith(MockitoExtension.class)
 class TransactionServiceTest {
@@ -45,14 +71,54 @@ class TransactionServiceTest {
     @Mock
     private CardRepository cardRepository;
 
+    @Mock
+    private CardLookupCache cardLookupCache;
+
+    @Mock
+    private CardNumberScreen cardNumberScreen;
+
     @Mock
     private TransactionRepository transactionRepository;
 
     @Mock
-    private DebitCardPaymentStrategy debitCardStrategy;
+    private FeeRuleEngine feeRuleEngine;
+
+    @Mock
+    private CardPaymentStrategy debitCardStrategy;
+
+    @Mock
+    private CardPaymentStrategy creditCardStrategy;
+
+    @Mock
+    private ContentionRetryExecutor retryExecutor;
+
+    @Mock
+    private GroupCommitExecutor groupCommitExecutor;
+
+    @Mock
+    private LedgerJdbcRepository ledgerJdbcRepository;
 
     @Mock
-    private CreditCardPaymentStrategy creditCardStrategy;
+    private BalanceTotals balanceTotals;
+
+    @Mock
+    private TransactionRollups transactionRollups;
+
+    @Spy
+    private TransactionProperties transactionProperties = new TransactionProperties();
+
+    @Spy
+    private AccountLaneDispatcher laneDispatcher =
+        new AccountLaneDispatcher(new TransactionProperties(), new SimpleMeterRegistry());
+
+    @Spy
+    private TransactionIdGenerator transactionIdGenerator = new UuidTransactionIdGenerator();
+
+    private final AccountBucketJdbcRepository accountBucketRepository = mock(AccountBucketJdbcRepository.class);
+
+    @Spy
+    private BucketedBalanceService bucketedBalanceService =
+        new BucketedBalanceService(accountBucketRepository, null, transactionProperties);
 
     @InjectMocks
     private TransactionService transactionService;
@@ -75,8 +141,9 @@ class TransactionServiceTest {
             .accountId("ACC001")
             .accountNumber("NL91RABO0417164300")
             .user(testUser)
-            .balance(new BigDecimal("1000.00"))
+            .balance(Money.of("1000.00"))
             .active(true)
+            .cardPresent(true)
             .build();
 
         testCard = Card.builder()
@@ -90,6 +157,17 @@ class TransactionServiceTest {
             .build();
 
         testAccount.setCard(testCard);
+
+        lenient().when(retryExecutor.execute(anyString(), any()))
+            .thenAnswer(i -> i.<Supplier<?>>getArgument(1).get());
+        lenient().when(retryExecutor.executeReadOnly(anyString(), any()))
+            .thenAnswer(i -> i.<Supplier<?>>getArgument(1).get());
+        lenient().when(cardLookupCache.get(anyString()))
+            .thenAnswer(i -> cardRepository.findByCardNumber(i.getArgument(0)).map(CardDetails::of));
+        lenient().when(groupCommitExecutor.execute(anyString(), any(), any()))
+            .thenAnswer(i -> retryExecutor.execute(i.getArgument(0), i.<Supplier<?>>getArgument(2)));
+        lenient().when(feeRuleEngine.strategyFor(CardType.DEBIT)).thenReturn(debitCardStrategy);
+        lenient().when(feeRuleEngine.strategyFor(CardType.CREDIT)).thenReturn(creditCardStrategy);
     }
 
     @Test
@@ -103,15 +181,15 @@ class TransactionServiceTest {
 
         when(accountService.getAccountByIdWithLock("ACC001")).thenReturn(testAccount);
         when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
-        when(debitCardStrategy.calculateFee(any())).thenReturn(BigDecimal.ZERO);
-        when(debitCardStrategy.calculateTotalAmount(any())).thenReturn(new BigDecimal("100.00"));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("100.00"));
         when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         TransactionResponseDto response = transactionService.withdraw(request);
 
         assertNotNull(response);
         assertEquals(new BigDecimal("100.00"), response.getAmount());
-        assertEquals(BigDecimal.ZERO, response.getFee());
+        assertEquals(new BigDecimal("0.00"), response.getFee());
         assertEquals(new BigDecimal("100.00"), response.getTotalAmount());
         assertEquals(CardType.DEBIT, response.getCardType());
         verify(transactionRepository, times(1)).save(any());
@@ -129,8 +207,8 @@ class TransactionServiceTest {
 
         when(accountService.getAccountByIdWithLock("ACC001")).thenReturn(testAccount);
         when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
-        when(creditCardStrategy.calculateFee(any())).thenReturn(new BigDecimal("1.00"));
-        when(creditCardStrategy.calculateTotalAmount(any())).thenReturn(new BigDecimal("101.00"));
+        when(creditCardStrategy.fee(any())).thenReturn(Money.of("1.00"));
+        when(creditCardStrategy.totalAmount(any())).thenReturn(Money.of("101.00"));
         when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         TransactionResponseDto response = transactionService.withdraw(request);
@@ -139,6 +217,7 @@ class TransactionServiceTest {
         assertEquals(new BigDecimal("100.00"), response.getAmount());
         assertEquals(new BigDecimal("1.00"), response.getFee());
         assertEquals(new BigDecimal("101.00"), response.getTotalAmount());
+        verify(balanceTotals).record(-10100, 0);
     }
 
     @Test
@@ -151,8 +230,8 @@ class TransactionServiceTest {
 
         when(accountService.getAccountByIdWithLock("ACC001")).thenReturn(testAccount);
         when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
-        when(debitCardStrategy.calculateFee(any())).thenReturn(BigDecimal.ZERO);
-        when(debitCardStrategy.calculateTotalAmount(any())).thenReturn(new BigDecimal("2000.00"));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("2000.00"));
 
         assertThrows(InsufficientFundsException.class, () -> {
             transactionService.withdraw(request);
@@ -177,13 +256,96 @@ class TransactionServiceTest {
         });
     }
 
+    @Test
+    void atomicWithdraw_SuccessTest() {
+        transactionProperties.setWithdrawMode(WithdrawMode.ATOMIC);
+
+        WithdrawRequestDto request = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("100.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("100.00"));
+        when(ledgerJdbcRepository.debitAndRecordWithdrawal(any())).thenAnswer(i -> {
+            Transaction transaction = i.getArgument(0);
+            transaction.setBalanceBefore(new BigDecimal("1000.00"));
+            transaction.setBalanceAfter(new BigDecimal("900.00"));
+            return Optional.of(true);
+        });
+
+        TransactionResponseDto response = transactionService.withdraw(request);
+
+        assertEquals(new BigDecimal("1000.00"), response.getBalanceBefore());
+        assertEquals(new BigDecimal("900.00"), response.getBalanceAfter());
+        assertNotNull(response.getTimestamp());
+        verify(accountService, never()).getAccountByIdWithLock(any());
+        verify(transactionRepository, never()).save(any());
+        verify(balanceTotals).record(-10000, 0);
+        verify(balanceTotals, never()).counted(any());
+    }
+
+    @Test
+    void atomicWithdraw_InsufficientFundsTest() {
+        transactionProperties.setWithdrawMode(WithdrawMode.ATOMIC);
+
+        WithdrawRequestDto request = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("2000.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("2000.00"));
+        when(ledgerJdbcRepository.debitAndRecordWithdrawal(any())).thenReturn(Optional.empty());
+        when(ledgerJdbcRepository.findBalance("ACC001")).thenReturn(Optional.of(new BigDecimal("1000.00")));
+
+        InsufficientFundsException exception = assertThrows(InsufficientFundsException.class, () -> {
+            transactionService.withdraw(request);
+        });
+
+        assertEquals(new BigDecimal("1000.00"), exception.getAvailableBalance());
+    }
+
+    @Test
+    void ledgerEngineWithdraw_PostsWithoutTouchingAccountsTest() {
+        LedgerEngine ledgerEngine = mock(LedgerEngine.class);
+        transactionService.setLedgerEngine(ledgerEngine);
+
+        WithdrawRequestDto request = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("100.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("100.00"));
+        when(ledgerEngine.post(any())).thenAnswer(i -> {
+            Transaction transaction = i.getArgument(0);
+            transaction.setBalanceBefore(new BigDecimal("1000.00"));
+            transaction.setBalanceAfter(new BigDecimal("900.00"));
+            return transaction;
+        });
+
+        TransactionResponseDto response = transactionService.withdraw(request);
+
+        assertEquals(new BigDecimal("900.00"), response.getBalanceAfter());
+        verify(retryExecutor).executeReadOnly(eq("ledger-withdraw"), any());
+        verify(accountService, never()).getAccountByIdWithLock(any());
+        verify(transactionRepository, never()).save(any());
+    }
+
     @Test
     void transfer_SuccessTest() {
         Account toAccount = Account.builder()
             .accountId("ACC002")
             .accountNumber("NL91RABO0417164301")
             .user(testUser)
-            .balance(new BigDecimal("500.00"))
+            .balance(Money.of("500.00"))
             .active(true)
             .build();
 
@@ -194,11 +356,11 @@ class TransactionServiceTest {
             .cardNumber("4532123456781234")
             .build();
 
-        when(accountService.getAccountByIdWithLock("ACC001")).thenReturn(testAccount);
-        when(accountService.getAccountByIdWithLock("ACC002")).thenReturn(toAccount);
+        when(accountService.getAccountsByIdWithLock(List.of("ACC001", "ACC002")))
+            .thenReturn(Map.of("ACC001", testAccount, "ACC002", toAccount));
         when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
-        when(debitCardStrategy.calculateFee(any())).thenReturn(BigDecimal.ZERO);
-        when(debitCardStrategy.calculateTotalAmount(any())).thenReturn(new BigDecimal("200.00"));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("200.00"));
         when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
 
         TransactionResponseDto response = transactionService.transfer(request);
@@ -207,6 +369,72 @@ class TransactionServiceTest {
         assertEquals("ACC001", response.getAccountId());
         assertEquals("ACC002", response.getToAccountId());
         assertEquals(Transaction.TransactionType.TRANSFER, response.getType());
+        assertEquals(Money.of("800.00"), testAccount.getBalance());
+        assertEquals(Money.of("700.00"), toAccount.getBalance());
+        verify(retryExecutor, times(1)).execute(any(), any());
+    }
+
+    @Test
+    void transfer_ReceiverWithoutCardTakesAmountOffTotalsTest() {
+        Account toAccount = Account.builder()
+            .accountId("ACC002")
+            .accountNumber("NL91RABO0417164301")
+            .user(testUser)
+            .balance(Money.of("500.00"))
+            .active(true)
+            .build();
+
+        TransferRequestDto request = TransferRequestDto.builder()
+            .fromAccountId("ACC001")
+            .toAccountId("ACC002")
+            .amount(new BigDecimal("200.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        when(accountService.getAccountsByIdWithLock(List.of("ACC001", "ACC002")))
+            .thenReturn(Map.of("ACC001", testAccount, "ACC002", toAccount));
+        when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.of("2.00"));
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("202.00"));
+        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        transactionService.transfer(request);
+
+        // The totals only cover active accounts with a card, so the whole debit leaves them
+        verify(balanceTotals).record(-20200, 0);
+    }
+
+    @Test
+    void optimisticTransfer_ReadsAccountsWithoutLockTest() {
+        transactionProperties.setConcurrencyMode(ConcurrencyMode.OPTIMISTIC);
+
+        Account toAccount = Account.builder()
+            .accountId("ACC002")
+            .accountNumber("NL91RABO0417164301")
+            .user(testUser)
+            .balance(Money.of("500.00"))
+            .active(true)
+            .build();
+
+        TransferRequestDto request = TransferRequestDto.builder()
+            .fromAccountId("ACC001")
+            .toAccountId("ACC002")
+            .amount(new BigDecimal("200.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        when(accountService.getAccountsById(List.of("ACC001", "ACC002")))
+            .thenReturn(Map.of("ACC001", testAccount, "ACC002", toAccount));
+        when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("200.00"));
+        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        transactionService.transfer(request);
+
+        assertEquals(Money.of("800.00"), testAccount.getBalance());
+        assertEquals(Money.of("700.00"), toAccount.getBalance());
+        verify(accountService, never()).getAccountsByIdWithLock(any());
     }
 
     @Test
@@ -221,5 +449,81 @@ class TransactionServiceTest {
         assertThrows(InvalidTransactionException.class, () -> {
             transactionService.transfer(request);
         });
+        verify(retryExecutor, never()).execute(any(), any());
+    }
+
+    @Test
+    void transfer_BucketedReceiverCreditedWithoutLockTest() {
+        transactionProperties.getBuckets().setEnabled(true);
+
+        TransferRequestDto request = TransferRequestDto.builder()
+            .fromAccountId("ACC001")
+            .toAccountId("ACC002")
+            .amount(new BigDecimal("200.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        when(accountBucketRepository.findBucketCount("ACC002")).thenReturn(8);
+        when(accountBucketRepository.creditFreeBucket(eq("ACC002"), eq(8), anyInt(), eq(Money.of("200.00")),
+            any())).thenReturn(Optional.of(false));
+        when(accountService.getAccountsByIdWithLock(List.of("ACC001"))).thenReturn(Map.of("ACC001", testAccount));
+        when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("200.00"));
+        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        TransactionResponseDto response = transactionService.transfer(request);
+
+        assertEquals("ACC002", response.getToAccountId());
+        assertEquals(Money.of("800.00"), testAccount.getBalance());
+        verify(accountService, never()).getAccountsByIdWithLock(List.of("ACC001", "ACC002"));
+        verify(laneDispatcher).execute(eq("ACC001"), any());
+        // The credit statement reports the receiver as not counted, so only the debit leaves the totals
+        verify(balanceTotals).record(-20000, 0);
+        verify(balanceTotals, never()).counted(any());
+        verify(laneDispatcher, never()).execute(any(), any(), any());
+    }
+
+    @Test
+    void withdraw_BucketedAccountDrawsFromBucketsAfterMainBalanceTest() {
+        testAccount.setBucketCount(2);
+
+        WithdrawRequestDto request = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("1250.00"))
+            .cardNumber("4532123456781234")
+            .build();
+
+        when(accountService.getAccountByIdWithLock("ACC001")).thenReturn(testAccount);
+        when(accountBucketRepository.lockBuckets("ACC001")).thenReturn(List.of(
+            new AccountBucketJdbcRepository.Bucket(0, Money.of("100.00")),
+            new AccountBucketJdbcRepository.Bucket(1, Money.of("300.00"))));
+        when(cardRepository.findByCardNumber("4532123456781234")).thenReturn(Optional.of(testCard));
+        when(debitCardStrategy.fee(any())).thenReturn(Money.ZERO);
+        when(debitCardStrategy.totalAmount(any())).thenReturn(Money.of("1250.00"));
+        when(transactionRepository.save(any())).thenAnswer(i -> i.getArgument(0));
+
+        TransactionResponseDto response = transactionService.withdraw(request);
+
+        assertEquals(new BigDecimal("1400.00"), response.getBalanceBefore());
+        assertEquals(new BigDecimal("150.00"), response.getBalanceAfter());
+        assertTrue(testAccount.getBalance().isZero());
+        verify(accountBucketRepository).setBucketBalance(eq("ACC001"), eq(0), eq(Money.of("0.00")), any());
+        verify(accountBucketRepository).setBucketBalance(eq("ACC001"), eq(1), eq(Money.of("150.00")), any());
+    }
+
+    @Test
+    void withdraw_ScreenedCardRejectedBeforeLookupTest() {
+        WithdrawRequestDto request = WithdrawRequestDto.builder()
+            .accountId("ACC001")
+            .amount(new BigDecimal("100.00"))
+            .cardNumber("9999999999999999")
+            .build();
+
+        doThrow(new InvalidCardException("Card not found")).when(cardNumberScreen).check("9999999999999999");
+
+        assertThrows(InvalidCardException.class, () -> transactionService.withdraw(request));
+        verify(cardLookupCache, never()).get(any());
+        verify(groupCommitExecutor, never()).execute(any(), any(), any());
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,111 @@
+package com.rabobank.banking.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.List;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.InvalidTransactionException;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionRollupBucketDto;
+import com.rabobank.banking.dto.response.TransactionRollupResponseDto;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository.Bucket;
+import com.rabobank.banking.service.archive.TransactionArchive;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionRollupServiceTest {
+
+    private static final Transaction.TransactionType WITHDRAWAL = Transaction.TransactionType.WITHDRAWAL;
+
+    @Mock
+    private TransactionRollupJdbcRepository rollupRepository;
+
+    @Mock
+    private TransactionRollups transactionRollups;
+
+    @Mock
+    private TransactionArchive transactionArchive;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionRollupService transactionRollupService;
+
+    @BeforeEach
+    void setUp() {
+        transactionRollupService = new TransactionRollupService(rollupRepository, transactionRollups,
+            transactionArchive, transactionManager, new TransactionProperties());
+    }
+
+    @Test
+    void query_MergesHoursAndPendingTotalsIntoDaysTest() {
+        LocalDateTime from = LocalDateTime.parse("2025-10-25T00:00:00");
+        LocalDateTime to = LocalDateTime.parse("2025-10-27T00:00:00");
+        when(rollupRepository.findRange(from, to, CardType.CREDIT, null)).thenReturn(List.of(
+            bucket("2025-10-25T09:00:00", 2, "100.00", "1.00"),
+            bucket("2025-10-25T17:00:00", 1, "50.00", "0.50"),
+            bucket("2025-10-26T08:00:00", 1, "10.00", "0.10")));
+        when(transactionRollups.pending()).thenReturn(List.of(
+            bucket("2025-10-26T08:00:00", 1, "20.00", "0.20"),
+            bucket("2025-10-27T00:00:00", 5, "500.00", "5.00")));
+
+        TransactionRollupResponseDto response = transactionRollupService.query(from, to, RollupGranularity.DAY,
+            CardType.CREDIT, null);
+
+        assertEquals(List.of(LocalDateTime.parse("2025-10-25T00:00:00"), LocalDateTime.parse("2025-10-26T00:00:00")),
+            response.getBuckets().stream().map(TransactionRollupBucketDto::getBucketStart).toList());
+        assertEquals(3, response.getBuckets().get(0).getTransactionCount());
+        assertEquals(new BigDecimal("1.50"), response.getBuckets().get(0).getFee());
+        assertEquals(new BigDecimal("30.00"), response.getBuckets().get(1).getAmount());
+        assertEquals(5, response.getTransactionCount());
+        assertEquals(new BigDecimal("1.80"), response.getFee());
+    }
+
+    @Test
+    void backfill_RejectsArchivedMonthsTest() {
+        when(transactionArchive.archivedBefore()).thenReturn(Optional.of(LocalDateTime.parse("2025-01-01T00:00:00")));
+
+        assertThrows(InvalidTransactionException.class,
+            () -> transactionRollupService.backfill(LocalDateTime.parse("2024-12-31T00:00:00"), null));
+
+        verifyNoInteractions(rollupRepository);
+    }
+
+    @Test
+    void backfill_RebuildsTheRangeInChunksTest() {
+        when(transactionArchive.archivedBefore()).thenReturn(Optional.empty());
+        when(rollupRepository.rebuild(any(), any())).thenReturn(24);
+
+        var response = transactionRollupService.backfill(LocalDateTime.parse("2025-10-01T00:30:00"),
+            LocalDateTime.parse("2025-10-03T12:00:00"));
+
+        assertEquals(LocalDateTime.parse("2025-10-01T00:00:00"), response.getFrom());
+        assertEquals(3, response.getChunks());
+        assertEquals(72, response.getBuckets());
+        verify(transactionRollups).flush();
+        verify(rollupRepository).rebuild(LocalDateTime.parse("2025-10-03T00:00:00"),
+            LocalDateTime.parse("2025-10-03T12:00:00"));
+    }
+
+    private static Bucket bucket(String start, long count, String amount, String fee) {
+        return new Bucket(LocalDateTime.parse(start), CardType.CREDIT, WITHDRAWAL, count, new BigDecimal(amount),
+            new BigDecimal(fee), new BigDecimal(amount).add(new BigDecimal(fee)));
+    }
+}
@@ -0,0 +1,132 @@
+package com.rabobank.banking.service.analytics;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.Mockito.doNothing;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository;
+import com.rabobank.banking.repository.TransactionRollupJdbcRepository.Bucket;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class TransactionRollupsTest {
+
+    @Mock
+    private TransactionRollupJdbcRepository rollupRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private TransactionRollups transactionRollups;
+
+    @BeforeEach
+    void setUp() {
+        transactionRollups = new TransactionRollups(rollupRepository, transactionManager, new TransactionProperties(),
+            new SimpleMeterRegistry());
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_AddsCommittedTransactionsPerHourTest() {
+        TransactionSynchronizationManager.initSynchronization();
+        transactionRollups.record(withdrawal("10:05", "100.00", "1.00"));
+        transactionRollups.record(withdrawal("10:55", "50.00", "0.50"));
+        transactionRollups.record(withdrawal("11:00", "20.00", "0.20"));
+
+        assertTrue(transactionRollups.pending().isEmpty());
+
+        TransactionSynchronizationManager.getSynchronizations().forEach(TransactionSynchronization::afterCommit);
+        transactionRollups.flush();
+
+        ArgumentCaptor<Collection<Bucket>> flushed = ArgumentCaptor.forClass(Collection.class);
+        verify(rollupRepository).add(flushed.capture());
+        List<Bucket> buckets = flushed.getValue().stream()
+            .sorted((a, b) -> a.bucketStart().compareTo(b.bucketStart())).toList();
+        assertEquals(List.of(
+            new Bucket(at("10:00"), CardType.CREDIT, Transaction.TransactionType.WITHDRAWAL, 2,
+                new BigDecimal("150.00"), new BigDecimal("1.50"), new BigDecimal("151.50")),
+            new Bucket(at("11:00"), CardType.CREDIT, Transaction.TransactionType.WITHDRAWAL, 1,
+                new BigDecimal("20.00"), new BigDecimal("0.20"), new BigDecimal("20.20"))), buckets);
+        assertTrue(transactionRollups.pending().isEmpty());
+    }
+
+    @Test
+    void flush_KeepsTotalsWhenTheDatabaseFailsTest() {
+        transactionRollups.record(withdrawal("10:05", "100.00", "1.00"));
+        doThrow(new DataAccessResourceFailureException("down")).when(rollupRepository).add(anyCollection());
+
+        transactionRollups.flush();
+        transactionRollups.record(withdrawal("10:10", "50.00", "0.50"));
+
+        assertEquals(List.of(new Bucket(at("10:00"), CardType.CREDIT, Transaction.TransactionType.WITHDRAWAL,
+            2, new BigDecimal("150.00"), new BigDecimal("1.50"), new BigDecimal("151.50"))),
+            transactionRollups.pending());
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void flush_DropsTotalsOfHoursRebuiltMeanwhileTest() {
+        transactionRollups.record(withdrawal("10:05", "100.00", "1.00"));
+        transactionRollups.record(withdrawal("11:05", "20.00", "0.20"));
+        doThrow(new DataAccessResourceFailureException("down")).when(rollupRepository).add(anyCollection());
+        transactionRollups.flush();
+
+        // A backfill rebuilt 10:00 from the transactions table before the retry
+        when(rollupRepository.findRebuiltSince(any(), anyCollection())).thenReturn(Set.of(at("10:00")));
+        doNothing().when(rollupRepository).add(anyCollection());
+        transactionRollups.flush();
+
+        ArgumentCaptor<Collection<Bucket>> flushed = ArgumentCaptor.forClass(Collection.class);
+        verify(rollupRepository, times(2)).add(flushed.capture());
+        assertEquals(List.of(new Bucket(at("11:00"), CardType.CREDIT, Transaction.TransactionType.WITHDRAWAL, 1,
+            new BigDecimal("20.00"), new BigDecimal("0.20"), new BigDecimal("20.20"))),
+            List.copyOf(flushed.getAllValues().get(1)));
+        assertTrue(transactionRollups.pending().isEmpty());
+    }
+
+    private static Transaction withdrawal(String time, String amount, String fee) {
+        return Transaction.builder().transactionId("TXN-" + time).accountId("ACC001")
+            .type(Transaction.TransactionType.WITHDRAWAL).cardType(CardType.CREDIT)
+            .amount(new BigDecimal(amount)).fee(new BigDecimal(fee))
+            .totalAmount(new BigDecimal(amount).add(new BigDecimal(fee))).transactionDate(at(time)).build();
+    }
+
+    private static LocalDateTime at(String time) {
+        return LocalDateTime.parse("2025-10-26T" + time);
+    }
+}
@@ -0,0 +1,180 @@
+package com.rabobank.banking.service.archive;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import com.rabobank.banking.config.TransactionProperties;
+import com.rabobank.banking.domain.exception.ArchiveUnavailableException;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto;
+import com.rabobank.banking.dto.response.TransactionHistoryItemDto.Direction;
+import com.rabobank.banking.repository.ArchivedMonthJdbcRepository;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Filter;
+import com.rabobank.banking.repository.TransactionHistoryJdbcRepository.Position;
+
+class TransactionArchiveTest {
+
+    private static final YearMonth MARCH = YearMonth.of(2025, 3);
+    private static final Filter ALL = new Filter(null, null, null);
+
+    @TempDir
+    Path directory;
+
+    private TransactionProperties properties;
+    private ArchivedMonthJdbcRepository archivedMonthRepository;
+    private TransactionArchive archive;
+
+    @BeforeEach
+    void setUp() {
+        properties = new TransactionProperties();
+        properties.getArchive().setDirectory(directory.toString());
+        // Small blocks so that every read crosses block boundaries
+        properties.getArchive().setBlockRows(2);
+        properties.getArchive().setCachedBlocks(1);
+        archivedMonthRepository = mock(ArchivedMonthJdbcRepository.class);
+        archive = new TransactionArchive(properties, archivedMonthRepository);
+    }
+
+    @AfterEach
+    void tearDown() throws Exception {
+        archive.destroy();
+    }
+
+    @Test
+    void findPage_ReturnsBothDirectionsNewestFirstTest() {
+        archive.archive(MARCH, rows -> marchRows().forEach(rows));
+
+        List<TransactionHistoryItemDto> page = archive.findPage("ACC001", ALL, null, 10);
+
+        assertEquals(List.of("TXN-5", "TXN-4", "TXN-3", "TXN-1"), ids(page));
+        TransactionHistoryItemDto received = page.get(1);
+        assertEquals(Direction.CREDIT, received.getDirection());
+        assertEquals("ACC002", received.getCounterpartyAccountId());
+        assertEquals(new BigDecimal("0.00"), received.getFee());
+        assertNull(received.getBalanceAfter());
+        TransactionHistoryItemDto sent = page.get(0);
+        assertEquals(Direction.DEBIT, sent.getDirection());
+        assertEquals(new BigDecimal("51.00"), sent.getTotalAmount());
+        assertEquals(CardType.CREDIT, sent.getCardType());
+        assertEquals(day(5), sent.getTransactionDate());
+    }
+
+    @Test
+    void findPage_AppliesFiltersAndKeysetTest() {
+        archive.archive(MARCH, rows -> marchRows().forEach(rows));
+
+        assertEquals(List.of("TXN-4", "TXN-3"),
+            ids(archive.findPage("ACC001", new Filter(day(3), day(5), null), null, 10)));
+        assertEquals(List.of("TXN-5", "TXN-3", "TXN-1"),
+            ids(archive.findPage("ACC001", new Filter(null, null, Transaction.TransactionType.WITHDRAWAL), null, 10)));
+        assertEquals(List.of("TXN-3", "TXN-1"),
+            ids(archive.findPage("ACC001", ALL, new Position(day(4), "TXN-4"), 10)));
+        assertEquals(List.of("TXN-2"), ids(archive.findPage("ACC002", ALL, new Position(day(4), "TXN-4"), 1)));
+    }
+
+    @Test
+    void archive_SegmentsSurviveRestartTest() throws Exception {
+        assertTrue(archive.archivedBefore().isEmpty());
+
+        archive.archive(MARCH.minusMonths(1), rows -> rows.accept(withdrawal("TXN-0", "ACC001",
+            MARCH.minusMonths(1).atDay(10).atStartOfDay())));
+        archive.archive(MARCH, rows -> marchRows().forEach(rows));
+        archive.destroy();
+        when(archivedMonthRepository.findLatest()).thenReturn(Optional.of(MARCH));
+        when(archivedMonthRepository.findAll()).thenReturn(Map.of(MARCH.minusMonths(1), 1L, MARCH, 5L));
+
+        archive = new TransactionArchive(properties, archivedMonthRepository);
+
+        assertEquals(LocalDateTime.of(2025, 4, 1, 0, 0), archive.archivedBefore().orElseThrow());
+        assertEquals(List.of("TXN-1", "TXN-0"),
+            ids(archive.findPage("ACC001", ALL, new Position(day(3), "TXN-3"), 10)));
+    }
+
+    @Test
+    void findPage_RejectsArchivedMonthWithoutLocalSegmentTest() {
+        archive.archive(MARCH, rows -> marchRows().forEach(rows));
+        when(archivedMonthRepository.findAll()).thenReturn(Map.of(MARCH.minusMonths(1), 1L, MARCH, 5L));
+
+        ArchiveUnavailableException missing = assertThrows(ArchiveUnavailableException.class,
+            () -> archive.findPage("ACC001", ALL, null, 10));
+        assertEquals(MARCH.minusMonths(1), missing.getMonth());
+        assertEquals(4, archive.findPage("ACC001", new Filter(day(1), null, null), null, 10).size());
+    }
+
+    @Test
+    void archive_RejectsRowsOutOfOrderTest() {
+        List<Transaction> rows = new ArrayList<>(marchRows());
+        rows.add(withdrawal("TXN-9", "ACC001", day(9)));
+
+        assertThrows(IllegalArgumentException.class, () -> archive.archive(MARCH, sink -> rows.forEach(sink)));
+        assertTrue(archive.archivedBefore().isEmpty());
+    }
+
+    /** Newest first, as read from a partition. */
+    private static List<Transaction> marchRows() {
+        Transaction transfer = Transaction.builder()
+            .transactionId("TXN-4")
+            .accountId("ACC002")
+            .toAccountId("ACC001")
+            .type(Transaction.TransactionType.TRANSFER)
+            .amount(new BigDecimal("20.00"))
+            .fee(new BigDecimal("0.00"))
+            .totalAmount(new BigDecimal("20.00"))
+            .cardType(CardType.DEBIT)
+            .balanceBefore(new BigDecimal("100.00"))
+            .balanceAfter(new BigDecimal("80.00"))
+            .description("Rent share")
+            .status(Transaction.TransactionStatus.SUCCESS)
+            .transactionDate(day(4))
+            .build();
+        Transaction creditWithdrawal = withdrawal("TXN-5", "ACC001", day(5));
+        creditWithdrawal.setCardType(CardType.CREDIT);
+        creditWithdrawal.setFee(new BigDecimal("1.00"));
+        creditWithdrawal.setTotalAmount(new BigDecimal("51.00"));
+        return List.of(creditWithdrawal, transfer, withdrawal("TXN-3", "ACC001", day(3)),
+            withdrawal("TXN-2", "ACC002", day(2)), withdrawal("TXN-1", "ACC001", day(1)));
+    }
+
+    private static Transaction withdrawal(String transactionId, String accountId, LocalDateTime transactionDate) {
+        return Transaction.builder()
+            .transactionId(transactionId)
+            .accountId(accountId)
+            .type(Transaction.TransactionType.WITHDRAWAL)
+            .amount(new BigDecimal("50.00"))
+            .fee(new BigDecimal("0.00"))
+            .totalAmount(new BigDecimal("50.00"))
+            .cardType(CardType.DEBIT)
+            .balanceBefore(new BigDecimal("500.00"))
+            .balanceAfter(new BigDecimal("450.00"))
+            .status(Transaction.TransactionStatus.SUCCESS)
+            .transactionDate(transactionDate)
+            .build();
+    }
+
+    private static LocalDateTime day(int dayOfMonth) {
+        return MARCH.atDay(dayOfMonth).atTime(12, 0, 0, 250_000_000);
+    }
+
+    private static List<String> ids(List<TransactionHistoryItemDto> page) {
+        return page.stream().map(TransactionHistoryItemDto::getTransactionId).toList();
+    }
+}
@@ -0,0 +1,54 @@
+package com.rabobank.banking.service.card;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import org.junit.jupiter.api.Test;
+
+class BloomFilterTest {
+
+    @Test
+    void mightContain_NoFalseNegativesTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(cardNumber(i));
+        }
+
+        for (int i = 0; i < 10_000; i++) {
+            assertTrue(filter.mightContain(cardNumber(i)));
+        }
+    }
+
+    @Test
+    void mightContain_FalsePositiveRateNearTargetTest() {
+        BloomFilter filter = new BloomFilter(10_000, 0.01);
+        for (int i = 0; i < 10_000; i++) {
+            filter.put(cardNumber(i));
+        }
+
+        int falsePositives = 0;
+        for (int i = 10_000; i < 110_000; i++) {
+            if (filter.mightContain(cardNumber(i))) {
+                falsePositives++;
+            }
+        }
+
+        assertTrue(falsePositives < 2_000, "false positives: " + falsePositives);
+        assertTrue(filter.expectedFalsePositiveRate() < 0.011);
+    }
+
+    @Test
+    void constructor_SizedForTargetRateTest() {
+        BloomFilter filter = new BloomFilter(50_000_000, 0.01);
+
+        // -n ln p / (ln 2)^2 bits, about 9.6 bits per entry at 1%
+        assertEquals(479_252_928L, filter.bitSize(), 64);
+        assertEquals(7, filter.hashFunctions());
+        assertThrows(IllegalArgumentException.class, () -> new BloomFilter(100, 1.0));
+    }
+
+    private static String cardNumber(int i) {
+        return String.format("4532%012d", i);
+    }
+}
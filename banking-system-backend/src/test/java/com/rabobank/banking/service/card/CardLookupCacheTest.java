@@ -0,0 +1,136 @@
+package com.rabobank.banking.service.card;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.time.Duration;
+import java.time.LocalDate;
+import java.util.Optional;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.rabobank.banking.config.CardProperties;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.repository.CardDetails;
+import com.rabobank.banking.repository.CardRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CardLookupCacheTest {
+
+    @Mock
+    private CardRepository cardRepository;
+
+    private SimpleMeterRegistry meterRegistry;
+    private CardProperties properties;
+    private CardLookupCache cardLookupCache;
+
+    @BeforeEach
+    void setUp() {
+        meterRegistry = new SimpleMeterRegistry();
+        properties = new CardProperties();
+        properties.getCache().setMaxSize(2);
+        cardLookupCache = new CardLookupCache(cardRepository, properties, meterRegistry);
+    }
+
+    @Test
+    void get_SecondLookupServedFromCacheTest() {
+        when(cardRepository.findDetailsByCardNumber("4532123456781234"))
+            .thenReturn(Optional.of(details(1L, "4532123456781234")));
+
+        cardLookupCache.get("4532123456781234");
+        Optional<CardDetails> cached = cardLookupCache.get("4532123456781234");
+
+        assertEquals("ACC001", cached.orElseThrow().accountId());
+        verify(cardRepository, times(1)).findDetailsByCardNumber("4532123456781234");
+        assertEquals(1.0, meterRegistry.counter("banking.card.cache.hits").count());
+        assertEquals(1.0, meterRegistry.counter("banking.card.cache.misses").count());
+    }
+
+    @Test
+    void invalidate_NextLookupReloadsTest() {
+        when(cardRepository.findDetailsByCardNumber("4532123456781234"))
+            .thenReturn(Optional.of(details(1L, "4532123456781234")));
+
+        cardLookupCache.get("4532123456781234");
+        cardLookupCache.invalidate(1L, "4532123456781234");
+        cardLookupCache.get("4532123456781234");
+
+        verify(cardRepository, times(2)).findDetailsByCardNumber("4532123456781234");
+    }
+
+    @Test
+    void get_EvictsLeastRecentlyUsedTest() {
+        when(cardRepository.findDetailsByCardNumber("1")).thenReturn(Optional.of(details(1L, "1")));
+        when(cardRepository.findDetailsByCardNumber("2")).thenReturn(Optional.of(details(2L, "2")));
+        when(cardRepository.findDetailsByCardNumber("3")).thenReturn(Optional.of(details(3L, "3")));
+
+        cardLookupCache.get("1");
+        cardLookupCache.get("2");
+        cardLookupCache.get("1");
+        cardLookupCache.get("3");
+        cardLookupCache.get("1");
+
+        assertEquals(2, cardLookupCache.size());
+        assertEquals(1.0, meterRegistry.counter("banking.card.cache.evictions").count());
+        verify(cardRepository, times(1)).findDetailsByCardNumber("1");
+    }
+
+    @Test
+    void get_UnknownCardNotCachedTest() {
+        when(cardRepository.findDetailsByCardNumber("0000")).thenReturn(Optional.empty());
+
+        assertTrue(cardLookupCache.get("0000").isEmpty());
+        assertTrue(cardLookupCache.get("0000").isEmpty());
+
+        verify(cardRepository, times(2)).findDetailsByCardNumber("0000");
+    }
+
+    @Test
+    void get_LoadRacingInvalidationNotCachedTest() {
+        when(cardRepository.findDetailsByCardNumber("4532123456781234")).thenAnswer(invocation -> {
+            cardLookupCache.invalidate(1L, "4532123456781234");
+            return Optional.of(details(1L, "4532123456781234"));
+        });
+
+        cardLookupCache.get("4532123456781234");
+
+        assertEquals(0, cardLookupCache.size());
+    }
+
+    @Test
+    void invalidate_ChangedCardNumberEvictsOldNumberTest() {
+        when(cardRepository.findDetailsByCardNumber("1")).thenReturn(Optional.of(details(1L, "1")));
+
+        cardLookupCache.get("1");
+        cardLookupCache.invalidate(1L, "9");
+        cardLookupCache.get("1");
+
+        verify(cardRepository, times(2)).findDetailsByCardNumber("1");
+    }
+
+    @Test
+    void get_ExpiredEntryReloadedTest() throws InterruptedException {
+        properties.getCache().setTtl(Duration.ofMillis(1));
+        cardLookupCache = new CardLookupCache(cardRepository, properties, meterRegistry);
+        when(cardRepository.findDetailsByCardNumber("1")).thenReturn(Optional.of(details(1L, "1")));
+
+        cardLookupCache.get("1");
+        Thread.sleep(5);
+        cardLookupCache.get("1");
+
+        verify(cardRepository, times(2)).findDetailsByCardNumber("1");
+    }
+
+    private static CardDetails details(Long id, String cardNumber) {
+        return new CardDetails(id, cardNumber, "ACC001", CardType.DEBIT, LocalDate.now().plusYears(1), true);
+    }
+}
@@ -0,0 +1,79 @@
+package com.rabobank.banking.service.card;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.when;
+
+import java.util.function.Consumer;
+
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+
+import com.rabobank.banking.config.CardProperties;
+import com.rabobank.banking.domain.exception.InvalidCardException;
+import com.rabobank.banking.repository.CardNumberJdbcRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class CardNumberScreenTest {
+
+    @Mock
+    private CardNumberJdbcRepository cardNumberRepository;
+
+    private CardProperties properties;
+    private CardNumberScreen cardNumberScreen;
+
+    @BeforeEach
+    void setUp() {
+        properties = new CardProperties();
+        properties.getFilter().setExpectedCards(1_000);
+        cardNumberScreen = new CardNumberScreen(cardNumberRepository, properties, new SimpleMeterRegistry());
+    }
+
+    @Test
+    void check_PassesEverythingUntilBuiltTest() {
+        assertDoesNotThrow(() -> cardNumberScreen.check("1111222233334444"));
+    }
+
+    @Test
+    void check_RejectsUnknownCardAfterBuildTest() {
+        when(cardNumberRepository.forEachCardNumber(anyInt(), any())).thenAnswer(i -> {
+            i.<Consumer<String>>getArgument(1).accept("4532123456781234");
+            return 1L;
+        });
+
+        cardNumberScreen.rebuild();
+
+        assertDoesNotThrow(() -> cardNumberScreen.check("4532123456781234"));
+        assertThrows(InvalidCardException.class, () -> cardNumberScreen.check("1111222233334444"));
+    }
+
+    @Test
+    void register_CardCreatedDuringBuildKeptTest() {
+        when(cardNumberRepository.forEachCardNumber(anyInt(), any())).thenAnswer(i -> {
+            cardNumberScreen.register("5412345678901234");
+            return 0L;
+        });
+
+        cardNumberScreen.rebuild();
+
+        assertDoesNotThrow(() -> cardNumberScreen.check("5412345678901234"));
+    }
+
+    @Test
+    void check_LuhnRejectedWhenEnabledTest() {
+        properties.setLuhnCheckEnabled(true);
+
+        assertTrue(CardNumberScreen.passesLuhn("4539578763621486"));
+        assertFalse(CardNumberScreen.passesLuhn("4539578763621487"));
+        assertThrows(InvalidCardException.class, () -> cardNumberScreen.check("4539578763621487"));
+    }
+}
@@ -0,0 +1,94 @@
+package com.rabobank.banking.service.id;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.jupiter.api.Test;
+
+class TimeOrderedTransactionIdGeneratorTest {
+
+    @Test
+    void nextId_FixedWidthAndSortedTest() {
+        TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(7);
+
+        String previous = generator.nextId();
+        for (int i = 0; i < 100_000; i++) {
+            String next = generator.nextId();
+            assertEquals(17, next.length());
+            assertTrue(next.startsWith("TXN-"));
+            assertTrue(next.compareTo(previous) > 0, next + " should sort after " + previous);
+            previous = next;
+        }
+    }
+
+    @Test
+    void nextId_UniqueAcrossThreadsTest() throws Exception {
+        TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(1);
+        ExecutorService pool = Executors.newFixedThreadPool(8);
+        try {
+            List<Future<List<String>>> futures = new ArrayList<>();
+            for (int t = 0; t < 8; t++) {
+                futures.add(pool.submit(() -> {
+                    List<String> ids = new ArrayList<>(20_000);
+                    for (int i = 0; i < 20_000; i++) {
+                        ids.add(generator.nextId());
+                    }
+                    return ids;
+                }));
+            }
+            Set<String> all = new HashSet<>();
+            for (Future<List<String>> future : futures) {
+                all.addAll(future.get(10, TimeUnit.SECONDS));
+            }
+            assertEquals(160_000, all.size());
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    void nextId_NodeIdKeepsInstancesApartTest() {
+        String first = new TimeOrderedTransactionIdGenerator(1).nextId();
+        String second = new TimeOrderedTransactionIdGenerator(2).nextId();
+
+        assertNotEquals(first, second);
+    }
+
+    @Test
+    void constructor_RejectsOutOfRangeNodeIdTest() {
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedTransactionIdGenerator(1024));
+        assertThrows(IllegalArgumentException.class, () -> new TimeOrderedTransactionIdGenerator(-1));
+    }
+
+    @Test
+    void encode_PreservesNumericOrderTest() {
+        assertTrue(TimeOrderedTransactionIdGenerator.encode(31)
+            .compareTo(TimeOrderedTransactionIdGenerator.encode(32)) < 0);
+        assertEquals("TXN-0000000000000", TimeOrderedTransactionIdGenerator.encode(0));
+    }
+
+    @Test
+    void timestampOf_RecoversGenerationTimeTest() {
+        TimeOrderedTransactionIdGenerator generator = new TimeOrderedTransactionIdGenerator(5);
+        long before = System.currentTimeMillis();
+        String id = generator.nextId();
+        long after = System.currentTimeMillis();
+
+        long generatedAt = generator.timestampOf(id).orElseThrow().toEpochMilli();
+
+        assertTrue(generatedAt >= before && generatedAt <= after + 1);
+        assertTrue(generator.timestampOf("TXN-" + UUID.randomUUID()).isEmpty());
+    }
+}
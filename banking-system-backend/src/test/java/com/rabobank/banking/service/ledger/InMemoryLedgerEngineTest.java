@@ -0,0 +1,185 @@
+package com.rabobank.banking.service.ledger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyCollection;
+import static org.mockito.ArgumentMatchers.anyList;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.lenient;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.ExtendWith;
+import org.junit.jupiter.api.io.TempDir;
+import org.mockito.Mock;
+import org.mockito.junit.jupiter.MockitoExtension;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.SimpleTransactionStatus;
+
+import com.rabobank.banking.config.LedgerProperties;
+import com.rabobank.banking.datasource.ClientWriteTracker;
+import com.rabobank.banking.domain.exception.AccountNotFoundException;
+import com.rabobank.banking.domain.exception.BankingException;
+import com.rabobank.banking.domain.exception.InsufficientFundsException;
+import com.rabobank.banking.domain.model.CardType;
+import com.rabobank.banking.domain.model.Transaction;
+import com.rabobank.banking.repository.LedgerJdbcRepository;
+
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+
+@ExtendWith(MockitoExtension.class)
+class InMemoryLedgerEngineTest {
+
+    @TempDir
+    private Path tempDir;
+
+    @Mock
+    private LedgerJdbcRepository ledgerJdbcRepository;
+
+    @Mock
+    private PlatformTransactionManager transactionManager;
+
+    private LedgerProperties properties;
+    private InMemoryLedgerEngine engine;
+
+    @BeforeEach
+    void setUp() {
+        properties = new LedgerProperties();
+        properties.setJournalPath(tempDir.resolve("ledger.journal"));
+        lenient().when(transactionManager.getTransaction(any())).thenReturn(new SimpleTransactionStatus());
+        lenient().when(ledgerJdbcRepository.findActiveBalances()).thenReturn(Map.of(
+            "ACC001", new BigDecimal("1000.00"),
+            "ACC002", new BigDecimal("500.00")));
+        lenient().when(ledgerJdbcRepository.findExistingTransactionIds(anyCollection())).thenReturn(Set.of());
+        engine = startEngine();
+    }
+
+    @AfterEach
+    void tearDown() {
+        engine.stop();
+    }
+
+    @Test
+    void post_WithdrawalDebitsTotalIncludingFeeTest() {
+        Transaction posted = engine.post(withdrawal("TXN-1", "100.00", "1.00"));
+
+        assertEquals(new BigDecimal("1000.00"), posted.getBalanceBefore());
+        assertEquals(new BigDecimal("899.00"), posted.getBalanceAfter());
+        assertNotNull(posted.getTransactionDate());
+        assertEquals(Optional.of(new BigDecimal("899.00")), engine.getBalance("ACC001"));
+        verify(ledgerJdbcRepository, timeout(2000)).applyPostings(anyList());
+    }
+
+    @Test
+    void post_TransferMovesAmountBetweenAccountsTest() {
+        Transaction transfer = Transaction.builder().transactionId("TXN-2").accountId("ACC001").toAccountId("ACC002")
+            .type(Transaction.TransactionType.TRANSFER).amount(new BigDecimal("200.00")).fee(BigDecimal.ZERO)
+            .totalAmount(new BigDecimal("200.00")).cardType(CardType.DEBIT).build();
+
+        engine.post(transfer);
+
+        assertEquals(Optional.of(new BigDecimal("800.00")), engine.getBalance("ACC001"));
+        assertEquals(Optional.of(new BigDecimal("700.00")), engine.getBalance("ACC002"));
+    }
+
+    @Test
+    void post_InsufficientFundsLeavesBalanceUnchangedTest() {
+        assertThrows(InsufficientFundsException.class,
+            () -> engine.post(withdrawal("TXN-3", "1000.00", "10.00")));
+
+        assertEquals(Optional.of(new BigDecimal("1000.00")), engine.getBalance("ACC001"));
+    }
+
+    @Test
+    void post_UnknownAccountTest() {
+        when(ledgerJdbcRepository.findBalance("ACC404")).thenReturn(Optional.empty());
+        Transaction transaction = withdrawal("TXN-4", "10.00", "0.00");
+        transaction.setAccountId("ACC404");
+
+        assertThrows(AccountNotFoundException.class, () -> engine.post(transaction));
+    }
+
+    @Test
+    void start_ReplaysPostingsMissingFromDatabaseTest() {
+        doThrow(new DataAccessResourceFailureException("database down"))
+            .when(ledgerJdbcRepository).applyPostings(anyList());
+        engine.post(withdrawal("TXN-5", "300.00", "0.00"));
+        engine.stop();
+
+        engine = startEngine();
+
+        assertEquals(Optional.of(new BigDecimal("700.00")), engine.getBalance("ACC001"));
+    }
+
+    @Test
+    void post_TimedOutPostingIsNeverAppliedTest() {
+        engine.stop();
+        properties.setPostingTimeout(Duration.ZERO);
+        engine = startEngine();
+
+        long succeeded = 0;
+        for (int i = 0; i < 200; i++) {
+            try {
+                engine.post(withdrawal("TXN-T" + i, "1.00", "0.00"));
+                succeeded++;
+            } catch (BankingException ex) {
+                assertEquals("LEDGER_TIMEOUT", ex.getErrorCode());
+            }
+        }
+        // Queued behind every earlier posting, so their outcome is final once it returns
+        properties.setPostingTimeout(Duration.ofSeconds(5));
+        engine.post(withdrawal("TXN-LAST", "0.01", "0.00"));
+
+        BigDecimal expected = new BigDecimal("1000.00").subtract(BigDecimal.valueOf(succeeded))
+            .subtract(new BigDecimal("0.01"));
+        assertEquals(Optional.of(expected), engine.getBalance("ACC001"));
+    }
+
+    @Test
+    void post_RefusedOncePersistingFailsPermanentlyTest() {
+        doThrow(new DataIntegrityViolationException("duplicate key"))
+            .when(ledgerJdbcRepository).applyPostings(anyList());
+        engine.post(withdrawal("TXN-6", "10.00", "0.00"));
+        verify(ledgerJdbcRepository, timeout(2000)).applyPostings(anyList());
+
+        BankingException refused = assertThrows(BankingException.class, () -> {
+            for (int i = 0; i < 50; i++) {
+                engine.post(withdrawal("TXN-7-" + i, "1.00", "0.00"));
+                Thread.sleep(20);
+            }
+        });
+        assertEquals("LEDGER_UNAVAILABLE", refused.getErrorCode());
+    }
+
+    private InMemoryLedgerEngine startEngine() {
+        InMemoryLedgerEngine started = new InMemoryLedgerEngine(properties, ledgerJdbcRepository,
+            transactionManager, new SimpleMeterRegistry(),
+            new StaticListableBeanFactory().getBeanProvider(ClientWriteTracker.class));
+        started.start();
+        return started;
+    }
+
+    private static Transaction withdrawal(String id, String amount, String fee) {
+        BigDecimal value = new BigDecimal(amount);
+        BigDecimal charge = new BigDecimal(fee);
+        return Transaction.builder().transactionId(id).accountId("ACC001")
+            .type(Transaction.TransactionType.WITHDRAWAL).amount(value).fee(charge).totalAmount(value.add(charge))
+            .cardType(CardType.DEBIT).build();
+    }
+}